@@ -0,0 +1,104 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Measures the bytes allocated by the threads of Synapse, using the per thread allocation
+ * counters of the HotSpot JVM. The threads of the load generator and the stub backend are left
+ * out by their names. The allocations of the threads which terminate during a measurement are
+ * not counted.
+ */
+public class AllocationMonitor {
+
+    private static final String[] EXCLUDED_THREADS = {
+            LoadGenerator.THREAD_NAME_PREFIX, StubBackend.THREAD_NAME_PREFIX
+    };
+
+    private final com.sun.management.ThreadMXBean threadBean;
+
+    private Map<Long, Long> startAllocations;
+
+    public AllocationMonitor() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocationBean = null;
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            allocationBean = (com.sun.management.ThreadMXBean) bean;
+            if (allocationBean.isThreadAllocatedMemorySupported()) {
+                allocationBean.setThreadAllocatedMemoryEnabled(true);
+            } else {
+                allocationBean = null;
+            }
+        }
+        this.threadBean = allocationBean;
+    }
+
+    public boolean isSupported() {
+        return threadBean != null;
+    }
+
+    public void start() {
+        startAllocations = isSupported() ? snapshot() : null;
+    }
+
+    /**
+     * @return the bytes allocated since the start, or -1 if the JVM cannot tell
+     */
+    public long stop() {
+        if (startAllocations == null) {
+            return -1;
+        }
+        long allocated = 0;
+        for (Map.Entry<Long, Long> entry : snapshot().entrySet()) {
+            Long start = startAllocations.get(entry.getKey());
+            allocated += entry.getValue() - (start != null ? start : 0);
+        }
+        return allocated;
+    }
+
+    private Map<Long, Long> snapshot() {
+        long[] ids = threadBean.getAllThreadIds();
+        ThreadInfo[] threads = threadBean.getThreadInfo(ids);
+        long[] allocations = threadBean.getThreadAllocatedBytes(ids);
+
+        Map<Long, Long> snapshot = new HashMap<Long, Long>();
+        for (int i = 0; i < ids.length; i++) {
+            if (threads[i] != null && allocations[i] >= 0 &&
+                    !isExcluded(threads[i].getThreadName())) {
+                snapshot.put(ids[i], allocations[i]);
+            }
+        }
+        return snapshot;
+    }
+
+    private static boolean isExcluded(String threadName) {
+        for (String prefix : EXCLUDED_THREADS) {
+            if (threadName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
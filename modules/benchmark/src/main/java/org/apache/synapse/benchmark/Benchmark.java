@@ -0,0 +1,299 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.benchmark;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Runs the benchmark scenarios against Synapse started in-process with a local stub backend, and
+ * reports the throughput, the latency percentiles and the allocation rate of each scenario as
+ * JSON. The options are given as <code>--name=value</code> arguments:
+ * <pre>
+ *  --scenarios        comma separated scenarios to run, all of them by default
+ *                     (direct, cbr, xslt, json, clone-aggregate, cache, message-store)
+ *  --clients          number of concurrent clients (32)
+ *  --warmup           warm-up period of each scenario in seconds (10)
+ *  --duration         measurement period of each scenario in seconds (30)
+ *  --port             port of the Synapse pass-through listener (8280)
+ *  --backend-port     port of the stub backend (9000)
+ *  --backend-delay    delay of each backend response in milliseconds (0)
+ *  --backend-threads  IO threads of the stub backend (2)
+ *  --output           file the JSON report is written to, instead of the standard output
+ * </pre>
+ *
+ * The load generator and the stub backend run in the same JVM as Synapse, so that a run needs
+ * nothing but this module. Their threads are left out of the allocation rate, but they do
+ * compete with Synapse for the CPU, which should be kept in mind when comparing the throughput
+ * with that of a dedicated deployment.
+ */
+public class Benchmark {
+
+    private static final Log log = LogFactory.getLog(Benchmark.class);
+
+    private static final String RESOURCE_PATH = "/org/apache/synapse/benchmark/";
+
+    private static final String[] OPTIONS = {
+            "scenarios", "clients", "warmup", "duration", "port", "backend-port",
+            "backend-delay", "backend-threads", "output"
+    };
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<String, String> options = new LinkedHashMap<String, String>();
+
+    public Benchmark(Map<String, String> options) {
+        this.options.put("scenarios", "all");
+        this.options.put("clients", "32");
+        this.options.put("warmup", "10");
+        this.options.put("duration", "30");
+        this.options.put("port", "8280");
+        this.options.put("backend-port", "9000");
+        this.options.put("backend-delay", "0");
+        this.options.put("backend-threads", "2");
+        this.options.putAll(options);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<String, String>();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (!arg.startsWith("--") || index < 0 ||
+                    !Arrays.asList(OPTIONS).contains(arg.substring(2, index))) {
+                System.err.println("Usage: java -jar synapse-benchmark.jar [--" +
+                        join(OPTIONS, "=value] [--") + "=value]");
+                System.exit(1);
+            }
+            options.put(arg.substring(2, index), arg.substring(index + 1));
+        }
+
+        String report = new Benchmark(options).run();
+
+        String output = options.get("output");
+        if (output != null) {
+            OutputStream out = new FileOutputStream(output);
+            try {
+                out.write(report.getBytes("UTF-8"));
+            } finally {
+                out.close();
+            }
+            log.info("Benchmark report written to " + output);
+        } else {
+            PrintStream out = new PrintStream(System.out, true, "UTF-8");
+            out.println(report);
+        }
+        // the transports of Synapse leave non daemon threads behind
+        System.exit(0);
+    }
+
+    /**
+     * Run the selected scenarios
+     *
+     * @return the JSON report of the run
+     * @throws Exception if Synapse or the backend cannot be started
+     */
+    public String run() throws Exception {
+        List<Scenario> scenarios = new ArrayList<Scenario>();
+        if ("all".equals(options.get("scenarios"))) {
+            scenarios.addAll(Arrays.asList(Scenario.values()));
+        } else {
+            for (String name : options.get("scenarios").split(",")) {
+                scenarios.add(Scenario.forName(name));
+            }
+        }
+
+        int clients = getInt("clients");
+        // HttpURLConnection keeps only five idle connections per destination by default
+        System.setProperty("http.maxConnections", String.valueOf(clients));
+
+        StubBackend backend = new StubBackend(getInt("backend-port"), getInt("backend-delay"),
+                getInt("backend-threads"));
+        EmbeddedSynapse synapse = new EmbeddedSynapse(getInt("port"), getInt("backend-port"));
+        AllocationMonitor allocationMonitor = new AllocationMonitor();
+        if (!allocationMonitor.isSupported()) {
+            log.warn("The JVM does not measure thread allocations, " +
+                    "the allocation rate will not be reported");
+        }
+
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        appendField(json, 1, "timestamp", new Date().getTime()).append(",\n");
+        appendField(json, 1, "java", System.getProperty("java.vm.name") + " " +
+                System.getProperty("java.version")).append(",\n");
+        appendField(json, 1, "os", System.getProperty("os.name") + " " +
+                System.getProperty("os.arch")).append(",\n");
+        appendField(json, 1, "processors", Runtime.getRuntime().availableProcessors())
+                .append(",\n");
+        appendField(json, 1, "maxHeap", Runtime.getRuntime().maxMemory()).append(",\n");
+        indent(json, 1).append("\"options\": {");
+        boolean first = true;
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            json.append(first ? "\n" : ",\n");
+            appendField(json, 2, option.getKey(), option.getValue());
+            first = false;
+        }
+        json.append("\n");
+        indent(json, 1).append("},\n");
+        indent(json, 1).append("\"scenarios\": [");
+
+        backend.start();
+        try {
+            synapse.start();
+            first = true;
+            for (Scenario scenario : scenarios) {
+                log.info("Running the " + scenario.getName() + " scenario with " + clients +
+                        " clients");
+                LoadGenerator generator = new LoadGenerator(
+                        new URL(synapse.getServiceURL(scenario)),
+                        scenario.isJson() ? "application/json" : "text/xml; charset=UTF-8",
+                        scenario.isJson() ? null : "urn:getQuote",
+                        loadResource(scenario.isJson() ? "request.json" : "request.xml"),
+                        clients);
+                LoadGenerator.Result result = generator.run(getInt("warmup") * 1000L,
+                        getInt("duration") * 1000L, allocationMonitor);
+                synapse.clearMessageStore();
+
+                log.info(String.format(Locale.US,
+                        "%s: %.1f requests/s, p99 %.2fms, %d errors",
+                        scenario.getName(), result.getThroughput(),
+                        result.getHistogram().getPercentile(99) / 1000.0, result.getErrors()));
+
+                json.append(first ? "\n" : ",\n");
+                appendResult(json, scenario, result);
+                first = false;
+            }
+        } finally {
+            synapse.stop();
+            backend.stop();
+        }
+
+        json.append("\n");
+        indent(json, 1).append("]\n");
+        json.append("}");
+        return json.toString();
+    }
+
+    private void appendResult(StringBuilder json, Scenario scenario,
+                              LoadGenerator.Result result) {
+        LatencyHistogram histogram = result.getHistogram();
+        indent(json, 2).append("{\n");
+        appendField(json, 3, "name", scenario.getName()).append(",\n");
+        appendField(json, 3, "requests", histogram.getCount()).append(",\n");
+        appendField(json, 3, "errors", result.getErrors()).append(",\n");
+        appendField(json, 3, "throughput", round(result.getThroughput())).append(",\n");
+        indent(json, 3).append("\"latencyMillis\": {\n");
+        appendField(json, 4, "mean", round(histogram.getMean() / 1000)).append(",\n");
+        for (double percentile : PERCENTILES) {
+            appendField(json, 4, "p" + String.valueOf(percentile).replace(".0", "")
+                    .replace(".", ""), round(histogram.getPercentile(percentile) / 1000.0))
+                    .append(",\n");
+        }
+        appendField(json, 4, "max", round(histogram.getMax() / 1000.0)).append("\n");
+        indent(json, 3).append("},\n");
+        appendField(json, 3, "allocationBytesPerSecond",
+                round(result.getAllocationRate())).append(",\n");
+        appendField(json, 3, "allocationBytesPerRequest",
+                round(result.getAllocationPerRequest())).append("\n");
+        indent(json, 2).append("}");
+    }
+
+    private int getInt(String option) {
+        try {
+            return Integer.parseInt(options.get(option));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value for --" + option + " : " +
+                    options.get(option));
+        }
+    }
+
+    /**
+     * Load a resource of the benchmark
+     *
+     * @param name the name of the resource
+     * @return the content of the resource
+     * @throws IOException if the resource cannot be read
+     */
+    static byte[] loadResource(String name) throws IOException {
+        InputStream in = Benchmark.class.getResourceAsStream(RESOURCE_PATH + name);
+        if (in == null) {
+            throw new IOException("Benchmark resource not found : " + name);
+        }
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    private static StringBuilder appendField(StringBuilder json, int level, String name,
+                                             Object value) {
+        indent(json, level).append('"').append(name).append("\": ");
+        if (value instanceof Number) {
+            json.append(value);
+        } else {
+            json.append('"').append(String.valueOf(value).replace("\\", "\\\\")
+                    .replace("\"", "\\\"")).append('"');
+        }
+        return json;
+    }
+
+    private static StringBuilder indent(StringBuilder json, int level) {
+        for (int i = 0; i < level; i++) {
+            json.append("  ");
+        }
+        return json;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    private static String join(String[] values, String separator) {
+        StringBuilder builder = new StringBuilder();
+        for (String value : values) {
+            if (builder.length() > 0) {
+                builder.append(separator);
+            }
+            builder.append(value);
+        }
+        return builder.toString();
+    }
+}
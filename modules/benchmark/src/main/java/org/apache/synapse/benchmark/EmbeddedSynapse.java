@@ -0,0 +1,130 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.benchmark;
+
+import org.apache.synapse.ServerConfigurationInformation;
+import org.apache.synapse.ServerManager;
+import org.apache.synapse.ServerState;
+import org.apache.synapse.config.SynapseConfiguration;
+import org.apache.synapse.message.store.MessageStore;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Runs Synapse in-process with the benchmark configuration. The Axis2 repository of the server
+ * is created in a temporary directory, with the pass-through HTTP transport listening on the
+ * given port and the proxy services of the benchmark sending to the stub backend.
+ */
+public class EmbeddedSynapse {
+
+    /** The message store of the message store scenario */
+    public static final String MESSAGE_STORE = "BenchmarkStore";
+
+    private final int port;
+    private final int backendPort;
+
+    private File home;
+    private ServerManager serverManager;
+
+    public EmbeddedSynapse(int port, int backendPort) {
+        this.port = port;
+        this.backendPort = backendPort;
+    }
+
+    public void start() throws IOException {
+        home = File.createTempFile("synapse-benchmark", "");
+        if (!home.delete() || !home.mkdirs()) {
+            throw new IOException("Cannot create the Synapse home at " + home);
+        }
+        File repository = new File(home, "repository");
+        new File(repository, "modules").mkdirs();
+        new File(repository, "services").mkdirs();
+        File axis2Xml = writeConfiguration("axis2.xml");
+        File synapseXml = writeConfiguration("synapse.xml");
+
+        ServerConfigurationInformation information = new ServerConfigurationInformation();
+        information.setSynapseHome(home.getAbsolutePath());
+        information.setAxis2RepoLocation(repository.getAbsolutePath());
+        information.setAxis2Xml(axis2Xml.getAbsolutePath());
+        information.setSynapseXMLLocation(synapseXml.getAbsolutePath());
+        information.setResolveRoot(home.getAbsolutePath());
+        information.setServerName("benchmark");
+
+        serverManager = new ServerManager();
+        serverManager.init(information, null);
+        if (serverManager.start() != ServerState.STARTED) {
+            throw new IllegalStateException("Synapse could not be started");
+        }
+    }
+
+    public void stop() {
+        if (serverManager != null) {
+            serverManager.shutdown();
+        }
+        if (home != null) {
+            delete(home);
+        }
+    }
+
+    /**
+     * Discard the messages stored by the message store scenario
+     */
+    public void clearMessageStore() {
+        SynapseConfiguration configuration =
+                serverManager.getServerContextInformation().getSynapseConfiguration();
+        MessageStore store = configuration.getMessageStore(MESSAGE_STORE);
+        if (store != null) {
+            store.clear();
+        }
+    }
+
+    public String getServiceURL(Scenario scenario) {
+        return "http://localhost:" + port + "/services/" + scenario.getProxyName();
+    }
+
+    private File writeConfiguration(String name) throws IOException {
+        String content = new String(Benchmark.loadResource(name), "UTF-8")
+                .replace("@synapse.port@", String.valueOf(port))
+                .replace("@backend.port@", String.valueOf(backendPort));
+        File file = new File(home, name);
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes("UTF-8"));
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A closed loop load generator. Each client thread sends a request, reads the response fully
+ * and sends the next one over the same keep-alive connection, so that the number of requests in
+ * flight equals the number of clients. The requests sent during the warm-up period are not
+ * measured. The client threads are named with the {@link #THREAD_NAME_PREFIX} so that they can be
+ * told apart from the threads of Synapse.
+ */
+public class LoadGenerator {
+
+    public static final String THREAD_NAME_PREFIX = "benchmark-client";
+
+    private final URL url;
+    private final String contentType;
+    private final String soapAction;
+    private final byte[] request;
+    private final int clients;
+
+    private volatile boolean measuring;
+    private volatile boolean running;
+
+    private final AtomicLong errors = new AtomicLong(0);
+
+    /**
+     * @param url the URL requests are sent to
+     * @param contentType the content type of the requests
+     * @param soapAction the SOAP action of the requests, or null
+     * @param request the body of each request
+     * @param clients the number of concurrent clients
+     */
+    public LoadGenerator(URL url, String contentType, String soapAction, byte[] request,
+                         int clients) {
+        this.url = url;
+        this.contentType = contentType;
+        this.soapAction = soapAction;
+        this.request = request;
+        this.clients = clients;
+    }
+
+    /**
+     * Run the load for the warm-up period followed by the measurement period
+     *
+     * @param warmUpMillis the warm-up period in milliseconds
+     * @param durationMillis the measurement period in milliseconds
+     * @param allocationMonitor the monitor of the allocations during the measurement period
+     * @return the latencies of the requests of the measurement period
+     * @throws InterruptedException if interrupted while waiting for the clients
+     */
+    public Result run(long warmUpMillis, long durationMillis,
+                      AllocationMonitor allocationMonitor) throws InterruptedException {
+
+        List<Client> clientList = new ArrayList<Client>();
+        running = true;
+        for (int i = 0; i < clients; i++) {
+            Client client = new Client();
+            Thread thread = new Thread(client, THREAD_NAME_PREFIX + "-" + i);
+            thread.setDaemon(true);
+            client.thread = thread;
+            clientList.add(client);
+            thread.start();
+        }
+
+        Thread.sleep(warmUpMillis);
+        errors.set(0);
+        allocationMonitor.start();
+        long start = System.nanoTime();
+        measuring = true;
+
+        Thread.sleep(durationMillis);
+
+        measuring = false;
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocationMonitor.stop();
+        running = false;
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (Client client : clientList) {
+            client.thread.join();
+            histogram.add(client.histogram);
+        }
+        return new Result(histogram, errors.get(), elapsed, allocated);
+    }
+
+    private void send(LatencyHistogram histogram, byte[] buffer) {
+        long start = System.nanoTime();
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) url.openConnection();
+            connection.setDoOutput(true);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type", contentType);
+            if (soapAction != null) {
+                connection.setRequestProperty("SOAPAction", soapAction);
+            }
+            connection.setFixedLengthStreamingMode(request.length);
+
+            OutputStream out = connection.getOutputStream();
+            out.write(request);
+            out.close();
+
+            int status = connection.getResponseCode();
+            InputStream in = status < 400 ? connection.getInputStream() :
+                    connection.getErrorStream();
+            if (in != null) {
+                // read the response fully so that the connection can be kept alive
+                while (in.read(buffer) != -1) {
+                }
+                in.close();
+            }
+
+            if (measuring) {
+                if (status == HttpURLConnection.HTTP_OK ||
+                        status == HttpURLConnection.HTTP_ACCEPTED) {
+                    histogram.record((System.nanoTime() - start) / 1000);
+                } else {
+                    errors.incrementAndGet();
+                }
+            }
+        } catch (IOException e) {
+            if (measuring) {
+                errors.incrementAndGet();
+            }
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private class Client implements Runnable {
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private Thread thread;
+
+        public void run() {
+            byte[] buffer = new byte[8192];
+            while (running) {
+                send(histogram, buffer);
+            }
+        }
+    }
+
+    /**
+     * The outcome of a run
+     */
+    public static class Result {
+
+        private final LatencyHistogram histogram;
+        private final long errors;
+        private final long elapsedNanos;
+        private final long allocatedBytes;
+
+        Result(LatencyHistogram histogram, long errors, long elapsedNanos,
+               long allocatedBytes) {
+            this.histogram = histogram;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public double getThroughput() {
+            return histogram.getCount() * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @return the bytes allocated by Synapse per second, or -1 if the JVM cannot tell
+         */
+        public double getAllocationRate() {
+            return allocatedBytes < 0 ? -1 : allocatedBytes * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @return the bytes allocated by Synapse per request, or -1 if the JVM cannot tell
+         */
+        public double getAllocationPerRequest() {
+            return allocatedBytes < 0 || histogram.getCount() == 0 ? -1 :
+                    (double) allocatedBytes / histogram.getCount();
+        }
+    }
+}
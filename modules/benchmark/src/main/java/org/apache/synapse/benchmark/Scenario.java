@@ -0,0 +1,86 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.benchmark;
+
+/**
+ * The mediation scenarios the benchmark runs. Each scenario is served by a proxy service of the
+ * benchmark configuration, and is driven with an XML or a JSON request.
+ */
+public enum Scenario {
+
+    /** A proxy which passes the messages through without building them */
+    DIRECT("direct", "DirectProxy", false),
+
+    /** Content based routing with an XPath over the request */
+    CBR("cbr", "CBRProxy", false),
+
+    /** An XSLT transformation of the request */
+    XSLT("xslt", "XSLTProxy", false),
+
+    /** A JSON request transformed with the payload factory */
+    JSON("json", "JSONProxy", true),
+
+    /** The request cloned to the backend twice, and the responses aggregated */
+    CLONE_AGGREGATE("clone-aggregate", "CloneAggregateProxy", false),
+
+    /** Responses served from the cache, after the first one */
+    CACHE("cache", "CacheProxy", false),
+
+    /** Requests stored in an in-memory message store and acknowledged */
+    MESSAGE_STORE("message-store", "MessageStoreProxy", false);
+
+    private final String name;
+    private final String proxyName;
+    private final boolean json;
+
+    private Scenario(String name, String proxyName, boolean json) {
+        this.name = name;
+        this.proxyName = proxyName;
+        this.json = json;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getProxyName() {
+        return proxyName;
+    }
+
+    public boolean isJson() {
+        return json;
+    }
+
+    /**
+     * Find a scenario by its name
+     *
+     * @param name the name of the scenario
+     * @return the scenario
+     * @throws IllegalArgumentException if there is no such scenario
+     */
+    public static Scenario forName(String name) {
+        for (Scenario scenario : values()) {
+            if (scenario.name.equalsIgnoreCase(name.trim())) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scenario : " + name);
+    }
+}
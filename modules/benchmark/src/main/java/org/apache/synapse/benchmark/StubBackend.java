@@ -0,0 +1,204 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.benchmark;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.nio.DefaultHttpServerIODispatch;
+import org.apache.http.impl.nio.DefaultNHttpServerConnectionFactory;
+import org.apache.http.impl.nio.reactor.DefaultListeningIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.entity.NByteArrayEntity;
+import org.apache.http.nio.protocol.BasicAsyncRequestConsumer;
+import org.apache.http.nio.protocol.HttpAsyncExchange;
+import org.apache.http.nio.protocol.HttpAsyncRequestConsumer;
+import org.apache.http.nio.protocol.HttpAsyncRequestHandler;
+import org.apache.http.nio.protocol.HttpAsyncService;
+import org.apache.http.nio.protocol.UriHttpAsyncRequestHandlerMapper;
+import org.apache.http.nio.reactor.IOEventDispatch;
+import org.apache.http.nio.reactor.ListenerEndpoint;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpProcessor;
+import org.apache.http.protocol.HttpProcessorBuilder;
+import org.apache.http.protocol.ResponseConnControl;
+import org.apache.http.protocol.ResponseContent;
+import org.apache.http.protocol.ResponseDate;
+import org.apache.http.protocol.ResponseServer;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A non-blocking HTTP backend answering every request with a canned XML or JSON response,
+ * depending on the content type of the request. The responses can be delayed to emulate a slow
+ * service; delayed responses are submitted from a timer, so that a delay never holds an IO
+ * thread. The backend runs on its own IO reactor, whose threads are named with the
+ * {@link #THREAD_NAME_PREFIX} so that they can be told apart from the threads of Synapse.
+ */
+public class StubBackend {
+
+    private static final Log log = LogFactory.getLog(StubBackend.class);
+
+    public static final String THREAD_NAME_PREFIX = "benchmark-backend";
+
+    private final int port;
+    private final int delay;
+    private final int ioThreads;
+
+    private final byte[] xmlResponse;
+    private final byte[] jsonResponse;
+
+    private DefaultListeningIOReactor ioReactor;
+    private ScheduledExecutorService timer;
+    private Thread reactorThread;
+
+    /**
+     * @param port the port to listen on
+     * @param delay the time in milliseconds each response is delayed by
+     * @param ioThreads the number of IO threads of the backend
+     */
+    public StubBackend(int port, int delay, int ioThreads) throws IOException {
+        this.port = port;
+        this.delay = delay;
+        this.ioThreads = ioThreads;
+        this.xmlResponse = Benchmark.loadResource("response.xml");
+        this.jsonResponse = Benchmark.loadResource("response.json");
+    }
+
+    public void start() throws IOException, InterruptedException {
+        HttpProcessor httpProcessor = HttpProcessorBuilder.create()
+                .add(new ResponseDate())
+                .add(new ResponseServer("Synapse-Benchmark-Backend"))
+                .add(new ResponseContent())
+                .add(new ResponseConnControl()).build();
+
+        UriHttpAsyncRequestHandlerMapper handlers = new UriHttpAsyncRequestHandlerMapper();
+        handlers.register("*", new StubHandler());
+
+        final IOEventDispatch ioEventDispatch = new DefaultHttpServerIODispatch(
+                new HttpAsyncService(httpProcessor, handlers),
+                new DefaultNHttpServerConnectionFactory(ConnectionConfig.DEFAULT));
+
+        IOReactorConfig config = IOReactorConfig.custom()
+                .setIoThreadCount(ioThreads)
+                .setSoReuseAddress(true)
+                .setTcpNoDelay(true).build();
+        ioReactor = new DefaultListeningIOReactor(config, new NamedThreadFactory("io"));
+        timer = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("timer"));
+
+        ListenerEndpoint endpoint = ioReactor.listen(new InetSocketAddress(port));
+
+        reactorThread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    ioReactor.execute(ioEventDispatch);
+                } catch (InterruptedIOException ignored) {
+                } catch (IOException e) {
+                    log.error("Stub backend IO reactor failed", e);
+                }
+            }
+        }, THREAD_NAME_PREFIX + "-reactor");
+        reactorThread.setDaemon(true);
+        reactorThread.start();
+
+        endpoint.waitFor();
+        if (endpoint.getException() != null) {
+            throw new IOException("Cannot listen on port " + port + " : " +
+                    endpoint.getException().getMessage());
+        }
+        log.info("Stub backend listening on port " + port +
+                (delay > 0 ? " with a response delay of " + delay + "ms" : ""));
+    }
+
+    public void stop() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        if (ioReactor != null) {
+            try {
+                ioReactor.shutdown(1000);
+            } catch (IOException e) {
+                log.warn("Error shutting down the stub backend", e);
+            }
+        }
+    }
+
+    private class StubHandler implements HttpAsyncRequestHandler<HttpRequest> {
+
+        public HttpAsyncRequestConsumer<HttpRequest> processRequest(HttpRequest request,
+                                                                    HttpContext context) {
+            return new BasicAsyncRequestConsumer();
+        }
+
+        public void handle(HttpRequest request, final HttpAsyncExchange exchange,
+                           HttpContext context) {
+
+            String contentType = request.getFirstHeader("Content-Type") != null ?
+                    request.getFirstHeader("Content-Type").getValue() : "";
+            HttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.SC_OK);
+            if (contentType.contains("json")) {
+                response.setEntity(new NByteArrayEntity(jsonResponse,
+                        ContentType.APPLICATION_JSON));
+            } else {
+                response.setEntity(new NByteArrayEntity(xmlResponse,
+                        ContentType.create("text/xml", "UTF-8")));
+            }
+
+            if (delay > 0) {
+                timer.schedule(new Runnable() {
+                    public void run() {
+                        exchange.submitResponse();
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+            } else {
+                exchange.submitResponse();
+            }
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger(0);
+
+        private NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, THREAD_NAME_PREFIX + "-" + name + "-" +
+                    count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
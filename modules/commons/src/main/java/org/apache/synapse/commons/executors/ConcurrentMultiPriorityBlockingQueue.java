@@ -0,0 +1,513 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.commons.executors;
+
+import org.apache.synapse.commons.executors.queues.ConcurrentInternalQueue;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A multi priority queue which doesn't hold a global lock for adding or retrieving elements.
+ * The elements should implement the Importance interface. </p>
+ *
+ * <p> Each priority has its own non-blocking {@link ConcurrentInternalQueue}, shared by all the
+ * consumer threads, so an idle thread always picks up the work available in any of the queues.
+ * The priority based round robin of the {@link PRRNextQueueAlgorithm} is applied by each consumer
+ * thread on its own: a thread takes up to <code>priority</code> elements from a queue before it
+ * moves on to the next non empty queue. </p>
+ *
+ * <p> A lock is only taken by threads which have to wait, i.e. consumers when all the queues are
+ * empty and producers when the fixed size queue for the priority is full. Threads which add or
+ * retrieve elements only signal when there are such waiting threads. </p>
+ *
+ * @param <E> E should implement the Importance interface.
+ */
+public class ConcurrentMultiPriorityBlockingQueue<E> extends AbstractQueue<E>
+        implements MultiPriorityQueue<E> {
+
+    /** List of queues corresponding to different priorities, highest priority first */
+    private final List<ConcurrentInternalQueue<E>> queues;
+
+    /** Number of items in the queue */
+    private final AtomicInteger count = new AtomicInteger();
+
+    private final int capacity;
+
+    /** whether fixed size queues are used */
+    private final boolean isFixedSizeQueues;
+
+    /** Lock held by the threads waiting for elements or space */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Waiting queue for takes */
+    private final Condition notEmpty = lock.newCondition();
+
+    /** Waiting queue for puts */
+    private final Condition notFull = lock.newCondition();
+
+    /** Number of consumers and producers waiting on the above conditions */
+    private final AtomicInteger waitingConsumers = new AtomicInteger();
+    private final AtomicInteger waitingProducers = new AtomicInteger();
+
+    /** Round robin position of each consumer thread */
+    private final ThreadLocal<Cursor> cursor = new ThreadLocal<Cursor>() {
+        @Override
+        protected Cursor initialValue() {
+            return new Cursor();
+        }
+    };
+
+    /**
+     * Create a queue with the priorities and sizes of the given queues. </p>
+     *
+     * <p> The given queues only describe the priorities and the sizes, a concurrent queue is
+     * created for each of them. This queue accepts objects with only the priorities specified.
+     * If a object is submitted with a different priority it will result in an
+     * IllegalArgumentException. </p>
+     *
+     * @param queues list of InternalQueue describing the priorities
+     * @param isFixedQueues weather fixed size queues are used
+     */
+    public ConcurrentMultiPriorityBlockingQueue(List<InternalQueue<E>> queues,
+                                                boolean isFixedQueues) {
+        this.isFixedSizeQueues = isFixedQueues;
+        this.queues = new ArrayList<ConcurrentInternalQueue<E>>(queues.size());
+
+        int totalCapacity = 0;
+        for (InternalQueue<E> q : queues) {
+            int size = isFixedQueues ? q.getCapacity() : Integer.MAX_VALUE;
+            this.queues.add(new ConcurrentInternalQueue<E>(q.getPriority(), size));
+            totalCapacity += size;
+        }
+        capacity = isFixedQueues ? totalCapacity : Integer.MAX_VALUE;
+
+        Collections.sort(this.queues, new Comparator<InternalQueue<E>>() {
+            public int compare(InternalQueue<E> o1, InternalQueue<E> o2) {
+                return o2.getPriority() - o1.getPriority();
+            }
+        });
+    }
+
+    /**
+     * Put the specified value in to the queue. The put will block until space available
+     * in the corresponding internal queue.
+     *
+     * @param e object that implements the Importance interface
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public void put(E e) throws InterruptedException {
+        offer(e, Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Add the element if space available in the internal queue corresponding to the
+     * priority of the object.
+     *
+     * @param e element to be added
+     * @return true if element is added
+     */
+    public boolean offer(E e) {
+        return offer(e, getQueueForPriority(((Importance) e).getPriority()));
+    }
+
+    /**
+     * Try to add the element within the given time period. Wait the specified time for
+     * space to be available. This method blocks only if the internal queue with the
+     * corresponding priority is full.
+     *
+     * @param e element to be added
+     * @param timeout time to wait if space not available
+     * @param unit time unit
+     * @return true if the element is added
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        ConcurrentInternalQueue<E> internalQueue =
+                getQueueForPriority(((Importance) e).getPriority());
+        if (offer(e, internalQueue)) {
+            return true;
+        }
+
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            waitingProducers.incrementAndGet();
+            try {
+                for (;;) {
+                    if (offer(e, internalQueue)) {
+                        return true;
+                    }
+                    if (nanos <= 0) {
+                        return false;
+                    }
+                    nanos = notFull.awaitNanos(nanos);
+                }
+            } finally {
+                waitingProducers.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get an element. Block until an element is available
+     * @return an element
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public E take() throws InterruptedException {
+        E e = poll();
+        if (e != null) {
+            return e;
+        }
+
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            waitingConsumers.incrementAndGet();
+            try {
+                while ((e = poll()) == null) {
+                    notEmpty.await();
+                }
+                return e;
+            } catch (InterruptedException ie) {
+                notEmpty.signal();
+                throw ie;
+            } finally {
+                waitingConsumers.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get the element from the top of the queue. If an element is not available wait
+     * the specified timeout.
+     *
+     * @param timeout waiting time for element to be available
+     * @param unit time unit
+     * @return an object
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = poll();
+        if (e != null) {
+            return e;
+        }
+
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        lock.lockInterruptibly();
+        try {
+            waitingConsumers.incrementAndGet();
+            try {
+                for (;;) {
+                    if ((e = poll()) != null) {
+                        return e;
+                    }
+                    if (nanos <= 0) {
+                        return null;
+                    }
+                    nanos = notEmpty.awaitNanos(nanos);
+                }
+            } catch (InterruptedException ie) {
+                notEmpty.signal();
+                throw ie;
+            } finally {
+                waitingConsumers.decrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Get an element without blocking, choosing the queue in the priority based round robin
+     * order of the calling thread.
+     *
+     * @return an element or null if all the queues are empty
+     */
+    public E poll() {
+        Cursor c = cursor.get();
+        int size = queues.size();
+        // one extra step to come back to the current queue if its round is already over
+        for (int i = 0; i <= size; i++) {
+            ConcurrentInternalQueue<E> internalQueue = queues.get(c.queue);
+            if (c.served < internalQueue.getPriority()) {
+                E e = internalQueue.poll();
+                if (e != null) {
+                    c.served++;
+                    removed(1);
+                    return e;
+                }
+            }
+            c.queue = c.queue == size - 1 ? 0 : c.queue + 1;
+            c.served = 0;
+        }
+        return null;
+    }
+
+    /**
+     * We always give high priority to highest priority elements. We try to drain all the
+     * high priority items first.
+     *
+     * @param c collection to drain the items
+     * @return number of elements copied
+     */
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * We always give high priority to highest priority elements. We try to drain all the
+     * high priority items first.
+     *
+     * @param c collection to drain the items
+     * @param maxElements maximum elements to copy
+     * @return number of elements copied
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        int elementsCopied = 0;
+        for (ConcurrentInternalQueue<E> internalQueue : queues) {
+            elementsCopied += internalQueue.drainTo(c, maxElements - elementsCopied);
+        }
+        removed(elementsCopied);
+        return elementsCopied;
+    }
+
+    public int remainingCapacity() {
+        return capacity == Integer.MAX_VALUE ? Integer.MAX_VALUE : capacity - count.get();
+    }
+
+    public E peek() {
+        for (ConcurrentInternalQueue<E> internalQueue : queues) {
+            E e = internalQueue.peek();
+            if (e != null) {
+                return e;
+            }
+        }
+        return null;
+    }
+
+    public Iterator<E> iterator() {
+        return new QueueIterator(toArray());
+    }
+
+    public int size() {
+        return count.get();
+    }
+
+    public boolean isEmpty() {
+        return count.get() == 0;
+    }
+
+    public boolean remove(Object o) {
+        for (ConcurrentInternalQueue<E> internalQueue : queues) {
+            if (internalQueue.remove(o)) {
+                removed(1);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean contains(Object o) {
+        for (ConcurrentInternalQueue<E> internalQueue : queues) {
+            if (internalQueue.contains(o)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public String toString() {
+        StringBuffer s = new StringBuffer();
+        for (ConcurrentInternalQueue<E> internalQueue : queues) {
+            s.append(internalQueue.toString());
+        }
+        return s.toString();
+    }
+
+    public void clear() {
+        drainTo(new ArrayList<E>());
+    }
+
+    @SuppressWarnings({"SuspiciousToArrayCall"})
+    public <T> T[] toArray(T[] a) {
+        List<E> list = new ArrayList<E>();
+        for (ConcurrentInternalQueue<E> internalQueue : queues) {
+            list.addAll(internalQueue);
+        }
+        return list.toArray(a);
+    }
+
+    public Object[] toArray() {
+        List<E> list = new ArrayList<E>();
+        for (ConcurrentInternalQueue<E> internalQueue : queues) {
+            list.addAll(internalQueue);
+        }
+        return list.toArray();
+    }
+
+    /**
+     * Get the average time the elements of the given priority waited in the queue
+     *
+     * @param priority priority of the elements
+     * @return average wait time in milliseconds
+     */
+    public double getAverageWaitTime(int priority) {
+        return getQueueForPriority(priority).getAverageWaitTime();
+    }
+
+    /**
+     * Get the maximum time an element of the given priority waited in the queue
+     *
+     * @param priority priority of the elements
+     * @return maximum wait time in milliseconds
+     */
+    public double getMaxWaitTime(int priority) {
+        return getQueueForPriority(priority).getMaxWaitTime();
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<InternalQueue<E>> getQueues() {
+        return (List) Collections.unmodifiableList(queues);
+    }
+
+    /**
+     * This queue doesn't use a pluggable algorithm for choosing the next queue
+     *
+     * @return null
+     */
+    public NextQueueAlgorithm<E> getNextQueueAlgorithm() {
+        return null;
+    }
+
+    public boolean isFixedSizeQueues() {
+        return isFixedSizeQueues;
+    }
+
+    private boolean offer(E e, ConcurrentInternalQueue<E> internalQueue) {
+        // count before adding, so that a consumer never sees a negative count
+        count.incrementAndGet();
+        if (!internalQueue.offer(e)) {
+            count.decrementAndGet();
+            return false;
+        }
+        if (waitingConsumers.get() > 0) {
+            signal(notEmpty, false);
+        }
+        return true;
+    }
+
+    private void removed(int elements) {
+        if (elements > 0) {
+            count.addAndGet(-elements);
+            if (waitingProducers.get() > 0) {
+                // producers may be waiting on any of the queues
+                signal(notFull, true);
+            }
+        }
+    }
+
+    private void signal(Condition condition, boolean all) {
+        final ReentrantLock lock = this.lock;
+        lock.lock();
+        try {
+            if (all) {
+                condition.signalAll();
+            } else {
+                condition.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ConcurrentInternalQueue<E> getQueueForPriority(int priority) {
+        for (ConcurrentInternalQueue<E> q : queues) {
+            if (q.getPriority() == priority) {
+                return q;
+            }
+        }
+        throw new IllegalArgumentException();
+    }
+
+    /**
+     * The queue a consumer thread is currently taking elements from and the number of
+     * elements it has taken from that queue in this round
+     */
+    private static class Cursor {
+        private int queue = 0;
+        private int served = 0;
+    }
+
+    private class QueueIterator implements Iterator<E> {
+        final Object[] array;
+        int cursor;
+        int lastRet;
+
+        QueueIterator(Object[] array) {
+            lastRet = -1;
+            this.array = array;
+        }
+
+        public boolean hasNext() {
+            return cursor < array.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        public E next() {
+            if (cursor >= array.length)
+                throw new NoSuchElementException();
+            lastRet = cursor;
+            return (E) array[cursor++];
+        }
+
+        public void remove() {
+            if (lastRet < 0)
+                throw new IllegalStateException();
+            Object x = array[lastRet];
+            lastRet = -1;
+            for (ConcurrentInternalQueue<E> internalQueue : queues) {
+                for (Iterator<E> it = internalQueue.iterator(); it.hasNext();) {
+                    if (it.next() == x) {
+                        it.remove();
+                        removed(1);
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
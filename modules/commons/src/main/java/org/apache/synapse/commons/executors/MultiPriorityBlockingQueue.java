@@ -19,7 +19,6 @@
 
 package org.apache.synapse.commons.executors;
 
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.Condition;
@@ -36,7 +35,7 @@ import java.util.*;
  * @param <E> E should implement the Importance interface.
  */
 public class MultiPriorityBlockingQueue<E> extends AbstractQueue<E>
-        implements BlockingQueue<E> {
+        implements MultiPriorityQueue<E> {
     
     /** List of queues corresponding to different priorities */
     private List<InternalQueue<E>> queues;
@@ -0,0 +1,53 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.commons.executors;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A blocking queue made of several internal queues, one for each priority. This is the queue
+ * used by the {@link PriorityExecutor}.
+ *
+ * @param <E> E should implement the Importance interface.
+ */
+public interface MultiPriorityQueue<E> extends BlockingQueue<E> {
+
+    /**
+     * Get the internal queues, in the descending order of priority
+     *
+     * @return the internal queues
+     */
+    List<InternalQueue<E>> getQueues();
+
+    /**
+     * Get the algorithm used for choosing the next queue
+     *
+     * @return the algorithm or null if the queue doesn't use a pluggable algorithm
+     */
+    NextQueueAlgorithm<E> getNextQueueAlgorithm();
+
+    /**
+     * Whether the internal queues are of a fixed size
+     *
+     * @return true if fixed size queues are used
+     */
+    boolean isFixedSizeQueues();
+}
@@ -48,7 +48,7 @@ public class PriorityExecutor {
     /** This will be executed before the Task is submitted  */
     private BeforeExecuteHandler beforeExecuteHandler;
     /** Queue used by the executor */
-    private MultiPriorityBlockingQueue<Runnable> queue;
+    private MultiPriorityQueue<Runnable> queue;
     /** this is used by the file based synapse xml configuration */
     private String fileName;
     /** Weather executor is initializer */
@@ -164,7 +164,7 @@ public class PriorityExecutor {
      *
      * @param queue queue used for handling the priorities
      */
-    public void setQueue(MultiPriorityBlockingQueue<Runnable> queue) {
+    public void setQueue(MultiPriorityQueue<Runnable> queue) {
         this.queue = queue;
     }
 
@@ -173,7 +173,7 @@ public class PriorityExecutor {
      *
      * @return queue used for handling multiple priorities
      */
-    public MultiPriorityBlockingQueue<Runnable> getQueue() {
+    public MultiPriorityQueue<Runnable> getQueue() {
         return queue;
     }
 
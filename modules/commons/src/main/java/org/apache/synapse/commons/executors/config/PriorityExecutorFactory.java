@@ -101,8 +101,14 @@ public class PriorityExecutorFactory {
             List<InternalQueue<Runnable>> intQueues
                     = createQueues(queueQName, queuesEle, isFixedSize);
 
-            MultiPriorityBlockingQueue<Runnable> queue =
-                    new MultiPriorityBlockingQueue<Runnable>(intQueues, isFixedSize, nqa);
+            // a custom algorithm needs a consistent view of all the queues, which is only
+            // available under the global lock of the MultiPriorityBlockingQueue
+            MultiPriorityQueue<Runnable> queue;
+            if (nqa == null || nqa instanceof PRRNextQueueAlgorithm) {
+                queue = new ConcurrentMultiPriorityBlockingQueue<Runnable>(intQueues, isFixedSize);
+            } else {
+                queue = new MultiPriorityBlockingQueue<Runnable>(intQueues, isFixedSize, nqa);
+            }
 
             executor.setQueue(queue);
         } else {
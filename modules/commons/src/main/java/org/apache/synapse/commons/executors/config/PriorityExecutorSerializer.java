@@ -48,11 +48,11 @@ public class PriorityExecutorSerializer {
         }
 
         // create the queues configuration
-        MultiPriorityBlockingQueue queue = executor.getQueue();
+        MultiPriorityQueue queue = executor.getQueue();
         NextQueueAlgorithm algo = queue.getNextQueueAlgorithm();
         OMElement queuesEle = createElement(ExecutorConstants.QUEUES, namespace);
 
-        if (!(algo instanceof PRRNextQueueAlgorithm)) {
+        if (algo != null && !(algo instanceof PRRNextQueueAlgorithm)) {
             queuesEle.addAttribute(fac.createOMAttribute(ExecutorConstants.NEXT_QUEUE, nullNS,
                     algo.getClass().getName()));
         }
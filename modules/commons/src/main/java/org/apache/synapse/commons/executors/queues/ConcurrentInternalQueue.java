@@ -0,0 +1,214 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.commons.executors.queues;
+
+import org.apache.synapse.commons.executors.InternalQueue;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+
+/**
+ * A thread-safe, non-blocking internal queue used by the
+ * {@link org.apache.synapse.commons.executors.ConcurrentMultiPriorityBlockingQueue}. The queue
+ * may be bounded, in which case an offer fails when the queue is full. The queue keeps track of
+ * the time elements wait in it, from the offer to the poll.
+ *
+ * @param <E> Should implement the Importance interface
+ */
+public class ConcurrentInternalQueue<E> extends AbstractQueue<E> implements InternalQueue<E> {
+
+    /**
+     * Priority of this queue
+     */
+    private int priority;
+
+    /**
+     * Capacity of the queue, Integer.MAX_VALUE if unbounded
+     */
+    private final int capacity;
+
+    /**
+     * Elements along with the time they were queued
+     */
+    private final ConcurrentLinkedQueue<Entry<E>> entries = new ConcurrentLinkedQueue<Entry<E>>();
+
+    /**
+     * Number of elements in the queue, including the slots reserved by the offers in progress
+     */
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * Wait time statistics of the polled elements, in nano seconds
+     */
+    private final AtomicLong polledCount = new AtomicLong();
+    private final AtomicLong totalWaitTime = new AtomicLong();
+    private final AtomicLong maxWaitTime = new AtomicLong();
+
+    public ConcurrentInternalQueue(int priority, int capacity) {
+        this.priority = priority;
+        this.capacity = capacity;
+    }
+
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        // reserve a slot before adding, so that the capacity is never exceeded
+        for (;;) {
+            int c = count.get();
+            if (c >= capacity) {
+                return false;
+            }
+            if (count.compareAndSet(c, c + 1)) {
+                break;
+            }
+        }
+        entries.offer(new Entry<E>(e));
+        return true;
+    }
+
+    public E poll() {
+        Entry<E> entry = entries.poll();
+        if (entry == null) {
+            return null;
+        }
+        count.decrementAndGet();
+
+        long waitTime = System.nanoTime() - entry.queuedTime;
+        polledCount.incrementAndGet();
+        totalWaitTime.addAndGet(waitTime);
+        long max = maxWaitTime.get();
+        while (waitTime > max && !maxWaitTime.compareAndSet(max, waitTime)) {
+            max = maxWaitTime.get();
+        }
+        return entry.element;
+    }
+
+    public E peek() {
+        Entry<E> entry = entries.peek();
+        return entry != null ? entry.element : null;
+    }
+
+    public Iterator<E> iterator() {
+        final Iterator<Entry<E>> it = entries.iterator();
+        return new Iterator<E>() {
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            public E next() {
+                return it.next().element;
+            }
+
+            public void remove() {
+                it.remove();
+                count.decrementAndGet();
+            }
+        };
+    }
+
+    public int size() {
+        return count.get();
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public void setPriority(int p) {
+        this.priority = p;
+    }
+
+    /**
+     * This queue never blocks, there is no not full condition
+     *
+     * @return null
+     */
+    public Condition getNotFullCond() {
+        return null;
+    }
+
+    public void setNotFullCond(Condition condition) {
+    }
+
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        int n = 0;
+        E e;
+        while (n < maxElements && (e = poll()) != null) {
+            c.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    public int remainingCapacity() {
+        return capacity == Integer.MAX_VALUE ? Integer.MAX_VALUE : capacity - count.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Number of elements polled from the queue so far
+     *
+     * @return number of polled elements
+     */
+    public long getPolledCount() {
+        return polledCount.get();
+    }
+
+    /**
+     * Average time the polled elements waited in the queue
+     *
+     * @return average wait time in milliseconds
+     */
+    public double getAverageWaitTime() {
+        long polled = polledCount.get();
+        return polled == 0 ? 0 : totalWaitTime.get() / (polled * 1000000.0);
+    }
+
+    /**
+     * Maximum time a polled element waited in the queue
+     *
+     * @return maximum wait time in milliseconds
+     */
+    public double getMaxWaitTime() {
+        return maxWaitTime.get() / 1000000.0;
+    }
+
+    private static class Entry<E> {
+        private final E element;
+        private final long queuedTime = System.nanoTime();
+
+        private Entry(E element) {
+            this.element = element;
+        }
+    }
+}
@@ -26,6 +26,8 @@ import org.apache.synapse.commons.SynapseCommonsException;
 
 import javax.xml.namespace.QName;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This class will be used as a Helper class to get the properties loaded while building the
@@ -47,53 +49,77 @@ public class PropertyHelper {
      * @param obj  POJO instance
      */
     public static void setInstanceProperty(String name, Object val, Object obj) {
+        setInstanceProperty(name, val, obj, getSetterMethods(obj.getClass(), name));
+    }
+
+    /**
+     * Find the methods with the name of form setXXX, which are the candidate setter methods of
+     * the given field. The result can be kept and passed into
+     * {@link #setInstanceProperty(String, Object, Object, Method[])} to avoid looking up the
+     * methods again for each instance of the class.
+     *
+     * @param clazz class of the POJO
+     * @param name  name of the setter field
+     * @return the public methods named setXXX, an empty array if there are none
+     */
+    public static Method[] getSetterMethods(Class clazz, String name) {
+
+        String mName = getSetterName(name);
+        List<Method> setters = new ArrayList<Method>();
+        for (Method method : clazz.getMethods()) {
+            if (mName.equals(method.getName())) {
+                setters.add(method);
+            }
+        }
+        return setters.toArray(new Method[setters.size()]);
+    }
+
+    /**
+     * Invoke the setter method matching the given value, out of the given setter methods
+     *
+     * @param name    name of the setter field
+     * @param val     value to be set
+     * @param obj     POJO instance
+     * @param setters setter methods of the field as returned by {@link #getSetterMethods}
+     */
+    public static void setInstanceProperty(String name, Object val, Object obj,
+                                           Method[] setters) {
 
-        String mName = "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
-        Method method;
+        String mName = getSetterName(name);
 
         try {
-            Method[] methods = obj.getClass().getMethods();
             boolean invoked = false;
 
-            for (Method method1 : methods) {
-                if (mName.equals(method1.getName())) {
-                    Class[] params = method1.getParameterTypes();
-                    if (params.length != 1) {
-                        handleException("Did not find a setter method named : " + mName +
-                                "() that takes a single String, int, long, float, double ," +
-                                "OMElement or boolean parameter");
-                    } else if (val instanceof String) {
-                        String value = (String) val;
-                        if (String.class.equals(params[0])) {
-                            method = obj.getClass().getMethod(mName, String.class);
-                            method.invoke(obj, new String[]{value});
-                        } else if (int.class.equals(params[0])) {
-                            method = obj.getClass().getMethod(mName, int.class);
-                            method.invoke(obj, new Integer[]{new Integer(value)});
-                        } else if (long.class.equals(params[0])) {
-                            method = obj.getClass().getMethod(mName, long.class);
-                            method.invoke(obj, new Long[]{new Long(value)});
-                        } else if (float.class.equals(params[0])) {
-                            method = obj.getClass().getMethod(mName, float.class);
-                            method.invoke(obj, new Float[]{new Float(value)});
-                        } else if (double.class.equals(params[0])) {
-                            method = obj.getClass().getMethod(mName, double.class);
-                            method.invoke(obj, new Double[]{new Double(value)});
-                        } else if (boolean.class.equals(params[0])) {
-                            method = obj.getClass().getMethod(mName, boolean.class);
-                            method.invoke(obj, new Boolean[]{Boolean.valueOf(value)});
-                        } else {
-                            continue;
-                        }
-                    } else if (val instanceof OMElement && OMElement.class.equals(params[0])) {
-                        method = obj.getClass().getMethod(mName, OMElement.class);
-                        method.invoke(obj, new OMElement[]{(OMElement) val});
+            for (Method method : setters) {
+                Class[] params = method.getParameterTypes();
+                if (params.length != 1) {
+                    handleException("Did not find a setter method named : " + mName +
+                            "() that takes a single String, int, long, float, double ," +
+                            "OMElement or boolean parameter");
+                } else if (val instanceof String) {
+                    String value = (String) val;
+                    if (String.class.equals(params[0])) {
+                        method.invoke(obj, value);
+                    } else if (int.class.equals(params[0])) {
+                        method.invoke(obj, new Integer(value));
+                    } else if (long.class.equals(params[0])) {
+                        method.invoke(obj, new Long(value));
+                    } else if (float.class.equals(params[0])) {
+                        method.invoke(obj, new Float(value));
+                    } else if (double.class.equals(params[0])) {
+                        method.invoke(obj, new Double(value));
+                    } else if (boolean.class.equals(params[0])) {
+                        method.invoke(obj, Boolean.valueOf(value));
                     } else {
                         continue;
                     }
-                    invoked = true;
-                    break;
+                } else if (val instanceof OMElement && OMElement.class.equals(params[0])) {
+                    method.invoke(obj, val);
+                } else {
+                    continue;
                 }
+                invoked = true;
+                break;
             }
 
             if (!invoked) {
@@ -109,6 +135,10 @@ public class PropertyHelper {
         }
     }
 
+    private static String getSetterName(String name) {
+        return "set" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
     /**
      * This method will set the static property discribed in the OMElement to the specified object.
      * This Object should have the setter method for the specified property name
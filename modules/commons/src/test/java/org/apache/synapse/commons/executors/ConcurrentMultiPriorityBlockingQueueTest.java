@@ -0,0 +1,153 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.commons.executors;
+
+import junit.framework.TestCase;
+import org.apache.synapse.commons.executors.queues.FixedSizeQueue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test the ConcurrentMultiPriorityBlockingQueue operations.
+ */
+public class ConcurrentMultiPriorityBlockingQueueTest extends TestCase {
+
+    private static final int ITEMS = 100;
+
+    private ConcurrentMultiPriorityBlockingQueue<DummyTask> queue;
+
+    @Override
+    protected void setUp() throws Exception {
+        List<InternalQueue<DummyTask>> internalQueues = new ArrayList<InternalQueue<DummyTask>>();
+        internalQueues.add(new FixedSizeQueue<DummyTask>(1, ITEMS));
+        internalQueues.add(new FixedSizeQueue<DummyTask>(3, ITEMS));
+        queue = new ConcurrentMultiPriorityBlockingQueue<DummyTask>(internalQueues, true);
+    }
+
+    public void testOfferAndCapacity() {
+        for (int i = 0; i < ITEMS; i++) {
+            assertTrue(queue.offer(new DummyTask(3)));
+        }
+        assertFalse(queue.offer(new DummyTask(3)));
+        assertTrue(queue.offer(new DummyTask(1)));
+        assertEquals(ITEMS + 1, queue.size());
+        assertEquals(ITEMS - 1, queue.remainingCapacity());
+
+        try {
+            queue.offer(new DummyTask(2));
+            fail("Only the configured priorities should be accepted");
+        } catch (IllegalArgumentException expected) {
+        }
+
+        queue.clear();
+        assertEquals(0, queue.size());
+        assertTrue(queue.isEmpty());
+    }
+
+    public void testWeightedRoundRobin() {
+        for (int i = 0; i < 8; i++) {
+            queue.offer(new DummyTask(3));
+            queue.offer(new DummyTask(1));
+        }
+
+        int[] expected = {3, 3, 3, 1, 3, 3, 3, 1, 3, 3, 1, 1, 1, 1, 1, 1};
+        for (int priority : expected) {
+            assertEquals(priority, queue.poll().getPriority());
+        }
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+    }
+
+    public void testTakeWaitsForElements() throws Exception {
+        final AtomicInteger taken = new AtomicInteger();
+        Thread consumer = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    for (int i = 0; i < ITEMS; i++) {
+                        queue.take();
+                        taken.incrementAndGet();
+                    }
+                } catch (InterruptedException ignore) {
+                }
+            }
+        });
+        consumer.start();
+
+        for (int i = 0; i < ITEMS; i++) {
+            queue.put(new DummyTask(i % 2 == 0 ? 1 : 3));
+        }
+        consumer.join(10000);
+
+        assertEquals(ITEMS, taken.get());
+        assertEquals(0, queue.size());
+    }
+
+    public void testPutWaitsForSpace() throws Exception {
+        for (int i = 0; i < ITEMS; i++) {
+            queue.put(new DummyTask(1));
+        }
+        assertFalse(queue.offer(new DummyTask(1), 10, TimeUnit.MILLISECONDS));
+
+        Thread producer = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    queue.put(new DummyTask(1));
+                } catch (InterruptedException ignore) {
+                }
+            }
+        });
+        producer.start();
+
+        queue.take();
+        producer.join(10000);
+
+        assertFalse(producer.isAlive());
+        assertEquals(ITEMS, queue.size());
+    }
+
+    public void testRemoveAndDrain() {
+        DummyTask task = new DummyTask(3);
+        queue.offer(new DummyTask(1));
+        queue.offer(task);
+
+        assertTrue(queue.contains(task));
+        assertSame(task, queue.peek());
+        assertTrue(queue.remove(task));
+        assertFalse(queue.contains(task));
+        assertEquals(1, queue.size());
+
+        List<DummyTask> drained = new ArrayList<DummyTask>();
+        assertEquals(1, queue.drainTo(drained));
+        assertEquals(0, queue.size());
+    }
+
+    public void testWaitTimeMetrics() throws Exception {
+        queue.offer(new DummyTask(3));
+        Thread.sleep(20);
+        queue.poll();
+
+        assertTrue(queue.getMaxWaitTime(3) >= 10);
+        assertEquals(queue.getMaxWaitTime(3), queue.getAverageWaitTime(3));
+        assertEquals(0.0, queue.getAverageWaitTime(1));
+    }
+}
@@ -457,6 +457,7 @@ public class Axis2SynapseController implements SynapseController {
                 handleFatal("Error while shutting down the Synapse environment", e);
             }
             synapseEnvironment.setInitialized(false);
+            synapseEnvironment.getSynapseScheduler().shutdown();
         }
     }
 
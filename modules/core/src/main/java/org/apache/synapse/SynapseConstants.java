@@ -470,6 +470,9 @@ public final class SynapseConstants {
     //Streaming Json Path
     public static final String STREAMING_JSONPATH_PROCESSING = "synapse.streaming.jsonpath.enabled";
 
+    //Compile the child mediators of the sequences into flat pipelines at init
+    public static final String SEQUENCE_COMPILATION = "synapse.sequence.compilation.enabled";
+
     /**
      * Message content property of incoming transport-in name
      */
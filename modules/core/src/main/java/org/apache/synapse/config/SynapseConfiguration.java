@@ -135,9 +135,9 @@ public class SynapseConfiguration implements ManagedLifecycle, SynapseArtifact {
     private Properties properties = new Properties();
 
     /**
-     * This will provide the timer daemon object for the scheduled tasks.
+     * This will provide the timer daemon object for the scheduled tasks, created on first use.
      */
-    private Timer synapseTimer = new Timer(true);
+    private Timer synapseTimer;
 
     /**
      * Hold reference to the Axis2 ConfigurationContext
@@ -1187,8 +1187,15 @@ public class SynapseConfiguration implements ManagedLifecycle, SynapseArtifact {
      * Get the timer object for the Synapse Configuration
      *
      * @return synapseTimer timer object of the configuration
+     * @deprecated all the tasks share the single thread of this timer, use the
+     * {@link org.apache.synapse.util.concurrent.SynapseScheduler} of the
+     * {@link SynapseEnvironment} instead
      */
-    public Timer getSynapseTimer() {
+    @Deprecated
+    public synchronized Timer getSynapseTimer() {
+        if (synapseTimer == null) {
+            synapseTimer = new Timer(true);
+        }
         return synapseTimer;
     }
 
@@ -1360,8 +1367,10 @@ public class SynapseConfiguration implements ManagedLifecycle, SynapseArtifact {
         }
 
         // clear the timer tasks of Synapse
-        synapseTimer.cancel();
-        synapseTimer = null;
+        if (synapseTimer != null) {
+            synapseTimer.cancel();
+            synapseTimer = null;
+        }
 
         // stop and shutdown all the proxy services
         for (ProxyService p : getProxyServices()) {
@@ -1400,6 +1409,11 @@ public class SynapseConfiguration implements ManagedLifecycle, SynapseArtifact {
             stp.destroy();
         }
 
+        // destroy the event delivery channels of the event sources
+        for (SynapseEventSource eventSource : getEventSources()) {
+            eventSource.destroy();
+        }
+
         // clear session information used for SA load balancing
         try {
             SALSessions.getInstance().reset();
@@ -1616,6 +1630,7 @@ public class SynapseConfiguration implements ManagedLifecycle, SynapseArtifact {
                     getAxisConfiguration().removeService(name);
                 }
                 eventSources.remove(name);
+                eventSource.destroy();
                 for (SynapseObserver o : observers) {
                     o.eventSourceRemoved(eventSource);
                 }
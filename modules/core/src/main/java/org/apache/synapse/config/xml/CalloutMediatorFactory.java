@@ -55,6 +55,9 @@ public class CalloutMediatorFactory extends AbstractMediatorFactory {
     private static final QName ATT_USESERVERCONFIG = new QName("useServerConfig");
     private static final QName ATT_REPOSITORY = new QName("repository");
     private static final QName ATT_INIT_AXI2_CLIENT_OPTIONS = new QName("initAxis2ClientOptions");
+    private static final QName ATT_BLOCKING = new QName("blocking");
+    private static final QName ATT_TIMEOUT = new QName("timeout");
+    private static final QName ATT_MAX_CONCURRENT_CALLOUTS = new QName("maxConcurrentCallouts");
     private static final QName Q_CONFIG
             = new QName(XMLConfigConstants.SYNAPSE_NAMESPACE, "configuration");
     private static final QName Q_SOURCE
@@ -83,6 +86,9 @@ public class CalloutMediatorFactory extends AbstractMediatorFactory {
         OMAttribute attAction     = elem.getAttribute(ATT_ACTION);
         OMAttribute attUseServerConfig = elem.getAttribute(ATT_USESERVERCONFIG);
         OMAttribute initAxis2ClientOptions = elem.getAttribute(ATT_INIT_AXI2_CLIENT_OPTIONS);
+        OMAttribute attBlocking = elem.getAttribute(ATT_BLOCKING);
+        OMAttribute attTimeout = elem.getAttribute(ATT_TIMEOUT);
+        OMAttribute attMaxConcurrentCallouts = elem.getAttribute(ATT_MAX_CONCURRENT_CALLOUTS);
         OMElement   configElt     = elem.getFirstChildWithName(Q_CONFIG);
         OMElement epElement = elem.getFirstChildWithName(Q_ENDPOINT);
         OMElement   sourceElt     = elem.getFirstChildWithName(Q_SOURCE);
@@ -120,6 +126,37 @@ public class CalloutMediatorFactory extends AbstractMediatorFactory {
             }
         }
 
+        if (attBlocking != null) {
+            if ("true".equals(attBlocking.getAttributeValue().toLowerCase())) {
+                callout.setBlocking(true);
+            } else if ("false".equals(attBlocking.getAttributeValue().toLowerCase())) {
+                callout.setBlocking(false);
+            } else {
+                handleException("The 'blocking' attribute only accepts a boolean value.");
+            }
+        }
+
+        if (attTimeout != null) {
+            try {
+                callout.setTimeout(Long.parseLong(attTimeout.getAttributeValue().trim()));
+            } catch (NumberFormatException e) {
+                handleException("The 'timeout' attribute only accepts a value in milliseconds.");
+            }
+        }
+
+        if (attMaxConcurrentCallouts != null) {
+            if (callout.isBlocking()) {
+                handleException("The 'maxConcurrentCallouts' attribute is only supported for " +
+                                "non-blocking callouts.");
+            }
+            try {
+                callout.setMaxConcurrentCallouts(
+                        Integer.parseInt(attMaxConcurrentCallouts.getAttributeValue().trim()));
+            } catch (NumberFormatException e) {
+                handleException("The 'maxConcurrentCallouts' attribute only accepts an integer.");
+            }
+        }
+
         if (configElt != null) {
 
             OMAttribute axis2xmlAttr = configElt.getAttribute(ATT_AXIS2XML);
@@ -27,7 +27,8 @@ import org.apache.synapse.mediators.builtin.CalloutMediator;
 
 /**
  * <pre>
- * &lt;callout serviceURL="string" | endpointKey="string" [action="string"] [initAxis2ClientOptions="boolean"]&gt;
+ * &lt;callout serviceURL="string" | endpointKey="string" [action="string"] [initAxis2ClientOptions="boolean"]
+ *          [blocking="boolean"] [timeout="long"] [maxConcurrentCallouts="int"]&gt;
  *      &lt;configuration [axis2xml="string"] [repository="string"]/&gt;?
  *      &lt;endpoint/&gt;?
  *      &lt;source xpath="expression" | key="string" | type="envelope" &gt;?
@@ -72,6 +73,21 @@ public class CalloutMediatorSerializer extends AbstractMediatorSerializer {
                     "initAxis2ClientOptions", nullNS, Boolean.toString(mediator.getInitClientOptions())));
         }
 
+        if (!mediator.isBlocking()) {
+            callout.addAttribute(fac.createOMAttribute(
+                    "blocking", nullNS, Boolean.toString(mediator.isBlocking())));
+        }
+
+        if (mediator.getTimeout() > 0) {
+            callout.addAttribute(fac.createOMAttribute(
+                    "timeout", nullNS, Long.toString(mediator.getTimeout())));
+        }
+
+        if (mediator.getMaxConcurrentCallouts() > 0) {
+            callout.addAttribute(fac.createOMAttribute("maxConcurrentCallouts", nullNS,
+                    Integer.toString(mediator.getMaxConcurrentCallouts())));
+        }
+
         if (mediator.getClientRepository() != null || mediator.getAxis2xml() != null) {
             OMElement config = fac.createOMElement("configuration", synNS);
             if (mediator.getClientRepository() != null) {
@@ -19,6 +19,7 @@
 
 package org.apache.synapse.config.xml;
 
+import org.apache.axiom.om.OMAttribute;
 import org.apache.axiom.om.OMElement;
 import org.apache.synapse.Mediator;
 import org.apache.synapse.SynapseConstants;
@@ -32,7 +33,7 @@ import java.util.Properties;
  * <p>
  * Configuration syntax:
  * <pre>
- * &lt;dblookup&gt;
+ * &lt;dblookup [cacheTimeout="milliseconds"] [cacheSize="int"]&gt;
  *   &lt;connection&gt;
  *     &lt;pool&gt;
  *      (
@@ -62,10 +63,32 @@ public class DBLookupMediatorFactory extends AbstractDBMediatorFactory {
 
     private static final QName DBLOOKUP_Q =
         new QName(SynapseConstants.SYNAPSE_NAMESPACE, "dblookup");
+    private static final QName ATT_CACHE_TIMEOUT = new QName("cacheTimeout");
+    private static final QName ATT_CACHE_SIZE = new QName("cacheSize");
 
     public Mediator createSpecificMediator(OMElement elem, Properties properties) {
 
         DBLookupMediator mediator = new DBLookupMediator();
+
+        OMAttribute cacheTimeout = elem.getAttribute(ATT_CACHE_TIMEOUT);
+        if (cacheTimeout != null) {
+            try {
+                mediator.setCacheTimeout(Long.parseLong(cacheTimeout.getAttributeValue().trim()));
+            } catch (NumberFormatException e) {
+                handleException("Invalid cacheTimeout for the dblookup mediator : " +
+                        cacheTimeout.getAttributeValue());
+            }
+        }
+        OMAttribute cacheSize = elem.getAttribute(ATT_CACHE_SIZE);
+        if (cacheSize != null) {
+            try {
+                mediator.setCacheSize(Integer.parseInt(cacheSize.getAttributeValue().trim()));
+            } catch (NumberFormatException e) {
+                handleException("Invalid cacheSize for the dblookup mediator : " +
+                        cacheSize.getAttributeValue());
+            }
+        }
+
         buildDataSource(elem, mediator);
         processStatements(elem, mediator);
         return mediator;
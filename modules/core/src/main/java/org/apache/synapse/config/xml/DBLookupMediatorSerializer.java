@@ -38,6 +38,14 @@ public class DBLookupMediatorSerializer extends AbstractDBMediatorSerializer {
 
         DBLookupMediator mediator = (DBLookupMediator) m;
         OMElement dbLookup = fac.createOMElement("dblookup", synNS);
+        if (mediator.getCacheTimeout() > 0) {
+            dbLookup.addAttribute(fac.createOMAttribute(
+                    "cacheTimeout", nullNS, String.valueOf(mediator.getCacheTimeout())));
+            if (mediator.getCacheSize() != DBLookupMediator.DEFAULT_CACHE_SIZE) {
+                dbLookup.addAttribute(fac.createOMAttribute(
+                        "cacheSize", nullNS, String.valueOf(mediator.getCacheSize())));
+            }
+        }
         saveTracingState(dbLookup,mediator);
         serializeDBInformation(mediator, dbLookup);
 
@@ -31,7 +31,8 @@ import java.util.Properties;
 /**
  * Factory for {@link DBReportMediator} instances.
  * <pre>
- * &lt;dbreport useTransaction="true|false"&gt;
+ * &lt;dbreport useTransaction="true|false" [batchSize="int"] [batchInterval="milliseconds"]
+ *           [async="true|false"]&gt;
  *   &lt;connection&gt;
  *     &lt;pool&gt;
  *      (
@@ -61,6 +62,9 @@ public class DBReportMediatorFactory extends AbstractDBMediatorFactory {
     private static final QName DBREPORT_Q =
             new QName(SynapseConstants.SYNAPSE_NAMESPACE, "dbreport");
     private static final QName DBREPORT_USE_TX = new QName("useTransaction");
+    private static final QName DBREPORT_BATCH_SIZE = new QName("batchSize");
+    private static final QName DBREPORT_BATCH_INTERVAL = new QName("batchInterval");
+    private static final QName DBREPORT_ASYNC = new QName("async");
 
     public Mediator createSpecificMediator(OMElement elem, Properties properties) {
         DBReportMediator mediator = new DBReportMediator();
@@ -74,6 +78,31 @@ public class DBReportMediatorFactory extends AbstractDBMediatorFactory {
                 mediator.setUseTransaction(false);
             }
         }
+
+        OMAttribute batchSize = elem.getAttribute(DBREPORT_BATCH_SIZE);
+        if (batchSize != null) {
+            try {
+                mediator.setBatchSize(Integer.parseInt(batchSize.getAttributeValue().trim()));
+            } catch (NumberFormatException e) {
+                handleException("Invalid batchSize for the dbreport mediator : " +
+                        batchSize.getAttributeValue());
+            }
+        }
+        OMAttribute batchInterval = elem.getAttribute(DBREPORT_BATCH_INTERVAL);
+        if (batchInterval != null) {
+            try {
+                mediator.setBatchInterval(
+                        Long.parseLong(batchInterval.getAttributeValue().trim()));
+            } catch (NumberFormatException e) {
+                handleException("Invalid batchInterval for the dbreport mediator : " +
+                        batchInterval.getAttributeValue());
+            }
+        }
+        OMAttribute async = elem.getAttribute(DBREPORT_ASYNC);
+        if (async != null) {
+            mediator.setExecuteAsync(Boolean.parseBoolean(async.getAttributeValue()));
+        }
+
         buildDataSource(elem, mediator);
         processStatements(elem, mediator);
         return mediator;
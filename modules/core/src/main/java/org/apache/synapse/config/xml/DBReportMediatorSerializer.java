@@ -41,6 +41,17 @@ public class DBReportMediatorSerializer extends AbstractDBMediatorSerializer {
         if (mediator.isUseTransaction()) {
             dbReport.addAttribute(fac.createOMAttribute("useTransaction", nullNS, "true"));
         }
+        if (mediator.getBatchSize() > 1) {
+            dbReport.addAttribute(fac.createOMAttribute(
+                    "batchSize", nullNS, String.valueOf(mediator.getBatchSize())));
+            if (mediator.getBatchInterval() != DBReportMediator.DEFAULT_BATCH_INTERVAL) {
+                dbReport.addAttribute(fac.createOMAttribute(
+                        "batchInterval", nullNS, String.valueOf(mediator.getBatchInterval())));
+            }
+        }
+        if (mediator.isExecuteAsync()) {
+            dbReport.addAttribute(fac.createOMAttribute("async", nullNS, "true"));
+        }
         saveTracingState(dbReport, mediator);
         serializeDBInformation(mediator, dbReport);
 
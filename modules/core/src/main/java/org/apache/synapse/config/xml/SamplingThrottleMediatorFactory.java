@@ -22,11 +22,13 @@ package org.apache.synapse.config.xml;
 import org.apache.axiom.om.OMAttribute;
 import org.apache.axiom.om.OMElement;
 import org.apache.synapse.Mediator;
+import org.apache.synapse.commons.util.PropertyHelper;
 import org.apache.synapse.mediators.eip.Target;
 import org.apache.synapse.mediators.eip.sample.MessageQueue;
 import org.apache.synapse.mediators.eip.sample.SamplingThrottleMediator;
 
 import javax.xml.namespace.QName;
+import java.util.Iterator;
 import java.util.Properties;
 
 /**
@@ -34,7 +36,9 @@ import java.util.Properties;
  * following configuration</p>
  *
  * <pre>&lt;sampler id="string" rate="int" unitTime="long"&gt;
- *   &lt;messageQueue class="string"/&gt;
+ *   &lt;messageQueue class="string"&gt;
+ *     &lt;property name="string" value="string"/&gt;*
+ *   &lt;/messageQueue&gt;
  *   &lt;target .../&gt;
  * &lt;sampler/&gt;
  * </pre>
@@ -55,6 +59,12 @@ public class SamplingThrottleMediatorFactory extends AbstractMediatorFactory {
             = new QName(XMLConfigConstants.SYNAPSE_NAMESPACE, "messageQueue");
     private static final QName CLASS_ATTR
             = new QName(XMLConfigConstants.NULL_NAMESPACE, "class");
+    private static final QName PROPERTY_Q
+            = new QName(XMLConfigConstants.SYNAPSE_NAMESPACE, "property");
+    private static final QName NAME_ATTR
+            = new QName(XMLConfigConstants.NULL_NAMESPACE, "name");
+    private static final QName VALUE_ATTR
+            = new QName(XMLConfigConstants.NULL_NAMESPACE, "value");
 
     public Mediator createSpecificMediator(OMElement omElement, Properties properties) {
 
@@ -103,6 +113,7 @@ public class SamplingThrottleMediatorFactory extends AbstractMediatorFactory {
                 Class messageQueueImplClass = Class.forName(className);
                 Object obj = messageQueueImplClass.newInstance();
                 if (obj instanceof MessageQueue) {
+                    setMessageQueueProperties(samplingThrottleMediator, obj, messageQueueElem);
                     samplingThrottleMediator.setMessageQueue((MessageQueue) obj);
                 } else {
                     handleException("Provided message queue class : " + className
@@ -122,6 +133,22 @@ public class SamplingThrottleMediatorFactory extends AbstractMediatorFactory {
         return samplingThrottleMediator;
     }
 
+    private void setMessageQueueProperties(SamplingThrottleMediator samplingThrottleMediator,
+                                           Object messageQueue, OMElement messageQueueElem) {
+        Iterator itr = messageQueueElem.getChildrenWithName(PROPERTY_Q);
+        while (itr.hasNext()) {
+            OMElement propertyElem = (OMElement) itr.next();
+            String name = propertyElem.getAttributeValue(NAME_ATTR);
+            String value = propertyElem.getAttributeValue(VALUE_ATTR);
+            if (name == null || value == null) {
+                handleException("Message queue properties require both the name and " +
+                        "the value attributes");
+            }
+            PropertyHelper.setInstanceProperty(name, value, messageQueue);
+            samplingThrottleMediator.addMessageQueueProperty(name, value);
+        }
+    }
+
     public QName getTagQName() {
         return SAMPLER_Q;
     }
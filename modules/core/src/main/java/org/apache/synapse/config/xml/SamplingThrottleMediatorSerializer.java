@@ -23,11 +23,18 @@ import org.apache.axiom.om.OMElement;
 import org.apache.synapse.Mediator;
 import org.apache.synapse.mediators.eip.sample.SamplingThrottleMediator;
 
+import java.util.Map;
+
 /**
  * Serializes the {@link org.apache.synapse.mediators.eip.sample.SamplingThrottleMediator} instance
  * into a XML configuration as follows</p>
  *
- * <pre>&lt;sampler id="string" rate="int"/&gt;</pre>
+ * <pre>&lt;sampler id="string" rate="int" unitTime="long"&gt;
+ *   &lt;messageQueue class="string"&gt;
+ *     &lt;property name="string" value="string"/&gt;*
+ *   &lt;/messageQueue&gt;
+ *   &lt;target .../&gt;
+ * &lt;sampler/&gt;</pre>
  *
  * @see org.apache.synapse.config.xml.AbstractMediatorSerializer
  */
@@ -51,6 +58,13 @@ public class SamplingThrottleMediatorSerializer extends AbstractMediatorSerializ
             OMElement messageQueueElem = fac.createOMElement("messageQueue", synNS);
             messageQueueElem.addAttribute("class",
                     samplingThrottleMediator.getMessageQueue().getClass().getName(), nullNS);
+            for (Map.Entry<String, String> property :
+                    samplingThrottleMediator.getMessageQueueProperties().entrySet()) {
+                OMElement propertyElem = fac.createOMElement("property", synNS);
+                propertyElem.addAttribute("name", property.getKey(), nullNS);
+                propertyElem.addAttribute("value", property.getValue(), nullNS);
+                messageQueueElem.addChild(propertyElem);
+            }
             samplerElem.addChild(messageQueueElem);
         }
 
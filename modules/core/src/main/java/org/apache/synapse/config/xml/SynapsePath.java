@@ -147,8 +147,8 @@ public abstract class SynapsePath extends AXIOMXPath {
         Pipe pipe= (Pipe) context.getProperty(PassThroughConstants.PASS_THROUGH_PIPE);
 
         if (pipe != null && context.getProperty(PassThroughConstants.BUFFERED_INPUT_STREAM) != null){
-            BufferedInputStream bufferedInputStream =
-                    (BufferedInputStream) context.getProperty(PassThroughConstants.BUFFERED_INPUT_STREAM);
+            InputStream bufferedInputStream =
+                    (InputStream) context.getProperty(PassThroughConstants.BUFFERED_INPUT_STREAM);
             try{
                 bufferedInputStream.reset();
                 bufferedInputStream.mark(0);
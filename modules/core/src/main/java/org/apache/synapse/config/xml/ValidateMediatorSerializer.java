@@ -48,6 +48,10 @@ public class ValidateMediatorSerializer extends AbstractListMediatorSerializer {
             SynapseXPathSerializer.serializeXPath(mediator.getSource(), validate, "source");
         }
 
+        if (mediator.isStreaming()) {
+            validate.addAttribute(fac.createOMAttribute("streaming", nullNS, "true"));
+        }
+
         for (Value key : mediator.getSchemaKeys()) {
             OMElement schema = fac.createOMElement("schema", synNS, validate);
             // Serialize Value using ValueSerializer
@@ -22,16 +22,45 @@ package org.apache.synapse.continuation;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.ContinuationState;
+import org.apache.synapse.Mediator;
 import org.apache.synapse.MessageContext;
 import org.apache.synapse.SequenceType;
 import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.SynapseException;
+import org.apache.synapse.config.xml.AnonymousListMediator;
+import org.apache.synapse.config.xml.SwitchCase;
 import org.apache.synapse.core.axis2.ProxyService;
+import org.apache.synapse.mediators.ListMediator;
 import org.apache.synapse.mediators.base.SequenceMediator;
+import org.apache.synapse.mediators.base.SynapseMediator;
+import org.apache.synapse.mediators.builtin.CalloutMediator;
+import org.apache.synapse.mediators.builtin.DropMediator;
+import org.apache.synapse.mediators.builtin.LogMediator;
+import org.apache.synapse.mediators.builtin.PropertyMediator;
+import org.apache.synapse.mediators.builtin.RMSequenceMediator;
+import org.apache.synapse.mediators.builtin.RespondMediator;
+import org.apache.synapse.mediators.builtin.SendMediator;
+import org.apache.synapse.mediators.builtin.ValidateMediator;
+import org.apache.synapse.mediators.elementary.EnrichMediator;
+import org.apache.synapse.mediators.eventing.EventPublisherMediator;
+import org.apache.synapse.mediators.filters.FilterMediator;
+import org.apache.synapse.mediators.filters.InMediator;
+import org.apache.synapse.mediators.filters.OutMediator;
+import org.apache.synapse.mediators.filters.SwitchMediator;
+import org.apache.synapse.mediators.transform.FaultMediator;
+import org.apache.synapse.mediators.transform.HeaderMediator;
+import org.apache.synapse.mediators.transform.PayloadFactoryMediator;
+import org.apache.synapse.mediators.transform.XSLTMediator;
+import org.apache.synapse.mediators.transform.url.URLRewriteMediator;
 import org.apache.synapse.rest.API;
 import org.apache.synapse.rest.RESTConstants;
 import org.apache.synapse.rest.Resource;
 
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.Stack;
+
 /**
  * This is the utility class which manages ContinuationState Stack.
  * <p/>
@@ -43,6 +72,18 @@ public class ContinuationStackManager {
 
     private static Log log = LogFactory.getLog(ContinuationStackManager.class);
 
+    /**
+     * The built-in mediators which neither suspend the flow nor invoke other sequences.
+     * Subclasses are not included, as they may do either.
+     */
+    private static final Set<Class<?>> NON_SUSPENDING_MEDIATORS = new HashSet<Class<?>>(
+            Arrays.<Class<?>>asList(
+                    DropMediator.class, EnrichMediator.class, EventPublisherMediator.class,
+                    FaultMediator.class, HeaderMediator.class, LogMediator.class,
+                    PayloadFactoryMediator.class, PropertyMediator.class, RespondMediator.class,
+                    RMSequenceMediator.class, SendMediator.class, URLRewriteMediator.class,
+                    XSLTMediator.class));
+
     /**
      * Add new SeqContinuationState to the stack.
      * This should be done when branching to a new Sequence
@@ -53,7 +94,7 @@ public class ContinuationStackManager {
      */
     public static void addSeqContinuationState(MessageContext synCtx, String seqName,
                                                SequenceType seqType) {
-        if (synCtx.isContinuationEnabled() && !SequenceType.ANON.equals(seqType)) {
+        if (isTracking(synCtx) && !SequenceType.ANON.equals(seqType)) {
             //ignore Anonymous type sequences
             synCtx.pushContinuationState(new SeqContinuationState(seqType, seqName));
         }
@@ -66,7 +107,7 @@ public class ContinuationStackManager {
      * @param synCtx Message Context
      */
     public static void removeSeqContinuationState(MessageContext synCtx, SequenceType seqType) {
-        if (synCtx.isContinuationEnabled() && !synCtx.getContinuationStateStack().isEmpty()) {
+        if (isTracking(synCtx) && !synCtx.getContinuationStateStack().isEmpty()) {
             if (!SequenceType.ANON.equals(seqType)) {
                 synCtx.getContinuationStateStack().pop();
             } else {
@@ -83,7 +124,7 @@ public class ContinuationStackManager {
      * @param synCtx Message Context
      */
     public static void updateSeqContinuationState(MessageContext synCtx, int position) {
-		if (synCtx.isContinuationEnabled()) {
+		if (isTracking(synCtx)) {
 			if (!synCtx.getContinuationStateStack().isEmpty()) {
 				ContinuationState seqContState = synCtx
 						.getContinuationStateStack().peek();
@@ -105,7 +146,7 @@ public class ContinuationStackManager {
      */
     public static void addReliantContinuationState(MessageContext synCtx, int subBranch,
                                                    int position) {
-        if (synCtx.isContinuationEnabled()) {
+        if (isTracking(synCtx)) {
 			if (!synCtx.getContinuationStateStack().isEmpty()) {
 				ContinuationState seqContState = synCtx
 						.getContinuationStateStack().peek();
@@ -126,7 +167,7 @@ public class ContinuationStackManager {
      * @param synCtx MessageContext
      */
     public static void removeReliantContinuationState(MessageContext synCtx) {
-		if (synCtx.isContinuationEnabled()) {
+		if (isTracking(synCtx)) {
 			if (!synCtx.getContinuationStateStack().isEmpty()) {
 				ContinuationState seqContState = synCtx
 						.getContinuationStateStack().peek();
@@ -177,6 +218,167 @@ public class ContinuationStackManager {
         return clone;
     }
 
+    /**
+     * Stop keeping ContinuationStates while mediating through a sequence which cannot suspend
+     * the flow. If this returns true, {@link #endSkipContinuationStates(MessageContext)} has to
+     * be called once the sequence is done, whether it completed or failed.
+     *
+     * @param synCtx Message Context
+     * @return true if the ContinuationStates are not kept until the end of the sequence
+     */
+    public static boolean skipContinuationStates(MessageContext synCtx) {
+        if (synCtx.isContinuationEnabled()) {
+            Stack<ContinuationState> stack = synCtx.getContinuationStateStack();
+            if (stack instanceof ContinuationStateStack) {
+                ((ContinuationStateStack) stack).startSkipping();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Keep ContinuationStates again at the end of a sequence which cannot suspend the flow
+     *
+     * @param synCtx Message Context
+     */
+    public static void endSkipContinuationStates(MessageContext synCtx) {
+        Stack<ContinuationState> stack = synCtx.getContinuationStateStack();
+        if (stack instanceof ContinuationStateStack) {
+            ((ContinuationStateStack) stack).endSkipping();
+        }
+    }
+
+    /**
+     * Keep ContinuationStates within a sequence which may suspend the flow, even if it is
+     * reached from a sequence which does not keep them. The value returned has to be passed to
+     * {@link #restoreSkipContinuationStates(MessageContext, int)} once the sequence is done,
+     * whether it completed or failed.
+     *
+     * @param synCtx Message Context
+     * @return the number of enclosing sequences which were not keeping ContinuationStates
+     */
+    public static int clearSkipContinuationStates(MessageContext synCtx) {
+        if (synCtx.isContinuationEnabled()) {
+            Stack<ContinuationState> stack = synCtx.getContinuationStateStack();
+            if (stack instanceof ContinuationStateStack) {
+                return ((ContinuationStateStack) stack).clearSkipping();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Stop keeping ContinuationStates again at the end of a sequence which may suspend the
+     * flow, if it was reached from sequences which do not keep them
+     *
+     * @param synCtx Message Context
+     * @param depth the value returned by {@link #clearSkipContinuationStates(MessageContext)}
+     */
+    public static void restoreSkipContinuationStates(MessageContext synCtx, int depth) {
+        if (depth > 0) {
+            Stack<ContinuationState> stack = synCtx.getContinuationStateStack();
+            if (stack instanceof ContinuationStateStack) {
+                ((ContinuationStateStack) stack).restoreSkipping(depth);
+            }
+        }
+    }
+
+    /*
+     * Whether the ContinuationStates of the message have to be kept at this point
+     */
+    private static boolean isTracking(MessageContext synCtx) {
+        if (!synCtx.isContinuationEnabled()) {
+            return false;
+        }
+        Stack<ContinuationState> stack = synCtx.getContinuationStateStack();
+        return !(stack instanceof ContinuationStateStack) ||
+                !((ContinuationStateStack) stack).isSkipping();
+    }
+
+    /**
+     * Copy the ContinuationStates of a message to a clone of it. If both messages use a
+     * {@link ContinuationStateStack}, the states are shared until either message accesses them.
+     *
+     * @param synCtx original MessageContext
+     * @param newCtx cloned MessageContext
+     */
+    public static void copyContinuationStates(MessageContext synCtx, MessageContext newCtx) {
+        Stack<ContinuationState> continuationStates = synCtx.getContinuationStateStack();
+        Stack<ContinuationState> newContinuationStates = newCtx.getContinuationStateStack();
+
+        if (continuationStates instanceof ContinuationStateStack &&
+                newContinuationStates instanceof ContinuationStateStack) {
+            ((ContinuationStateStack) newContinuationStates).shareWith(
+                    (ContinuationStateStack) continuationStates);
+            return;
+        }
+
+        for (ContinuationState continuationState : continuationStates) {
+            if (continuationState != null) {
+                newCtx.pushContinuationState(
+                        getClonedSeqContinuationState((SeqContinuationState) continuationState));
+            }
+        }
+    }
+
+    /**
+     * Check whether the flow may be suspended, waiting for a response, while the given mediator
+     * mediates. A sequence which cannot be suspended doesn't need a SeqContinuationState, as
+     * the state is only used to continue the flow after a suspension. Only the built-in
+     * mediators which neither suspend the flow nor invoke other sequences, and the list
+     * mediators holding nothing else, are known not to suspend the flow. Any other mediator,
+     * such as the ones referring to other sequences or templates and the class mediators, is
+     * assumed to suspend the flow.
+     *
+     * @param mediator mediator to be checked
+     * @return false if the flow cannot be suspended while the mediator mediates
+     */
+    public static boolean maySuspend(Mediator mediator) {
+
+        if (mediator instanceof CalloutMediator) {
+            return !((CalloutMediator) mediator).isBlocking();
+        }
+
+        if (mediator instanceof SequenceMediator && ((SequenceMediator) mediator).getKey() != null) {
+            return true;
+        }
+
+        if (mediator instanceof SwitchMediator) {
+            SwitchMediator switchMediator = (SwitchMediator) mediator;
+            for (SwitchCase switchCase : switchMediator.getCases()) {
+                if (maySuspend(switchCase.getCaseMediator())) {
+                    return true;
+                }
+            }
+            return switchMediator.getDefaultCase() != null &&
+                    maySuspend(switchMediator.getDefaultCase().getCaseMediator());
+        }
+
+        if (mediator instanceof FilterMediator) {
+            FilterMediator filterMediator = (FilterMediator) mediator;
+            if (filterMediator.getThenKey() != null || filterMediator.getElseKey() != null
+                    || (filterMediator.getElseMediator() != null
+                    && maySuspend(filterMediator.getElseMediator()))) {
+                return true;
+            }
+        }
+
+        if (mediator instanceof SequenceMediator || mediator instanceof FilterMediator
+                || mediator instanceof InMediator || mediator instanceof OutMediator
+                || mediator instanceof ValidateMediator || mediator instanceof SynapseMediator
+                || mediator instanceof AnonymousListMediator) {
+            for (Mediator child : ((ListMediator) mediator).getList()) {
+                if (maySuspend(child)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        return mediator != null && !NON_SUSPENDING_MEDIATORS.contains(mediator.getClass());
+    }
+
     /**
      * Remove all ContinuationStates from ContinuationState Stack
      * @param synCtx MessageContext
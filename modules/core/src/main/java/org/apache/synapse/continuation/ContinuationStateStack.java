@@ -0,0 +1,152 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.continuation;
+
+import org.apache.synapse.ContinuationState;
+
+import java.util.EmptyStackException;
+import java.util.Stack;
+
+/**
+ * The ContinuationState stack of a message context. A clone of a message shares the
+ * ContinuationStates with the original message through {@link #shareWith(ContinuationStateStack)},
+ * and a shared state is copied only when it is accessed through {@link #peek()} or
+ * {@link #get(int)}, which are the only ways the states are reached for modification.</p>
+ *
+ * <p>The states at the bottom of the stack up to <code>sharedCount</code> may be shared with
+ * another stack, the states above are owned by this stack alone.</p>
+ */
+public class ContinuationStateStack extends Stack<ContinuationState> {
+
+    /** Number of states at the bottom of the stack which may be shared with another stack */
+    private int sharedCount = 0;
+
+    /** Number of nested sequences being mediated without keeping ContinuationStates */
+    private int skipDepth = 0;
+
+    /**
+     * Replace the content of this stack with the states of the given stack. The states are
+     * shared by the two stacks until either of them accesses a state.
+     *
+     * @param source stack to copy
+     */
+    public synchronized void shareWith(ContinuationStateStack source) {
+        removeAllElements();
+        synchronized (source) {
+            for (int i = 0; i < source.size(); i++) {
+                addElement(source.elementAt(i));
+            }
+            source.sharedCount = source.size();
+        }
+        sharedCount = size();
+    }
+
+    @Override
+    public synchronized ContinuationState peek() {
+        int top = size() - 1;
+        if (top < 0) {
+            throw new EmptyStackException();
+        }
+        own(top);
+        return elementAt(top);
+    }
+
+    @Override
+    public synchronized ContinuationState pop() {
+        int top = size() - 1;
+        if (top < 0) {
+            throw new EmptyStackException();
+        }
+        ContinuationState state = elementAt(top);
+        removeElementAt(top);
+        if (sharedCount > top) {
+            sharedCount = top;
+        }
+        return state;
+    }
+
+    @Override
+    public synchronized ContinuationState get(int index) {
+        own(index);
+        return elementAt(index);
+    }
+
+    @Override
+    public synchronized void removeAllElements() {
+        super.removeAllElements();
+        sharedCount = 0;
+    }
+
+    /**
+     * Stop keeping ContinuationStates until the matching {@link #endSkipping()}
+     */
+    public synchronized void startSkipping() {
+        skipDepth++;
+    }
+
+    public synchronized void endSkipping() {
+        if (skipDepth > 0) {
+            skipDepth--;
+        }
+    }
+
+    /**
+     * Keep ContinuationStates again, even within sequences which do not keep them, until the
+     * matching {@link #restoreSkipping(int)}
+     *
+     * @return the number of nested sequences which were not keeping ContinuationStates
+     */
+    public synchronized int clearSkipping() {
+        int depth = skipDepth;
+        skipDepth = 0;
+        return depth;
+    }
+
+    public synchronized void restoreSkipping(int depth) {
+        skipDepth = depth;
+    }
+
+    /**
+     * Whether the ContinuationStates are not being kept
+     *
+     * @return true if a sequence which cannot suspend the flow is being mediated
+     */
+    public synchronized boolean isSkipping() {
+        return skipDepth > 0;
+    }
+
+    /**
+     * Copy the states from the given index up to the shared count, so that the state at the
+     * given index and the states above it are owned by this stack
+     */
+    private void own(int index) {
+        if (index >= 0 && index < sharedCount) {
+            int end = Math.min(sharedCount, size());
+            for (int i = index; i < end; i++) {
+                ContinuationState state = elementAt(i);
+                if (state instanceof SeqContinuationState) {
+                    setElementAt(ContinuationStackManager.getClonedSeqContinuationState(
+                            (SeqContinuationState) state), i);
+                }
+            }
+            sharedCount = index;
+        }
+    }
+}
@@ -28,6 +28,7 @@ import org.apache.synapse.config.SynapseConfiguration;
 import org.apache.synapse.endpoints.EndpointDefinition;
 import org.apache.synapse.mediators.base.SequenceMediator;
 import org.apache.synapse.task.SynapseTaskManager;
+import org.apache.synapse.util.concurrent.SynapseScheduler;
 import org.apache.synapse.util.xpath.ext.SynapseXpathFunctionContextProvider;
 import org.apache.synapse.util.xpath.ext.SynapseXpathVariableResolver;
 
@@ -124,6 +125,14 @@ public interface SynapseEnvironment {
      */
      public ExecutorService getExecutorService();
 
+    /**
+     * This is used by anyone who needs to run a task after a delay or periodically, such as
+     * timeouts and the periodic tasks of the mediators.
+     *
+     * @return Returns the SynapseScheduler
+     */
+    public SynapseScheduler getSynapseScheduler();
+
     /**
      * Has the Synapse Environment properly initialized?
      * 
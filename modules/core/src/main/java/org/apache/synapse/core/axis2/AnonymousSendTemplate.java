@@ -0,0 +1,127 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.core.axis2;
+
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ServiceContext;
+import org.apache.axis2.context.ServiceGroupContext;
+import org.apache.axis2.description.AxisMessage;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.AxisServiceGroup;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.axis2.wsdl.WSDLConstants;
+import org.apache.synapse.SynapseConstants;
+import org.apache.synapse.config.SynapseConfiguration;
+
+import javax.xml.namespace.QName;
+
+/**
+ * The contexts of an anonymous service prepared once, from which the messages without
+ * WS-Security and WS-RM are sent out. Those messages do not change the service or its contexts,
+ * so that a single service context can be shared by them, instead of creating a service group
+ * context and a service context, and looking up the operations, on each send. </p>
+ *
+ * <p> A template is kept for the anonymous services with and without WS-Addressing, and it is
+ * prepared again if the anonymous service of the Axis2 configuration is replaced. The service
+ * is still looked up by its key on each send to notice that, which is a single map lookup once
+ * the service exists. </p>
+ */
+final class AnonymousSendTemplate {
+
+    private static final QName OUT_IN_OPERATION =
+            new QName(AnonymousServiceFactory.OUT_IN_OPERATION);
+    private static final QName OUT_ONLY_OPERATION =
+            new QName(AnonymousServiceFactory.OUT_ONLY_OPERATION);
+
+    /** Templates of the services without and with WS-Addressing */
+    private static volatile AnonymousSendTemplate noneTemplate;
+    private static volatile AnonymousSendTemplate addressingTemplate;
+
+    private final ConfigurationContext configurationContext;
+    private final AxisService service;
+    private final ServiceContext serviceContext;
+    private final AxisOperation outInOperation;
+    private final AxisOperation outOnlyOperation;
+    private final AxisMessage outInMessage;
+    private final AxisMessage outOnlyMessage;
+
+    private AnonymousSendTemplate(ConfigurationContext configurationContext,
+                                  AxisService service) throws AxisFault {
+        this.configurationContext = configurationContext;
+        this.service = service;
+        // mark the anon services created to be used in the client side of synapse as hidden
+        // from the server side of synapse point of view
+        service.getParent().addParameter(SynapseConstants.HIDDEN_SERVICE_PARAM, "true");
+        ServiceGroupContext sgc = new ServiceGroupContext(
+                configurationContext, (AxisServiceGroup) service.getParent());
+        this.serviceContext = sgc.getServiceContext(service);
+        this.outInOperation = service.getOperation(OUT_IN_OPERATION);
+        this.outOnlyOperation = service.getOperation(OUT_ONLY_OPERATION);
+        this.outInMessage = outInOperation.getMessage(WSDLConstants.MESSAGE_LABEL_OUT_VALUE);
+        this.outOnlyMessage = outOnlyOperation.getMessage(WSDLConstants.MESSAGE_LABEL_OUT_VALUE);
+    }
+
+    /**
+     * Get the template of the anonymous service without WS-Security and WS-RM
+     *
+     * @param synCfg the Synapse configuration
+     * @param cfgCtx the configuration context the message is sent with
+     * @param wsAddressingEnabled whether WS-Addressing is engaged
+     * @return the template for the service
+     * @throws AxisFault if the service context cannot be created
+     */
+    static AnonymousSendTemplate getTemplate(SynapseConfiguration synCfg,
+                                             ConfigurationContext cfgCtx,
+                                             boolean wsAddressingEnabled) throws AxisFault {
+
+        AxisConfiguration axisCfg = cfgCtx.getAxisConfiguration();
+        AxisService service = AnonymousServiceFactory.getAnonymousService(
+                synCfg, axisCfg, wsAddressingEnabled, false, false);
+
+        AnonymousSendTemplate template = wsAddressingEnabled ? addressingTemplate : noneTemplate;
+        if (template != null && template.service == service &&
+                template.configurationContext == cfgCtx) {
+            return template;
+        }
+
+        // racing threads may prepare a template each, any of them can be used
+        template = new AnonymousSendTemplate(cfgCtx, service);
+        if (wsAddressingEnabled) {
+            addressingTemplate = template;
+        } else {
+            noneTemplate = template;
+        }
+        return template;
+    }
+
+    ServiceContext getServiceContext() {
+        return serviceContext;
+    }
+
+    AxisOperation getOperation(boolean outOnly) {
+        return outOnly ? outOnlyOperation : outInOperation;
+    }
+
+    AxisMessage getOutMessage(boolean outOnly) {
+        return outOnly ? outOnlyMessage : outInMessage;
+    }
+}
@@ -33,6 +33,7 @@ import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.context.ServiceContext;
 import org.apache.axis2.context.ServiceGroupContext;
+import org.apache.axis2.description.AxisMessage;
 import org.apache.axis2.description.AxisOperation;
 import org.apache.axis2.description.AxisService;
 import org.apache.axis2.description.AxisServiceGroup;
@@ -386,24 +387,43 @@ public class Axis2FlexibleMEPClient {
         ConfigurationContext axisCfgCtx = axisOutMsgCtx.getConfigurationContext();
         AxisConfiguration axisCfg = axisCfgCtx.getAxisConfiguration();
 
-        AxisService anoymousService =
-                AnonymousServiceFactory.getAnonymousService(synapseOutMessageContext.getConfiguration(),
-                        axisCfg, wsAddressingEnabled, wsRMEnabled, wsSecurityEnabled);
-        // mark the anon services created to be used in the client side of synapse as hidden
-        // from the server side of synapse point of view
-        anoymousService.getParent().addParameter(SynapseConstants.HIDDEN_SERVICE_PARAM, "true");
-        ServiceGroupContext sgc = new ServiceGroupContext(
-                axisCfgCtx, (AxisServiceGroup) anoymousService.getParent());
-        ServiceContext serviceCtx = sgc.getServiceContext(anoymousService);
-
         boolean outOnlyMessage = "true".equals(synapseOutMessageContext.getProperty(
                 SynapseConstants.OUT_ONLY));
 
-        // get a reference to the DYNAMIC operation of the Anonymous Axis2 service
-        AxisOperation axisAnonymousOperation = anoymousService.getOperation(
-                outOnlyMessage ?
-                        new QName(AnonymousServiceFactory.OUT_ONLY_OPERATION) :
-                        new QName(AnonymousServiceFactory.OUT_IN_OPERATION));
+        AxisService anoymousService;
+        ServiceContext serviceCtx;
+        AxisOperation axisAnonymousOperation;
+        AxisMessage axisOutMessage;
+
+        if (!wsRMEnabled && !wsSecurityEnabled) {
+            // messages without WS-RM and WS-Security do not change the anonymous service or its
+            // contexts, these are prepared once and shared
+            AnonymousSendTemplate template = AnonymousSendTemplate.getTemplate(
+                    synapseOutMessageContext.getConfiguration(), axisCfgCtx, wsAddressingEnabled);
+            anoymousService = null;
+            serviceCtx = template.getServiceContext();
+            axisAnonymousOperation = template.getOperation(outOnlyMessage);
+            axisOutMessage = template.getOutMessage(outOnlyMessage);
+
+        } else {
+            anoymousService = AnonymousServiceFactory.getAnonymousService(
+                    synapseOutMessageContext.getConfiguration(),
+                    axisCfg, wsAddressingEnabled, wsRMEnabled, wsSecurityEnabled);
+            // mark the anon services created to be used in the client side of synapse as hidden
+            // from the server side of synapse point of view
+            anoymousService.getParent().addParameter(SynapseConstants.HIDDEN_SERVICE_PARAM, "true");
+            ServiceGroupContext sgc = new ServiceGroupContext(
+                    axisCfgCtx, (AxisServiceGroup) anoymousService.getParent());
+            serviceCtx = sgc.getServiceContext(anoymousService);
+
+            // get a reference to the DYNAMIC operation of the Anonymous Axis2 service
+            axisAnonymousOperation = anoymousService.getOperation(
+                    outOnlyMessage ?
+                            new QName(AnonymousServiceFactory.OUT_ONLY_OPERATION) :
+                            new QName(AnonymousServiceFactory.OUT_IN_OPERATION));
+            axisOutMessage =
+                    axisAnonymousOperation.getMessage(WSDLConstants.MESSAGE_LABEL_OUT_VALUE);
+        }
 
         Options clientOptions = MessageHelper.cloneOptions(originalInMsgCtx.getOptions());
         clientOptions.setUseSeparateListener(separateListener);
@@ -451,8 +471,7 @@ public class Axis2FlexibleMEPClient {
 
         OperationClient mepClient = axisAnonymousOperation.createClient(serviceCtx, clientOptions);
         mepClient.addMessageContext(axisOutMsgCtx);
-        axisOutMsgCtx.setAxisMessage(
-                axisAnonymousOperation.getMessage(WSDLConstants.MESSAGE_LABEL_OUT_VALUE));
+        axisOutMsgCtx.setAxisMessage(axisOutMessage);
 
         // set the SEND_TIMEOUT for transport sender
         if (endpoint != null && endpoint.getTimeoutDuration() > 0) {
@@ -37,6 +37,7 @@ import org.apache.synapse.MessageContext;
 import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.config.Entry;
 import org.apache.synapse.config.SynapseConfiguration;
+import org.apache.synapse.continuation.ContinuationStateStack;
 import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.endpoints.Endpoint;
 import org.apache.synapse.mediators.base.SequenceMediator;
@@ -44,7 +45,6 @@ import org.apache.synapse.mediators.template.InvokeMediator;
 import org.apache.synapse.mediators.template.TemplateMediator;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
@@ -69,13 +69,13 @@ public class Axis2MessageContext implements MessageContext {
     /**
      * Synapse Message Context properties
      */
-    private final Map<String, Object> properties = new HashMap<String, Object>();
+    private final PropertyMap properties = new PropertyMap();
 
     /**
      * Local entries fetched from the configuration or from the registry for the transactional
      * resource access
      */
-    private final Map<String, Object> localEntries = new HashMap<String, Object>();
+    private final PropertyMap localEntries = new PropertyMap();
 
     /**
      * Fault Handler stack which will be popped and called the handleFault in error states
@@ -85,7 +85,7 @@ public class Axis2MessageContext implements MessageContext {
     /**
      * ContinuationState stack which is used to store ContinuationStates of mediation flow
      */
-    private final Stack<ContinuationState> continuationStateStack = new Stack<ContinuationState>();
+    private final Stack<ContinuationState> continuationStateStack = new ContinuationStateStack();
 
     /**
      * The Axis2 MessageContext reference
@@ -143,7 +143,12 @@ public class Axis2MessageContext implements MessageContext {
     }
 
     public void setContextEntries(Map<String, Object> entries) {
-        this.localEntries.putAll(entries);
+        if (localEntries.isEmpty() && entries instanceof PropertyMap) {
+            // entries of the message being cloned, copied only if either of them changes
+            localEntries.shareWith((PropertyMap) entries);
+        } else {
+            localEntries.putAll(entries);
+        }
     }
 
     public Mediator getMainSequence() {
@@ -52,7 +52,9 @@ import org.apache.synapse.mediators.base.SequenceMediator;
 import org.apache.synapse.rest.RESTRequestHandler;
 import org.apache.synapse.task.SynapseTaskManager;
 import org.apache.synapse.transport.passthru.util.RelayUtils;
+import org.apache.synapse.util.concurrent.DefaultSynapseScheduler;
 import org.apache.synapse.util.concurrent.InboundThreadPool;
+import org.apache.synapse.util.concurrent.SynapseScheduler;
 import org.apache.synapse.util.concurrent.SynapseThreadPool;
 import org.apache.synapse.util.xpath.ext.SynapseXpathFunctionContextProvider;
 import org.apache.synapse.util.xpath.ext.SynapseXpathVariableResolver;
@@ -79,6 +81,7 @@ public class Axis2SynapseEnvironment implements SynapseEnvironment {
     private ConfigurationContext configContext;
     private ExecutorService executorService;
     private ExecutorService executorServiceInbound;
+    private SynapseScheduler synapseScheduler;
     private boolean initialized = false;
     private SynapseTaskManager taskManager;
     private RESTRequestHandler restHandler;
@@ -159,10 +162,42 @@ public class Axis2SynapseEnvironment implements SynapseEnvironment {
 		                                                    InboundThreadPool.INBOUND_THREAD_GROUP,
 		                                                    InboundThreadPool.INBOUND_THREAD_ID_PREFIX);
 
+        this.synapseScheduler = createSynapseScheduler(synCfg);
+
         taskManager = new SynapseTaskManager();
         restHandler = new RESTRequestHandler();
     }
 
+    private SynapseScheduler createSynapseScheduler(SynapseConfiguration synCfg) {
+
+        String schedulerClass = null;
+        try {
+            schedulerClass = synCfg.getProperty(DefaultSynapseScheduler.SYN_SCHEDULER_CLASS);
+        } catch (Exception ignore) {}
+
+        if (schedulerClass != null) {
+            try {
+                return (SynapseScheduler) Class.forName(schedulerClass.trim()).newInstance();
+            } catch (Exception e) {
+                throw new SynapseException("Couldn't create the scheduler : " + schedulerClass, e);
+            }
+        }
+
+        int threads = DefaultSynapseScheduler.SCHEDULER_THREADS;
+        long tick = DefaultSynapseScheduler.SCHEDULER_TICK;
+
+        try {
+            threads = Integer.parseInt(
+                    synCfg.getProperty(DefaultSynapseScheduler.SYN_SCHEDULER_THREADS));
+        } catch (Exception ignore) {}
+
+        try {
+            tick = Long.parseLong(synCfg.getProperty(DefaultSynapseScheduler.SYN_SCHEDULER_TICK));
+        } catch (Exception ignore) {}
+
+        return new DefaultSynapseScheduler(threads, tick);
+    }
+
     public Axis2SynapseEnvironment(ConfigurationContext cfgCtx,
         SynapseConfiguration synapseConfig) {
         this(synapseConfig);
@@ -531,6 +566,15 @@ public class Axis2SynapseEnvironment implements SynapseEnvironment {
         return executorService;
     }
 
+    /**
+     * This will give the access to the scheduler for the timed tasks of the artifacts.
+     *
+     * @return the SynapseScheduler of this environment
+     */
+    public SynapseScheduler getSynapseScheduler() {
+        return synapseScheduler;
+    }
+
     /**
      * Has this environment properly initialized?
      *
@@ -0,0 +1,436 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.core.axis2;
+
+import org.apache.synapse.SynapseConstants;
+import org.apache.synapse.mediators.eip.EIPConstants;
+import org.apache.synapse.rest.RESTConstants;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A compact map for the properties and the local entries of a message context. The keys set on
+ * most messages are stored in fixed slots of an array, without an entry object per property.
+ * Other keys are stored in an open addressed table with linear probing. </p>
+ *
+ * <p> A map can share the arrays of another map through {@link #shareWith(PropertyMap)}, which
+ * is used for the clones of a message. The arrays are copied only when one of the maps is
+ * modified. </p>
+ *
+ * <p> Null values are not stored, putting a null value removes the key, and setting a null value
+ * on an entry is rejected. Like the HashMap it replaces, this map is not thread safe. </p>
+ */
+final class PropertyMap extends AbstractMap<String, Object> {
+
+    /** Keys set on most of the messages, each of these has a fixed slot */
+    private static final String[] WELL_KNOWN_KEYS = {
+            SynapseConstants.RESPONSE,
+            SynapseConstants.OUT_ONLY,
+            SynapseConstants.SENDING_REQUEST,
+            SynapseConstants.SENDING_FAULT,
+            SynapseConstants.STATISTICS_STACK,
+            SynapseConstants.PROXY_SERVICE,
+            SynapseConstants.TRANSPORT_IN_NAME,
+            SynapseConstants.IN_TRANSPORT,
+            SynapseConstants.ERROR_CODE,
+            SynapseConstants.ERROR_MESSAGE,
+            SynapseConstants.ERROR_DETAIL,
+            SynapseConstants.ERROR_EXCEPTION,
+            SynapseConstants.SYNAPSE__FUNCTION__STACK,
+            SynapseConstants.LAST_ENDPOINT,
+            SynapseConstants.RECEIVING_SEQUENCE,
+            SynapseConstants.CONTINUATION_CALL,
+            SynapseConstants.MAIN_SEQUENCE_KEY,
+            SynapseConstants.FAULT_SEQUENCE_KEY,
+            EIPConstants.AGGREGATE_CORRELATION,
+            RESTConstants.REST_API_CONTEXT,
+            RESTConstants.SYNAPSE_REST_API,
+            RESTConstants.SYNAPSE_REST_API_VERSION,
+            RESTConstants.SYNAPSE_RESOURCE,
+            RESTConstants.REST_URL_PREFIX,
+            RESTConstants.REST_FULL_REQUEST_PATH,
+            RESTConstants.REST_SUB_REQUEST_PATH,
+            RESTConstants.REST_METHOD
+    };
+
+    /** Open addressed index of the well known keys, holding the slot + 1 or 0 if empty */
+    private static final int[] WELL_KNOWN_INDEX;
+
+    static {
+        int size = Integer.highestOneBit(WELL_KNOWN_KEYS.length * 4 - 1) << 1;
+        WELL_KNOWN_INDEX = new int[size];
+        for (int i = 0; i < WELL_KNOWN_KEYS.length; i++) {
+            int h = hash(WELL_KNOWN_KEYS[i]) & (size - 1);
+            while (WELL_KNOWN_INDEX[h] != 0) {
+                h = (h + 1) & (size - 1);
+            }
+            WELL_KNOWN_INDEX[h] = i + 1;
+        }
+    }
+
+    private static final int INITIAL_TABLE_SIZE = 8;
+
+    /** Stands for the null key in the table */
+    private static final Object NULL_KEY = new Object();
+
+    /** Marks a removed key in the table, so that the keys probed past it are still found */
+    private static final Object REMOVED = new Object();
+
+    /** Values of the well known keys, null until one of them is set */
+    private Object[] slots;
+    private int slotCount;
+
+    /** Table of the other keys, null until one of them is set */
+    private Object[] keys;
+    private Object[] values;
+    private int tableCount;
+    /** Number of used positions in the table, including the removed ones */
+    private int tableUsed;
+
+    /** Whether the arrays are shared with another map and must be copied before modifying */
+    private boolean shared;
+
+    private int modCount;
+
+    @Override
+    public Object get(Object key) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            return slots != null ? slots[slot] : null;
+        }
+        if (keys == null) {
+            return null;
+        }
+        int i = indexOf(maskNull(key));
+        return i >= 0 ? values[i] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        if (value == null) {
+            return remove(key);
+        }
+        copyIfShared();
+
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            if (slots == null) {
+                slots = new Object[WELL_KNOWN_KEYS.length];
+            }
+            Object old = slots[slot];
+            slots[slot] = value;
+            if (old == null) {
+                slotCount++;
+                modCount++;
+            }
+            return old;
+        }
+
+        Object k = maskNull(key);
+        if (keys == null) {
+            keys = new Object[INITIAL_TABLE_SIZE];
+            values = new Object[INITIAL_TABLE_SIZE];
+        } else {
+            int i = indexOf(k);
+            if (i >= 0) {
+                Object old = values[i];
+                values[i] = value;
+                return old;
+            }
+            if ((tableUsed + 1) * 4 > keys.length * 3) {
+                resize();
+            }
+        }
+
+        int mask = keys.length - 1;
+        int h = hash(k) & mask;
+        while (keys[h] != null && keys[h] != REMOVED) {
+            h = (h + 1) & mask;
+        }
+        if (keys[h] == null) {
+            tableUsed++;
+        }
+        keys[h] = k;
+        values[h] = value;
+        tableCount++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int slot = slotOf(key);
+        if (slot >= 0) {
+            if (slots == null || slots[slot] == null) {
+                return null;
+            }
+            copyIfShared();
+            Object old = slots[slot];
+            slots[slot] = null;
+            slotCount--;
+            modCount++;
+            return old;
+        }
+
+        if (keys == null) {
+            return null;
+        }
+        int i = indexOf(maskNull(key));
+        if (i < 0) {
+            return null;
+        }
+        copyIfShared();
+        Object old = values[i];
+        keys[i] = REMOVED;
+        values[i] = null;
+        tableCount--;
+        modCount++;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        slots = null;
+        keys = null;
+        values = null;
+        slotCount = 0;
+        tableCount = 0;
+        tableUsed = 0;
+        shared = false;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return slotCount + tableCount;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Object>>() {
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            public int size() {
+                return PropertyMap.this.size();
+            }
+
+            public void clear() {
+                PropertyMap.this.clear();
+            }
+        };
+    }
+
+    /**
+     * Replace the content of this map with the content of the given map. The arrays are shared
+     * by the two maps until one of them is modified.
+     *
+     * @param source map to copy
+     */
+    void shareWith(PropertyMap source) {
+        slots = source.slots;
+        keys = source.keys;
+        values = source.values;
+        slotCount = source.slotCount;
+        tableCount = source.tableCount;
+        tableUsed = source.tableUsed;
+        shared = true;
+        source.shared = true;
+        modCount++;
+    }
+
+    private void copyIfShared() {
+        if (shared) {
+            if (slots != null) {
+                slots = slots.clone();
+            }
+            if (keys != null) {
+                keys = keys.clone();
+                values = values.clone();
+            }
+            shared = false;
+        }
+    }
+
+    private void resize() {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int size = INITIAL_TABLE_SIZE;
+        while (tableCount * 2 >= size) {
+            size <<= 1;
+        }
+        keys = new Object[size];
+        values = new Object[size];
+        tableUsed = 0;
+        int mask = size - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            Object k = oldKeys[i];
+            if (k != null && k != REMOVED) {
+                int h = hash(k) & mask;
+                while (keys[h] != null) {
+                    h = (h + 1) & mask;
+                }
+                keys[h] = k;
+                values[h] = oldValues[i];
+                tableUsed++;
+            }
+        }
+    }
+
+    private int indexOf(Object k) {
+        int mask = keys.length - 1;
+        int h = hash(k) & mask;
+        Object current;
+        while ((current = keys[h]) != null) {
+            if (current == k || (current != REMOVED && current.equals(k))) {
+                return h;
+            }
+            h = (h + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int slotOf(Object key) {
+        if (!(key instanceof String)) {
+            return -1;
+        }
+        int mask = WELL_KNOWN_INDEX.length - 1;
+        int h = hash(key) & mask;
+        int e;
+        while ((e = WELL_KNOWN_INDEX[h]) != 0) {
+            String k = WELL_KNOWN_KEYS[e - 1];
+            if (k == key || k.equals(key)) {
+                return e - 1;
+            }
+            h = (h + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int hash(Object k) {
+        int h = k.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static Object maskNull(Object key) {
+        return key == null ? NULL_KEY : key;
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+        /** Position over the slots followed by the table */
+        private int next = 0;
+        private String lastKey;
+        private boolean canRemove = false;
+        private int expectedModCount = modCount;
+
+        public boolean hasNext() {
+            int slotLength = slots != null ? slots.length : 0;
+            int end = slotLength + (keys != null ? keys.length : 0);
+            while (next < end) {
+                if (next < slotLength) {
+                    if (slots[next] != null) {
+                        return true;
+                    }
+                } else {
+                    Object k = keys[next - slotLength];
+                    if (k != null && k != REMOVED) {
+                        return true;
+                    }
+                }
+                next++;
+            }
+            return false;
+        }
+
+        public Map.Entry<String, Object> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int slotLength = slots != null ? slots.length : 0;
+            Object value;
+            if (next < slotLength) {
+                lastKey = WELL_KNOWN_KEYS[next];
+                value = slots[next];
+            } else {
+                Object k = keys[next - slotLength];
+                lastKey = k == NULL_KEY ? null : (String) k;
+                value = values[next - slotLength];
+            }
+            next++;
+            canRemove = true;
+            return new Entry(lastKey, value);
+        }
+
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            // removing never moves the other keys, the iteration continues from where it is
+            PropertyMap.this.remove(lastKey);
+            expectedModCount = modCount;
+            canRemove = false;
+        }
+    }
+
+    private final class Entry extends SimpleEntry<String, Object> {
+
+        private Entry(String key, Object value) {
+            super(key, value);
+        }
+
+        /**
+         * Replaces the value in the map as well. The key stays in place, so the iteration goes
+         * on. A null value is rejected, as it would remove the key from under the iteration.
+         */
+        @Override
+        public Object setValue(Object value) {
+            if (value == null) {
+                throw new NullPointerException("A null value removes the key, use the " +
+                        "iterator to remove the entry : " + getKey());
+            }
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
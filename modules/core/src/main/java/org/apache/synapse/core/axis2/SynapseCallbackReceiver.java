@@ -46,6 +46,7 @@ import org.apache.synapse.carbonext.TenantInfoConfigurator;
 import org.apache.synapse.config.SynapseConfigUtils;
 import org.apache.synapse.config.SynapseConfiguration;
 import org.apache.synapse.continuation.ContinuationStackManager;
+import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.endpoints.AbstractEndpoint;
 import org.apache.synapse.endpoints.Endpoint;
 import org.apache.synapse.endpoints.FailoverEndpoint;
@@ -58,7 +59,6 @@ import org.apache.synapse.transport.passthru.util.RelayUtils;
 import org.apache.synapse.util.ResponseAcceptEncodingProcessor;
 
 import java.util.Stack;
-import java.util.Timer;
 
 /**
  * This is the message receiver that receives the responses for outgoing messages sent out
@@ -86,14 +86,19 @@ public class SynapseCallbackReceiver extends CallbackReceiver {
 
 //        callbackStore = Collections.synchronizedMap(new HashMap<String, AxisCallback>());
 
-        // create the Timer object and a TimeoutHandler task
+        // create the TimeoutHandler task
         TimeoutHandler timeoutHandler = new TimeoutHandler(callbackStore, contextInformation);
         
-        Timer timeOutTimer = synCfg.getSynapseTimer();
         long timeoutHandlerInterval = SynapseConfigUtils.getTimeoutHandlerInterval();
 
         // schedule timeout handler to run every n seconds (n : specified or defaults to 15s)
-        timeOutTimer.schedule(timeoutHandler, 0, timeoutHandlerInterval);
+        SynapseEnvironment synEnv = contextInformation.getSynapseEnvironment();
+        if (synEnv != null) {
+            synEnv.getSynapseScheduler().scheduleWithFixedDelay(
+                    "callback-timeout-handler", timeoutHandler, 0, timeoutHandlerInterval);
+        } else {
+            synCfg.getSynapseTimer().schedule(timeoutHandler, 0, timeoutHandlerInterval);
+        }
     }
 
     public int getCallbackCount() {
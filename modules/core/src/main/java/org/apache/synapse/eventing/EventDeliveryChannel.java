@@ -0,0 +1,145 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.eventing;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.core.SynapseEnvironment;
+import org.apache.synapse.endpoints.AddressEndpoint;
+import org.apache.synapse.endpoints.EndpointDefinition;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delivers events to a single subscriber endpoint. Events are queued in a bounded queue and
+ * sent in order by at most one task of the Synapse executor at a time, so that a slow
+ * subscriber neither blocks the publisher nor the delivery to the other subscribers. When the
+ * queue of a subscriber is full, new events for that subscriber are dropped, and the dropped
+ * events are logged at most once every {@link #DROP_WARN_INTERVAL} milliseconds.
+ */
+public class EventDeliveryChannel implements Runnable {
+
+    private static final Log log = LogFactory.getLog(EventDeliveryChannel.class);
+
+    /** Minimum time in milliseconds between two warnings about dropped events */
+    public static final long DROP_WARN_INTERVAL = 10000;
+
+    private final String endpointUrl;
+    private final AddressEndpoint endpoint;
+    private final SynapseEnvironment synEnv;
+    private final BlockingQueue<MessageContext> queue;
+    /** Whether a delivery task of this channel is scheduled or running */
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private volatile boolean destroyed = false;
+    /** Number of events dropped since the last warning */
+    private final AtomicLong droppedCount = new AtomicLong();
+    /** Time of the last warning about dropped events */
+    private final AtomicLong lastDropWarning = new AtomicLong();
+
+    public EventDeliveryChannel(String endpointUrl, SynapseEnvironment synEnv, int capacity) {
+        this.endpointUrl = endpointUrl;
+        this.synEnv = synEnv;
+        this.queue = new ArrayBlockingQueue<MessageContext>(capacity);
+
+        endpoint = new AddressEndpoint();
+        EndpointDefinition def = new EndpointDefinition();
+        def.setAddress(endpointUrl.trim());
+        endpoint.setDefinition(def);
+        endpoint.init(synEnv);
+    }
+
+    /**
+     * Queues an event for the delivery to the subscriber
+     *
+     * @param synCtx event message, owned by this channel from now on
+     * @return false if the event was dropped as the queue of the subscriber is full
+     */
+    public boolean offer(MessageContext synCtx) {
+        if (destroyed || !queue.offer(synCtx)) {
+            warnDropped(synCtx);
+            return false;
+        }
+        schedule();
+        return true;
+    }
+
+    private void warnDropped(MessageContext synCtx) {
+        long dropped = droppedCount.incrementAndGet();
+        long now = System.currentTimeMillis();
+        long last = lastDropWarning.get();
+        if (now - last >= DROP_WARN_INTERVAL && lastDropWarning.compareAndSet(last, now)) {
+            dropped = droppedCount.getAndSet(0);
+            log.warn("Event queue of the subscriber : " + endpointUrl + " is full or closed, " +
+                    "dropped " + dropped + " event/s, the last one : " + synCtx.getMessageID());
+        } else if (log.isDebugEnabled()) {
+            log.debug("Dropped the event : " + synCtx.getMessageID() + " of the subscriber : " +
+                    endpointUrl + ", " + dropped + " event/s dropped since the last warning");
+        }
+    }
+
+    private void schedule() {
+        if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+            synEnv.getExecutorService().execute(this);
+        }
+    }
+
+    public void run() {
+        try {
+            MessageContext synCtx;
+            while (!destroyed && (synCtx = queue.poll()) != null) {
+                try {
+                    endpoint.send(synCtx);
+                    if (log.isDebugEnabled()) {
+                        log.debug("Event push to  : " + endpointUrl);
+                    }
+                } catch (Exception e) {
+                    log.error("Event sending failure to : " + endpointUrl, e);
+                }
+            }
+        } finally {
+            scheduled.set(false);
+        }
+        // an event may have been queued after the loop and before the flag was reset
+        if (!destroyed) {
+            schedule();
+        }
+    }
+
+    public int getQueuedEventCount() {
+        return queue.size();
+    }
+
+    public boolean isDestroyed() {
+        return destroyed;
+    }
+
+    /**
+     * Discards the pending events and destroys the endpoint of the subscriber
+     */
+    public void destroy() {
+        destroyed = true;
+        queue.clear();
+        endpoint.destroy();
+    }
+}
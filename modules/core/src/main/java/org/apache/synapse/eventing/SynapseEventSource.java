@@ -32,9 +32,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.SynapseException;
-import org.apache.synapse.endpoints.Endpoint;
-import org.apache.synapse.endpoints.AddressEndpoint;
-import org.apache.synapse.endpoints.EndpointDefinition;
+import org.apache.synapse.config.SynapsePropertiesLoader;
 import org.apache.synapse.config.SynapseConfiguration;
 import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
@@ -42,6 +40,7 @@ import org.apache.synapse.core.axis2.SynapseMessageReceiver;
 import org.apache.synapse.eventing.builders.ResponseMessageBuilder;
 import org.apache.synapse.eventing.builders.SubscriptionMessageBuilder;
 import org.apache.synapse.util.MessageHelper;
+import org.apache.synapse.util.SharedPayload;
 import org.wso2.eventing.EventingConstants;
 import org.wso2.eventing.Subscription;
 import org.wso2.eventing.Event;
@@ -49,9 +48,15 @@ import org.wso2.eventing.SubscriptionManager;
 import org.wso2.eventing.exceptions.EventException;
 
 import javax.xml.namespace.QName;
+import java.util.Calendar;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Eventsource that accepts the event requests using a message receiver.
@@ -71,6 +76,14 @@ public class SynapseEventSource extends SynapseMessageReceiver {
     /* Contains properties used in the configuration and possess confidential information such as
      encrypted passwords  */
     private Map<String, String> configurationProperties = new HashMap<String, String>();
+    /* Event delivery channels of the subscribers, keyed by the subscriber endpoint URL */
+    private final ConcurrentMap<String, EventDeliveryChannel> deliveryChannels =
+            new ConcurrentHashMap<String, EventDeliveryChannel>();
+    /* Time after which the expired subscriptions are purged by the next event or request */
+    private final AtomicLong nextPurge = new AtomicLong();
+
+    /** Minimum time in milliseconds between two purges of the expired subscriptions */
+    private static final long PURGE_INTERVAL = 60000;
 
     public SynapseEventSource(String name) {
         this.name = name;
@@ -129,6 +142,7 @@ public class SynapseEventSource extends SynapseMessageReceiver {
         // initialize the response message builder using the message context
         ResponseMessageBuilder messageBuilder = new ResponseMessageBuilder(mc);
         try {
+            purgeExpiredSubscriptions(false);
             if (EventingConstants.WSE_SUBSCRIBE.equals(mc.getWSAAction())) {
                 // add new subscription to the SynapseSubscription store through subscription manager
                 processSubscriptionRequest(mc, messageBuilder);
@@ -186,15 +200,14 @@ public class SynapseEventSource extends SynapseMessageReceiver {
      */
     public void dispatchEvents(org.apache.synapse.MessageContext msgCtx) {
 
-        List<Subscription> subscribers = null;
-
         // Call event dispatcher
         msgCtx.getEnvironment().getExecutorService()
                 .execute(new EventDispatcher(msgCtx));
     }
 
     /**
-     * Dispatching events async on a different thread
+     * Dispatching events async on a different thread. The payload of the event is serialized
+     * once and shared by the messages queued for the matching subscribers.
      */
     class EventDispatcher implements Runnable {
         private org.apache.synapse.MessageContext synCtx;
@@ -206,25 +219,33 @@ public class SynapseEventSource extends SynapseMessageReceiver {
 
         public void run() {
             try {
+                purgeExpiredSubscriptions(false);
                 MessageContext msgCtx = ((Axis2MessageContext) synCtx).getAxis2MessageContext();
                 Event<MessageContext> event = new Event(msgCtx);
                 subscriptions = subscriptionManager.getMatchingSubscriptions(event);
             } catch (EventException e) {
                 handleException("Matching subscriptions fetching error", e);
             }
+            if (subscriptions.isEmpty()) {
+                return;
+            }
+
+            synCtx.setProperty(SynapseConstants.OUT_ONLY,
+                    "true");    // Set one way message for events
+            SharedPayload payload = null;
+            try {
+                payload = SharedPayload.create(synCtx);
+            } catch (AxisFault axisFault) {
+                log.warn("Unable to share the event payload, cloning it per subscriber", axisFault);
+            }
 
             for (Subscription subscription : subscriptions) {
-                synCtx.setProperty(SynapseConstants.OUT_ONLY,
-                        "true");    // Set one way message for events
                 try {
-                    getEndpointFromURL(subscription.getEndpointUrl(), synCtx.getEnvironment())
-                            .send(MessageHelper.cloneMessageContext(synCtx));
+                    getDeliveryChannel(subscription.getEndpointUrl(), synCtx.getEnvironment())
+                            .offer(MessageHelper.cloneMessageContext(synCtx, payload));
                 } catch (AxisFault axisFault) {
                     log.error("Event sending failure " + axisFault.toString());
                 }
-                if (log.isDebugEnabled()) {
-                    log.debug("Event push to  : " + subscription.getEndpointUrl());
-                }
             }
         }
     }
@@ -298,7 +319,11 @@ public class SynapseEventSource extends SynapseMessageReceiver {
             log.debug("UnSubscribe response recived for SynapseSubscription ID : " +
                     subscription.getId());
         }
+        Subscription existing = subscriptionManager.getSubscription(subscription.getId());
         if (subscriptionManager.unsubscribe(subscription.getId())) {
+            if (existing != null) {
+                releaseDeliveryChannel(existing.getEndpointUrl());
+            }
             //send the response
             if (log.isDebugEnabled()) {
                 log.debug("Sending UnSubscribe responce for SynapseSubscription ID : " +
@@ -410,21 +435,97 @@ public class SynapseEventSource extends SynapseMessageReceiver {
     }
 
     /**
-     * Create a Endpoint for a given URL
+     * Get the delivery channel of the given subscriber endpoint URL, creating it if needed
      *
      * @param endpointUrl      URL
      * @param se    synapse environment
-     * @return AddressEndpoint address endpoint
+     * @return EventDeliveryChannel delivery channel of the subscriber
+     */
+    EventDeliveryChannel getDeliveryChannel(String endpointUrl, SynapseEnvironment se) {
+        EventDeliveryChannel channel = deliveryChannels.get(endpointUrl);
+        if (channel == null) {
+            int capacity = Integer.parseInt(SynapsePropertiesLoader.getPropertyValue(
+                    SynapseEventingConstants.SUBSCRIBER_QUEUE_SIZE,
+                    String.valueOf(SynapseEventingConstants.DEFAULT_SUBSCRIBER_QUEUE_SIZE)));
+            EventDeliveryChannel newChannel = new EventDeliveryChannel(endpointUrl, se, capacity);
+            channel = deliveryChannels.putIfAbsent(endpointUrl, newChannel);
+            if (channel == null) {
+                channel = newChannel;
+            } else {
+                newChannel.destroy();
+            }
+        }
+        return channel;
+    }
+
+    /**
+     * Destroy the delivery channel of the given subscriber endpoint URL, if no other
+     * subscription delivers to the same endpoint
+     *
+     * @param endpointUrl URL
+     * @throws EventException if the subscriptions cannot be fetched
+     */
+    private void releaseDeliveryChannel(String endpointUrl) throws EventException {
+        for (Subscription subscription : subscriptionManager.getSubscriptions()) {
+            if (endpointUrl.equals(subscription.getEndpointUrl())) {
+                return;
+            }
+        }
+        EventDeliveryChannel channel = deliveryChannels.remove(endpointUrl);
+        if (channel != null) {
+            channel.destroy();
+        }
+    }
+
+    /**
+     * Remove the expired subscriptions, other than the static ones, and destroy the delivery
+     * channels of the endpoints which no longer have a valid subscription. Unless forced, this
+     * is done at most once every {@link #PURGE_INTERVAL} milliseconds.
+     *
+     * @param force purge even if the last purge is more recent than the purge interval
+     * @throws EventException if the subscriptions cannot be fetched or removed
      */
-    private Endpoint getEndpointFromURL(String endpointUrl, SynapseEnvironment se) {
-        AddressEndpoint endpoint = new AddressEndpoint();
-        EndpointDefinition def = new EndpointDefinition();
-        def.setAddress(endpointUrl.trim());
-        endpoint.setDefinition(def);
+    void purgeExpiredSubscriptions(boolean force) throws EventException {
+        long now = System.currentTimeMillis();
+        long next = nextPurge.get();
+        if (!force && (now < next || !nextPurge.compareAndSet(next, now + PURGE_INTERVAL))) {
+            return;
+        }
 
-        endpoint.init(se);
+        Calendar current = Calendar.getInstance();
+        Set<String> endpointUrls = new HashSet<String>();
+        for (Subscription subscription : subscriptionManager.getSubscriptions()) {
+            if (subscription.getExpires() != null && !current.before(subscription.getExpires())) {
+                if (!subscription.isStaticEntry()) {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Removing the expired subscription : " + subscription.getId());
+                    }
+                    subscriptionManager.unsubscribe(subscription.getId());
+                }
+            } else {
+                endpointUrls.add(subscription.getEndpointUrl());
+            }
+        }
+        for (Map.Entry<String, EventDeliveryChannel> entry : deliveryChannels.entrySet()) {
+            if (!endpointUrls.contains(entry.getKey()) &&
+                    deliveryChannels.remove(entry.getKey(), entry.getValue())) {
+                entry.getValue().destroy();
+            }
+        }
+    }
+
+    /**
+     * Destroy the delivery channels of all the subscribers, discarding their pending events
+     */
+    public void destroy() {
+        for (EventDeliveryChannel channel : deliveryChannels.values()) {
+            channel.destroy();
+        }
+        deliveryChannels.clear();
+    }
 
-        return endpoint;
+    int getDeliveryChannelCount() {
+        return deliveryChannels.size();
     }
 
     /**
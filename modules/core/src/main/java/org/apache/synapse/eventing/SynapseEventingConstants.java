@@ -28,4 +28,8 @@ public class SynapseEventingConstants {
     public static final String STATIC_ENTRY = "staticEntry";
     public static final String SERVICE_TYPE = "serviceType";
     public static final String EVENTING_ST  = "eventing";
+
+    /** Synapse property for the maximum number of events queued for delivery per subscriber */
+    public static final String SUBSCRIBER_QUEUE_SIZE = "synapse.eventing.subscriber.queue.size";
+    public static final int DEFAULT_SUBSCRIBER_QUEUE_SIZE = 1000;
 }
@@ -37,7 +37,7 @@ public class TopicBasedEventFilter implements EventFilter<MessageContext> {
 
     private AXIOMXPath sourceXpath;
     private String resultValue;
-    private static final String FILTER_SEP = "/";
+    public static final String FILTER_SEP = "/";
 
     private static final Log log = LogFactory.getLog(TopicBasedEventFilter.class);
 
@@ -62,17 +62,39 @@ public class TopicBasedEventFilter implements EventFilter<MessageContext> {
     }
 
     public boolean match(Event<MessageContext> event) {
-        MessageContext messageContext = event.getMessage();
-        String evaluatedValue = null;
+        return matches(evaluateTopic(event.getMessage()), resultValue);
+    }
+
+    /**
+     * Evaluates the topic of the given message using the source XPath of this filter. The
+     * evaluated topic can be matched against any number of filter values using
+     * {@link #matches(String, String)}, without evaluating the XPath again.
+     *
+     * @param messageContext message carrying the topic
+     * @return the evaluated topic or null if the message doesn't carry a topic
+     */
+    public String evaluateTopic(MessageContext messageContext) {
         try {
             OMElement topicNode = (OMElement) sourceXpath.selectSingleNode(
                     messageContext.getEnvelope());
             if (topicNode != null) {
-                evaluatedValue = topicNode.getText();
+                return topicNode.getText();
             }
         } catch (JaxenException e) {
             handleException("Error creating topic xpath",e);
         }
+        return null;
+    }
+
+    /**
+     * Checks whether an evaluated topic matches a topic filter value. A topic matches the filter
+     * value itself and all the sub topics of it.
+     *
+     * @param evaluatedValue the evaluated topic of an event
+     * @param resultValue the topic filter value of a subscription
+     * @return true if the topic matches the filter value
+     */
+    public static boolean matches(String evaluatedValue, String resultValue) {
         if (evaluatedValue != null){
             if (evaluatedValue.equals(resultValue)) {
                 return true;
@@ -34,12 +34,20 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
- *
+ * Keeps the subscriptions in memory. Subscriptions are indexed by their topic filter value, so
+ * that the subscriptions matching an event are found by looking up the topic of the event and
+ * its parent topics, instead of evaluating the filter of every subscription.
  */
 public class DefaultInMemorySubscriptionManager implements SubscriptionManager<MessageContext> {
 
     private final Map<String, Subscription> store =
             new ConcurrentHashMap<String, Subscription>();
+    /** Subscriptions indexed by the topic filter value, and then by the subscription id */
+    private final Map<String, Map<String, Subscription>> topicIndex =
+            new ConcurrentHashMap<String, Map<String, Subscription>>();
+    /** Subscriptions with filter values that cannot be looked up by topic (null or untrimmed) */
+    private final Map<String, Subscription> unindexed =
+            new ConcurrentHashMap<String, Subscription>();
     private String topicHeaderName;
     private String topicHeaderNS;
     private SynapseXPath topicXPath;
@@ -60,20 +68,70 @@ public class DefaultInMemorySubscriptionManager implements SubscriptionManager<M
         if (subscription.getId() == null) {
             subscription.setId(org.apache.axiom.om.util.UUIDGenerator.getUUID());
         }
-        store.put(subscription.getId(), subscription);
+        Subscription previous = store.put(subscription.getId(), subscription);
+        if (previous != null) {
+            removeFromIndex(previous);
+        }
+        addToIndex(subscription);
         return subscription.getId();
 
     }
 
   public boolean unsubscribe(String id) throws EventException {
-        if (store.containsKey(id)) {
-            store.remove(id);
+        Subscription subscription = store.remove(id);
+        if (subscription != null) {
+            removeFromIndex(subscription);
             return true;
         } else {
             return false;
         }
     }
 
+    private void addToIndex(Subscription subscription) {
+        String filterValue = subscription.getFilterValue();
+        if (!isIndexable(filterValue)) {
+            unindexed.put(subscription.getId(), subscription);
+            return;
+        }
+        synchronized (topicIndex) {
+            Map<String, Subscription> subscriptions = topicIndex.get(filterValue);
+            if (subscriptions == null) {
+                subscriptions = new ConcurrentHashMap<String, Subscription>();
+                topicIndex.put(filterValue, subscriptions);
+            }
+            subscriptions.put(subscription.getId(), subscription);
+        }
+    }
+
+    private void removeFromIndex(Subscription subscription) {
+        String filterValue = subscription.getFilterValue();
+        if (!isIndexable(filterValue)) {
+            unindexed.remove(subscription.getId());
+            return;
+        }
+        synchronized (topicIndex) {
+            Map<String, Subscription> subscriptions = topicIndex.get(filterValue);
+            if (subscriptions != null) {
+                subscriptions.remove(subscription.getId());
+                if (subscriptions.isEmpty()) {
+                    topicIndex.remove(filterValue);
+                }
+            }
+        }
+    }
+
+    /**
+     * A filter value can be looked up in the index by the topic of an event if the topic filter
+     * matching rule (see {@link TopicBasedEventFilter#matches(String, String)}) reduces to an
+     * exact match of the topic or one of its parent topics
+     *
+     * @param filterValue the topic filter value of a subscription
+     * @return true if the filter value can be indexed
+     */
+    private boolean isIndexable(String filterValue) {
+        return filterValue != null && filterValue.equals(filterValue.trim());
+    }
+
 
     public boolean renew(Subscription subscription) throws EventException {
         Subscription subscriptionOld = getSubscription(subscription.getId());
@@ -104,33 +162,52 @@ public class DefaultInMemorySubscriptionManager implements SubscriptionManager<M
     public List<Subscription> getMatchingSubscriptions(Event<MessageContext> event)
             throws EventException {
         final LinkedList<Subscription> list = new LinkedList<Subscription>();
-        for (Map.Entry<String, Subscription> stringSubscriptionEntry : store.entrySet()) {
-            //TODO : pick the filter based on the dialect
-            //XPathBasedEventFilter filter = new XPathBasedEventFilter();
-            TopicBasedEventFilter filter = new TopicBasedEventFilter();
-            if (filter != null) {
-                filter.setResultValue(stringSubscriptionEntry.getValue().getFilterValue());
-                filter.setSourceXpath(topicXPath);
-                //evaluatedValue = topicXPath.stringValueOf(mc);
-            }
-            if (filter == null || filter.match(event)) {
-                Subscription subscription = stringSubscriptionEntry.getValue();
-                Calendar current = Calendar.getInstance(); //Get current date and time
-                if (subscription.getExpires() != null) {
-                    if (current.before(subscription.getExpires())) {
-                        // add only valid subscriptions by checking the expiration
-                        list.add(subscription);
-                    }
-                } else {
-                    // If a expiration dosen't exisits treat it as a never expire subscription, valid till unsubscribe
-                    list.add(subscription);
-                }
+        //TODO : pick the filter based on the dialect
+        TopicBasedEventFilter filter = new TopicBasedEventFilter();
+        filter.setSourceXpath(topicXPath);
+        // evaluate the topic once, and look up the subscriptions of the topic and its parents
+        String topic = filter.evaluateTopic(event.getMessage());
+        if (topic == null) {
+            return list;
+        }
 
+        Calendar current = Calendar.getInstance(); //Get current date and time
+        addValidSubscriptions(topicIndex.get(topic), list, current);
+        for (int i = topic.indexOf(TopicBasedEventFilter.FILTER_SEP); i >= 0;
+             i = topic.indexOf(TopicBasedEventFilter.FILTER_SEP, i + 1)) {
+            addValidSubscriptions(topicIndex.get(topic.substring(0, i)), list, current);
+        }
+
+        for (Subscription subscription : unindexed.values()) {
+            if (TopicBasedEventFilter.matches(topic, subscription.getFilterValue())) {
+                addValidSubscription(subscription, list, current);
             }
         }
         return list;
     }
 
+    private void addValidSubscriptions(Map<String, Subscription> subscriptions,
+                                       List<Subscription> list, Calendar current) {
+        if (subscriptions != null) {
+            for (Subscription subscription : subscriptions.values()) {
+                addValidSubscription(subscription, list, current);
+            }
+        }
+    }
+
+    private void addValidSubscription(Subscription subscription, List<Subscription> list,
+                                      Calendar current) {
+        if (subscription.getExpires() != null) {
+            if (current.before(subscription.getExpires())) {
+                // add only valid subscriptions by checking the expiration
+                list.add(subscription);
+            }
+        } else {
+            // If a expiration dosen't exisits treat it as a never expire subscription, valid till unsubscribe
+            list.add(subscription);
+        }
+    }
+
     public Subscription getSubscription(String id) {
         return store.get(id);
     }
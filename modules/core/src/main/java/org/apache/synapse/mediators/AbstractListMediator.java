@@ -22,13 +22,16 @@ package org.apache.synapse.mediators;
 import org.apache.synapse.ManagedLifecycle;
 import org.apache.synapse.Mediator;
 import org.apache.synapse.MessageContext;
+import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.SynapseLog;
+import org.apache.synapse.config.SynapsePropertiesLoader;
 import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
 import org.apache.synapse.transport.passthru.util.RelayUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This is the base class for all List mediators
@@ -39,10 +42,27 @@ public abstract class AbstractListMediator extends AbstractMediator
         implements ListMediator {
 
     /** the list of child mediators held. These are executed sequentially */
-    protected final List<Mediator> mediators = new ArrayList<Mediator>();
+    private final ChildList children = new ChildList();
+    protected final List<Mediator> mediators = children;
 
     private boolean contentAware = false;
 
+    /**
+     * position of the first content aware child mediator, the message is built just before
+     * the mediation reaches this position
+     */
+    private int contentAwarePosition = Integer.MAX_VALUE;
+
+    /**
+     * the child mediators compiled at init, null if compilation is disabled. The pipeline is
+     * not used once the list of child mediators is modified, the list is interpreted as is
+     */
+    private volatile Pipeline pipeline;
+
+    /** number of times the message was built and the number of times building was avoided */
+    private final AtomicLong buildCount = new AtomicLong();
+    private final AtomicLong avoidedBuildCount = new AtomicLong();
+
     public boolean mediate(MessageContext synCtx) {
         return  mediate(synCtx,0);
     }
@@ -63,23 +83,48 @@ public abstract class AbstractListMediator extends AbstractMediator
                 synLog.traceOrDebug("Mediation started from mediator position : " + mediatorPosition);
             }
 
-            if (contentAware) {
-                try {
-                    if (synLog.isTraceOrDebugEnabled()) {
-                        synLog.traceOrDebug("Building message. Sequence <" + getType() + "> is content aware");
+            boolean built = false;
+            Pipeline pipeline = this.pipeline;
+            if (pipeline != null && pipeline.modCount == children.getModCount()) {
+                Mediator[] steps = pipeline.steps;
+                boolean[] changesTraceState = pipeline.changesTraceState;
+                for (int i = mediatorPosition; i < steps.length; i++) {
+                    if (!built && i >= contentAwarePosition) {
+                        buildMessage(synCtx, synLog);
+                        built = true;
+                    }
+                    // only the steps which may leave a different trace state behind are followed
+                    // by a reset of the trace state
+                    if (!steps[i].mediate(synCtx)) {
+                        returnVal = false;
+                        break;
+                    }
+                    if (changesTraceState[i]) {
+                        synCtx.setTracingState(myEffectiveTraceState);
+                    }
+                }
+            } else {
+                for (int i = mediatorPosition; i < mediators.size(); i++) {
+                    // build the message only when a content aware mediator is actually reached,
+                    // so that the paths which never look at the payload keep streaming the message
+                    if (!built && i >= contentAwarePosition) {
+                        buildMessage(synCtx, synLog);
+                        built = true;
+                    }
+                    // ensure correct trace state after each invocation of a mediator
+                    synCtx.setTracingState(myEffectiveTraceState);
+                    if (!mediators.get(i).mediate(synCtx)) {
+                        returnVal = false;
+                        break;
                     }
-                    RelayUtils.buildMessage(((Axis2MessageContext) synCtx).getAxis2MessageContext(),false);
-                } catch (Exception e) {
-                    handleException("Error while building message", e, synCtx);
                 }
             }
 
-            for (int i = mediatorPosition; i < mediators.size(); i++) {
-                // ensure correct trace state after each invocation of a mediator
-                synCtx.setTracingState(myEffectiveTraceState);
-                if (!mediators.get(i).mediate(synCtx)) {
-                    returnVal = false;
-                    break;
+            if (contentAware && !built) {
+                avoidedBuildCount.incrementAndGet();
+                if (synLog.isTraceOrDebugEnabled()) {
+                    synLog.traceOrDebug("Sequence <" + getType() + "> completed without " +
+                            "reaching a content aware mediator, message was not built");
                 }
             }
         } finally {
@@ -89,15 +134,29 @@ public abstract class AbstractListMediator extends AbstractMediator
         return returnVal;
     }
 
+    private void buildMessage(MessageContext synCtx, SynapseLog synLog) {
+        try {
+            if (synLog.isTraceOrDebugEnabled()) {
+                synLog.traceOrDebug("Building message. Sequence <" + getType() + "> is content aware");
+            }
+            RelayUtils.buildMessage(((Axis2MessageContext) synCtx).getAxis2MessageContext(),false);
+            buildCount.incrementAndGet();
+        } catch (Exception e) {
+            handleException("Error while building message", e, synCtx);
+        }
+    }
+
     public List<Mediator> getList() {
         return mediators;
     }
 
     public boolean addChild(Mediator m) {
+        pipeline = null;
         return mediators.add(m);
     }
 
     public boolean addAll(List<Mediator> c) {
+        pipeline = null;
         return mediators.addAll(c);
     }
 
@@ -106,10 +165,12 @@ public abstract class AbstractListMediator extends AbstractMediator
     }
 
     public boolean removeChild(Mediator m) {
+        pipeline = null;
         return mediators.remove(m);
     }
 
     public Mediator removeChild(int pos) {
+        pipeline = null;
         return mediators.remove(pos);
     }
 
@@ -122,6 +183,8 @@ public abstract class AbstractListMediator extends AbstractMediator
             log.debug("Initializing child mediators of mediator : " + getType());
         }
 
+        contentAware = false;
+        contentAwarePosition = Integer.MAX_VALUE;
         for (int i = 0; i < mediators.size(); i++) {
             Mediator mediator = mediators.get(i);
             mediator.setMediatorPosition(i);
@@ -134,9 +197,40 @@ public abstract class AbstractListMediator extends AbstractMediator
                 if (log.isDebugEnabled()) {
                     log.debug(mediator.getType() + " is content aware, setting sequence <" + getType() + "> as content aware");
                 }
+                if (!contentAware) {
+                    contentAwarePosition = i;
+                }
                 contentAware = true;
             }
         }
+
+        if (Boolean.parseBoolean(SynapsePropertiesLoader.getPropertyValue(
+                SynapseConstants.SEQUENCE_COMPILATION, "false"))) {
+            compile();
+        } else {
+            pipeline = null;
+        }
+    }
+
+    /**
+     * Compile the child mediators into a pipeline, which is used for the mediation until the
+     * list of child mediators is modified
+     */
+    public void compile() {
+        pipeline = new Pipeline(children);
+        if (log.isDebugEnabled()) {
+            log.debug("Compiled the child mediators of mediator : " + getType());
+        }
+    }
+
+    /**
+     * Whether the child mediators are executed through a pipeline compiled at init
+     *
+     * @return true if the child mediators are compiled
+     */
+    public boolean isCompiled() {
+        Pipeline pipeline = this.pipeline;
+        return pipeline != null && pipeline.modCount == children.getModCount();
     }
 
     /**
@@ -159,4 +253,68 @@ public abstract class AbstractListMediator extends AbstractMediator
         return contentAware;
     }
 
+    /**
+     * Get the number of times this list mediator built the message before invoking a content
+     * aware child mediator
+     *
+     * @return number of message builds
+     */
+    public long getBuildCount() {
+        return buildCount.get();
+    }
+
+    /**
+     * Get the number of times the mediation through this list mediator completed without
+     * reaching a content aware child mediator, i.e. without building the message
+     *
+     * @return number of message builds avoided
+     */
+    public long getAvoidedBuildCount() {
+        return avoidedBuildCount.get();
+    }
+
+    /**
+     * The child mediators compiled into an array, along with whether the tracing state should
+     * be reset after each of them. The trace state of the message is only changed by a mediator
+     * with an explicit trace state; list mediators restore the state they started with, and so
+     * do the mediators executing child lists. Other mediators, whose effect on the trace state
+     * is not known, are always followed by a reset.
+     */
+    private static final class Pipeline {
+
+        private final Mediator[] steps;
+        private final boolean[] changesTraceState;
+        /** modification count of the list of child mediators the pipeline was compiled from */
+        private final int modCount;
+
+        private Pipeline(ChildList mediators) {
+            modCount = mediators.getModCount();
+            steps = mediators.toArray(new Mediator[mediators.size()]);
+            changesTraceState = new boolean[steps.length];
+            for (int i = 0; i < steps.length; i++) {
+                changesTraceState[i] = !(steps[i] instanceof AbstractListMediator) &&
+                        (!(steps[i] instanceof AbstractMediator) ||
+                                steps[i].getTraceState() != SynapseConstants.TRACING_UNSET);
+            }
+        }
+    }
+
+    /**
+     * The list of child mediators, which counts the modifications made to it, including the
+     * ones made through {@link #getList()}, so that a stale pipeline is never used
+     */
+    private static final class ChildList extends ArrayList<Mediator> {
+
+        @Override
+        public Mediator set(int index, Mediator element) {
+            // replacing an element is not a structural modification for ArrayList
+            modCount++;
+            return super.set(index, element);
+        }
+
+        private int getModCount() {
+            return modCount;
+        }
+    }
+
 }
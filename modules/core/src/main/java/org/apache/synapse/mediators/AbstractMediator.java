@@ -50,6 +50,13 @@ public abstract class AbstractMediator implements Mediator, AspectConfigurable {
 
     private int mediatorPosition = 0;
 
+    /**
+     * Logs of this mediator shared by the messages, with trace disabled and enabled. These
+     * are re-used as long as the messages use the same service log.
+     */
+    private volatile MediatorLog sharedLog;
+    private volatile MediatorLog sharedTraceLog;
+
     /**
      * A constructor that makes subclasses pick up the correct logger
      */
@@ -139,7 +146,19 @@ public abstract class AbstractMediator implements Mediator, AspectConfigurable {
      * @return MediatorLog instance - an implementation of the SynapseLog
      */
     protected SynapseLog getLog(MessageContext synCtx) {
-        return new MediatorLog(log, isTraceOn(synCtx), synCtx);
+        boolean traceOn = isTraceOn(synCtx);
+        Log serviceLog = synCtx.getServiceLog();
+
+        MediatorLog synLog = traceOn ? sharedTraceLog : sharedLog;
+        if (synLog == null || !synLog.isFor(log, serviceLog)) {
+            synLog = new MediatorLog(log, traceOn, serviceLog);
+            if (traceOn) {
+                sharedTraceLog = synLog;
+            } else {
+                sharedLog = synLog;
+            }
+        }
+        return synLog;
     }
 
     /**
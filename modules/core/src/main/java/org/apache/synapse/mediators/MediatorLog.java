@@ -41,12 +41,44 @@ public class MediatorLog implements SynapseLog {
     private final Log defaultLog;
     private final boolean traceOn;
     private final MessageContext synCtx;
+    private final Log serviceLog;
     
     // The definition of this constructor might change...
     public MediatorLog(Log defaultLog, boolean traceOn, MessageContext synCtx) {
         this.defaultLog = defaultLog;
         this.traceOn = traceOn;
         this.synCtx = synCtx;
+        this.serviceLog = null;
+    }
+
+    /**
+     * Create a log which is not bound to a message, and can be shared by all the messages
+     * using the same service log with the same trace state.
+     *
+     * @param defaultLog the log of the mediator
+     * @param traceOn whether trace is enabled
+     * @param serviceLog the service log of the messages, may be null
+     */
+    MediatorLog(Log defaultLog, boolean traceOn, Log serviceLog) {
+        this.defaultLog = defaultLog;
+        this.traceOn = traceOn;
+        this.synCtx = null;
+        this.serviceLog = serviceLog;
+    }
+
+    /**
+     * Whether this log can be used in place of a new log created with the given logs
+     *
+     * @param defaultLog the log of the mediator
+     * @param serviceLog the service log of the message
+     * @return true if this is a shared log writing to the given logs
+     */
+    boolean isFor(Log defaultLog, Log serviceLog) {
+        return synCtx == null && this.defaultLog == defaultLog && this.serviceLog == serviceLog;
+    }
+
+    private Log getServiceLog() {
+        return synCtx != null ? synCtx.getServiceLog() : serviceLog;
     }
 
     public boolean isTraceOrDebugEnabled() {
@@ -95,8 +127,9 @@ public class MediatorLog implements SynapseLog {
      */
     public void auditLog(Object msg) {
         defaultLog.info(msg);
-        if (synCtx.getServiceLog() != null) {
-            synCtx.getServiceLog().info(msg);
+        Log serviceLog = getServiceLog();
+        if (serviceLog != null) {
+            serviceLog.info(msg);
         }
         if (traceOn) {
             traceLog.info(msg);
@@ -108,8 +141,9 @@ public class MediatorLog implements SynapseLog {
      */
     public void auditDebug(Object msg) {
         defaultLog.debug(msg);
-        if (synCtx.getServiceLog() != null) {
-            synCtx.getServiceLog().debug(msg);
+        Log serviceLog = getServiceLog();
+        if (serviceLog != null) {
+            serviceLog.debug(msg);
         }
         if (traceOn) {
             traceLog.debug(msg);
@@ -121,8 +155,9 @@ public class MediatorLog implements SynapseLog {
      */
     public void auditTrace(Object msg) {
         defaultLog.trace(msg);
-        if (synCtx.getServiceLog() != null) {
-            synCtx.getServiceLog().trace(msg);
+        Log serviceLog = getServiceLog();
+        if (serviceLog != null) {
+            serviceLog.trace(msg);
         }
         if (traceOn) {
             traceLog.trace(msg);
@@ -134,8 +169,9 @@ public class MediatorLog implements SynapseLog {
      */
     public void auditWarn(Object msg) {
         defaultLog.warn(msg);
-        if (synCtx.getServiceLog() != null) {
-            synCtx.getServiceLog().warn(msg);
+        Log serviceLog = getServiceLog();
+        if (serviceLog != null) {
+            serviceLog.warn(msg);
         }
         if (traceOn) {
             traceLog.warn(msg);
@@ -147,8 +183,9 @@ public class MediatorLog implements SynapseLog {
      */
     public void auditError(Object msg) {
         defaultLog.error(msg);
-        if (synCtx.getServiceLog() != null) {
-            synCtx.getServiceLog().error(msg);
+        Log serviceLog = getServiceLog();
+        if (serviceLog != null) {
+            serviceLog.error(msg);
         }
         if (traceOn) {
             traceLog.error(msg);
@@ -160,8 +197,9 @@ public class MediatorLog implements SynapseLog {
      */
     public void auditFatal(Object msg) {
         defaultLog.fatal(msg);
-        if (synCtx.getServiceLog() != null) {
-            synCtx.getServiceLog().fatal(msg);
+        Log serviceLog = getServiceLog();
+        if (serviceLog != null) {
+            serviceLog.fatal(msg);
         }
         if (traceOn) {
             traceLog.fatal(msg);
@@ -184,8 +222,9 @@ public class MediatorLog implements SynapseLog {
      */
     public void logSynapseException(String msg, Throwable cause) {
         defaultLog.error(msg, cause);
-        if (synCtx.getServiceLog() != null) {
-            synCtx.getServiceLog().error(msg, cause);
+        Log serviceLog = getServiceLog();
+        if (serviceLog != null) {
+            serviceLog.error(msg, cause);
         }
         if (traceOn) {
             traceLog.error(msg, cause);
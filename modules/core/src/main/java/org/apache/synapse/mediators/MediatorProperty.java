@@ -24,10 +24,10 @@ import org.apache.synapse.SynapseException;
 import org.apache.synapse.config.xml.SynapsePath;
 import org.apache.synapse.config.xml.XMLConfigConstants;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.transport.passthru.util.HeaderMap;
 import org.apache.synapse.util.xpath.SynapseXPath;
 
 import javax.xml.namespace.QName;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -93,7 +93,7 @@ public class MediatorProperty {
                 headersMap.put(name, result);
             }
             if (headers == null) {
-                Map headersMap = new HashMap();
+                Map headersMap = new HeaderMap();
                 headersMap.put(name, result);
                 axis2MessageCtx.setProperty(
                         org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS,
@@ -36,6 +36,7 @@ import org.apache.synapse.mediators.FlowContinuableMediator;
 import org.apache.synapse.mediators.MediatorFaultHandler;
 import org.apache.synapse.mediators.Value;
 
+import java.util.List;
 import java.util.Stack;
 
 /**
@@ -68,6 +69,8 @@ public class SequenceMediator extends AbstractListMediator implements Nameable,
     private SequenceType sequenceType = SequenceType.NAMED;
     /** Reference to the synapse environment */
     private SynapseEnvironment synapseEnv;
+    /** Whether the flow may be suspended within this sequence, worked out on first use */
+    private volatile Boolean suspendable = null;
 
     /**
      * If this mediator refers to another named Sequence, execute that. Else
@@ -100,6 +103,12 @@ public class SequenceMediator extends AbstractListMediator implements Nameable,
             // mediation through this sequence
             Mediator errorHandlerMediator = null;
 
+            // Whether the ContinuationStates are not kept within this sequence
+            boolean skipState = false;
+            // Number of enclosing sequences not keeping the ContinuationStates, which are kept
+            // again within this sequence as it may suspend the flow
+            int skipDepth = 0;
+
             // Setting Required property to reportForComponent the sequence aspects
 
             try {
@@ -125,16 +134,30 @@ public class SequenceMediator extends AbstractListMediator implements Nameable,
                     }
                 }
 
-                // Add a new SeqContinuationState as we branched to new Sequence.
-                if (dynamic && registryKey != null) {
-                    ContinuationStackManager.addSeqContinuationState(synCtx, registryKey, sequenceType);
-                } else {
-                    ContinuationStackManager.addSeqContinuationState(synCtx, name, sequenceType);
+                // Add a new SeqContinuationState as we branched to new Sequence, unless the
+                // flow cannot be suspended within this sequence. The ReliantContinuationState
+                // of an anonymous sequence is added by its parent and is always removed
+                if (synCtx.isContinuationEnabled()) {
+                    if (isSuspendable()) {
+                        skipDepth = ContinuationStackManager.clearSkipContinuationStates(synCtx);
+                    } else {
+                        skipState = !SequenceType.ANON.equals(sequenceType) &&
+                                ContinuationStackManager.skipContinuationStates(synCtx);
+                    }
+                }
+                if (!skipState) {
+                    if (dynamic && registryKey != null) {
+                        ContinuationStackManager.addSeqContinuationState(
+                                synCtx, registryKey, sequenceType);
+                    } else {
+                        ContinuationStackManager.addSeqContinuationState(
+                                synCtx, name, sequenceType);
+                    }
                 }
 
                 boolean result = super.mediate(synCtx);
 
-                if (result) {
+                if (result && !skipState) {
                     // if flow completed remove the previously added SeqContinuationState
                     ContinuationStackManager.removeSeqContinuationState(synCtx, sequenceType);
                 }
@@ -167,6 +190,11 @@ public class SequenceMediator extends AbstractListMediator implements Nameable,
 
             } finally {
 
+                if (skipState) {
+                    ContinuationStackManager.endSkipContinuationStates(synCtx);
+                }
+                ContinuationStackManager.restoreSkipContinuationStates(synCtx, skipDepth);
+
                 if (isStatisticsEnable()) {
                     boolean shouldReport = Boolean.parseBoolean(
                             String.valueOf(synCtx.getProperty(SynapseConstants.OUT_ONLY)));
@@ -290,6 +318,8 @@ public class SequenceMediator extends AbstractListMediator implements Nameable,
     public synchronized void init(SynapseEnvironment se) {
         if (!initialized) {
             synapseEnv = se;
+            // the children may have been changed through the list since it was worked out
+            suspendable = null;
             super.init(se);
             initialized = true;
 
@@ -360,6 +390,45 @@ public class SequenceMediator extends AbstractListMediator implements Nameable,
         this.name = name;
     }
 
+    /**
+     * Whether the flow may be suspended, waiting for a response, within this sequence
+     *
+     * @return false if no mediator of this sequence can suspend the flow
+     * @see ContinuationStackManager#maySuspend(Mediator)
+     */
+    private boolean isSuspendable() {
+        Boolean result = suspendable;
+        if (result == null) {
+            result = ContinuationStackManager.maySuspend(this);
+            suspendable = result;
+        }
+        return result;
+    }
+
+    @Override
+    public boolean addChild(Mediator m) {
+        suspendable = null;
+        return super.addChild(m);
+    }
+
+    @Override
+    public boolean addAll(List<Mediator> c) {
+        suspendable = null;
+        return super.addAll(c);
+    }
+
+    @Override
+    public boolean removeChild(Mediator m) {
+        suspendable = null;
+        return super.removeChild(m);
+    }
+
+    @Override
+    public Mediator removeChild(int pos) {
+        suspendable = null;
+        return super.removeChild(pos);
+    }
+
     /**
      * To get the key which is used to pick the sequence definition from the local registry
      * @return  return the key which is used to pick the sequence definition from the local registry
@@ -374,6 +443,7 @@ public class SequenceMediator extends AbstractListMediator implements Nameable,
      */
     public void setKey(Value key) {
         this.key = key;
+        this.suspendable = null;
     }
 
     /**
@@ -27,6 +27,7 @@ import org.apache.synapse.mediators.Value;
 
 import java.beans.IntrospectionException;
 import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
 import java.util.Map;
 
 /**
@@ -74,8 +75,15 @@ public class BeanMediator extends AbstractMediator {
      */
     private Class clazz;
 
+    /**
+     * Setter method of the property, resolved for the class of the last bean
+     */
+    private volatile ResolvedMethod writeMethod;
 
-
+    /**
+     * Getter method of the property, resolved for the class of the last bean
+     */
+    private volatile ResolvedMethod readMethod;
 
     /**
      * Manipulates a JavaBean attached to the current message context according to the supplied
@@ -190,7 +198,7 @@ public class BeanMediator extends AbstractMediator {
             try {
                 BeanUtils.invokeInstanceMethod(
                         bean,
-                        new PropertyDescriptor(propertyName, bean.getClass()).getWriteMethod(),
+                        getWriteMethod(bean.getClass()),
                         new Object[]{valueObj}
                 );
             } catch (IntrospectionException e) {
@@ -225,7 +233,7 @@ public class BeanMediator extends AbstractMediator {
             try {
                 value = BeanUtils.invokeInstanceMethod(
                             bean,
-                            new PropertyDescriptor(propertyName, bean.getClass()).getReadMethod(),
+                            getReadMethod(bean.getClass()),
                             new Object[0]
                         );
             } catch (IntrospectionException e) {
@@ -246,6 +254,40 @@ public class BeanMediator extends AbstractMediator {
         return true;
     }
 
+    /**
+     * Returns the setter method of the property, resolving it only if the bean class is not the
+     * one the method was last resolved for.
+     * @param beanClass Class of the bean
+     * @return The setter method
+     * @throws IntrospectionException If the property can not be resolved
+     */
+    private Method getWriteMethod(Class beanClass) throws IntrospectionException {
+        ResolvedMethod resolved = writeMethod;
+        if (resolved == null || resolved.beanClass != beanClass) {
+            resolved = new ResolvedMethod(beanClass,
+                    new PropertyDescriptor(propertyName, beanClass).getWriteMethod());
+            writeMethod = resolved;
+        }
+        return resolved.method;
+    }
+
+    /**
+     * Returns the getter method of the property, resolving it only if the bean class is not the
+     * one the method was last resolved for.
+     * @param beanClass Class of the bean
+     * @return The getter method
+     * @throws IntrospectionException If the property can not be resolved
+     */
+    private Method getReadMethod(Class beanClass) throws IntrospectionException {
+        ResolvedMethod resolved = readMethod;
+        if (resolved == null || resolved.beanClass != beanClass) {
+            resolved = new ResolvedMethod(beanClass,
+                    new PropertyDescriptor(propertyName, beanClass).getReadMethod());
+            readMethod = resolved;
+        }
+        return resolved.method;
+    }
+
     public Action getAction() {
         return action;
     }
@@ -268,6 +310,8 @@ public class BeanMediator extends AbstractMediator {
 
     public void setPropertyName(String propertyName) {
         this.propertyName = propertyName;
+        this.writeMethod = null;
+        this.readMethod = null;
     }
 
     public Value getValue() {
@@ -309,4 +353,18 @@ public class BeanMediator extends AbstractMediator {
         CREATE, REMOVE, SET_PROPERTY, GET_PROPERTY
     }
 
+    /**
+     * An accessor method together with the bean class it was resolved for.
+     */
+    private static final class ResolvedMethod {
+
+        private final Class beanClass;
+        private final Method method;
+
+        private ResolvedMethod(Class beanClass, Method method) {
+            this.beanClass = beanClass;
+            this.method = method;
+        }
+    }
+
 }
@@ -26,17 +26,22 @@ import org.apache.axiom.om.OMNode;
 import org.apache.axiom.om.util.ElementHelper;
 import org.apache.axiom.soap.SOAP11Constants;
 import org.apache.axiom.soap.SOAPBody;
+import org.apache.axiom.soap.SOAPEnvelope;
 import org.apache.axiom.soap.SOAPFactory;
 import org.apache.axis2.AxisFault;
 import org.apache.axis2.Constants;
 import org.apache.axis2.context.ConfigurationContext;
 import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.synapse.ContinuationState;
+import org.apache.synapse.FaultHandler;
 import org.apache.synapse.ManagedLifecycle;
 import org.apache.synapse.MessageContext;
 import org.apache.synapse.SynapseConstants;
 import org.apache.synapse.SynapseException;
 import org.apache.synapse.SynapseLog;
 import org.apache.synapse.commons.json.JsonUtil;
+import org.apache.synapse.config.SynapseConfigUtils;
+import org.apache.synapse.continuation.ContinuationStackManager;
 import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
 import org.apache.synapse.endpoints.AbstractEndpoint;
@@ -45,8 +50,11 @@ import org.apache.synapse.endpoints.DefaultEndpoint;
 import org.apache.synapse.endpoints.Endpoint;
 import org.apache.synapse.endpoints.EndpointDefinition;
 import org.apache.synapse.mediators.AbstractMediator;
+import org.apache.synapse.mediators.FlowContinuableMediator;
 import org.apache.synapse.message.senders.blocking.BlockingMsgSender;
+import org.apache.synapse.transport.passthru.util.RelayUtils;
 import org.apache.synapse.util.MessageHelper;
+import org.apache.synapse.util.concurrent.ScheduledTask;
 import org.apache.synapse.util.xpath.SynapseXPath;
 import org.jaxen.JaxenException;
 
@@ -55,19 +63,34 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Stack;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
- * <callout serviceURL="string" | endpointKey="string" [action="string"] [initAxis2ClientOptions="boolean"]>
+ * <callout serviceURL="string" | endpointKey="string" [action="string"] [initAxis2ClientOptions="boolean"]
+ *          [blocking="boolean"] [timeout="long"] [maxConcurrentCallouts="int"]>
  *      <configuration [axis2xml="string"] [repository="string"]/>?
  *      <endpoint/>?
  *      <source xpath="expression" | key="string" | type="envelope">? <!-- key can be a MC property or entry key -->
  *      <target xpath="expression" | key="string"/>?
  *      <enableSec policy="string" | outboundPolicy="String" | inboundPolicy="String"/>?
  * </callout>
+ *
+ * By default the callout blocks the mediating thread until the response is received, using a
+ * separate blocking Axis2 client. When blocking is false, the request is sent through the
+ * non-blocking transport of Synapse, and the flow is suspended like with the Call mediator. The
+ * flow continues from this mediator on the response, which is placed as per the target.
  */
-public class CalloutMediator extends AbstractMediator implements ManagedLifecycle {
+public class CalloutMediator extends AbstractMediator implements ManagedLifecycle,
+        FlowContinuableMediator {
+
+    /** Properties carrying the state of a non-blocking callout over to the response */
+    private static final String ORIGINAL_ENVELOPE = "_CALLOUT_ORIGINAL_ENVELOPE";
+    private static final String ORIGINAL_TRANSPORT_HEADERS = "_CALLOUT_ORIGINAL_TRANSPORT_HEADERS";
+    static final String CALLOUT_PERMIT = "_CALLOUT_PERMIT";
 
     private ConfigurationContext configCtx = null;
     private String serviceURL = null;
@@ -90,6 +113,13 @@ public class CalloutMediator extends AbstractMediator implements ManagedLifecycl
     public final static String DEFAULT_CLIENT_REPO = "./repository/deployment/client";
     public final static String DEFAULT_AXIS2_XML = "./repository/conf/axis2/axis2_blocking_client.xml";
     private boolean isWrappingEndpointCreated = false;
+    private boolean blocking = true;
+    /** Timeout of the callouts to the serviceURL or the To header in ms, -1 if not set */
+    private long timeout = -1;
+    /** Maximum number of non-blocking callouts in flight at a time, unbounded if not positive */
+    private int maxConcurrentCallouts = -1;
+    private final AtomicInteger activeCallouts = new AtomicInteger(0);
+    private SynapseEnvironment synapseEnv;
 
     BlockingMsgSender blockingMsgSender = null;
 
@@ -107,7 +137,7 @@ public class CalloutMediator extends AbstractMediator implements ManagedLifecycl
 
         try {
 
-            if (!initClientOptions) {
+            if (!initClientOptions && blockingMsgSender != null) {
                 blockingMsgSender.setInitClientOptions(false);
             }
 
@@ -172,6 +202,10 @@ public class CalloutMediator extends AbstractMediator implements ManagedLifecycl
                 }
             }
 
+            if (!blocking) {
+                return sendNonBlocking(synCtx, synapseOutMsgCtx, synLog);
+            }
+
             MessageContext resultMsgCtx = null;
             try {
                 if ("true".equals(synCtx.getProperty(SynapseConstants.OUT_ONLY))) {
@@ -198,25 +232,8 @@ public class CalloutMediator extends AbstractMediator implements ManagedLifecycl
                 if (JsonUtil.hasAJsonPayload(resultAxisMsgCtx)) {
                     JsonUtil.cloneJsonPayload(resultAxisMsgCtx, inAxisMsgCtx);
                 } else {
-                    if (targetXPath != null) {
-                        Object o = targetXPath.evaluate(synCtx);
-                        OMElement result = resultMsgCtx.getEnvelope().getBody().getFirstElement();
-                        if (o != null && o instanceof OMElement) {
-                            OMNode tgtNode = (OMElement) o;
-                            tgtNode.insertSiblingAfter(result);
-                            tgtNode.detach();
-                        } else if (o != null && o instanceof List && !((List) o).isEmpty()) {
-                            // Always fetches *only* the first
-                            OMNode tgtNode = (OMElement) ((List) o).get(0);
-                            tgtNode.insertSiblingAfter(result);
-                            tgtNode.detach();
-                        } else {
-                            handleException("Evaluation of target XPath expression : " +
-                                    targetXPath.toString() + " did not yeild an OMNode", synCtx);
-                        }
-                    } else if (targetKey != null) {
-                        OMElement result = resultMsgCtx.getEnvelope().getBody().getFirstElement();
-                        synCtx.setProperty(targetKey, result);
+                    if (targetXPath != null || targetKey != null) {
+                        setTarget(synCtx, resultMsgCtx.getEnvelope().getBody().getFirstElement());
                     } else {
                     	synCtx.setEnvelope(resultMsgCtx.getEnvelope());
                     }
@@ -246,7 +263,186 @@ public class CalloutMediator extends AbstractMediator implements ManagedLifecycl
         synLog.traceOrDebug("End : Callout mediator");
         return true;
     }
-    
+
+    /**
+     * Continue the flow of a non-blocking callout with the response. The response arrives in a
+     * new message context, which carries the properties of the request. The original envelope
+     * of the request is restored if the response has to be placed in it.
+     *
+     * @param synCtx the response message
+     * @param continuationState the state of this mediator
+     * @return true, as the flow continues from the next mediator
+     */
+    public boolean mediate(MessageContext synCtx, ContinuationState continuationState) {
+
+        SynapseLog synLog = getLog(synCtx);
+
+        if (synLog.isTraceOrDebugEnabled()) {
+            synLog.traceOrDebug("Callout mediator : Mediating from ContinuationState");
+        }
+
+        CalloutPermit permit = (CalloutPermit) synCtx.getProperty(CALLOUT_PERMIT);
+        if (permit != null) {
+            permit.release();
+        }
+        SOAPEnvelope originalEnvelope = (SOAPEnvelope) synCtx.getProperty(ORIGINAL_ENVELOPE);
+        Object originalHeaders = synCtx.getProperty(ORIGINAL_TRANSPORT_HEADERS);
+        synCtx.getPropertyKeySet().remove(CALLOUT_PERMIT);
+        synCtx.getPropertyKeySet().remove(ORIGINAL_ENVELOPE);
+        synCtx.getPropertyKeySet().remove(ORIGINAL_TRANSPORT_HEADERS);
+
+        org.apache.axis2.context.MessageContext axis2MsgCtx =
+                ((Axis2MessageContext) synCtx).getAxis2MessageContext();
+
+        if (synLog.isTraceTraceEnabled()) {
+            synLog.traceTrace("Response payload received : " + synCtx.getEnvelope());
+        }
+
+        if ((targetXPath != null || targetKey != null) && originalEnvelope != null &&
+                !JsonUtil.hasAJsonPayload(axis2MsgCtx)) {
+            try {
+                RelayUtils.buildMessage(axis2MsgCtx, false);
+                OMElement result = synCtx.getEnvelope().getBody().getFirstElement();
+                synCtx.setEnvelope(originalEnvelope);
+                setTarget(synCtx, result);
+            } catch (JaxenException e) {
+                handleException("Error while evaluating the XPath expression: " + targetXPath,
+                                e, synCtx);
+            } catch (Exception e) {
+                handleException("Error while building the callout response", e, synCtx);
+            }
+        }
+
+        if (!"false".equals(synCtx.getProperty(
+                SynapseConstants.BLOCKING_SENDER_PRESERVE_REQ_HEADERS)) && originalHeaders != null) {
+            axis2MsgCtx.setProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS,
+                                    originalHeaders);
+        }
+
+        synLog.traceOrDebug("End : Callout mediator");
+        return true;
+    }
+
+    /**
+     * Send the request through the non-blocking transport and suspend the flow. The flow
+     * continues from {@link #mediate(MessageContext, ContinuationState)} on the response, or
+     * from the fault handlers if the callout fails.
+     *
+     * @param synCtx the current message
+     * @param synapseOutMsgCtx the request to be sent
+     * @param synLog the log of the current message
+     * @return false for in-out callouts as the flow is suspended, true for out only callouts
+     */
+    private boolean sendNonBlocking(MessageContext synCtx, MessageContext synapseOutMsgCtx,
+                                    SynapseLog synLog) {
+
+        if ("true".equals(synCtx.getProperty(SynapseConstants.OUT_ONLY))) {
+            endpoint.send(synapseOutMsgCtx);
+            synLog.traceOrDebug("End : Callout mediator");
+            return true;
+        }
+
+        if (!synapseOutMsgCtx.isContinuationEnabled()) {
+            handleException("A non-blocking callout requires the continuation of the flow " +
+                            "to be enabled", synCtx);
+        }
+
+        CalloutPermit permit = null;
+        if (maxConcurrentCallouts > 0) {
+            if (activeCallouts.incrementAndGet() > maxConcurrentCallouts) {
+                activeCallouts.decrementAndGet();
+                handleFault(synCtx, new AxisFault("The maximum number of concurrent callouts : " +
+                                                  maxConcurrentCallouts + " has been reached"));
+            }
+            permit = new CalloutPermit();
+            synapseOutMsgCtx.setProperty(CALLOUT_PERMIT, permit);
+            // releases the permit if the callout fails, before the other fault handlers run
+            synapseOutMsgCtx.pushFaultHandler(permit);
+        }
+
+        synapseOutMsgCtx.setProperty(ORIGINAL_ENVELOPE, synCtx.getEnvelope());
+        synapseOutMsgCtx.setProperty(ORIGINAL_TRANSPORT_HEADERS,
+                ((Axis2MessageContext) synCtx).getAxis2MessageContext().getProperty(
+                        org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS));
+        synapseOutMsgCtx.setProperty(SynapseConstants.CONTINUATION_CALL, true);
+        ContinuationStackManager.addReliantContinuationState(synapseOutMsgCtx, 0,
+                                                             getMediatorPosition());
+
+        try {
+            endpoint.send(synapseOutMsgCtx);
+        } catch (RuntimeException e) {
+            if (permit != null) {
+                permit.release();
+            }
+            throw e;
+        }
+
+        if (permit != null && !permit.released.get()) {
+            // in case the callout never completes, e.g. its timeout action is to discard
+            permit.expiryTask = synapseEnv.getSynapseScheduler().scheduleTimeout(
+                    "callout", permit, getPermitExpiry(endpoint));
+        }
+
+        synLog.traceOrDebug("End : Callout mediator - flow suspended until the response");
+        return false;
+    }
+
+    /**
+     * Get the delay after which the permit of a non-blocking callout is released if the callout
+     * never completes. This is the timeout of the endpoint the callout is sent to, plus the time
+     * the timeout handler may take to notice that it has timed out.
+     *
+     * @param endpoint the endpoint the callout is sent to
+     * @return the delay in milliseconds
+     */
+    long getPermitExpiry(Endpoint endpoint) {
+        return getEndpointTimeout(endpoint) + 2 * SynapseConfigUtils.getTimeoutHandlerInterval();
+    }
+
+    /**
+     * Get the timeout of an endpoint: the timeout of its definition if set, the total of the
+     * timeouts of its children for a group endpoint, which may try each of them, or else the
+     * global timeout
+     */
+    private long getEndpointTimeout(Endpoint endpoint) {
+        if (endpoint instanceof AbstractEndpoint) {
+            EndpointDefinition definition = ((AbstractEndpoint) endpoint).getDefinition();
+            if (definition != null && definition.getTimeoutDuration() > 0) {
+                return definition.getTimeoutDuration();
+            }
+        }
+        List<Endpoint> children = endpoint != null ? endpoint.getChildren() : null;
+        if (children != null && !children.isEmpty()) {
+            long total = 0;
+            for (Endpoint child : children) {
+                total += getEndpointTimeout(child);
+            }
+            return total;
+        }
+        return SynapseConfigUtils.getGlobalTimeoutInterval();
+    }
+
+    private void setTarget(MessageContext synCtx, OMElement result) throws JaxenException {
+        if (targetXPath != null) {
+            Object o = targetXPath.evaluate(synCtx);
+            if (o != null && o instanceof OMElement) {
+                OMNode tgtNode = (OMElement) o;
+                tgtNode.insertSiblingAfter(result);
+                tgtNode.detach();
+            } else if (o != null && o instanceof List && !((List) o).isEmpty()) {
+                // Always fetches *only* the first
+                OMNode tgtNode = (OMElement) ((List) o).get(0);
+                tgtNode.insertSiblingAfter(result);
+                tgtNode.detach();
+            } else {
+                handleException("Evaluation of target XPath expression : " +
+                        targetXPath.toString() + " did not yeild an OMNode", synCtx);
+            }
+        } else {
+            synCtx.setProperty(targetKey, result);
+        }
+    }
+
     private void setSoapHeaderBlock(MessageContext synCtx) {
         // Send the SOAP Header Blocks to support WS-Addressing
         if (synCtx.getEnvelope().getHeader() != null) {
@@ -346,17 +542,20 @@ public class CalloutMediator extends AbstractMediator implements ManagedLifecycl
     }
 
     public void init(SynapseEnvironment synEnv) {
+        this.synapseEnv = synEnv;
         try {
-            configCtx = ConfigurationContextFactory.createConfigurationContextFromFileSystem(
-                    clientRepository != null ? clientRepository : DEFAULT_CLIENT_REPO,
-                    axis2xml != null ? axis2xml : DEFAULT_AXIS2_XML);
             if (serviceURL != null) {
                 serviceURL = changeEndPointReference(serviceURL);
             }
 
-            blockingMsgSender = new BlockingMsgSender();
-            blockingMsgSender.setConfigurationContext(configCtx);
-            blockingMsgSender.init();
+            if (blocking) {
+                configCtx = ConfigurationContextFactory.createConfigurationContextFromFileSystem(
+                        clientRepository != null ? clientRepository : DEFAULT_CLIENT_REPO,
+                        axis2xml != null ? axis2xml : DEFAULT_AXIS2_XML);
+                blockingMsgSender = new BlockingMsgSender();
+                blockingMsgSender.setConfigurationContext(configCtx);
+                blockingMsgSender.init();
+            }
 
             EndpointDefinition endpointDefinition = null;
 
@@ -376,6 +575,11 @@ public class CalloutMediator extends AbstractMediator implements ManagedLifecycl
             }
             // If the endpoint is specified, we'll look it up at mediation time.
 
+            if (endpointDefinition != null && timeout > 0) {
+                endpointDefinition.setTimeoutDuration(timeout);
+                endpointDefinition.setTimeoutAction(SynapseConstants.DISCARD_AND_FAULT);
+            }
+
             if (endpointDefinition != null && isSecurityOn()) {
                 endpointDefinition.setSecurityOn(true);
                 if (wsSecPolicyKey != null) {
@@ -389,6 +593,14 @@ public class CalloutMediator extends AbstractMediator implements ManagedLifecycl
                     }
                 }
             }
+
+            if (!blocking) {
+                // the non-blocking send goes through the endpoint, unlike the blocking client
+                if (endpoint != null) {
+                    endpoint.init(synEnv);
+                }
+                synEnv.updateCallMediatorCount(true);
+            }
         } catch (AxisFault e) {
             String msg = "Error initializing callout mediator : " + e.getMessage();
             log.error(msg, e);
@@ -398,9 +610,17 @@ public class CalloutMediator extends AbstractMediator implements ManagedLifecycl
 
 
     public void destroy() {
-        try {
-            configCtx.terminate();
-        } catch (AxisFault ignore) {}
+        if (!blocking) {
+            if (endpoint != null && endpointKey == null) {
+                endpoint.destroy();
+            }
+            synapseEnv.updateCallMediatorCount(false);
+        }
+        if (configCtx != null) {
+            try {
+                configCtx.terminate();
+            } catch (AxisFault ignore) {}
+        }
     }
 
     public String getServiceURL() {
@@ -491,6 +711,40 @@ public class CalloutMediator extends AbstractMediator implements ManagedLifecycl
         this.initClientOptions = initClientOptions;
     }
 
+    public boolean isBlocking() {
+        return blocking;
+    }
+
+    public void setBlocking(boolean blocking) {
+        this.blocking = blocking;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    public int getMaxConcurrentCallouts() {
+        return maxConcurrentCallouts;
+    }
+
+    public void setMaxConcurrentCallouts(int maxConcurrentCallouts) {
+        this.maxConcurrentCallouts = maxConcurrentCallouts;
+    }
+
+    /**
+     * Get the number of non-blocking callouts of this mediator waiting for their responses,
+     * when the number of concurrent callouts is bounded
+     *
+     * @return number of active callouts
+     */
+    public int getActiveCallouts() {
+        return activeCallouts.get();
+    }
+
     public boolean isUseEnvelopeAsSource() {
         return useEnvelopeAsSource;
     }
@@ -623,4 +877,40 @@ public class CalloutMediator extends AbstractMediator implements ManagedLifecycl
         this.endpoint = endpoint;
     }
 
+    /**
+     * A slot of the bounded number of concurrent callouts, released once on the response, on a
+     * fault of the callout, or on the expiry of the callout
+     */
+    private final class CalloutPermit extends FaultHandler implements Runnable {
+
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        private volatile ScheduledTask expiryTask;
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                activeCallouts.decrementAndGet();
+                ScheduledTask task = expiryTask;
+                if (task != null) {
+                    task.cancel();
+                }
+            }
+        }
+
+        public void run() {
+            if (released.compareAndSet(false, true)) {
+                activeCallouts.decrementAndGet();
+                CalloutMediator.this.log.warn(
+                        "Releasing a callout which did not complete within its timeout");
+            }
+        }
+
+        @Override
+        public void onFault(MessageContext synCtx) {
+            release();
+            Stack faultStack = synCtx.getFaultStack();
+            if (faultStack != null && !faultStack.isEmpty()) {
+                ((FaultHandler) faultStack.pop()).handleFault(synCtx);
+            }
+        }
+    }
 }
@@ -63,8 +63,10 @@ public class ForEachMediator extends AbstractMediator {
 			synLog.error("ForEach: expression is null");
 			return false;
 		} else {
-			synLog.traceOrDebug("ForEach: expression = " +
-			                    expression.toString());
+			if (synLog.isTraceOrDebugEnabled()) {
+				synLog.traceOrDebug("ForEach: expression = " +
+				                    expression.toString());
+			}
 
 			if (!validateSequenceRef(synCtx)) {
 				synLog.error(
@@ -29,11 +29,11 @@ import org.apache.synapse.config.SynapseConfigUtils;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
 import org.apache.synapse.mediators.AbstractMediator;
 import org.apache.synapse.transport.passthru.PassThroughConstants;
+import org.apache.synapse.transport.passthru.util.HeaderMap;
 import org.apache.axiom.om.OMElement;
 import org.apache.axis2.util.JavaUtils;
 import org.apache.http.protocol.HTTP;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
@@ -149,7 +149,7 @@ public class PropertyMediator extends AbstractMediator {
                     headersMap.put(name, resultValue);
                 }
                 if (headers == null) {
-                    Map headersMap = new HashMap();
+                    Map headersMap = new HeaderMap();
                     headersMap.put(name, resultValue);
                     axis2MessageCtx.setProperty(
                             org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS,
@@ -19,6 +19,7 @@
 
 package org.apache.synapse.mediators.builtin;
 
+import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.OMNode;
 import org.apache.synapse.ContinuationState;
 import org.apache.synapse.FaultHandler;
@@ -29,10 +30,12 @@ import org.apache.synapse.config.Entry;
 import org.apache.synapse.config.SynapseConfigUtils;
 import org.apache.synapse.config.SynapseConfiguration;
 import org.apache.synapse.continuation.ContinuationStackManager;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
 import org.apache.synapse.mediators.AbstractListMediator;
 import org.apache.synapse.mediators.FlowContinuableMediator;
 import org.apache.synapse.mediators.MediatorProperty;
 import org.apache.synapse.mediators.Value;
+import org.apache.synapse.transport.passthru.util.RelayUtils;
 import org.apache.synapse.util.AXIOMUtils;
 import org.apache.synapse.util.jaxp.SchemaResourceResolver;
 import org.apache.synapse.util.resolver.ResourceMap;
@@ -45,21 +48,36 @@ import org.xml.sax.helpers.DefaultHandler;
 
 import javax.xml.XMLConstants;
 import javax.xml.transform.Source;
+import javax.xml.transform.stax.StAXSource;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 import javax.xml.validation.Validator;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Validate a message or an element against a schema
  * <p/>
  * This internally uses the Xerces2-j parser, which cautions a lot about thread-safety and
- * memory leaks. Hence this initial implementation will create a single parser instance
- * for each unique mediator instance, and re-use it to validate multiple messages - even
- * concurrently - by synchronizing access
+ * memory leaks. Compiled schemas are thread-safe, and are kept in a bounded cache keyed by the
+ * resolved schema keys, so that messages resolving dynamic keys to different schemas do not
+ * recompile them. Validators are not thread-safe, each cached schema keeps a bounded pool of
+ * idle validators, which are taken for a validation and returned to the pool afterwards. The
+ * pooled validators go away with their schema when it is evicted, replaced or the mediator is
+ * destroyed.
+ * <p/>
+ * In the streaming mode, an element which is not built yet is validated as it is read from the
+ * underlying stream, so that an invalid message is rejected before its whole tree is built. The
+ * mediator is not content aware in this mode, so that the enclosing list mediator does not build
+ * the message before it is validated.
  */
 public class ValidateMediator extends AbstractListMediator implements FlowContinuableMediator {
 
@@ -87,21 +105,41 @@ public class ValidateMediator extends AbstractListMediator implements FlowContin
     private final List<MediatorProperty> explicityFeatures = new ArrayList<MediatorProperty>();
 
     /**
-     * This is the actual schema instance used to create a new schema
-     * This is a thred-safe instance.
+     * The maximum number of compiled schemas cached by a mediator instance
      */
-    private Schema cachedSchema;
-    
+    private static final int MAX_CACHED_SCHEMAS = 32;
+
+    /**
+     * The maximum number of idle validators pooled for each compiled schema
+     */
+    private static final int MAX_POOLED_VALIDATORS = 16;
+
     /**
-     * This is the cached schema key.
+     * Compiled schemas keyed by the list of resolved schema keys, least recently used first.
+     * Schema instances are thread-safe.
      */
-    private String cachedPropKey;
+    private final Map<List<String>, CachedSchema> schemaCache = Collections.synchronizedMap(
+            new LinkedHashMap<List<String>, CachedSchema>(16, 0.75f, true) {
+                protected boolean removeEldestEntry(
+                        Map.Entry<List<String>, CachedSchema> eldest) {
+                    return size() > MAX_CACHED_SCHEMAS;
+                }
+            });
 
     /**
-     * Lock used to ensure thread-safe creation and use of the above Validator
+     * Lock used to ensure thread-safe creation of the schemas, as the SchemaFactory is not
+     * thread-safe
      */
     private final Object validatorLock = new Object();
 
+    /**
+     * Whether an element which is not built yet should be validated as it is read from the stream
+     */
+    private boolean streaming = false;
+
+    /** number of elements validated as they were read from the stream */
+    private final AtomicLong streamedCount = new AtomicLong();
+
     /**
      * The SchemaFactory used to create new schema instances.
      */
@@ -118,86 +156,59 @@ public class ValidateMediator extends AbstractListMediator implements FlowContin
             synLog.traceTrace("Message : " + synCtx.getEnvelope());
         }
 
+        if (streaming) {
+            // the message has not been built by the enclosing list mediator, the envelope is
+            // created here while the element to validate is left to be read by the validator
+            createEnvelope(synCtx);
+        }
+
         // Input source for the validation
         Source validateSrc = getValidationSource(synCtx, synLog);
 
-        // flag to check if we need to initialize/re-initialize the schema
+        // flag to check if we need to re-initialize the schema
         boolean reCreate = false;
-        // if any of the schemas are not loaded, or have expired, load or re-load them
+        // Derive the actual keys from message context
+        List<String> propKeys = new ArrayList<String>(schemaKeys.size());
+        // if any of the schemas have expired, re-load them
         for (Value schemaKey : schemaKeys) {
-            // Derive actual key from message context
             String propKey = schemaKey.evaluateValue(synCtx);
-            if (!propKey.equals(cachedPropKey)){
-            	reCreate = true;       // request re-initialization of Validator
-            }
-            
+            propKeys.add(propKey);
+
             Entry dp = synCtx.getConfiguration().getEntryDefinition(propKey);
             if (dp != null && dp.isDynamic()) {
                 if (!dp.isCached() || dp.isExpired()) {
-                    reCreate = true;       // request re-initialization of Validator
+                    reCreate = true;       // request re-initialization of the schema
                 }
             }
         }
 
+        CachedSchema schema = reCreate ? null : schemaCache.get(propKeys);
+        if (schema == null) {
+            schema = createSchema(synCtx, propKeys, reCreate);
+        }
+
         // This is the reference to the DefaultHandler instance
         ValidateMediatorErrorHandler errorHandler = new ValidateMediatorErrorHandler();
 
-        // do not re-initialize schema unless required
-        synchronized (validatorLock) {
-            if (reCreate || cachedSchema == null) {
-
-                factory.setErrorHandler(errorHandler);
-                StreamSource[] sources = new StreamSource[schemaKeys.size()];
-                int i = 0;
-                for (Value schemaKey : schemaKeys) {
-                    // Derive actual key from message context
-                    String propName = schemaKey.evaluateValue(synCtx);
-                    sources[i++] = SynapseConfigUtils.getStreamSource(synCtx.getEntry(propName));
-                    cachedPropKey = propName;
-                }
-                // load the UserDefined SchemaURIResolver implementations
-                try {
-                	SynapseConfiguration synCfg = synCtx.getConfiguration();
-                	if(synCfg.getProperty(SynapseConstants.SYNAPSE_SCHEMA_RESOLVER) !=null){
-                		setUserDefinedSchemaResourceResolver(synCtx);
-                	}
-                	else{
-                		factory.setResourceResolver(
-                		                            new SchemaResourceResolver(synCtx.getConfiguration(), resourceMap));
-                	}
-                    cachedSchema = factory.newSchema(sources);
-                } catch (SAXException e) {
-                    handleException("Error creating a new schema objects for " +
-                            "schemas : " + schemaKeys.toString(), e, synCtx);
-                } catch (RuntimeException e) {
-                    handleException("Error creating a new schema objects for " +
-                            "schemas : " + schemaKeys.toString(), e, synCtx);
-                }
-
-                if (errorHandler.isValidationError()) {
-                    //reset the errorhandler state
-                    errorHandler.setValidationError(false);
-                    cachedSchema = null;
-                    cachedPropKey = null;
-                    handleException("Error creating a new schema objects for schemas : "
-                            + schemaKeys.toString(), errorHandler.getSaxParseException(), synCtx);
-                }
-            }
-        }
-
-        // no need to synchronize, schema instances are thread-safe
+        // no need to synchronize, schema instances are thread-safe and a pooled validator is
+        // used by one thread at a time
         try {
-            Validator validator = cachedSchema.newValidator();
-            validator.setErrorHandler(errorHandler);
-
-            // perform actual validation
-            validator.validate(validateSrc);
+            Validator validator = schema.takeValidator();
+            try {
+                validator.setErrorHandler(errorHandler);
+
+                // perform actual validation
+                validator.validate(validateSrc);
+            } finally {
+                validator.setErrorHandler(null);
+                schema.returnValidator(validator);
+            }
 
             if (errorHandler.isValidationError()) {
 
                 if (synLog.isTraceOrDebugEnabled()) {
                     String msg = "Validation of element returned by XPath : " + source +
-                        " failed against the given schema(s) " + schemaKeys +
+                        " failed against the given schema(s) " + propKeys +
                         "with error : " + errorHandler.getSaxParseException().getMessage() +
                         " Executing 'on-fail' sequence";
                     synLog.traceOrDebug(msg);
@@ -261,6 +272,89 @@ public class ValidateMediator extends AbstractListMediator implements FlowContin
         return result;
     }
 
+    /**
+     * Compile the schemas of the given keys, and cache the compiled schema
+     *
+     * @param synCtx message context
+     * @param propKeys resolved schema keys
+     * @param reCreate whether a cached schema of the keys should be replaced
+     * @return the compiled schema
+     */
+    private CachedSchema createSchema(MessageContext synCtx, List<String> propKeys,
+                                      boolean reCreate) {
+
+        synchronized (validatorLock) {
+            // another thread may have compiled the same schemas meanwhile
+            CachedSchema cached = reCreate ? null : schemaCache.get(propKeys);
+            if (cached != null) {
+                return cached;
+            }
+            Schema schema = null;
+
+            ValidateMediatorErrorHandler errorHandler = new ValidateMediatorErrorHandler();
+            factory.setErrorHandler(errorHandler);
+            StreamSource[] sources = new StreamSource[propKeys.size()];
+            int i = 0;
+            for (String propName : propKeys) {
+                sources[i++] = SynapseConfigUtils.getStreamSource(synCtx.getEntry(propName));
+            }
+            // load the UserDefined SchemaURIResolver implementations
+            try {
+                SynapseConfiguration synCfg = synCtx.getConfiguration();
+                if (synCfg.getProperty(SynapseConstants.SYNAPSE_SCHEMA_RESOLVER) != null) {
+                    setUserDefinedSchemaResourceResolver(synCtx);
+                } else {
+                    factory.setResourceResolver(
+                            new SchemaResourceResolver(synCtx.getConfiguration(), resourceMap));
+                }
+                schema = factory.newSchema(sources);
+            } catch (SAXException e) {
+                handleException("Error creating a new schema objects for " +
+                        "schemas : " + propKeys, e, synCtx);
+            } catch (RuntimeException e) {
+                handleException("Error creating a new schema objects for " +
+                        "schemas : " + propKeys, e, synCtx);
+            }
+
+            if (errorHandler.isValidationError()) {
+                schemaCache.remove(propKeys);
+                handleException("Error creating a new schema objects for schemas : "
+                        + propKeys, errorHandler.getSaxParseException(), synCtx);
+            }
+
+            cached = new CachedSchema(schema);
+            schemaCache.put(propKeys, cached);
+            return cached;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // drops the compiled schemas along with their pooled validators
+        schemaCache.clear();
+        super.destroy();
+    }
+
+    /**
+     * @return the number of idle validators pooled for the compiled schemas
+     */
+    int getPooledValidatorCount() {
+        int count = 0;
+        synchronized (schemaCache) {
+            for (CachedSchema cached : schemaCache.values()) {
+                count += cached.validators.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the number of elements validated as they were read from the stream
+     */
+    long getStreamedCount() {
+        return streamedCount.get();
+    }
+
     /**
      * UserDefined schema resource resolver
 
@@ -294,6 +388,23 @@ public class ValidateMediator extends AbstractListMediator implements FlowContin
         }
     }
     
+    /**
+     * Create the envelope of a message received through the pass through transport, without
+     * building its body
+     *
+     * @param synCtx the current message to validate
+     */
+    private void createEnvelope(MessageContext synCtx) {
+        if (synCtx instanceof Axis2MessageContext) {
+            try {
+                RelayUtils.buildMessage(((Axis2MessageContext) synCtx).getAxis2MessageContext(),
+                        false);
+            } catch (Exception e) {
+                handleException("Error while building message", e, synCtx);
+            }
+        }
+    }
+
     /**
      * Get the validation Source for the message context
      *
@@ -309,6 +420,12 @@ public class ValidateMediator extends AbstractListMediator implements FlowContin
                 synLog.traceOrDebug("Validation source : " + validateSource.toString());
             }
 
+            if (streaming && validateSource instanceof OMElement
+                    && !((OMElement) validateSource).isComplete()) {
+                // the tree is built as the validator reads the element from the stream
+                streamedCount.incrementAndGet();
+                return new StAXSource(((OMElement) validateSource).getXMLStreamReader());
+            }
             return AXIOMUtils.asSource(validateSource);
 
         } catch (Exception e) {
@@ -317,6 +434,39 @@ public class ValidateMediator extends AbstractListMediator implements FlowContin
         return null; // never reaches here
     }
 
+    /**
+     * A compiled schema along with the idle validators created from it
+     */
+    private static class CachedSchema {
+
+        private final Schema schema;
+        private final BlockingQueue<Validator> validators =
+                new ArrayBlockingQueue<Validator>(MAX_POOLED_VALIDATORS);
+
+        private CachedSchema(Schema schema) {
+            this.schema = schema;
+        }
+
+        /**
+         * @return an idle validator of the schema, reset, or a new one if there is none
+         */
+        private Validator takeValidator() {
+            Validator validator = validators.poll();
+            if (validator != null) {
+                validator.reset();
+                return validator;
+            }
+            return schema.newValidator();
+        }
+
+        /**
+         * @param validator validator to be returned to the pool, dropped if the pool is full
+         */
+        private void returnValidator(Validator validator) {
+            validators.offer(validator);
+        }
+    }
+
     /**
      * This class handles validation errors to be used for the error reporting
      */
@@ -411,6 +561,23 @@ public class ValidateMediator extends AbstractListMediator implements FlowContin
        this.source.setXPath(source);
     }
 
+    /**
+     * Whether an element which is not built yet is validated as it is read from the stream
+     * @return true if the streaming validation is enabled
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Enable or disable validating an element which is not built yet as it is read from the
+     * stream, instead of validating the built element
+     * @param streaming true to enable the streaming validation
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
     /**
      * Set the External Schema ResourceMap that will required for schema validation
      * @param resourceMap  the ResourceMap which contains external schema resources
@@ -453,7 +620,7 @@ public class ValidateMediator extends AbstractListMediator implements FlowContin
 
     @Override
     public boolean isContentAware() {
-        return true;
+        return !streaming;
     }
 
 }
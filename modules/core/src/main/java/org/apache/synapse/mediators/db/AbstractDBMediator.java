@@ -232,6 +232,23 @@ public abstract class AbstractDBMediator extends AbstractMediator implements Man
      */
     protected PreparedStatement getPreparedStatement(Statement stmnt, Connection con,
                                                      MessageContext msgCtx) throws SQLException {
+        return getPreparedStatement(stmnt, con, getParameterValues(stmnt, msgCtx), msgCtx);
+    }
+
+    /**
+     * Return a Prepared statement for the given Statement object, with the parameter values
+     * already evaluated against the message set on it
+     *
+     * @param stmnt  SQL stataement to be executed
+     * @param con    The connection to be used
+     * @param values parameter values as returned by {@link #getParameterValues}
+     * @param msgCtx Current message context
+     * @return a PreparedStatement
+     * @throws SQLException on error
+     */
+    protected PreparedStatement getPreparedStatement(Statement stmnt, Connection con,
+                                                     List<String> values,
+                                                     MessageContext msgCtx) throws SQLException {
 
         SynapseLog synLog = getLog(msgCtx);
 
@@ -270,12 +287,28 @@ public abstract class AbstractDBMediator extends AbstractMediator implements Man
         }
 
         PreparedStatement ps = con.prepareStatement(stmnt.getRawStatement());
+        setParameters(ps, stmnt, values, msgCtx);
 
-        // set parameters if any
-        List<Statement.Parameter> params = stmnt.getParameters();
-        int column = 1;
+        if (synLog.isTraceOrDebugEnabled()) {
+            synLog.traceOrDebug("Successfully prepared statement : " + stmnt.getRawStatement() +
+                    " against DataSource : " + getDSName());
+        }
+        return ps;
+    }
+
+    /**
+     * Evaluate the parameters of the given statement against the current message
+     *
+     * @param stmnt  SQL statement whose parameters are evaluated
+     * @param msgCtx Current message context
+     * @return the parameter values, in the order of the parameters
+     */
+    protected List<String> getParameterValues(Statement stmnt, MessageContext msgCtx) {
 
-        for (Statement.Parameter param : params) {
+        SynapseLog synLog = getLog(msgCtx);
+        List<String> values = new ArrayList<String>(stmnt.getParameters().size());
+
+        for (Statement.Parameter param : stmnt.getParameters()) {
             if (param == null) {
                 continue;
             }
@@ -283,10 +316,35 @@ public abstract class AbstractDBMediator extends AbstractMediator implements Man
                     param.getPropertyName() : param.getXpath().stringValueOf(msgCtx));
 
             if (synLog.isTraceOrDebugEnabled()) {
-                synLog.traceOrDebug("Setting as parameter : " + column + " value : " + value +
-                        " as JDBC Type : " + param.getType() + "(see java.sql.Types for valid " +
-                        "types)");
+                synLog.traceOrDebug("Setting as parameter : " + (values.size() + 1) +
+                        " value : " + value + " as JDBC Type : " + param.getType() +
+                        "(see java.sql.Types for valid types)");
             }
+            values.add(value);
+        }
+        return values;
+    }
+
+    /**
+     * Set the evaluated parameter values on a prepared statement. The message is optional, so
+     * that a statement can also be executed after the message has moved on.
+     *
+     * @param ps     the statement to set the parameters on
+     * @param stmnt  SQL statement of the prepared statement
+     * @param values parameter values as returned by {@link #getParameterValues}
+     * @param msgCtx Current message context, or null if the message has moved on
+     * @throws SQLException on error
+     */
+    protected void setParameters(PreparedStatement ps, Statement stmnt, List<String> values,
+                                 MessageContext msgCtx) throws SQLException {
+
+        int column = 1;
+        for (Statement.Parameter param : stmnt.getParameters()) {
+            if (param == null) {
+                continue;
+            }
+            String value = values.get(column - 1);
+
 
             switch (param.getType()) {
                 // according to J2SE 1.5 /docs/guide/jdbc/getstart/mapping.html
@@ -405,16 +463,14 @@ public abstract class AbstractDBMediator extends AbstractMediator implements Man
                             stmnt.getRawStatement() +
                             " used by a DB mediator against DataSource : " + getDSName() +
                             " (see java.sql.Types for valid type values)";
-                    handleException(msg, msgCtx);
+                    if (msgCtx != null) {
+                        handleException(msg, msgCtx);
+                    } else {
+                        handleException(msg);
+                    }
                 }
             }
         }
-
-        if (synLog.isTraceOrDebugEnabled()) {
-            synLog.traceOrDebug("Successfully prepared statement : " + stmnt.getRawStatement() +
-                    " against DataSource : " + getDSName());
-        }
-        return ps;
     }
 
     /**
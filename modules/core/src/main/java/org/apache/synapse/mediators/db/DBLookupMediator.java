@@ -21,28 +21,98 @@ package org.apache.synapse.mediators.db;
 
 import org.apache.synapse.MessageContext;
 import org.apache.synapse.SynapseLog;
+import org.apache.synapse.core.SynapseEnvironment;
 
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Connection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
- * Simple database table lookup mediator. Designed only for read/lookup
+ * Simple database table lookup mediator. Designed only for read/lookup. </p>
+ *
+ * <p> If a cache timeout is set, the properties read from the first row are cached against the
+ * statement and the values of its parameters, and the database is not queried again for the
+ * same values until the cached result is older than the timeout. </p>
  */
 public class DBLookupMediator extends AbstractDBMediator {
 
+    /** Default maximum number of cached lookup results */
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+
+    /** Time in milliseconds a lookup result is cached, 0 to disable the cache */
+    private long cacheTimeout = 0;
+
+    /** Maximum number of cached lookup results */
+    private int cacheSize = DEFAULT_CACHE_SIZE;
+
+    private LookupResultCache resultCache;
+
+    public void init(SynapseEnvironment se) {
+        super.init(se);
+        if (cacheTimeout > 0) {
+            resultCache = new LookupResultCache(cacheTimeout, cacheSize);
+        }
+    }
+
+    public void destroy() {
+        if (resultCache != null) {
+            resultCache.clear();
+        }
+        super.destroy();
+    }
+
     protected void processStatement(Statement stmnt, MessageContext msgCtx) {
 
         SynapseLog synLog = getLog(msgCtx);
 
+        List<String> values = getParameterValues(stmnt, msgCtx);
+        Map<String, String> properties = null;
+        if (resultCache != null) {
+            properties = resultCache.get(stmnt, values);
+            if (properties != null && synLog.isTraceOrDebugEnabled()) {
+                synLog.traceOrDebug("Using the cached result of statement : " +
+                        stmnt.getRawStatement() + " for parameters : " + values);
+            }
+        }
+
+        if (properties == null) {
+            properties = executeLookup(stmnt, values, msgCtx);
+            if (resultCache != null) {
+                resultCache.put(stmnt, values, properties);
+            }
+        }
+
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            msgCtx.setProperty(property.getKey(), property.getValue());
+        }
+    }
+
+    /**
+     * Execute the statement and read the values of the result columns from the first row
+     *
+     * @param stmnt  the lookup statement
+     * @param values the values of the statement parameters
+     * @param msgCtx current message
+     * @return message properties for the non null result columns, empty if no rows returned
+     */
+    private Map<String, String> executeLookup(Statement stmnt, List<String> values,
+                                              MessageContext msgCtx) {
+
+        SynapseLog synLog = getLog(msgCtx);
+        Map<String, String> properties = new LinkedHashMap<String, String>();
+
         // execute the prepared statement, and extract the first result row and
         // set as message context properties, any results that have been specified
         Connection con = null;
+        PreparedStatement ps = null;
         ResultSet rs = null;
         try {
-        	con = this.getDataSource().getConnection();
-            PreparedStatement ps = getPreparedStatement(stmnt, con, msgCtx);
+            con = this.getDataSource().getConnection();
+            ps = getPreparedStatement(stmnt, con, values, msgCtx);
             rs = ps.executeQuery();
 
             if (rs.next()) {
@@ -68,7 +138,7 @@ public class DBLookupMediator extends AbstractDBMediator {
                                     " returned value : " + obj +
                                     " Setting this as the message property : " + propName);
                         }
-                        msgCtx.setProperty(propName, obj.toString());
+                        properties.put(propName, obj.toString());
                     } else {
                         if (synLog.isTraceOrDebugEnabled()) {
                             synLog.traceOrDebugWarn("Column : " + columnStr +
@@ -92,12 +162,38 @@ public class DBLookupMediator extends AbstractDBMediator {
                     rs.close();
                 } catch (SQLException e) {}
             }
+            // closing the statement returns it to the statement pool of the connection, if any
+            if (ps != null) {
+                try {
+                    ps.close();
+                } catch (SQLException ignore) {}
+            }
             if (con != null) {
                 try {
                     con.close();
                 } catch (SQLException ignore) {}
             }
         }
+        return properties;
     }
 
+    public long getCacheTimeout() {
+        return cacheTimeout;
+    }
+
+    public void setCacheTimeout(long cacheTimeout) {
+        this.cacheTimeout = cacheTimeout;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    public void setCacheSize(int cacheSize) {
+        this.cacheSize = cacheSize;
+    }
+
+    LookupResultCache getResultCache() {
+        return resultCache;
+    }
 }
@@ -20,17 +20,38 @@
 package org.apache.synapse.mediators.db;
 
 import org.apache.synapse.MessageContext;
+import org.apache.synapse.SynapseException;
 import org.apache.synapse.SynapseLog;
+import org.apache.synapse.core.SynapseEnvironment;
+import org.apache.synapse.util.concurrent.ScheduledTask;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
- * A mediator that writes (i.e. inserts one row) to a table using message information
+ * A mediator that writes (i.e. inserts one row) to a table using message information. </p>
+ *
+ * <p> By default the statements are executed on the mediation thread, against each message.
+ * If a batch size larger than one is set, the parameter values are read from each message and
+ * the rows are written in JDBC batches, when a batch is full or when the batch interval elapses.
+ * If async execution is set, the statements are executed using the Synapse executor, so that
+ * the mediation of the message doesn't wait for the database. Errors of the deferred statements
+ * can not fail the message and are only logged. Statements are never deferred when the mediator
+ * participates in a transaction. </p>
  */
 public class DBReportMediator extends AbstractDBMediator {
 
+    /** Default time in milliseconds after which a batch is written even if it is not full */
+    public static final long DEFAULT_BATCH_INTERVAL = 1000;
+
     public boolean isUseTransaction() {
         return useTransaction;
     }
@@ -43,15 +64,99 @@ public class DBReportMediator extends AbstractDBMediator {
     // default do not participate in a distribute tx
     boolean useTransaction = false;
 
+    /** Number of rows written in one JDBC batch, 1 to write a row for each message */
+    private int batchSize = 1;
+
+    /** Time in milliseconds after which a batch is written even if it is not full */
+    private long batchInterval = DEFAULT_BATCH_INTERVAL;
+
+    /** Execute the statements using the Synapse executor instead of the mediation thread */
+    private boolean executeAsync = false;
+
+    private final List<PendingRow> pendingRows = new ArrayList<PendingRow>();
+
+    private ExecutorService executor;
+
+    private ScheduledTask flushTask;
+
+    public void init(SynapseEnvironment se) {
+        super.init(se);
+        executor = se.getExecutorService();
+
+        if (useTransaction && (batchSize > 1 || executeAsync)) {
+            log.warn("Batched and async execution are not used by a DBReport mediator " +
+                    "participating in a transaction, against DataSource : " + getDSName());
+        } else if (batchSize > 1 && batchInterval > 0) {
+            Runnable flush = new Runnable() {
+                public void run() {
+                    final List<PendingRow> rows = takePendingRows();
+                    if (!rows.isEmpty()) {
+                        // never write to the database on a scheduler thread
+                        submit(rows, true);
+                    }
+                }
+            };
+            flushTask = se.getSynapseScheduler().scheduleWithFixedDelay(
+                    "dbreport-" + getDSName(), flush, batchInterval, batchInterval);
+        }
+    }
+
+    public void destroy() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+        List<PendingRow> rows = takePendingRows();
+        if (!rows.isEmpty()) {
+            executeRows(rows);
+        }
+        super.destroy();
+    }
+
     protected void processStatement(Statement stmnt, MessageContext msgCtx) {
 
+        if (useTransaction || (batchSize <= 1 && !executeAsync)) {
+            executeUpdate(stmnt, msgCtx);
+            return;
+        }
+
+        SynapseLog synLog = getLog(msgCtx);
+        PendingRow row = new PendingRow(stmnt, getParameterValues(stmnt, msgCtx));
+
+        if (batchSize > 1) {
+            List<PendingRow> batch = null;
+            synchronized (pendingRows) {
+                pendingRows.add(row);
+                if (pendingRows.size() >= batchSize) {
+                    batch = new ArrayList<PendingRow>(pendingRows);
+                    pendingRows.clear();
+                }
+            }
+            if (synLog.isTraceOrDebugEnabled()) {
+                synLog.traceOrDebug("Added a row to the batch of statement : " +
+                        stmnt.getRawStatement());
+            }
+            if (batch != null) {
+                submit(batch, executeAsync);
+            }
+        } else {
+            if (synLog.isTraceOrDebugEnabled()) {
+                synLog.traceOrDebug("Executing statement : " + stmnt.getRawStatement() +
+                        " asynchronously");
+            }
+            submit(Collections.singletonList(row), true);
+        }
+    }
+
+    private void executeUpdate(Statement stmnt, MessageContext msgCtx) {
 
         SynapseLog synLog = getLog(msgCtx);
 
         Connection con = null;
+        PreparedStatement ps = null;
         try {
-        	con = this.getDataSource().getConnection();
-            PreparedStatement ps = getPreparedStatement(stmnt, con, msgCtx);
+            con = this.getDataSource().getConnection();
+            ps = getPreparedStatement(stmnt, con, msgCtx);
             int count = ps.executeUpdate();
 
             if (count > 0) {
@@ -76,6 +181,113 @@ public class DBReportMediator extends AbstractDBMediator {
             handleException("Error execuring insert statement : " + stmnt.getRawStatement() +
                     " against DataSource : " + getDSName(), e, msgCtx);
         } finally {
+            // closing the statement returns it to the statement pool of the connection, if any
+            if (ps != null) {
+                try {
+                    ps.close();
+                } catch (SQLException ignore) {
+                }
+            }
+            if (con != null) {
+                try {
+                    con.close();
+                } catch (SQLException ignore) {
+                }
+            }
+        }
+    }
+
+    private List<PendingRow> takePendingRows() {
+        synchronized (pendingRows) {
+            if (pendingRows.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<PendingRow> rows = new ArrayList<PendingRow>(pendingRows);
+            pendingRows.clear();
+            return rows;
+        }
+    }
+
+    private void submit(final List<PendingRow> rows, boolean async) {
+        if (async && executor != null) {
+            try {
+                executor.execute(new Runnable() {
+                    public void run() {
+                        executeRows(rows);
+                    }
+                });
+                return;
+            } catch (RejectedExecutionException e) {
+                log.warn("Executor rejected the statements of a DBReport mediator, executing " +
+                        rows.size() + " row/s on the current thread");
+            }
+        }
+        executeRows(rows);
+    }
+
+    /**
+     * Write the given rows in JDBC batches, one batch for each statement, and commit them
+     * together. The rows of each statement are written in the order they were added.
+     *
+     * @param rows rows to be written
+     */
+    private void executeRows(List<PendingRow> rows) {
+
+        Map<Statement, List<List<String>>> batches =
+                new LinkedHashMap<Statement, List<List<String>>>();
+        for (PendingRow row : rows) {
+            List<List<String>> batch = batches.get(row.stmnt);
+            if (batch == null) {
+                batch = new ArrayList<List<String>>();
+                batches.put(row.stmnt, batch);
+            }
+            batch.add(row.values);
+        }
+
+        Connection con = null;
+        PreparedStatement ps = null;
+        try {
+            con = this.getDataSource().getConnection();
+            for (Map.Entry<Statement, List<List<String>>> batch : batches.entrySet()) {
+                Statement stmnt = batch.getKey();
+                ps = con.prepareStatement(stmnt.getRawStatement());
+                for (List<String> values : batch.getValue()) {
+                    setParameters(ps, stmnt, values, null);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                ps.close();
+                ps = null;
+            }
+            if (!con.getAutoCommit()) {
+                con.commit();
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Inserted " + rows.size() + " row/s against DataSource : " +
+                        getDSName());
+            }
+
+        } catch (SQLException e) {
+            log.error("Error inserting " + rows.size() + " row/s against DataSource : " +
+                    getDSName(), e);
+            if (con != null) {
+                try {
+                    if (!con.getAutoCommit()) {
+                        con.rollback();
+                    }
+                } catch (SQLException ignore) {
+                }
+            }
+        } catch (SynapseException ignore) {
+            // already logged while setting the parameters
+        } finally {
+            if (ps != null) {
+                try {
+                    ps.close();
+                } catch (SQLException ignore) {
+                }
+            }
             if (con != null) {
                 try {
                     con.close();
@@ -84,4 +296,42 @@ public class DBReportMediator extends AbstractDBMediator {
             }
         }
     }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getBatchInterval() {
+        return batchInterval;
+    }
+
+    public void setBatchInterval(long batchInterval) {
+        this.batchInterval = batchInterval;
+    }
+
+    public boolean isExecuteAsync() {
+        return executeAsync;
+    }
+
+    public void setExecuteAsync(boolean executeAsync) {
+        this.executeAsync = executeAsync;
+    }
+
+    /**
+     * The parameter values of a statement, read from a message and waiting to be written
+     */
+    private static final class PendingRow {
+
+        private final Statement stmnt;
+        private final List<String> values;
+
+        private PendingRow(Statement stmnt, List<String> values) {
+            this.stmnt = stmnt;
+            this.values = values;
+        }
+    }
 }
@@ -0,0 +1,153 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.mediators.db;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the results of the lookups done by a {@link DBLookupMediator}, keyed by the statement
+ * and the values bound to its parameters. A result is used until it is older than the timeout
+ * and the cache holds at most the given number of results, new results are not cached while
+ * the cache is full of results which have not expired.
+ */
+class LookupResultCache {
+
+    private final long timeout;
+    private final int maxSize;
+
+    private final Map<Key, Result> results = new ConcurrentHashMap<Key, Result>();
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    LookupResultCache(long timeout, int maxSize) {
+        this.timeout = timeout;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Get the cached result of a statement
+     *
+     * @param stmnt  the statement
+     * @param values the values of the statement parameters
+     * @return the message properties set from the first row, or null if not cached
+     */
+    Map<String, String> get(Statement stmnt, List<String> values) {
+        Key key = new Key(stmnt, values);
+        Result result = results.get(key);
+        if (result != null) {
+            if (result.expiryTime > System.currentTimeMillis()) {
+                hitCount.incrementAndGet();
+                return result.properties;
+            }
+            results.remove(key);
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Cache the result of a statement
+     *
+     * @param stmnt      the statement
+     * @param values     the values of the statement parameters
+     * @param properties the message properties set from the first row, empty if no rows
+     */
+    void put(Statement stmnt, List<String> values, Map<String, String> properties) {
+        if (results.size() >= maxSize) {
+            removeExpired();
+            if (results.size() >= maxSize) {
+                return;
+            }
+        }
+        results.put(new Key(stmnt, values),
+                new Result(properties, System.currentTimeMillis() + timeout));
+    }
+
+    void clear() {
+        results.clear();
+    }
+
+    int size() {
+        return results.size();
+    }
+
+    long getHitCount() {
+        return hitCount.get();
+    }
+
+    long getMissCount() {
+        return missCount.get();
+    }
+
+    private void removeExpired() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Result> it = results.values().iterator(); it.hasNext();) {
+            if (it.next().expiryTime <= now) {
+                it.remove();
+            }
+        }
+    }
+
+    private static final class Key {
+
+        private final Statement stmnt;
+        private final List<String> values;
+        private final int hash;
+
+        private Key(Statement stmnt, List<String> values) {
+            this.stmnt = stmnt;
+            this.values = values;
+            this.hash = 31 * System.identityHashCode(stmnt) + values.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return stmnt == other.stmnt && values.equals(other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Result {
+
+        private final Map<String, String> properties;
+        private final long expiryTime;
+
+        private Result(Map<String, String> properties, long expiryTime) {
+            this.properties = properties;
+            this.expiryTime = expiryTime;
+        }
+    }
+}
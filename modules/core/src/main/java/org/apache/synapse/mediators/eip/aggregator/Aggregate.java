@@ -23,19 +23,19 @@ import org.apache.synapse.MessageContext;
 import org.apache.synapse.SynapseLog;
 import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.mediators.eip.EIPConstants;
+import org.apache.synapse.util.concurrent.ScheduledTask;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import java.util.List;
 import java.util.ArrayList;
-import java.util.TimerTask;
 
 /**
  * An instance of this class is created to manage each aggregation group, and it holds
  * the aggregation properties and the messages collected during aggregation. This class also
  * times out itself after the timeout expires it
  */
-public class Aggregate extends TimerTask {
+public class Aggregate implements Runnable {
 
     private static final Log log = LogFactory.getLog(Aggregate.class);
 
@@ -53,6 +53,8 @@ public class Aggregate extends TimerTask {
     private boolean locked = false;
     private boolean completed = false;
     private SynapseEnvironment synEnv = null;
+    /** The timeout of this aggregation on the scheduler of the environment */
+    private volatile ScheduledTask timeoutTask = null;
 
     /**
      * Save aggregation properties and timeout
@@ -254,6 +256,20 @@ public class Aggregate extends TimerTask {
         locked = false;
     }
 
+    public void setTimeoutTask(ScheduledTask timeoutTask) {
+        this.timeoutTask = timeoutTask;
+    }
+
+    /**
+     * Cancel the timeout of this aggregation
+     *
+     * @return true if the timeout will not run because of this call
+     */
+    public boolean cancel() {
+        ScheduledTask task = timeoutTask;
+        return task != null && task.cancel();
+    }
+
     public boolean isCompleted() {
         return completed;
     }
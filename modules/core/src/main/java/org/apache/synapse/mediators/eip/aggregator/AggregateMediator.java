@@ -214,8 +214,10 @@ public class AggregateMediator extends AbstractMediator implements ManagedLifecy
                                     maxMsg.intValue(), this);
 
                             if (completionTimeoutMillis > 0) {
-                                synCtx.getConfiguration().getSynapseTimer().
-                                        schedule(aggregate, completionTimeoutMillis);
+                                aggregate.setTimeoutTask(synCtx.getEnvironment()
+                                        .getSynapseScheduler().scheduleTimeout(
+                                                getSchedulerOwner(), aggregate,
+                                                completionTimeoutMillis));
                             }
                             aggregate.getLock();
                             activeAggregates.put(correlateExpression.toString(), aggregate);
@@ -272,8 +274,10 @@ public class AggregateMediator extends AbstractMediator implements ManagedLifecy
                                 if (completionTimeoutMillis > 0) {
                                     synchronized(aggregate) {
                                         if (!aggregate.isCompleted()) {
-                                            synCtx.getConfiguration().getSynapseTimer().
-                                                schedule(aggregate, completionTimeoutMillis);
+                                            aggregate.setTimeoutTask(synCtx.getEnvironment()
+                                                    .getSynapseScheduler().scheduleTimeout(
+                                                            getSchedulerOwner(), aggregate,
+                                                            completionTimeoutMillis));
                                         }
                                     }
                                 }
@@ -566,6 +570,15 @@ public class AggregateMediator extends AbstractMediator implements ManagedLifecy
         this.id = id;
     }
 
+    /**
+     * The owner of the aggregation timeouts of this mediator on the scheduler
+     *
+     * @return owner name of the timeouts
+     */
+    private String getSchedulerOwner() {
+        return id != null ? "aggregate-" + id : "aggregate";
+    }
+
 	public Value getMinMessagesToComplete() {
     	return minMessagesToComplete;
     }
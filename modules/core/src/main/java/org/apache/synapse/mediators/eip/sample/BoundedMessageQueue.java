@@ -0,0 +1,160 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.mediators.eip.sample;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.MessageContext;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A non blocking {@link MessageQueue} which holds at most <code>capacity</code> messages. When
+ * the queue is full, the overflow policy decides whether the new message or the oldest message
+ * on the queue is dropped. The queue is safe to be used by the mediating threads and the
+ * sampling thread at the same time.</p>
+ *
+ * <p>The capacity and the overflow policy are set through the properties of the
+ * <code>messageQueue</code> element of the sampler</p>
+ *
+ * <pre>&lt;messageQueue class="org.apache.synapse.mediators.eip.sample.BoundedMessageQueue"&gt;
+ *   &lt;property name="capacity" value="int"/&gt;
+ *   &lt;property name="overflowPolicy" value="dropNew|dropOldest"/&gt;
+ * &lt;/messageQueue&gt;</pre>
+ */
+public class BoundedMessageQueue implements MessageQueue {
+
+    public static final String DROP_NEW = "dropNew";
+    public static final String DROP_OLDEST = "dropOldest";
+
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    private static final Log log = LogFactory.getLog(BoundedMessageQueue.class);
+
+    private final Queue<MessageContext> messageQueue = new ConcurrentLinkedQueue<MessageContext>();
+
+    /** Number of messages on the queue, kept apart as the size of the queue is not constant time */
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private int capacity = DEFAULT_CAPACITY;
+
+    private boolean dropOldest = false;
+
+    public void add(MessageContext synCtx) {
+        while (true) {
+            int current = size.get();
+            if (current < capacity) {
+                if (size.compareAndSet(current, current + 1)) {
+                    messageQueue.offer(synCtx);
+                    return;
+                }
+            } else if (dropOldest) {
+                MessageContext oldest = messageQueue.poll();
+                if (oldest != null) {
+                    // the slot of the dropped message is taken over by the new message
+                    messageQueue.offer(synCtx);
+                    dropped(oldest);
+                    return;
+                }
+                // the remaining messages are being taken off the queue, try again
+            } else {
+                dropped(synCtx);
+                return;
+            }
+        }
+    }
+
+    public MessageContext get() {
+        MessageContext synCtx = messageQueue.poll();
+        if (synCtx != null) {
+            size.decrementAndGet();
+        }
+        return synCtx;
+    }
+
+    public boolean isEmpty() {
+        return messageQueue.isEmpty();
+    }
+
+    public boolean isPersistent() {
+        return false;
+    }
+
+    public boolean persist() {
+        return false;
+    }
+
+    public void load() {
+        throw new UnsupportedOperationException("Not Implemented");
+    }
+
+    private void dropped(MessageContext synCtx) {
+        long count = droppedCount.incrementAndGet();
+        if (log.isDebugEnabled()) {
+            log.debug("Sampling message queue is full, dropped the message with message id : "
+                    + synCtx.getMessageID());
+        }
+        // avoid flooding the log while the queue stays full
+        if (count == 1 || count % capacity == 0) {
+            log.warn("Sampling message queue is full with " + capacity + " messages, "
+                    + count + " messages have been dropped so far");
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity of the message queue has to be " +
+                    "a positive value, but found : " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    public String getOverflowPolicy() {
+        return dropOldest ? DROP_OLDEST : DROP_NEW;
+    }
+
+    public void setOverflowPolicy(String overflowPolicy) {
+        if (DROP_OLDEST.equals(overflowPolicy)) {
+            dropOldest = true;
+        } else if (DROP_NEW.equals(overflowPolicy)) {
+            dropOldest = false;
+        } else {
+            throw new IllegalArgumentException("Unknown overflow policy : " + overflowPolicy
+                    + ", has to be one of " + DROP_NEW + " or " + DROP_OLDEST);
+        }
+    }
+}
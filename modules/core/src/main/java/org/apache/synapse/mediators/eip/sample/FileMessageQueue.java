@@ -0,0 +1,381 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.mediators.eip.sample;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.ManagedLifecycle;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.SynapseException;
+import org.apache.synapse.core.SynapseEnvironment;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.core.axis2.Axis2SynapseEnvironment;
+import org.apache.synapse.message.store.impl.jms.MessageConverter;
+import org.apache.synapse.message.store.impl.jms.StorableMessage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+
+/**
+ * A persistent {@link MessageQueue} which keeps the messages in an append only file instead of
+ * the heap. Each message is appended to the file as a length prefixed record of the serialized
+ * {@link StorableMessage}, and the file starts with the offset of the next record to be read.
+ * The file is truncated once all the records have been read. If the queue never drains, the
+ * unread records are moved to the start of the file once the records already read take more than
+ * the compaction threshold and at least as much as the unread records, which bounds the file to
+ * about twice the size of the messages on the queue.</p>
+ *
+ * <p>The messages on the file survive a restart, they are loaded back when the sampler is
+ * initialized. {@link #persist()} forces the content of the file to the disk.</p>
+ *
+ * <pre>&lt;messageQueue class="org.apache.synapse.mediators.eip.sample.FileMessageQueue"&gt;
+ *   &lt;property name="file" value="string"/&gt;
+ *   &lt;property name="capacity" value="int"/&gt;?
+ *   &lt;property name="compactionThreshold" value="long"/&gt;?
+ * &lt;/messageQueue&gt;</pre>
+ */
+public class FileMessageQueue implements MessageQueue, ManagedLifecycle {
+
+    private static final Log log = LogFactory.getLog(FileMessageQueue.class);
+
+    /** Length of the header holding the offset of the next record to be read */
+    private static final int HEADER_LENGTH = 8;
+
+    /** Default number of bytes of records already read, above which the file is compacted */
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 1024 * 1024;
+
+    /** Path of the file holding the messages */
+    private String file;
+
+    /** Maximum number of messages on the file, 0 for an unbounded queue */
+    private int capacity = 0;
+
+    /** Number of bytes of records already read, above which the file is compacted */
+    private long compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+
+    private SynapseEnvironment synapseEnvironment;
+
+    private RandomAccessFile queueFile;
+
+    /** Offset of the next record to be read */
+    private long readOffset;
+
+    /** Offset at which the next record is appended */
+    private long writeOffset;
+
+    private int size;
+
+    private long droppedCount;
+
+    public void init(SynapseEnvironment se) {
+        this.synapseEnvironment = se;
+    }
+
+    public void destroy() {
+        close();
+    }
+
+    public void add(MessageContext synCtx) {
+        byte[] record = serialize(synCtx);
+        synchronized (this) {
+            open();
+            if (capacity > 0 && size >= capacity) {
+                droppedCount++;
+                log.warn("Sampling message queue file : " + file + " is full with " + capacity
+                        + " messages, dropped the message with message id : "
+                        + synCtx.getMessageID());
+                return;
+            }
+            try {
+                queueFile.seek(writeOffset);
+                queueFile.writeInt(record.length);
+                queueFile.write(record);
+                writeOffset = queueFile.getFilePointer();
+                size++;
+            } catch (IOException e) {
+                handleException("Error while writing the message with message id : "
+                        + synCtx.getMessageID() + " to the message queue file : " + file, e);
+            }
+        }
+    }
+
+    public MessageContext get() {
+        byte[] record;
+        synchronized (this) {
+            open();
+            if (readOffset >= writeOffset) {
+                return null;
+            }
+            try {
+                queueFile.seek(readOffset);
+                int length = queueFile.readInt();
+                if (length < 0 || readOffset + 4 + length > writeOffset) {
+                    log.error("Corrupted record found at offset : " + readOffset + " of the " +
+                            "message queue file : " + file + ", discarding the remaining messages");
+                    reset();
+                    return null;
+                }
+                record = new byte[length];
+                queueFile.readFully(record);
+                readOffset = queueFile.getFilePointer();
+                size--;
+                if (readOffset >= writeOffset) {
+                    reset();
+                } else if (readOffset - HEADER_LENGTH >= compactionThreshold &&
+                        readOffset - HEADER_LENGTH >= writeOffset - readOffset) {
+                    compact();
+                } else {
+                    queueFile.seek(0);
+                    queueFile.writeLong(readOffset);
+                }
+            } catch (IOException e) {
+                log.error("Error while reading a message from the message queue file : " + file, e);
+                return null;
+            }
+        }
+        return deserialize(record);
+    }
+
+    public synchronized boolean isEmpty() {
+        open();
+        return readOffset >= writeOffset;
+    }
+
+    public boolean isPersistent() {
+        return true;
+    }
+
+    public synchronized boolean persist() {
+        if (queueFile == null) {
+            return true;
+        }
+        try {
+            queueFile.seek(0);
+            queueFile.writeLong(readOffset);
+            queueFile.getFD().sync();
+            return true;
+        } catch (IOException e) {
+            log.error("Error while persisting the message queue file : " + file, e);
+            return false;
+        }
+    }
+
+    public synchronized void load() {
+        close();
+        open();
+        if (log.isDebugEnabled()) {
+            log.debug("Loaded " + size + " messages from the message queue file : " + file);
+        }
+    }
+
+    /**
+     * Opens the queue file if it is not already open and restores the offsets and the number
+     * of messages from the records on the file
+     */
+    private void open() {
+        if (queueFile != null) {
+            return;
+        }
+        if (file == null) {
+            handleException("The file property is required for the file message queue", null);
+        }
+        try {
+            File queue = new File(file);
+            File parent = queue.getAbsoluteFile().getParentFile();
+            if (parent != null && !parent.exists() && !parent.mkdirs()) {
+                handleException("Couldn't create the directory : " + parent
+                        + " of the message queue file", null);
+            }
+            queueFile = new RandomAccessFile(queue, "rw");
+            long length = queueFile.length();
+            if (length < HEADER_LENGTH) {
+                reset();
+                return;
+            }
+            queueFile.seek(0);
+            readOffset = queueFile.readLong();
+            if (readOffset < HEADER_LENGTH || readOffset > length) {
+                log.warn("Invalid read offset : " + readOffset + " found on the message queue " +
+                        "file : " + file + ", discarding the messages on the file");
+                reset();
+                return;
+            }
+
+            // count the complete records, a partially written last record is discarded
+            long offset = readOffset;
+            size = 0;
+            while (offset + 4 <= length) {
+                queueFile.seek(offset);
+                int recordLength = queueFile.readInt();
+                if (recordLength < 0 || offset + 4 + recordLength > length) {
+                    break;
+                }
+                offset += 4 + recordLength;
+                size++;
+            }
+            writeOffset = offset;
+            if (writeOffset < length) {
+                queueFile.setLength(writeOffset);
+            }
+        } catch (IOException e) {
+            handleException("Error while opening the message queue file : " + file, e);
+        }
+    }
+
+    private synchronized void close() {
+        if (queueFile != null) {
+            try {
+                queueFile.close();
+            } catch (IOException e) {
+                log.warn("Error while closing the message queue file : " + file, e);
+            }
+            queueFile = null;
+        }
+    }
+
+    /**
+     * Drops all the records, called when all the messages on the file have been read
+     *
+     * @throws IOException if the file couldn't be truncated
+     */
+    private void reset() throws IOException {
+        queueFile.setLength(HEADER_LENGTH);
+        queueFile.seek(0);
+        queueFile.writeLong(HEADER_LENGTH);
+        readOffset = HEADER_LENGTH;
+        writeOffset = HEADER_LENGTH;
+        size = 0;
+    }
+
+    /**
+     * Moves the unread records to the start of the file and truncates the rest. The unread
+     * records are not larger than the records already read, so they are copied over the records
+     * already read without overwriting themselves, and the file stays readable from the old
+     * offset until the header is updated.
+     *
+     * @throws IOException if the records couldn't be moved
+     */
+    private void compact() throws IOException {
+        byte[] buffer = new byte[8192];
+        long from = readOffset;
+        long to = HEADER_LENGTH;
+        while (from < writeOffset) {
+            int length = (int) Math.min(buffer.length, writeOffset - from);
+            queueFile.seek(from);
+            queueFile.readFully(buffer, 0, length);
+            queueFile.seek(to);
+            queueFile.write(buffer, 0, length);
+            from += length;
+            to += length;
+        }
+        queueFile.seek(0);
+        queueFile.writeLong(HEADER_LENGTH);
+        queueFile.setLength(to);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Compacted the message queue file : " + file + " from " + writeOffset +
+                    " to " + to + " bytes");
+        }
+        readOffset = HEADER_LENGTH;
+        writeOffset = to;
+    }
+
+    private byte[] serialize(MessageContext synCtx) {
+        StorableMessage message = MessageConverter.toStorableMessage(synCtx);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(message);
+            out.close();
+        } catch (IOException e) {
+            handleException("Error while serializing the message with message id : "
+                    + synCtx.getMessageID(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private MessageContext deserialize(byte[] record) {
+        if (synapseEnvironment == null) {
+            handleException("The file message queue has not been initialized", null);
+        }
+        StorableMessage message;
+        try {
+            ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(record));
+            message = (StorableMessage) in.readObject();
+            in.close();
+        } catch (IOException e) {
+            log.error("Error while reading a message from the message queue file : " + file, e);
+            return null;
+        } catch (ClassNotFoundException e) {
+            log.error("Error while reading a message from the message queue file : " + file, e);
+            return null;
+        }
+
+        org.apache.axis2.context.MessageContext axis2Ctx =
+                ((Axis2SynapseEnvironment) synapseEnvironment)
+                        .getAxis2ConfigurationContext().createMessageContext();
+        MessageContext synCtx = new Axis2MessageContext(axis2Ctx,
+                synapseEnvironment.getSynapseConfiguration(), synapseEnvironment);
+        return MessageConverter.toMessageContext(message, axis2Ctx, synCtx);
+    }
+
+    private void handleException(String msg, Exception e) {
+        log.error(msg, e);
+        throw new SynapseException(msg, e);
+    }
+
+    public synchronized int size() {
+        open();
+        return size;
+    }
+
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public long getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    public void setCompactionThreshold(long compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+}
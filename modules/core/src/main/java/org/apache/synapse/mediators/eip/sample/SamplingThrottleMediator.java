@@ -28,9 +28,14 @@ import org.apache.synapse.core.SynapseEnvironment;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
 import org.apache.synapse.mediators.AbstractMediator;
 import org.apache.synapse.mediators.eip.Target;
+import org.apache.synapse.util.concurrent.SynapseThreadFactory;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This implements the well known <code>Sample</code> EIP (Enterprise Integration Pattern), which controls the flow
@@ -39,6 +44,9 @@ import java.util.TimerTask;
  * <p>Please note that the usage of this will require the sampler to be on the out-flow as well to correctly
  * determine & to manage the rate.</p>
  *
+ * <p>The messages on the queue are mediated by a scheduler thread dedicated to this mediator, so
+ * that a slow target doesn't hold up the other timer driven tasks of the server.</p>
+ *
  * @see org.apache.synapse.mediators.AbstractMediator
  */
 public class SamplingThrottleMediator extends AbstractMediator implements ManagedLifecycle {
@@ -63,24 +71,44 @@ public class SamplingThrottleMediator extends AbstractMediator implements Manage
 
     private boolean messageQueueExplicitlySet;
 
-    private TimerTask messageProcessor;
+    /** Properties set on the message queue, kept for the serialization of the configuration */
+    private final Map<String, String> messageQueueProperties = new LinkedHashMap<String, String>();
+
+    private ScheduledExecutorService samplingScheduler;
 
     public void init(SynapseEnvironment synapseEnvironment) {
 
+        if (messageQueue instanceof ManagedLifecycle) {
+            ((ManagedLifecycle) messageQueue).init(synapseEnvironment);
+        }
+
         if (messageQueue.isPersistent()) {
             log.info("Loading the persisted messages if there are any to the message queue");
             messageQueue.load();
         }
 
-        Timer samplingTimer = synapseEnvironment.getSynapseConfiguration().getSynapseTimer();
-        messageProcessor = new MessageProcessor();
+        samplingScheduler = Executors.newSingleThreadScheduledExecutor(
+                new SynapseThreadFactory(new ThreadGroup("sampler-thread-group"),
+                        "sampler-" + (id != null ? id : "worker")));
         log.info("Scheduling the sampling timer to invoke the message processor " +
                 "at an interval of : " + unitTime);
-        samplingTimer.schedule(messageProcessor, 0, unitTime);
+        samplingScheduler.scheduleWithFixedDelay(
+                new MessageProcessor(), 0, unitTime, TimeUnit.MILLISECONDS);
     }
 
     public void destroy() {
-        messageProcessor.cancel();
+        if (samplingScheduler != null) {
+            samplingScheduler.shutdown();
+            try {
+                if (!samplingScheduler.awaitTermination(unitTime, TimeUnit.MILLISECONDS)) {
+                    samplingScheduler.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                samplingScheduler.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+
         if (!messageQueue.isEmpty()) {
             log.warn("There are messages on the sampling message queue, " +
                     "but the message processor has been destroyed.");
@@ -98,6 +126,10 @@ public class SamplingThrottleMediator extends AbstractMediator implements Manage
                         "you will be loosing messages which are on the queue");
             }
         }
+
+        if (messageQueue instanceof ManagedLifecycle) {
+            ((ManagedLifecycle) messageQueue).destroy();
+        }
     }
 
     public boolean mediate(MessageContext messageContext) {
@@ -174,20 +206,36 @@ public class SamplingThrottleMediator extends AbstractMediator implements Manage
         return messageQueueExplicitlySet;
     }
 
-    private class MessageProcessor extends TimerTask {
+    public Map<String, String> getMessageQueueProperties() {
+        return Collections.unmodifiableMap(messageQueueProperties);
+    }
+
+    public void addMessageQueueProperty(String name, String value) {
+        messageQueueProperties.put(name, value);
+    }
+
+    private class MessageProcessor implements Runnable {
 
-        @Override
         public void run() {
             if (log.isDebugEnabled()) {
                 log.debug("Started running the message processor");
             }
             for (int i = 0; i < samplingRate && !messageQueue.isEmpty(); i++) {
                 MessageContext synCtx = messageQueue.get();
+                if (synCtx == null) {
+                    continue;
+                }
                 if (log.isDebugEnabled()) {
                     log.debug("Mediating the message on the message queue with message id : "
                             + synCtx.getMessageID());
                 }
-                target.mediate(synCtx);
+                try {
+                    target.mediate(synCtx);
+                } catch (Exception e) {
+                    // the scheduler stops running a task which throws, keep on sampling
+                    log.error("Error while mediating the message with message id : "
+                            + synCtx.getMessageID() + " from the sampling message queue", e);
+                }
             }
             if (log.isDebugEnabled()) {
                 log.debug("Message processing completed for the given sampling rate");
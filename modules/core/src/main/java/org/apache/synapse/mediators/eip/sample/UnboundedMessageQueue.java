@@ -21,26 +21,22 @@ package org.apache.synapse.mediators.eip.sample;
 
 import org.apache.synapse.MessageContext;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  *
  */
 public class UnboundedMessageQueue implements MessageQueue {
 
-    private List<MessageContext> messageQueue = new ArrayList<MessageContext>();
+    private final Queue<MessageContext> messageQueue = new ConcurrentLinkedQueue<MessageContext>();
 
     public void add(MessageContext synCtx) {
-        messageQueue.add(synCtx);
+        messageQueue.offer(synCtx);
     }
 
     public MessageContext get() {
-        if (!messageQueue.isEmpty()) {
-            return messageQueue.remove(0);
-        } else {
-            return null;
-        }
+        return messageQueue.poll();
     }
 
     public boolean isEmpty() {
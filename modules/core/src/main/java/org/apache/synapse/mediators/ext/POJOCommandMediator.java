@@ -81,6 +81,16 @@ public class POJOCommandMediator extends AbstractMediator {
      */
     private final Map<String, SynapseXPath> messageGetterProperties = new HashMap<String, SynapseXPath>();
 
+    /**
+     * The execute() method of a command class which doesn't implement the Command interface
+     */
+    private Method executeMethod = null;
+
+    /**
+     * Setter and getter methods of the command class, looked up once on the first message
+     */
+    private volatile Accessors accessors = null;
+
     /**
      * Implements the mediate method of the Mediator interface. This method will instantiate
      * a new instance of the POJO class, set all specified properties from the current runtime
@@ -116,22 +126,25 @@ public class POJOCommandMediator extends AbstractMediator {
 
         synLog.traceOrDebug("Instance created, setting static and dynamic properties");
 
+        Accessors accessors = getAccessors();
+
         // then set the static/constant properties first
-        for (String name : staticSetterProperties.keySet()) {
-            PropertyHelper.setInstanceProperty(name, staticSetterProperties.get(name), commandObject);
+        for (Map.Entry<String, Object> e : staticSetterProperties.entrySet()) {
+            PropertyHelper.setInstanceProperty(e.getKey(), e.getValue(), commandObject,
+                accessors.getSetters(e.getKey()));
         }
 
         // now set the any dynamic properties from the message context properties
-        for (String name : contextSetterProperties.keySet()) {
-            PropertyHelper.setInstanceProperty(name, synCtx.getProperty(contextSetterProperties.get(name)),
-                commandObject);
+        for (Map.Entry<String, String> e : contextSetterProperties.entrySet()) {
+            PropertyHelper.setInstanceProperty(e.getKey(), synCtx.getProperty(e.getValue()),
+                commandObject, accessors.getSetters(e.getKey()));
         }
 
         // now set the any dynamic properties evaluating XPath's on the current message
-        for (String name : messageSetterProperties.keySet()) {
-            SynapseXPath xpath = messageSetterProperties.get(name);
-            String value = xpath.stringValueOf(synCtx);
-            PropertyHelper.setInstanceProperty(name, value, commandObject);
+        for (Map.Entry<String, SynapseXPath> e : messageSetterProperties.entrySet()) {
+            String value = e.getValue().stringValueOf(synCtx);
+            PropertyHelper.setInstanceProperty(e.getKey(), value, commandObject,
+                accessors.getSetters(e.getKey()));
         }
 
         synLog.traceOrDebug("POJO initialized successfully, invoking the execute() method");
@@ -147,12 +160,12 @@ public class POJOCommandMediator extends AbstractMediator {
 
         } else {
 
-            try {
-                Method exeMethod = command.getMethod("execute");
-                exeMethod.invoke(commandObject);
-            } catch (NoSuchMethodException e) {
+            if (executeMethod == null) {
                 handleException("Cannot locate an execute() method on POJO class : " +
-                    command.getClass(), e, synCtx);
+                    command.getClass(), synCtx);
+            }
+            try {
+                executeMethod.invoke(commandObject);
             } catch (Exception e) {
                 handleException("Error invoking the execute() method on POJO class : " +
                     command.getClass(), e, synCtx);
@@ -160,9 +173,9 @@ public class POJOCommandMediator extends AbstractMediator {
         }
 
         // then set the context properties back to the messageContext from the command
-        for (String name : contextGetterProperties.keySet()) {
-            synCtx.setProperty(contextGetterProperties.get(name),
-                getInstanceProperty(name, commandObject, synCtx));
+        for (Map.Entry<String, String> e : contextGetterProperties.entrySet()) {
+            synCtx.setProperty(e.getValue(),
+                getInstanceProperty(e.getKey(), accessors, commandObject, synCtx));
         }
 
         // now set the any message properties evaluating XPath's on the current message back
@@ -170,7 +183,7 @@ public class POJOCommandMediator extends AbstractMediator {
         for (String name : messageGetterProperties.keySet()) {
             SynapseXPath xpath = messageGetterProperties.get(name);
 
-            Object resultValue = getInstanceProperty(name, commandObject, synCtx);
+            Object resultValue = getInstanceProperty(name, accessors, commandObject, synCtx);
 
             try {
                 List list = EIPUtils.getMatchingElements(synCtx.getEnvelope(), xpath);
@@ -203,25 +216,24 @@ public class POJOCommandMediator extends AbstractMediator {
     }
 
     /**
-     * Find and invoke the getter method with the name of form getXXX and returns the value given
+     * Invoke the getter method with the name of form getXXX and returns the value given
      * on the POJO object
      *
      * @param name name of the getter field
+     * @param accessors the accessor methods of the POJO class
      * @param obj POJO instance
      * @param synCtx current message
      * @return object representing the value of the getter method
      */
-    private Object getInstanceProperty(String name, Object obj, MessageContext synCtx) {
+    private Object getInstanceProperty(String name, Accessors accessors, Object obj,
+                                       MessageContext synCtx) {
 
-        String mName = "get" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        Method method = accessors.getGetter(name);
+        if (method == null) {
+            return null;
+        }
         try {
-            Method[] methods = obj.getClass().getMethods();
-
-            for (Method method : methods) {
-                if (mName.equals(method.getName())) {
-                    return method.invoke(obj);
-                }
-            }
+            return method.invoke(obj);
         } catch(InvocationTargetException e) {
             handleException("Unable to get the command property '"
                 + name + "' back to the message", e, synCtx);
@@ -233,32 +245,76 @@ public class POJOCommandMediator extends AbstractMediator {
         return null;
     }
 
+    /**
+     * Get the setter and getter methods of the command class, looking them up on the first
+     * call. The properties are all added while the mediator is built, before any message.
+     *
+     * @return the accessor methods of the command class
+     */
+    private Accessors getAccessors() {
+        Accessors current = accessors;
+        if (current == null) {
+            current = new Accessors();
+            for (String name : staticSetterProperties.keySet()) {
+                current.addSetters(name);
+            }
+            for (String name : contextSetterProperties.keySet()) {
+                current.addSetters(name);
+            }
+            for (String name : messageSetterProperties.keySet()) {
+                current.addSetters(name);
+            }
+            for (String name : contextGetterProperties.keySet()) {
+                current.addGetter(name);
+            }
+            for (String name : messageGetterProperties.keySet()) {
+                current.addGetter(name);
+            }
+            accessors = current;
+        }
+        return current;
+    }
+
     public Class getCommand() {
         return command;
     }
 
     public void setCommand(Class command) {
         this.command = command;
+        this.executeMethod = null;
+        this.accessors = null;
+        if (command != null && !Command.class.isAssignableFrom(command)) {
+            try {
+                executeMethod = command.getMethod("execute");
+            } catch (NoSuchMethodException ignore) {
+                // reported when the command is executed
+            }
+        }
     }
 
     public void addStaticSetterProperty(String name, Object value) {
         this.staticSetterProperties.put(name, value);
+        this.accessors = null;
     }
 
     public void addMessageSetterProperty(String name, SynapseXPath xpath) {
         this.messageSetterProperties.put(name, xpath);
+        this.accessors = null;
     }
     
     public void addContextSetterProperty(String name, String ctxName) {
         this.contextSetterProperties.put(name, ctxName);
+        this.accessors = null;
     }
 
     public void addContextGetterProperty(String name, String value) {
         this.contextGetterProperties.put(name, value);
+        this.accessors = null;
     }
 
     public void addMessageGetterProperty(String name, SynapseXPath xpath) {
         this.messageGetterProperties.put(name, xpath);
+        this.accessors = null;
     }
 
     public Map<String, Object> getStaticSetterProperties() {
@@ -280,4 +336,35 @@ public class POJOCommandMediator extends AbstractMediator {
     public Map<String, SynapseXPath> getMessageGetterProperties() {
         return this.messageGetterProperties;
     }
+
+    /**
+     * The setter and getter methods of the command class for the configured properties
+     */
+    private final class Accessors {
+
+        private final Map<String, Method[]> setters = new HashMap<String, Method[]>();
+        private final Map<String, Method> getters = new HashMap<String, Method>();
+
+        private void addSetters(String name) {
+            setters.put(name, PropertyHelper.getSetterMethods(command, name));
+        }
+
+        private void addGetter(String name) {
+            String mName = "get" + Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            for (Method method : command.getMethods()) {
+                if (mName.equals(method.getName())) {
+                    getters.put(name, method);
+                    return;
+                }
+            }
+        }
+
+        private Method[] getSetters(String name) {
+            return setters.get(name);
+        }
+
+        private Method getGetter(String name) {
+            return getters.get(name);
+        }
+    }
 }
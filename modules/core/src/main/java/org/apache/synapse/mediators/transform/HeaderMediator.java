@@ -32,11 +32,11 @@ import org.apache.synapse.SynapseLog;
 import org.apache.synapse.config.xml.XMLConfigConstants;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
 import org.apache.synapse.mediators.AbstractMediator;
+import org.apache.synapse.transport.passthru.util.HeaderMap;
 import org.apache.synapse.util.xpath.SynapseXPath;
 
 import javax.xml.namespace.QName;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -178,7 +178,7 @@ public class HeaderMediator extends AbstractMediator {
 	                headersMap.put(headerName, value);
 	            }
 	            if (headers == null) {
-	                Map headersMap = new HashMap();
+	                Map headersMap = new HeaderMap();
 	                headersMap.put(headerName, value);
 	                axis2MessageCtx.setProperty(
 	                        org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS,
@@ -21,8 +21,12 @@ package org.apache.synapse.mediators.transform;
 
 import org.apache.axiom.om.OMElement;
 import org.apache.axiom.om.OMException;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMNamespace;
 import org.apache.axiom.om.OMText;
+import org.apache.axiom.om.ds.ByteArrayDataSource;
 import org.apache.axiom.om.util.AXIOMUtil;
+import org.apache.axiom.om.util.StAXUtils;
 import org.apache.axiom.soap.SOAP11Constants;
 import org.apache.axiom.soap.SOAP12Constants;
 import org.apache.axiom.soap.SOAPEnvelope;
@@ -45,9 +49,10 @@ import org.apache.synapse.util.xpath.SynapseXPath;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.*;
+import java.io.StringReader;
+import java.io.UnsupportedEncodingException;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class PayloadFactoryMediator extends AbstractMediator {
     private Value formatKey = null;
@@ -60,10 +65,15 @@ public class PayloadFactoryMediator extends AbstractMediator {
     private final static String SOAP12_CONTENT_TYPE  = "application/soap+xml";
     private final static String JSON_TYPE = "json";
     private final static String XML_TYPE = "xml";
-    private final static String STRING_TYPE = "str";
+
+    private final static String ENCODING = "UTF-8";
 
     private List<Argument> pathArgumentList = new ArrayList<Argument>();
-    private Pattern pattern = Pattern.compile("\\$(\\d)+");
+    /** The static format, compiled once */
+    private CompiledFormat compiledFormat;
+    /** Registry based formats, compiled once per registry key and entry */
+    private final Map<String, CompiledFormat> dynamicFormats =
+            new ConcurrentHashMap<String, CompiledFormat>();
 
     private static final Log log = LogFactory.getLog(PayloadFactoryMediator.class);
 
@@ -74,7 +84,19 @@ public class PayloadFactoryMediator extends AbstractMediator {
      * @return
      */
     public boolean mediate(MessageContext synCtx) {
-        String format = formatRaw;
+        if (!isDoingXml(synCtx) && !isDoingJson(synCtx)) {
+            log.error("#mediate. Could not identify the payload format of the existing payload prior to mediate.");
+            return false;
+        }
+        CompiledFormat format;
+        if (isFormatDynamic()) {
+            format = getDynamicFormat(synCtx);
+        } else {
+            format = compiledFormat;
+            if (format == null) {
+                format = compiledFormat = new CompiledFormat(formatRaw, null);
+            }
+        }
         return mediate(synCtx, format);
     }
 
@@ -112,22 +134,38 @@ public class PayloadFactoryMediator extends AbstractMediator {
         }
     }
 
-    private boolean mediate(MessageContext synCtx, String format) {
-        if (!isDoingXml(synCtx) && !isDoingJson(synCtx)) {
-            log.error("#mediate. Could not identify the payload format of the existing payload prior to mediate.");
-            return false;
-        }
+    private boolean mediate(MessageContext synCtx, CompiledFormat format) {
         org.apache.axis2.context.MessageContext axis2MessageContext = ((Axis2MessageContext) synCtx).getAxis2MessageContext();
-        StringBuffer result = new StringBuffer();
-        regexTransform(result, synCtx, format);
+        boolean isXmlOutput = !JSON_TYPE.equals(mediaType);
+        StringBuilder result = new StringBuilder();
+        replace(format, result, synCtx);
         String out = result.toString().trim();
         if (log.isDebugEnabled()) {
             log.debug("#mediate. Transformed payload format>>> " + out);
         }
-        if (mediaType.equals(XML_TYPE)) {
+        if (isXmlOutput && format.rootElement != null) {
+            // the payload is parsed only if it is accessed, the formatters write it out as it is.
+            // a format without arguments was parsed when it was compiled, otherwise the argument
+            // values may have broken the XML, so the payload is checked with a streaming parse
+            if (format.slots.length > 0) {
+                checkWellFormed(out, synCtx);
+            }
+            JsonUtil.removeJsonPayload(axis2MessageContext);
+            SOAPEnvelope envelope = axis2MessageContext.getEnvelope();
+            OMFactory fac = envelope.getOMFactory();
+            QName root = format.rootElement;
+            OMNamespace ns = root.getNamespaceURI().length() == 0 ? null :
+                    fac.createOMNamespace(root.getNamespaceURI(), root.getPrefix());
+            try {
+                envelope.getBody().addChild(fac.createOMElement(new ByteArrayDataSource(
+                        out.getBytes(ENCODING), ENCODING), root.getLocalPart(), ns));
+            } catch (UnsupportedEncodingException e) {
+                handleException("Error creating the payload from source " + out, e, synCtx);
+            }
+        } else if (isXmlOutput) {
             try {
                 JsonUtil.removeJsonPayload(axis2MessageContext);
-                OMElement omXML = AXIOMUtil.stringToOM(out);
+                OMElement omXML = AXIOMUtil.stringToOM("<pfPadding>" + out + "</pfPadding>");
                 if (!checkAndReplaceEnvelop(omXML, synCtx)) { // check if the target of the PF 'format' is the entire SOAP envelop, not just the body.
                     axis2MessageContext.getEnvelope().getBody().addChild(omXML.getFirstElement());
                 }
@@ -144,128 +182,149 @@ public class PayloadFactoryMediator extends AbstractMediator {
     }
 
     /**
-     * Calls the replace function. isFormatDynamic check is used to remove indentations which come from registry based
-     * configurations.
-     * @param result
-     * @param synCtx
-     * @param format
+     * Checks that the given payload is well-formed XML by reading it through, without building
+     * it, and handles a parse error as a mediation error.
+     *
+     * @param out the payload
+     * @param synCtx the current message
      */
-    private void regexTransform(StringBuffer result, MessageContext synCtx, String format) {
-        if (isFormatDynamic()) {
-            String key = formatKey.evaluateValue(synCtx);
-            Object entry = synCtx.getEntry(key);
-            if(entry == null){
-            	handleException("Key " + key + " not found ", synCtx);
-            }            
-            String text = "";
-            if (entry instanceof OMElement) {
-                OMElement e = (OMElement) entry;
-                removeIndentations(e);
-                text = e.toString();
-            } else if (entry instanceof OMText) {
-                text =  ((OMText) entry).getText();
-            } else if (entry instanceof String) {
-                text = (String) entry;
+    private void checkWellFormed(String out, MessageContext synCtx) {
+        XMLStreamReader reader = null;
+        try {
+            reader = StAXUtils.createXMLStreamReader(new StringReader(out));
+            while (reader.hasNext()) {
+                reader.next();
             }
-            replace(text, result, synCtx);
-        } else {
-            replace(format, result, synCtx);
+        } catch (XMLStreamException e) {
+            handleException("Error creating the payload from source " + out, e, synCtx);
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (XMLStreamException ignore) {
+                    // nothing to do, the payload has been read
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the compiled registry based format. isFormatDynamic check is used to remove
+     * indentations which come from registry based configurations. The format is compiled again
+     * only when the registry returns a different entry for the key, i.e. when the entry has been
+     * reloaded.
+     * @param synCtx
+     * @return
+     */
+    private CompiledFormat getDynamicFormat(MessageContext synCtx) {
+        String key = formatKey.evaluateValue(synCtx);
+        Object entry = synCtx.getEntry(key);
+        if(entry == null){
+            handleException("Key " + key + " not found ", synCtx);
+        }
+        CompiledFormat format = dynamicFormats.get(key);
+        if (format != null && format.source == entry) {
+            return format;
         }
+        String text = "";
+        if (entry instanceof OMElement) {
+            OMElement e = (OMElement) entry;
+            removeIndentations(e);
+            text = e.toString();
+        } else if (entry instanceof OMText) {
+            text =  ((OMText) entry).getText();
+        } else if (entry instanceof String) {
+            text = (String) entry;
+        }
+        format = new CompiledFormat(text, entry);
+        dynamicFormats.put(key, format);
+        return format;
     }
 
     /**
-     * Replaces the payload format with SynapsePath arguments which are evaluated using getArgValues().
+     * Replaces the argument slots of the compiled format with SynapsePath arguments which are
+     * evaluated using getArgValues().
      *
      * @param format
      * @param result
      * @param synCtx
      */
-    private void replace(String format, StringBuffer result, MessageContext synCtx) {
+    private void replace(CompiledFormat format, StringBuilder result, MessageContext synCtx) {
         HashMap<String, String>[] argValues = getArgValues(synCtx);
         HashMap<String, String> replacement;
         Map.Entry<String, String> replacementEntry;
         String replacementValue = null;
-        Matcher matcher;
 
-        if (mediaType != null && mediaType.equals(JSON_TYPE)) {
-            matcher = pattern.matcher(format);
-        } else {
-            matcher = pattern.matcher("<pfPadding>" + format + "</pfPadding>");
-        }
-        try {
-            while (matcher.find()) {
-                String matchSeq = matcher.group();
-                int argIndex;
+        result.append(format.literals[0]);
+        for (int i = 0; i < format.slots.length; i++) {
+            int argIndex = format.slots[i];
+            if (argIndex < 1 || argIndex > argValues.length) {
+                log.error("#replace. Mis-match detected between number of formatters and arguments");
+                // leave the rest of the format as it is
+                for (int j = i; j < format.slots.length; j++) {
+                    result.append('$').append(format.slots[j]).append(format.literals[j + 1]);
+                }
+                return;
+            }
+            replacement = argValues[argIndex-1];
+            replacementEntry =  replacement.entrySet().iterator().next();
+            // Only probe for the conversion that can apply to the media type of the output
+            if(mediaType.equals(JSON_TYPE) && isReplacementOfType(replacementEntry, XML_TYPE)) {
+                // XML to JSON conversion here
                 try {
-                    argIndex = Integer.parseInt(matchSeq.substring(1, matchSeq.length()));
-                } catch (NumberFormatException e) {
-                    argIndex = Integer.parseInt(matchSeq.substring(2, matchSeq.length()-1));
+                    replacementValue = "<jsonObject>" + replacementEntry.getKey() + "</jsonObject>";
+                    OMElement omXML = AXIOMUtil.stringToOM(replacementValue);
+                    replacementValue = JsonUtil.toJsonString(omXML).toString();
+                } catch (XMLStreamException e) {
+                    handleException("Error parsing XML for JSON conversion, please check your xPath expressions return valid XML: ", synCtx);
+                } catch (AxisFault e) {
+                    handleException("Error converting XML to JSON", synCtx);
                 }
-                replacement = argValues[argIndex-1];
-                replacementEntry =  replacement.entrySet().iterator().next();
-                if(mediaType.equals(JSON_TYPE) && inferReplacementType(replacementEntry).equals(XML_TYPE)) {
-                    // XML to JSON conversion here
-                    try {
-                        replacementValue = "<jsonObject>" + replacementEntry.getKey() + "</jsonObject>";
-                        OMElement omXML = AXIOMUtil.stringToOM(replacementValue);
-                        replacementValue = JsonUtil.toJsonString(omXML).toString();
-                    } catch (XMLStreamException e) {
-                        handleException("Error parsing XML for JSON conversion, please check your xPath expressions return valid XML: ", synCtx);
-                    } catch (AxisFault e) {
-                        handleException("Error converting XML to JSON", synCtx);
-                    }
-                } else if(mediaType.equals(XML_TYPE) && inferReplacementType(replacementEntry).equals(JSON_TYPE)) {
-                    // JSON to XML conversion here
-                    try {
-                        OMElement omXML = JsonUtil.toXml(IOUtils.toInputStream(replacementEntry.getKey()), false);
-                        if (JsonUtil.isAJsonPayloadElement(omXML)) { // remove <jsonObject/> from result.
-                            Iterator children = omXML.getChildElements();
-                            String childrenStr = "";
-                            while (children.hasNext()) {
-                                childrenStr += (children.next()).toString().trim();
-                            }
-                            replacementValue = childrenStr;
-                        } else { ///~
-                            replacementValue = omXML.toString();
+            } else if(mediaType.equals(XML_TYPE) && isReplacementOfType(replacementEntry, JSON_TYPE)) {
+                // JSON to XML conversion here
+                try {
+                    OMElement omXML = JsonUtil.toXml(IOUtils.toInputStream(replacementEntry.getKey()), false);
+                    if (JsonUtil.isAJsonPayloadElement(omXML)) { // remove <jsonObject/> from result.
+                        Iterator children = omXML.getChildElements();
+                        String childrenStr = "";
+                        while (children.hasNext()) {
+                            childrenStr += (children.next()).toString().trim();
                         }
-                        //replacementValue = omXML.toString();
-                    } catch (AxisFault e) {
-                        handleException("Error converting JSON to XML, please check your JSON Path expressions return valid JSON: ", synCtx);
+                        replacementValue = childrenStr;
+                    } else { ///~
+                        replacementValue = omXML.toString();
                     }
-                } else {
-                    // No conversion required, as path evaluates to regular String.
-                    replacementValue = replacementEntry.getKey();
+                    //replacementValue = omXML.toString();
+                } catch (AxisFault e) {
+                    handleException("Error converting JSON to XML, please check your JSON Path expressions return valid JSON: ", synCtx);
                 }
-                matcher.appendReplacement(result, replacementValue);
+            } else {
+                // No conversion required, as path evaluates to regular String.
+                replacementValue = replacementEntry.getKey();
             }
-        } catch (ArrayIndexOutOfBoundsException e) {
-            log.error("#replace. Mis-match detected between number of formatters and arguments", e);
+            result.append(replacementValue).append(format.literals[i + 1]);
         }
-        matcher.appendTail(result);
     }
 
     /**
-     * Helper function that takes a Map of String, String where key contains the value of an evaluated SynapsePath
-     * expression and value contains the type of SynapsePath in use.
+     * Helper function that takes a Map entry of String, String where key contains the value of an
+     * evaluated SynapsePath expression and value contains the type of SynapsePath in use.
      *
-     * It returns the type of conversion required (XML | JSON | String) based on the actual returned value and the path
-     * type.
+     * It returns whether the actual returned value is of the given type (XML | JSON), based on
+     * the value and the path type. The value is only parsed when the path type can produce the
+     * given type, so XPath values are never probed for JSON and JSON path values never for XML.
      *
-     * @param entry
-     * @return
+     * @param entry evaluated value and the SynapsePath type in use
+     * @param type XML_TYPE or JSON_TYPE
+     * @return true if the value is of the given type
      */
-    private String inferReplacementType(Map.Entry<String, String> entry) {
-        if(entry.getValue().equals(SynapsePath.X_PATH) && isXML(entry.getKey())) {
-            return XML_TYPE;
-        } else if(entry.getValue().equals(SynapsePath.X_PATH) && !isXML(entry.getKey())) {
-            return STRING_TYPE;
-        } else if(entry.getValue().equals(SynapsePath.JSON_PATH) && isJson(entry.getKey())) {
-            return JSON_TYPE;
-        } else if(entry.getValue().equals(SynapsePath.JSON_PATH) && !isJson((entry.getKey()))) {
-            return STRING_TYPE;
-        } else {
-            return STRING_TYPE;
+    private boolean isReplacementOfType(Map.Entry<String, String> entry, String type) {
+        if (XML_TYPE.equals(type)) {
+            return entry.getValue().equals(SynapsePath.X_PATH) && isXML(entry.getKey());
+        } else if (JSON_TYPE.equals(type)) {
+            return entry.getValue().equals(SynapsePath.JSON_PATH) && isJson(entry.getKey());
         }
+        return false;
     }
 
     private boolean checkAndReplaceEnvelop(OMElement resultElement, MessageContext synCtx) {
@@ -347,17 +406,18 @@ public class PayloadFactoryMediator extends AbstractMediator {
                 if (!isXML(value)) {
                     value = StringEscapeUtils.escapeXml(value);
                 }
-                value = Matcher.quoteReplacement(value);
             } else if (arg.getExpression() != null) {
                 value = arg.getExpression().stringValueOf(synCtx);
                 if (value != null) {
                     // XML escape the result of an expression that produces a literal, if the target format
                     // of the payload is XML.
-                    if (!isXML(value) && !arg.getExpression().getPathType().equals(SynapsePath.JSON_PATH)
-                            && XML_TYPE.equals(getType())) {
+                    // The XML probe is the most expensive check, hence evaluated last so that
+                    // JSON path arguments never pay for it.
+                    if (XML_TYPE.equals(getType())
+                            && !arg.getExpression().getPathType().equals(SynapsePath.JSON_PATH)
+                            && !isXML(value)) {
                         value = StringEscapeUtils.escapeXml(value);
                     }
-                    value = Matcher.quoteReplacement(value);
                 } else {
                     value = "";
                 }
@@ -382,6 +442,7 @@ public class PayloadFactoryMediator extends AbstractMediator {
 
     public void setFormat(String format) {
         this.formatRaw = format;
+        this.compiledFormat = null;
     }
 
     public void addPathArgument(Argument arg) {
@@ -468,4 +529,76 @@ public class PayloadFactoryMediator extends AbstractMediator {
     public String getOutputType() {
         return mediaType;
     }
+
+    /**
+     * A payload format compiled into the literal chunks of the format and the argument slots in
+     * between them, i.e. literals[0] $slots[0] literals[1] ... $slots[n-1] literals[n]. The root
+     * element of the XML payloads produced by the format is recorded as well, if the format has a
+     * single, literal root element which is not a SOAP envelope.
+     */
+    private static final class CompiledFormat {
+
+        private final String[] literals;
+        private final int[] slots;
+        private final QName rootElement;
+        /** The registry entry the format was compiled from, null for the static format */
+        private final Object source;
+
+        private CompiledFormat(String format, Object source) {
+            this.source = source;
+            if (format == null) {
+                format = "";
+            }
+            List<String> literalList = new ArrayList<String>();
+            List<Integer> slotList = new ArrayList<Integer>();
+            int start = 0;
+            int i = format.indexOf('$');
+            while (i >= 0) {
+                int end = i + 1;
+                while (end < format.length() && Character.isDigit(format.charAt(end))) {
+                    end++;
+                }
+                if (end > i + 1) {
+                    literalList.add(format.substring(start, i));
+                    slotList.add(Integer.parseInt(format.substring(i + 1, end)));
+                    start = end;
+                }
+                i = format.indexOf('$', end);
+            }
+            literalList.add(format.substring(start));
+
+            literals = literalList.toArray(new String[literalList.size()]);
+            slots = new int[slotList.size()];
+            for (int j = 0; j < slots.length; j++) {
+                slots[j] = slotList.get(j);
+            }
+            rootElement = findRootElement(format);
+        }
+
+        private static QName findRootElement(String format) {
+            OMElement padding;
+            try {
+                // argument slots are plain text to the parser
+                padding = AXIOMUtil.stringToOM("<pfPadding>" + format + "</pfPadding>");
+            } catch (Exception e) {
+                // a JSON format, or the root element is not literal
+                return null;
+            }
+            Iterator children = padding.getChildElements();
+            if (!children.hasNext()) {
+                return null;
+            }
+            QName root = ((OMElement) children.next()).getQName();
+            if (children.hasNext() || root.getLocalPart().indexOf('$') >= 0
+                    || root.getNamespaceURI().indexOf('$') >= 0) {
+                return null;
+            }
+            if ("Envelope".equals(root.getLocalPart()) && (
+                    SOAP11Constants.SOAP_ENVELOPE_NAMESPACE_URI.equals(root.getNamespaceURI()) ||
+                    SOAP12Constants.SOAP_ENVELOPE_NAMESPACE_URI.equals(root.getNamespaceURI()))) {
+                return null;
+            }
+            return root;
+        }
+    }
 }
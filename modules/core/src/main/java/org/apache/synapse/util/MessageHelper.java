@@ -8,6 +8,7 @@ import org.apache.axiom.om.OMNamespace;
 import org.apache.axiom.om.OMNode;
 import org.apache.axiom.om.util.ElementHelper;
 import org.apache.axiom.soap.SOAP11Constants;
+import org.apache.axiom.soap.SOAPBody;
 import org.apache.axiom.soap.SOAPEnvelope;
 import org.apache.axiom.soap.SOAPFactory;
 import org.apache.axiom.soap.SOAPFault;
@@ -30,7 +31,6 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.http.nio.NHttpServerConnection;
 import org.apache.neethi.Policy;
 import org.apache.neethi.PolicyEngine;
-import org.apache.synapse.ContinuationState;
 import org.apache.synapse.FaultHandler;
 import org.apache.synapse.MessageContext;
 import org.apache.synapse.SynapseConstants;
@@ -41,12 +41,12 @@ import org.apache.synapse.aspects.statistics.StatisticsRecord;
 import org.apache.synapse.aspects.statistics.StatisticsRecordFactory;
 import org.apache.synapse.commons.json.JsonUtil;
 import org.apache.synapse.continuation.ContinuationStackManager;
-import org.apache.synapse.continuation.SeqContinuationState;
 import org.apache.synapse.core.axis2.Axis2MessageContext;
 import org.apache.synapse.mediators.eip.EIPConstants;
 import org.apache.synapse.mediators.template.TemplateContext;
 import org.apache.synapse.transport.passthru.PassThroughConstants;
 import org.apache.synapse.transport.passthru.Pipe;
+import org.apache.synapse.transport.passthru.util.HeaderMap;
 import org.apache.synapse.transport.passthru.config.SourceConfiguration;
 
 import java.util.ArrayList;
@@ -81,13 +81,32 @@ public class MessageHelper {
      * @see MessageHelper#cloneAxis2MessageContext 
      */
     public static MessageContext cloneMessageContext(MessageContext synCtx) throws AxisFault {
+        return cloneMessageContext(synCtx, null);
+    }
+
+    /**
+     * Clones the message context as {@link #cloneMessageContext(MessageContext)} does, but
+     * instead of deep cloning the payload, the body of the new message is built over the given
+     * shared payload. This is meant for fanning out the same message to many recipients, where
+     * the payload is serialized once rather than cloned per recipient.
+     *
+     * @param synCtx - this will be cloned
+     * @param payload - serialized payload of synCtx, or null to deep clone the payload
+     * @return cloned Synapse MessageContext
+     * @throws AxisFault if there is a failure in creating the new Synapse MC or in a failure in
+     *          clonning the underlying axis2 MessageContext
+     *
+     * @see SharedPayload#create(MessageContext)
+     */
+    public static MessageContext cloneMessageContext(MessageContext synCtx,
+                                                     SharedPayload payload) throws AxisFault {
 
         // creates the new MessageContext and clone the internal axis2 MessageContext
         // inside the synapse message context and place that in the new one
         MessageContext newCtx = synCtx.getEnvironment().createMessageContext();
         Axis2MessageContext axis2MC = (Axis2MessageContext) newCtx;
-        axis2MC.setAxis2MessageContext(
-            cloneAxis2MessageContext(((Axis2MessageContext) synCtx).getAxis2MessageContext()));
+        axis2MC.setAxis2MessageContext(cloneAxis2MessageContext(
+                ((Axis2MessageContext) synCtx).getAxis2MessageContext(), payload));
 
         newCtx.setConfiguration(synCtx.getConfiguration());
         newCtx.setEnvironment(synCtx.getEnvironment());
@@ -173,16 +192,8 @@ public class MessageHelper {
 
         // Copy ContinuationStateStack from original MC to the new MC
         if (synCtx.isContinuationEnabled()) {
-            Stack<ContinuationState> continuationStates =  synCtx.getContinuationStateStack();
             newCtx.setContinuationEnabled(true);
-
-            for (ContinuationState continuationState : continuationStates) {
-                if (continuationState != null) {
-                   newCtx.pushContinuationState(
-                           ContinuationStackManager.getClonedSeqContinuationState(
-                                   (SeqContinuationState) continuationState));
-                }
-            }
+            ContinuationStackManager.copyContinuationStates(synCtx, newCtx);
         }
 
         return newCtx;
@@ -284,15 +295,8 @@ public class MessageHelper {
 
         // Copy ContinuationStateStack from original MC to the new MC
         if (synCtx.isContinuationEnabled()) {
-            Stack<ContinuationState> continuationStates = synCtx.getContinuationStateStack();
             newCtx.setContinuationEnabled(true);
-
-            for (ContinuationState continuationState : continuationStates) {
-                if (continuationState != null) {
-                    newCtx.pushContinuationState(ContinuationStackManager
-                            .getClonedSeqContinuationState((SeqContinuationState) continuationState));
-                }
-            }
+            ContinuationStackManager.copyContinuationStates(synCtx, newCtx);
         }
         return newCtx;
     }
@@ -417,9 +421,18 @@ public class MessageHelper {
      */
     public static org.apache.axis2.context.MessageContext cloneAxis2MessageContext(
         org.apache.axis2.context.MessageContext mc) throws AxisFault {
+        return cloneAxis2MessageContext(mc, null);
+    }
+
+    private static org.apache.axis2.context.MessageContext cloneAxis2MessageContext(
+        org.apache.axis2.context.MessageContext mc, SharedPayload payload) throws AxisFault {
 
         org.apache.axis2.context.MessageContext newMC = clonePartially(mc);
-        newMC.setEnvelope(cloneSOAPEnvelope(mc.getEnvelope()));
+        if (payload != null) {
+            newMC.setEnvelope(cloneSOAPEnvelope(mc.getEnvelope(), payload));
+        } else {
+            newMC.setEnvelope(cloneSOAPEnvelope(mc.getEnvelope()));
+        }
         // XXX: always this section must come after the above step. ie. after applying Envelope.
         // That is to get the existing headers into the new envelope.
         JsonUtil.cloneJsonPayload(mc, newMC);
@@ -505,6 +518,11 @@ public class MessageHelper {
         
         Map headers = (Map) msgCtx.
                 getProperty(org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
+        if (headers instanceof HeaderMap) {
+            // shares the headers with the original message until either of them is modified
+            return new HeaderMap((HeaderMap) headers);
+        }
+
         Map<String, Object> clonedHeaders;
         if (headers instanceof TreeMap) {
             clonedHeaders = new TreeMap<String, Object>(new Comparator<String>() {
@@ -705,6 +723,54 @@ public class MessageHelper {
         return newEnvelope;
     }
 
+    /**
+     * Clones the headers of the provided SOAPEnvelope and builds the body of the new envelope
+     * over the given shared payload, without cloning the payload of the provided envelope
+     *
+     * @param envelope - headers and body attributes of this envelope will be cloned
+     * @param payload - shared payload of the provided envelope
+     * @return new SOAPEnvelope carrying the shared payload
+     */
+    private static SOAPEnvelope cloneSOAPEnvelope(SOAPEnvelope envelope, SharedPayload payload) {
+        SOAPFactory fac;
+        if (SOAP11Constants.SOAP_ENVELOPE_NAMESPACE_URI
+                .equals(envelope.getBody().getNamespace().getNamespaceURI())) {
+            fac = OMAbstractFactory.getSOAP11Factory();
+        } else {
+            fac = OMAbstractFactory.getSOAP12Factory();
+        }
+        SOAPEnvelope newEnvelope = fac.getDefaultEnvelope();
+
+        if (envelope.getHeader() != null) {
+            Iterator itr = envelope.getHeader().cloneOMElement().getChildren();
+            while (itr.hasNext()) {
+                OMNode node = (OMNode) itr.next();
+                itr.remove();
+                newEnvelope.getHeader().addChild(node);
+            }
+        }
+
+        SOAPBody body = envelope.getBody();
+        OMNamespace bodyNs = body.getNamespace();
+        Iterator ns = body.getAllDeclaredNamespaces();
+        while (ns.hasNext()) {
+            OMNamespace namespace = (OMNamespace) ns.next();
+            if (!bodyNs.getNamespaceURI().equals(namespace.getNamespaceURI())) {
+                newEnvelope.getBody().declareNamespace(
+                        namespace.getNamespaceURI(), namespace.getPrefix());
+            }
+        }
+        Iterator attributes = body.getAllAttributes();
+        while (attributes.hasNext()) {
+            OMAttribute attrb = (OMAttribute) attributes.next();
+            newEnvelope.getBody().addAttribute(attrb.getLocalName(),
+                    attrb.getAttributeValue(), attrb.getNamespace());
+        }
+        newEnvelope.getBody().addChild(payload.newElement(fac));
+
+        return newEnvelope;
+    }
+
     /**
      * Clones the given {@link org.apache.axis2.client.Options} object. This is not a deep copy
      * because this will be called for each and every message going out from synapse. The parent
@@ -65,11 +65,11 @@ public class ResponseAcceptEncodingProcessor {
         if (o != null && o instanceof Map) {
             Map headers = (Map) o;
 
-            String encode = (String) headers.get(ACCEPT_ENCODING);
+            Object encode = headers.get(ACCEPT_ENCODING);
             if (encode != null) {
 
-                //If message  contains 'Accept-Encoding' header and  if it's value is 'qzip'
-                if (GZIP_CODEC.equals(encode)) {
+                //If message  contains 'Accept-Encoding' header and  if it accepts 'qzip'
+                if (acceptsGzip(encode.toString())) {
 
                     Object obj = response.getProperty(MessageContext.TRANSPORT_HEADERS);
                     Map responseHeaders;
@@ -96,4 +96,31 @@ public class ResponseAcceptEncodingProcessor {
             }
         }
     }
+
+    /**
+     * Check whether an Accept-Encoding header value such as "gzip, deflate" or
+     * "gzip;q=0.8, identity" accepts gzip
+     *
+     * @param encode value of the Accept-Encoding header
+     * @return true if gzip is listed without a zero quality value
+     */
+    private static boolean acceptsGzip(String encode) {
+        for (String token : encode.split(",")) {
+            String[] params = token.split(";");
+            if (GZIP_CODEC.equalsIgnoreCase(params[0].trim())) {
+                for (int i = 1; i < params.length; i++) {
+                    String param = params[i].trim();
+                    if (param.startsWith("q=")) {
+                        try {
+                            return Float.parseFloat(param.substring(2).trim()) > 0;
+                        } catch (NumberFormatException e) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            }
+        }
+        return false;
+    }
 }
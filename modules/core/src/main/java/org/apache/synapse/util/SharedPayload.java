@@ -0,0 +1,124 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.om.OMFactory;
+import org.apache.axiom.om.OMNamespace;
+import org.apache.axiom.om.OMNode;
+import org.apache.axiom.om.OMOutputFormat;
+import org.apache.axiom.om.ds.ByteArrayDataSource;
+import org.apache.axiom.soap.SOAPBody;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axis2.AxisFault;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.commons.json.JsonUtil;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+
+/**
+ * The payload of a message serialized once, to be shared by many clones of the message. Each
+ * clone gets its own OMSourcedElement over the shared bytes, which is written out as it is by
+ * the formatters and is only parsed if the clone accesses the content of the payload.
+ *
+ * @see MessageHelper#cloneMessageContext(org.apache.synapse.MessageContext, SharedPayload)
+ */
+public class SharedPayload {
+
+    private static final String ENCODING = "UTF-8";
+
+    private final byte[] bytes;
+    private final String localName;
+    private final String namespaceURI;
+    private final String prefix;
+
+    private SharedPayload(byte[] bytes, OMElement payload) {
+        this.bytes = bytes;
+        this.localName = payload.getLocalName();
+        OMNamespace ns = payload.getNamespace();
+        this.namespaceURI = ns != null ? ns.getNamespaceURI() : null;
+        this.prefix = ns != null ? ns.getPrefix() : null;
+    }
+
+    /**
+     * Serializes the payload of the given message into a shared payload. Only plain XML payloads
+     * made of a single body element can be shared; faults, JSON stream payloads and bodies with
+     * several elements are not, and should be cloned as usual.
+     *
+     * @param synCtx message carrying the payload
+     * @return the shared payload or null if the payload cannot be shared
+     * @throws AxisFault if the payload cannot be serialized
+     */
+    public static SharedPayload create(MessageContext synCtx) throws AxisFault {
+        if (!(synCtx instanceof Axis2MessageContext) || JsonUtil.hasAJsonPayload(
+                ((Axis2MessageContext) synCtx).getAxis2MessageContext())) {
+            return null;
+        }
+
+        SOAPEnvelope envelope = synCtx.getEnvelope();
+        SOAPBody body = envelope != null ? envelope.getBody() : null;
+        if (body == null || body.hasFault()) {
+            return null;
+        }
+
+        OMElement payload = null;
+        Iterator itr = body.getChildElements();
+        while (itr.hasNext()) {
+            if (payload != null) {
+                return null;
+            }
+            payload = (OMElement) itr.next();
+        }
+        if (payload == null) {
+            return null;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OMOutputFormat format = new OMOutputFormat();
+        format.setCharSetEncoding(ENCODING);
+        format.setIgnoreXMLDeclaration(true);
+        try {
+            payload.serialize(out, format);
+        } catch (XMLStreamException e) {
+            throw new AxisFault("Error while serializing the shared payload", e);
+        }
+        return new SharedPayload(out.toByteArray(), payload);
+    }
+
+    /**
+     * Creates a new payload element over the shared bytes
+     *
+     * @param fac the factory of the envelope the element is added to
+     * @return a new, unexpanded payload element
+     */
+    public OMNode newElement(OMFactory fac) {
+        OMNamespace ns = namespaceURI != null ?
+                fac.createOMNamespace(namespaceURI, prefix) : null;
+        // a data source per element, the bytes are never modified and safe to share
+        return fac.createOMElement(new ByteArrayDataSource(bytes, ENCODING), localName, ns);
+    }
+
+    public int getSize() {
+        return bytes.length;
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util.concurrent;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The default {@link SynapseScheduler}, which runs the tasks on a small pool of scheduler
+ * threads and keeps the timeouts on a {@link HashedWheelTimer}.</p>
+ *
+ * <p>The tasks of an owner run one at a time. A task which becomes due while another task of
+ * the same owner is running waits for it without holding a scheduler thread, so a slow owner
+ * takes up at most one of the threads. A run of a repeated task is skipped if the previous run
+ * is still waiting or running. An exception thrown by a task is logged and doesn't affect the
+ * other runs or tasks.</p>
+ */
+public class DefaultSynapseScheduler implements SynapseScheduler {
+
+    private static final Log log = LogFactory.getLog(DefaultSynapseScheduler.class);
+
+    // default values
+    public static final int SCHEDULER_THREADS = 4;
+    public static final long SCHEDULER_TICK = 100;
+    public static final int SCHEDULER_WHEEL_SIZE = 512;
+    public static final String SCHEDULER_THREAD_GROUP = "synapse-scheduler-thread-group";
+    public static final String SCHEDULER_THREAD_ID_PREFIX = "SynapseScheduler";
+
+    // property keys
+    public static final String SYN_SCHEDULER_CLASS = "synapse.scheduler.class";
+    public static final String SYN_SCHEDULER_THREADS = "synapse.scheduler.threads";
+    public static final String SYN_SCHEDULER_TICK = "synapse.scheduler.tick";
+
+    /** Owner of the tasks scheduled without an owner */
+    private static final String DEFAULT_OWNER = "default";
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final HashedWheelTimer wheelTimer;
+    private final ConcurrentMap<String, Owner> owners = new ConcurrentHashMap<String, Owner>();
+
+    public DefaultSynapseScheduler() {
+        this(SCHEDULER_THREADS, SCHEDULER_TICK);
+    }
+
+    /**
+     * Constructor for the scheduler
+     *
+     * @param threads    number of threads running the tasks
+     * @param tickMillis duration of a tick of the timeout wheel in milliseconds
+     */
+    public DefaultSynapseScheduler(int threads, long tickMillis) {
+        ThreadFactory threadFactory = new DaemonThreadFactory(
+                new SynapseThreadFactory(new ThreadGroup(SCHEDULER_THREAD_GROUP),
+                        SCHEDULER_THREAD_ID_PREFIX));
+        executor = new ScheduledThreadPoolExecutor(Math.max(threads, 1), threadFactory);
+        wheelTimer = new HashedWheelTimer(tickMillis, SCHEDULER_WHEEL_SIZE, executor,
+                new DaemonThreadFactory(new SynapseThreadFactory(
+                        new ThreadGroup(SCHEDULER_THREAD_GROUP),
+                        SCHEDULER_THREAD_ID_PREFIX + "Timeouts")));
+    }
+
+    public ScheduledTask schedule(String owner, Runnable task, long delay) {
+        Task t = new Task(getOwner(owner), task, delay, 0);
+        t.future = executor.schedule(t, delay, TimeUnit.MILLISECONDS);
+        return t;
+    }
+
+    public ScheduledTask scheduleWithFixedDelay(String owner, Runnable task,
+                                                long initialDelay, long delay) {
+        Task t = new Task(getOwner(owner), task, initialDelay, delay);
+        t.future = executor.scheduleWithFixedDelay(
+                t, initialDelay, delay, TimeUnit.MILLISECONDS);
+        if (t.isCancelled()) {
+            t.future.cancel(false);
+        }
+        return t;
+    }
+
+    public ScheduledTask scheduleTimeout(String owner, Runnable task, long timeout) {
+        Task t = new Task(getOwner(owner), task, timeout, 0);
+        t.timeout = wheelTimer.newTimeout(t, timeout);
+        return t;
+    }
+
+    public Map<String, ScheduledTaskStatistics> getTaskStatistics() {
+        Map<String, ScheduledTaskStatistics> statistics =
+                new HashMap<String, ScheduledTaskStatistics>();
+        for (Owner owner : owners.values()) {
+            statistics.put(owner.statistics.getOwner(), owner.statistics);
+        }
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    /**
+     * Get the number of timeouts which have neither expired nor been cancelled
+     *
+     * @return number of pending timeouts
+     */
+    public int getPendingTimeoutCount() {
+        return wheelTimer.getPendingCount();
+    }
+
+    public void shutdown() {
+        wheelTimer.stop();
+        executor.shutdownNow();
+    }
+
+    private Owner getOwner(String name) {
+        if (name == null) {
+            name = DEFAULT_OWNER;
+        }
+        Owner owner = owners.get(name);
+        if (owner == null) {
+            Owner newOwner = new Owner(name);
+            owner = owners.putIfAbsent(name, newOwner);
+            if (owner == null) {
+                owner = newOwner;
+            }
+        }
+        return owner;
+    }
+
+    /**
+     * Runs the tasks of an owner one at a time
+     */
+    private static final class Owner {
+
+        private final ScheduledTaskStatistics statistics;
+        private final Queue<Task> dueTasks = new ConcurrentLinkedQueue<Task>();
+        private final AtomicBoolean running = new AtomicBoolean(false);
+
+        private Owner(String name) {
+            this.statistics = new ScheduledTaskStatistics(name);
+        }
+
+        private void execute(Task task) {
+            dueTasks.offer(task);
+            // the thread which gets to run the tasks runs the tasks of the other threads too
+            while (!dueTasks.isEmpty() && running.compareAndSet(false, true)) {
+                try {
+                    Task t;
+                    while ((t = dueTasks.poll()) != null) {
+                        t.runTask();
+                    }
+                } finally {
+                    running.set(false);
+                }
+            }
+        }
+    }
+
+    private static final class Task implements Runnable, ScheduledTask {
+
+        private final Owner owner;
+        private volatile Runnable runnable;
+        /** Delay between the runs, 0 for a task which runs once */
+        private final long delay;
+        /** Time at which the next run is due, used to work out the lag */
+        private volatile long dueTime;
+        private final AtomicBoolean cancelled = new AtomicBoolean(false);
+        private final AtomicBoolean waiting = new AtomicBoolean(false);
+        private volatile boolean completed = false;
+
+        private volatile Future<?> future;
+        private volatile HashedWheelTimer.Timeout timeout;
+
+        private Task(Owner owner, Runnable runnable, long initialDelay, long delay) {
+            this.owner = owner;
+            this.runnable = runnable;
+            this.delay = delay;
+            this.dueTime = System.currentTimeMillis() + Math.max(initialDelay, 0);
+        }
+
+        public void run() {
+            if (cancelled.get()) {
+                return;
+            }
+            if (!waiting.compareAndSet(false, true)) {
+                owner.statistics.recordSkipped();
+                return;
+            }
+            owner.execute(this);
+        }
+
+        private void runTask() {
+            Runnable r = runnable;
+            if (r == null || cancelled.get()) {
+                waiting.set(false);
+                return;
+            }
+
+            long start = System.currentTimeMillis();
+            boolean failed = false;
+            try {
+                r.run();
+            } catch (Throwable t) {
+                failed = true;
+                log.error("Error while running a scheduled task of : "
+                        + owner.statistics.getOwner(), t);
+            }
+            long end = System.currentTimeMillis();
+            owner.statistics.recordExecution(start - dueTime, end - start, failed);
+
+            if (delay > 0) {
+                dueTime = end + delay;
+            } else {
+                completed = true;
+                runnable = null;
+            }
+            waiting.set(false);
+        }
+
+        public boolean cancel() {
+            if (!cancelled.compareAndSet(false, true)) {
+                return false;
+            }
+            boolean willNotRun = !completed;
+            runnable = null;
+            Future<?> f = future;
+            if (f != null) {
+                f.cancel(false);
+            }
+            HashedWheelTimer.Timeout t = timeout;
+            if (t != null) {
+                t.cancel();
+            }
+            return willNotRun;
+        }
+
+        public boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        public String getOwner() {
+            return owner.statistics.getOwner();
+        }
+    }
+
+    private static final class DaemonThreadFactory implements ThreadFactory {
+
+        private final ThreadFactory factory;
+
+        private DaemonThreadFactory(ThreadFactory factory) {
+            this.factory = factory;
+        }
+
+        public Thread newThread(Runnable runnable) {
+            Thread t = factory.newThread(runnable);
+            t.setDaemon(true);
+            return t;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util.concurrent;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A hashed wheel timer for a large number of timeouts, most of which are cancelled before they
+ * expire. Adding and cancelling a timeout takes constant time, and a single thread advances the
+ * wheel once per tick and hands the expired timeouts over to an executor.</p>
+ *
+ * <p>A cancelled timeout releases its task at once and is dropped from the wheel the next time
+ * its bucket is visited.</p>
+ */
+final class HashedWheelTimer {
+
+    private static final Log log = LogFactory.getLog(HashedWheelTimer.class);
+
+    private final long tickNanos;
+    private final List<Timeout>[] wheel;
+    private final int mask;
+    private final long startTime = System.nanoTime();
+
+    /** Timeouts added since the last tick, moved into the wheel by the timer thread */
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<Timeout>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+
+    private final Executor executor;
+    private final ThreadFactory threadFactory;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+    private volatile boolean stopped = false;
+    private Thread timerThread;
+
+    @SuppressWarnings("unchecked")
+    HashedWheelTimer(long tickMillis, int wheelSize, Executor executor,
+                     ThreadFactory threadFactory) {
+        int size = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(tickMillis, 1));
+        this.wheel = new List[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayList<Timeout>();
+        }
+        this.mask = size - 1;
+        this.executor = executor;
+        this.threadFactory = threadFactory;
+    }
+
+    Timeout newTimeout(Runnable task, long delayMillis) {
+        if (stopped) {
+            throw new RejectedExecutionException("The timer has been stopped");
+        }
+        if (!started.get() && started.compareAndSet(false, true)) {
+            timerThread = threadFactory.newThread(new Worker());
+            timerThread.setDaemon(true);
+            timerThread.start();
+        }
+        Timeout timeout = new Timeout(task, System.nanoTime() - startTime
+                + TimeUnit.MILLISECONDS.toNanos(Math.max(delayMillis, 0)));
+        pendingCount.incrementAndGet();
+        newTimeouts.offer(timeout);
+        return timeout;
+    }
+
+    int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    void stop() {
+        stopped = true;
+        if (timerThread != null) {
+            timerThread.interrupt();
+        }
+    }
+
+    final class Timeout {
+
+        private volatile Runnable task;
+        private final long deadline;
+        private final AtomicBoolean done = new AtomicBoolean(false);
+        /** Turns of the wheel left before the timeout expires, only used by the timer thread */
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        boolean cancel() {
+            if (done.compareAndSet(false, true)) {
+                task = null;
+                pendingCount.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        boolean isCancelled() {
+            return done.get() && task == null;
+        }
+
+        private void expire() {
+            Runnable t = task;
+            if (t != null && done.compareAndSet(false, true)) {
+                pendingCount.decrementAndGet();
+                try {
+                    executor.execute(t);
+                } catch (RejectedExecutionException e) {
+                    log.warn("Couldn't run an expired timeout as the executor is not " +
+                            "accepting tasks", e);
+                }
+            }
+        }
+    }
+
+    private class Worker implements Runnable {
+
+        private long tick;
+
+        public void run() {
+            tick = (System.nanoTime() - startTime) / tickNanos;
+            while (!stopped) {
+                if (!waitForNextTick()) {
+                    break;
+                }
+                transferNewTimeouts();
+                expireTimeouts(wheel[(int) (tick & mask)]);
+                tick++;
+            }
+        }
+
+        private boolean waitForNextTick() {
+            long deadline = tickNanos * (tick + 1);
+            while (true) {
+                long sleepNanos = deadline - (System.nanoTime() - startTime);
+                if (sleepNanos <= 0) {
+                    return true;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (stopped) {
+                        return false;
+                    }
+                }
+            }
+        }
+
+        private void transferNewTimeouts() {
+            Timeout timeout;
+            while ((timeout = newTimeouts.poll()) != null) {
+                if (timeout.done.get()) {
+                    continue;
+                }
+                long expiryTick = timeout.deadline / tickNanos;
+                timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+                // a timeout already past its tick goes to the current bucket
+                wheel[(int) (Math.max(expiryTick, tick) & mask)].add(timeout);
+            }
+        }
+
+        private void expireTimeouts(List<Timeout> bucket) {
+            for (int i = bucket.size() - 1; i >= 0; i--) {
+                Timeout timeout = bucket.get(i);
+                boolean remove = true;
+                if (!timeout.done.get()) {
+                    if (timeout.remainingRounds <= 0) {
+                        timeout.expire();
+                    } else {
+                        timeout.remainingRounds--;
+                        remove = false;
+                    }
+                }
+                if (remove) {
+                    int last = bucket.size() - 1;
+                    bucket.set(i, bucket.get(last));
+                    bucket.remove(last);
+                }
+            }
+        }
+    }
+}
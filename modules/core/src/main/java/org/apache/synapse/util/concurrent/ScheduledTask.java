@@ -0,0 +1,47 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util.concurrent;
+
+/**
+ * A task scheduled on the {@link SynapseScheduler}
+ */
+public interface ScheduledTask {
+
+    /**
+     * Cancel the task, a run which has already started is not interrupted
+     *
+     * @return true if the task will not run anymore because of this call
+     */
+    public boolean cancel();
+
+    /**
+     * Has the task been cancelled?
+     *
+     * @return true if the task has been cancelled
+     */
+    public boolean isCancelled();
+
+    /**
+     * Get the owner of the task
+     *
+     * @return owner of the task
+     */
+    public String getOwner();
+}
@@ -0,0 +1,113 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics of the tasks of one owner on the {@link SynapseScheduler}. The lag of a run is the
+ * time between when the task was due and when it actually started.
+ */
+public class ScheduledTaskStatistics {
+
+    private final String owner;
+
+    private final AtomicLong executionCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    /** Runs of repeated tasks skipped as the previous run was still waiting or running */
+    private final AtomicLong skippedCount = new AtomicLong();
+    private final AtomicLong totalLag = new AtomicLong();
+    private final AtomicLong maxLag = new AtomicLong();
+    private final AtomicLong totalExecutionTime = new AtomicLong();
+    private final AtomicLong maxExecutionTime = new AtomicLong();
+
+    public ScheduledTaskStatistics(String owner) {
+        this.owner = owner;
+    }
+
+    void recordExecution(long lag, long executionTime, boolean failed) {
+        executionCount.incrementAndGet();
+        if (failed) {
+            failureCount.incrementAndGet();
+        }
+        lag = Math.max(lag, 0);
+        totalLag.addAndGet(lag);
+        updateMax(maxLag, lag);
+        totalExecutionTime.addAndGet(executionTime);
+        updateMax(maxExecutionTime, executionTime);
+    }
+
+    void recordSkipped() {
+        skippedCount.incrementAndGet();
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public long getExecutionCount() {
+        return executionCount.get();
+    }
+
+    public long getFailureCount() {
+        return failureCount.get();
+    }
+
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+    public long getAverageLag() {
+        long count = executionCount.get();
+        return count > 0 ? totalLag.get() / count : 0;
+    }
+
+    public long getMaxLag() {
+        return maxLag.get();
+    }
+
+    public long getAverageExecutionTime() {
+        long count = executionCount.get();
+        return count > 0 ? totalExecutionTime.get() / count : 0;
+    }
+
+    public long getMaxExecutionTime() {
+        return maxExecutionTime.get();
+    }
+
+    public void reset() {
+        executionCount.set(0);
+        failureCount.set(0);
+        skippedCount.set(0);
+        totalLag.set(0);
+        maxLag.set(0);
+        totalExecutionTime.set(0);
+        maxExecutionTime.set(0);
+    }
+}
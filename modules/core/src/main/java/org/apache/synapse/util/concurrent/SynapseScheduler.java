@@ -0,0 +1,83 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util.concurrent;
+
+import java.util.Map;
+
+/**
+ * The scheduler service of the Synapse environment, which runs the timed tasks of the
+ * artifacts such as the timeouts of the aggregates and the periodic tasks of the mediators.</p>
+ *
+ * <p>Each task belongs to an owner, usually the artifact which scheduled it. The tasks of
+ * different owners are isolated from each other, so that a slow or failing task only delays
+ * the other tasks of the same owner. The statistics of the tasks are kept per owner.</p>
+ *
+ * <p>An implementation other than the {@link DefaultSynapseScheduler} can be plugged in through
+ * the <code>synapse.scheduler.class</code> property, it should have a default constructor.</p>
+ */
+public interface SynapseScheduler {
+
+    /**
+     * Run the given task once after the given delay
+     *
+     * @param owner   owner of the task
+     * @param task    task to be run
+     * @param delay   delay in milliseconds
+     * @return a handle to cancel the task
+     */
+    public ScheduledTask schedule(String owner, Runnable task, long delay);
+
+    /**
+     * Run the given task repeatedly, waiting for the given delay between the end of a run and
+     * the start of the next run
+     *
+     * @param owner        owner of the task
+     * @param task         task to be run
+     * @param initialDelay delay before the first run in milliseconds
+     * @param delay        delay between the runs in milliseconds
+     * @return a handle to cancel the task
+     */
+    public ScheduledTask scheduleWithFixedDelay(String owner, Runnable task,
+                                                long initialDelay, long delay);
+
+    /**
+     * Run the given task once after the given timeout, unless it is cancelled before. This is
+     * meant for the large number of timeouts which are cancelled most of the time, and the
+     * task may run up to one tick of the scheduler late.
+     *
+     * @param owner   owner of the task
+     * @param task    task to be run on the timeout
+     * @param timeout timeout in milliseconds
+     * @return a handle to cancel the timeout
+     */
+    public ScheduledTask scheduleTimeout(String owner, Runnable task, long timeout);
+
+    /**
+     * Get the statistics of the tasks run by this scheduler
+     *
+     * @return statistics of the tasks keyed by the owner
+     */
+    public Map<String, ScheduledTaskStatistics> getTaskStatistics();
+
+    /**
+     * Stop running the tasks and release the threads of the scheduler
+     */
+    public void shutdown();
+}
@@ -19,6 +19,7 @@
 package org.apache.synapse.util.xpath;
 
 import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.spi.JsonProviderFactory;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -36,6 +37,12 @@ public class SynapseJsonPath extends SynapsePath {
 
     private static final Log log = LogFactory.getLog(SynapseJsonPath.class);
 
+    /**
+     * Message context property holding the parsed tree of the current JSON payload, so that the
+     * payload is parsed once per message rather than once per JSON path evaluation
+     */
+    private static final String JSON_PAYLOAD_TREE = "org.apache.synapse.util.xpath.JsonPayloadTree";
+
     private String enableStreamingJsonPath = SynapsePropertiesLoader.loadSynapseProperties().
     getProperty(SynapseConstants.STREAMING_JSONPATH_PROCESSING);
 
@@ -90,11 +97,47 @@ public class SynapseJsonPath extends SynapsePath {
             }
         } else {
             stream = JsonUtil.getJsonPayload(amc);
-            return stringValueOf(stream);
+            return stringValueOf(amc, stream);
         }
         return "";
     }
 
+    /**
+     * Evaluates this path over the JSON payload of the given message context, reusing the parsed
+     * payload tree of a previous evaluation as long as the JSON payload remains the same.
+     *
+     * @param amc Axis2 message context carrying the JSON payload
+     * @param jsonStream JSON payload stream of the message context
+     * @return the string value of the evaluated path
+     */
+    private String stringValueOf(org.apache.axis2.context.MessageContext amc,
+                                 InputStream jsonStream) {
+        if (jsonStream == null || isWholeBody) {
+            return stringValueOf(jsonStream);
+        }
+
+        Object tree = null;
+        Object o = amc.getProperty(JSON_PAYLOAD_TREE);
+        if (o instanceof JsonPayloadTree && ((JsonPayloadTree) o).source == jsonStream) {
+            tree = ((JsonPayloadTree) o).tree;
+        }
+
+        try {
+            if (tree == null) {
+                tree = JsonProviderFactory.createProvider().parse(jsonStream);
+                amc.setProperty(JSON_PAYLOAD_TREE, new JsonPayloadTree(jsonStream, tree));
+            }
+            Object read = jsonPath.read(tree);
+            if (log.isDebugEnabled()) {
+                log.debug("#stringValueOf. Evaluated JSON path <" + jsonPath.getPath() + "> : <" + (read == null ? null : read.toString()) + ">");
+            }
+            return (null == read ? "null" : read.toString());
+        } catch (Exception e) { // catch invalid json paths that do not match with the existing JSON payload.
+            log.error("#stringValueOf. Error evaluating JSON Path <" + jsonPath.getPath() + ">. Returning empty result. Error>>> " + e.getLocalizedMessage());
+            return "";
+        }
+    }
+
     public String stringValueOf(final InputStream jsonStream) {
         if (jsonStream == null) {
             return "";
@@ -133,4 +176,19 @@ public class SynapseJsonPath extends SynapsePath {
     public void setJsonPathExpression(String jsonPathExpression) {
         this.expression = jsonPathExpression;
     }
+
+    /**
+     * Parsed tree of a JSON payload along with the payload stream it was parsed from. A new JSON
+     * payload comes with a new stream, which invalidates the tree.
+     */
+    private static class JsonPayloadTree {
+
+        private final InputStream source;
+        private final Object tree;
+
+        private JsonPayloadTree(InputStream source, Object tree) {
+            this.source = source;
+            this.tree = tree;
+        }
+    }
 }
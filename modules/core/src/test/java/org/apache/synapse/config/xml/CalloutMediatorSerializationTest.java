@@ -75,5 +75,17 @@ public class CalloutMediatorSerializationTest extends AbstractTestCase {
         assertTrue(serialization(inputXml, calloutMediatorSerializer));
     }
 
-}
+    public void testNonBlockingCalloutMediatorSerialization() {
+        String inputXml = "<callout xmlns=\"http://ws.apache.org/ns/synapse\" " +
+                          "serviceURL=\"http://localhost:9000/soap/SimpleStockQuoteService\" " +
+                          "action=\"urn:getQuote\" blocking=\"false\" timeout=\"5000\" " +
+                          "maxConcurrentCallouts=\"100\"><source xmlns:s11=\"http://schemas.xmlsoap.org/" +
+                          "soap/envelope/\" xmlns:s12=\"http://www.w3.org/2003/05/soap-envelope\" " +
+                          "xpath=\"s11:Body/child::*[fn:position()=1] | s12:Body/child::*[fn:position()=1]\"/>" +
+                          "<target xmlns:s11=\"http://schemas.xmlsoap.org/soap/envelope/\" " +
+                          "xmlns:s12=\"http://www.w3.org/2003/05/soap-envelope\" key=\"result\"/></callout>";
+        assertTrue(serialization(inputXml, calloutMediatorFactory, calloutMediatorSerializer));
+        assertTrue(serialization(inputXml, calloutMediatorSerializer));
+    }
 
+}
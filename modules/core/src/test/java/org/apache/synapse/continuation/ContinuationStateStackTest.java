@@ -0,0 +1,190 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.continuation;
+
+import junit.framework.TestCase;
+import org.apache.synapse.ContinuationState;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.SequenceType;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.mediators.AbstractMediator;
+import org.apache.synapse.mediators.TestUtils;
+import org.apache.synapse.mediators.base.SequenceMediator;
+import org.apache.synapse.mediators.builtin.EnqueueMediator;
+import org.apache.synapse.mediators.builtin.LogMediator;
+import org.apache.synapse.mediators.builtin.PropertyMediator;
+import org.apache.synapse.mediators.ext.ClassMediator;
+import org.apache.synapse.mediators.filters.FilterMediator;
+
+public class ContinuationStateStackTest extends TestCase {
+
+    public void testSharedStatesAreCopiedOnAccess() {
+        ContinuationStateStack source = new ContinuationStateStack();
+        SeqContinuationState main = new SeqContinuationState(SequenceType.NAMED, "main");
+        SeqContinuationState seq = new SeqContinuationState(SequenceType.NAMED, "seq");
+        source.push(main);
+        source.push(seq);
+
+        ContinuationStateStack copy = new ContinuationStateStack();
+        copy.shareWith(source);
+        assertEquals(2, copy.size());
+
+        // the top state is copied before it can be modified through the copy
+        ContinuationState top = copy.peek();
+        assertNotSame(seq, top);
+        assertEquals("seq", ((SeqContinuationState) top).getSeqName());
+        top.setPosition(3);
+        assertEquals(0, seq.getPosition());
+
+        // popping a shared state does not copy it, the one below is copied on access
+        copy.pop();
+        assertNotSame(main, copy.peek());
+        copy.peek().setPosition(5);
+        assertEquals(0, main.getPosition());
+
+        // the source copies its shared states as well
+        source.peek().setPosition(1);
+        assertNotSame(seq, source.peek());
+        assertEquals(0, seq.getPosition());
+
+        copy.clear();
+        assertTrue(copy.isEmpty());
+        assertEquals(2, source.size());
+    }
+
+    public void testSkipping() {
+        ContinuationStateStack stack = new ContinuationStateStack();
+        assertFalse(stack.isSkipping());
+        stack.startSkipping();
+        stack.startSkipping();
+        stack.endSkipping();
+        assertTrue(stack.isSkipping());
+        stack.endSkipping();
+        stack.endSkipping();
+        assertFalse(stack.isSkipping());
+    }
+
+    public void testFilterReferringToSequenceMaySuspend() {
+        FilterMediator filter = new FilterMediator();
+        filter.addChild(new LogMediator());
+        SequenceMediator sequence = new SequenceMediator();
+        sequence.addChild(filter);
+        assertFalse(ContinuationStackManager.maySuspend(sequence));
+
+        // the referred sequence is not known, and may call out
+        filter = new FilterMediator();
+        filter.setThenKey("seqWithCall");
+        sequence = new SequenceMediator();
+        sequence.addChild(filter);
+        assertTrue(ContinuationStackManager.maySuspend(sequence));
+
+        filter = new FilterMediator();
+        filter.setElseKey("seqWithCall");
+        assertTrue(ContinuationStackManager.maySuspend(filter));
+    }
+
+    public void testClearSkipping() {
+        ContinuationStateStack stack = new ContinuationStateStack();
+        stack.startSkipping();
+        stack.startSkipping();
+        assertEquals(2, stack.clearSkipping());
+        assertFalse(stack.isSkipping());
+        stack.restoreSkipping(2);
+        stack.endSkipping();
+        assertTrue(stack.isSkipping());
+    }
+
+    public void testSequenceInvokingMediatorsMaySuspend() {
+        SequenceMediator sequence = new SequenceMediator();
+        sequence.addChild(new LogMediator());
+        sequence.addChild(new PropertyMediator());
+        assertFalse(ContinuationStackManager.maySuspend(sequence));
+
+        // mediators which may invoke other sequences, and unknown mediators
+        assertTrue(ContinuationStackManager.maySuspend(new ClassMediator()));
+        assertTrue(ContinuationStackManager.maySuspend(new EnqueueMediator()));
+        assertTrue(ContinuationStackManager.maySuspend(new RecordingMediator()));
+        assertTrue(ContinuationStackManager.maySuspend(new LogMediator() {}));
+
+        sequence.addChild(new ClassMediator());
+        assertTrue(ContinuationStackManager.maySuspend(sequence));
+    }
+
+    public void testSuspendableSequenceKeepsStatesWithinSkippingSequence() throws Exception {
+        MessageContext synCtx = TestUtils.createLightweightSynapseMessageContext("<test/>");
+        ((Axis2MessageContext) synCtx).setContinuationEnabled(true);
+        ContinuationStateStack stack = (ContinuationStateStack) synCtx.getContinuationStateStack();
+
+        RecordingMediator recorder = new RecordingMediator();
+        SequenceMediator sequence = new SequenceMediator();
+        sequence.setName("seqWithCall");
+        sequence.addChild(recorder);
+
+        stack.startSkipping();
+        assertTrue(sequence.mediate(synCtx));
+        assertFalse(recorder.skipping);
+        assertEquals(1, recorder.stackSize);
+        assertTrue(stack.isSkipping());
+        assertTrue(stack.isEmpty());
+    }
+
+    public void testSuspendableWorkedOutAgainWhenChildrenChange() throws Exception {
+        MessageContext synCtx = TestUtils.createLightweightSynapseMessageContext("<test/>");
+        ((Axis2MessageContext) synCtx).setContinuationEnabled(true);
+        ContinuationStateStack stack = (ContinuationStateStack) synCtx.getContinuationStateStack();
+
+        SequenceMediator sequence = new SequenceMediator();
+        sequence.setName("seq");
+        sequence.addChild(new LogMediator());
+        assertTrue(sequence.mediate(synCtx));
+        assertFalse(stack.isSkipping());
+
+        RecordingMediator recorder = new RecordingMediator();
+        sequence.addChild(recorder);
+        assertTrue(sequence.mediate(synCtx));
+        assertFalse(recorder.skipping);
+        assertEquals(1, recorder.stackSize);
+
+        sequence.removeChild(recorder);
+        PropertyMediator property = new PropertyMediator();
+        property.setName("p");
+        property.setValue("v");
+        sequence.addChild(property);
+        assertTrue(sequence.mediate(synCtx));
+        assertTrue(stack.isEmpty());
+    }
+
+    /**
+     * A mediator of an unknown kind, recording whether the ContinuationStates are kept
+     */
+    private static class RecordingMediator extends AbstractMediator {
+
+        private boolean skipping;
+        private int stackSize;
+
+        public boolean mediate(MessageContext synCtx) {
+            ContinuationStateStack stack =
+                    (ContinuationStateStack) synCtx.getContinuationStateStack();
+            skipping = stack.isSkipping();
+            stackSize = stack.size();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.core.axis2;
+
+import junit.framework.TestCase;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.description.AxisService;
+import org.apache.synapse.ServerConfigurationInformation;
+import org.apache.synapse.ServerContextInformation;
+import org.apache.synapse.SynapseConstants;
+import org.apache.synapse.config.SynapseConfiguration;
+
+import javax.xml.namespace.QName;
+
+public class AnonymousSendTemplateTest extends TestCase {
+
+    private SynapseConfiguration synCfg;
+
+    protected void setUp() throws Exception {
+        synCfg = new SynapseConfiguration();
+    }
+
+    public void testTemplateShared() throws Exception {
+        ConfigurationContext cfgCtx = createConfigurationContext();
+
+        AnonymousSendTemplate template = AnonymousSendTemplate.getTemplate(synCfg, cfgCtx, false);
+        assertSame(template, AnonymousSendTemplate.getTemplate(synCfg, cfgCtx, false));
+
+        AxisService service = template.getServiceContext().getAxisService();
+        assertSame(service, cfgCtx.getAxisConfiguration().getService(service.getName()));
+        assertEquals("true", service.getParent().getParameterValue(
+                SynapseConstants.HIDDEN_SERVICE_PARAM));
+        assertSame(service.getOperation(new QName(
+                AnonymousServiceFactory.OUT_IN_OPERATION)), template.getOperation(false));
+        assertSame(service.getOperation(new QName(
+                AnonymousServiceFactory.OUT_ONLY_OPERATION)), template.getOperation(true));
+    }
+
+    public void testTemplateRebuiltWhenServiceReplaced() throws Exception {
+        ConfigurationContext cfgCtx = createConfigurationContext();
+
+        AnonymousSendTemplate template = AnonymousSendTemplate.getTemplate(synCfg, cfgCtx, false);
+        AxisService service = template.getServiceContext().getAxisService();
+        cfgCtx.getAxisConfiguration().removeServiceGroup(service.getAxisServiceGroup()
+                .getServiceGroupName());
+
+        AnonymousSendTemplate rebuilt = AnonymousSendTemplate.getTemplate(synCfg, cfgCtx, false);
+        assertNotSame(template, rebuilt);
+        AxisService newService = rebuilt.getServiceContext().getAxisService();
+        assertNotSame(service, newService);
+        assertSame(newService, cfgCtx.getAxisConfiguration().getService(newService.getName()));
+    }
+
+    public void testTemplateRebuiltForNewConfigurationContext() throws Exception {
+        ConfigurationContext cfgCtx = createConfigurationContext();
+        AnonymousSendTemplate template = AnonymousSendTemplate.getTemplate(synCfg, cfgCtx, false);
+
+        ConfigurationContext newCfgCtx = createConfigurationContext();
+        AnonymousSendTemplate rebuilt =
+                AnonymousSendTemplate.getTemplate(synCfg, newCfgCtx, false);
+        assertNotSame(template, rebuilt);
+        assertSame(newCfgCtx, rebuilt.getServiceContext().getConfigurationContext());
+        assertSame(rebuilt, AnonymousSendTemplate.getTemplate(synCfg, newCfgCtx, false));
+    }
+
+    private ConfigurationContext createConfigurationContext() throws Exception {
+        ConfigurationContext cfgCtx =
+                ConfigurationContextFactory.createEmptyConfigurationContext();
+        // the anonymous services are created with the callback receiver of the server
+        cfgCtx.getAxisConfiguration().addParameter(SynapseConstants.SYNAPSE_SERVER_CTX_INFO,
+                new ServerContextInformation(cfgCtx, new ServerConfigurationInformation()));
+        return cfgCtx;
+    }
+}
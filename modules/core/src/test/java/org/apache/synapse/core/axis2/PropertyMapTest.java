@@ -0,0 +1,137 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.core.axis2;
+
+import junit.framework.TestCase;
+import org.apache.synapse.SynapseConstants;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+public class PropertyMapTest extends TestCase {
+
+    public void testPutGetRemove() {
+        PropertyMap map = new PropertyMap();
+        assertNull(map.put(SynapseConstants.RESPONSE, "true"));
+        assertNull(map.put("custom", "value"));
+        assertNull(map.put(null, "null key"));
+        assertEquals(3, map.size());
+
+        assertEquals("true", map.get(new String(SynapseConstants.RESPONSE)));
+        assertEquals("value", map.get("custom"));
+        assertEquals("null key", map.get(null));
+        assertNull(map.get("missing"));
+
+        assertEquals("true", map.put(SynapseConstants.RESPONSE, "false"));
+        assertEquals("value", map.remove("custom"));
+        assertNull(map.get("custom"));
+        assertEquals("false", map.remove(SynapseConstants.RESPONSE));
+        assertEquals(1, map.size());
+
+        // a null value removes the key
+        map.put("custom", "value");
+        map.put("custom", null);
+        assertFalse(map.containsKey("custom"));
+        assertEquals(1, map.size());
+    }
+
+    public void testManyKeys() {
+        PropertyMap map = new PropertyMap();
+        Map<String, Object> expected = new HashMap<String, Object>();
+        for (int i = 0; i < 1000; i++) {
+            map.put("key" + i, i);
+            expected.put("key" + i, i);
+            if (i % 3 == 0) {
+                map.remove("key" + (i / 2));
+                expected.remove("key" + (i / 2));
+            }
+        }
+        map.put(SynapseConstants.OUT_ONLY, "true");
+        expected.put(SynapseConstants.OUT_ONLY, "true");
+
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+    }
+
+    public void testRemoveThroughKeySet() {
+        PropertyMap map = new PropertyMap();
+        for (int i = 0; i < 20; i++) {
+            map.put("key" + i, i);
+        }
+        map.put(SynapseConstants.STATISTICS_STACK, "stack");
+
+        assertTrue(map.keySet().remove(SynapseConstants.STATISTICS_STACK));
+        for (Iterator<String> it = map.keySet().iterator(); it.hasNext();) {
+            if (it.next().endsWith("1")) {
+                it.remove();
+            }
+        }
+        assertEquals(18, map.size());
+        assertFalse(map.containsKey("key11"));
+        assertTrue(map.containsKey("key12"));
+    }
+
+    public void testSetValueDuringIteration() {
+        PropertyMap map = new PropertyMap();
+        for (int i = 0; i < 20; i++) {
+            map.put("key" + i, i);
+        }
+        map.put(SynapseConstants.OUT_ONLY, "true");
+
+        // replacing a value in place does not disturb the iteration
+        for (Map.Entry<String, Object> entry : map.entrySet()) {
+            entry.setValue("new");
+        }
+        assertEquals(21, map.size());
+        assertEquals("new", map.get("key7"));
+        assertEquals("new", map.get(SynapseConstants.OUT_ONLY));
+
+        Map.Entry<String, Object> entry = map.entrySet().iterator().next();
+        try {
+            entry.setValue(null);
+            fail("A null value should be rejected");
+        } catch (NullPointerException expected) {
+            // the key is kept
+        }
+        assertEquals("new", map.get(entry.getKey()));
+        assertEquals(21, map.size());
+    }
+
+    public void testSharedCopies() {
+        PropertyMap source = new PropertyMap();
+        source.put(SynapseConstants.MAIN_SEQUENCE_KEY, "main");
+        source.put("endpoint", "ep");
+
+        PropertyMap copy = new PropertyMap();
+        copy.shareWith(source);
+        assertEquals(source, copy);
+
+        copy.put("endpoint", "other");
+        copy.remove(SynapseConstants.MAIN_SEQUENCE_KEY);
+        assertEquals("ep", source.get("endpoint"));
+        assertEquals("main", source.get(SynapseConstants.MAIN_SEQUENCE_KEY));
+
+        source.put("sequence", "seq");
+        assertNull(copy.get("sequence"));
+        assertEquals(1, copy.size());
+        assertEquals(3, source.size());
+    }
+}
@@ -167,6 +167,44 @@ public class SynapseEventSourceTest extends TestCase {
 
     }
 
+    public void testExpiredSubscriptionChannelsDestroyed() throws Exception {
+        SynapseConfiguration synapseConfig = new SynapseConfiguration();
+        AxisConfiguration axisConfig = new AxisConfiguration();
+        synapseConfig.setAxisConfiguration(axisConfig);
+        SynapseEnvironment env = new Axis2SynapseEnvironment(
+                new ConfigurationContext(axisConfig), synapseConfig);
+
+        Calendar expired = Calendar.getInstance();
+        expired.add(Calendar.HOUR, -1);
+        subscribe("valid", "http://localhost:9000/services/valid", null);
+        subscribe("expired", "http://localhost:9000/services/expired", expired);
+        EventDeliveryChannel validChannel =
+                source.getDeliveryChannel("http://localhost:9000/services/valid", env);
+        EventDeliveryChannel expiredChannel =
+                source.getDeliveryChannel("http://localhost:9000/services/expired", env);
+
+        source.purgeExpiredSubscriptions(true);
+        assertNull(subMan.getSubscription("expired"));
+        assertNotNull(subMan.getSubscription("valid"));
+        assertTrue(expiredChannel.isDestroyed());
+        assertFalse(validChannel.isDestroyed());
+        assertEquals(1, source.getDeliveryChannelCount());
+
+        // removing the event source destroys the remaining channels
+        source.destroy();
+        assertTrue(validChannel.isDestroyed());
+        assertEquals(0, source.getDeliveryChannelCount());
+    }
+
+    private void subscribe(String id, String endpointUrl, Calendar expires) throws Exception {
+        SynapseSubscription subscription = new SynapseSubscription();
+        subscription.setId(id);
+        subscription.setFilterValue(FILTER);
+        subscription.setEndpointUrl(endpointUrl);
+        subscription.setExpires(expires);
+        subMan.subscribe(subscription);
+    }
+
     private MessageContext createMessageContext(String payload, String action) {
         try {
             SynapseConfiguration synapseConfig = new SynapseConfiguration();
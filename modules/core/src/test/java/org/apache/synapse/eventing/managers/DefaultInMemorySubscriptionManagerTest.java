@@ -0,0 +1,103 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.eventing.managers;
+
+import junit.framework.TestCase;
+import org.apache.axis2.context.MessageContext;
+import org.apache.synapse.eventing.SynapseSubscription;
+import org.apache.synapse.mediators.TestUtils;
+import org.wso2.eventing.Event;
+import org.wso2.eventing.Subscription;
+
+import javax.xml.namespace.QName;
+import java.util.Calendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class DefaultInMemorySubscriptionManagerTest extends TestCase {
+
+    private static final String TOPIC_NS = "http://synapse.apache.org/test/topics";
+
+    private DefaultInMemorySubscriptionManager subMan;
+
+    protected void setUp() throws Exception {
+        subMan = new DefaultInMemorySubscriptionManager();
+        subMan.addProperty("topicHeaderName", "Topic");
+        subMan.addProperty("topicHeaderNS", TOPIC_NS);
+        subMan.init();
+    }
+
+    public void testMatchingByTopic() throws Exception {
+        subscribe("a", "weather", null);
+        subscribe("b", "weather/storms", null);
+        subscribe("c", "weather/storms/europe", null);
+        subscribe("d", "weathers", null);
+        subscribe("e", " weather", null);
+
+        assertMatches("weather/storms", "a", "b", "e");
+        assertMatches("weather", "a");
+        assertMatches("weathers/storms", "d");
+        assertMatches("news", new String[0]);
+    }
+
+    public void testUnsubscribedAndExpiredNotMatched() throws Exception {
+        Calendar expired = Calendar.getInstance();
+        expired.add(Calendar.HOUR, -1);
+        subscribe("a", "weather", null);
+        subscribe("b", "weather", expired);
+        subscribe("c", "weather", null);
+
+        assertTrue(subMan.unsubscribe("c"));
+        assertMatches("weather/storms", "a");
+
+        // re-subscribing with the same id replaces the topic of the subscription
+        subscribe("a", "news", null);
+        assertMatches("weather/storms", new String[0]);
+        assertMatches("news", "a");
+    }
+
+    private void subscribe(String id, String topic, Calendar expires) throws Exception {
+        SynapseSubscription subscription = new SynapseSubscription();
+        subscription.setId(id);
+        subscription.setFilterValue(topic);
+        subscription.setEndpointUrl("http://localhost:9000/services/" + id);
+        subscription.setExpires(expires);
+        subMan.subscribe(subscription);
+    }
+
+    private void assertMatches(String topic, String... ids) throws Exception {
+        MessageContext msgCtx = TestUtils.getAxis2MessageContext("<event/>", null).
+                getAxis2MessageContext();
+        TestUtils.addSOAPHeaderBlock(msgCtx, new QName(TOPIC_NS, "Topic", "t"), topic);
+        Event<MessageContext> event = new Event<MessageContext>();
+        event.setMessage(msgCtx);
+
+        List<Subscription> matching = subMan.getMatchingSubscriptions(event);
+        Set<String> matchingIds = new HashSet<String>();
+        for (Subscription subscription : matching) {
+            matchingIds.add(subscription.getId());
+        }
+        assertEquals(ids.length, matching.size());
+        for (String id : ids) {
+            assertTrue("Subscription " + id + " should match " + topic, matchingIds.contains(id));
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.mediators;
+
+import junit.framework.TestCase;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.SynapseConstants;
+import org.apache.synapse.SynapseLog;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+
+public class MediatorLogTest extends TestCase {
+
+    public void testLogSharedByMessages() throws Exception {
+        TestMediator mediator = new TestMediator();
+
+        Axis2MessageContext synCtx1 = TestUtils.getAxis2MessageContext("<empty/>", null);
+        Axis2MessageContext synCtx2 = TestUtils.getAxis2MessageContext("<empty/>", null);
+        SynapseLog synLog = mediator.getLog(synCtx1);
+        assertSame(synLog, mediator.getLog(synCtx2));
+        assertFalse(synLog.isTraceTraceEnabled());
+
+        // trace enabled messages get their own log
+        synCtx2.setTracingState(SynapseConstants.TRACING_ON);
+        SynapseLog traceLog = mediator.getLog(synCtx2);
+        assertNotSame(synLog, traceLog);
+        assertSame(traceLog, mediator.getLog(synCtx2));
+        assertSame(synLog, mediator.getLog(synCtx1));
+
+        // as do messages of a different service
+        synCtx1.setServiceLog(
+                LogFactory.getLog(SynapseConstants.SERVICE_LOGGER_PREFIX + "test"));
+        assertNotSame(synLog, mediator.getLog(synCtx1));
+    }
+}
@@ -73,6 +73,116 @@ public class SequenceMediatorTest extends TestCase {
         assertTrue("T1.T2.T3".equals(result.toString()));
     }
 
+    public void testMessageBuiltOnlyWhenContentAwareMediatorReached() throws Exception {
+
+        TestMediator router = new TestMediator() {
+            public boolean mediate(MessageContext synCtx) {
+                result.append("R.");
+                return !"drop".equals(synCtx.getProperty("route"));
+            }
+
+            public boolean isContentAware() {
+                return false;
+            }
+        };
+        TestMediator t1 = new TestMediator();
+        t1.setHandler(
+            new TestMediateHandler() {
+                public void handle(MessageContext synCtx) {
+                    result.append("T1.");
+                }
+            });
+
+        SequenceMediator seq = new SequenceMediator();
+        seq.addChild(router);
+        seq.addChild(t1);
+        seq.init(new Axis2SynapseEnvironment(new SynapseConfiguration()));
+        assertTrue(seq.getList().get(1).isContentAware());
+
+        MessageContext synCtx = TestUtils.getTestContext("<empty/>");
+        synCtx.setProperty("route", "drop");
+        seq.mediate(synCtx);
+        assertEquals(0, seq.getBuildCount());
+        assertEquals(1, seq.getAvoidedBuildCount());
+
+        synCtx = TestUtils.getTestContext("<empty/>");
+        seq.mediate(synCtx);
+        assertEquals(1, seq.getBuildCount());
+        assertEquals(1, seq.getAvoidedBuildCount());
+
+        assertEquals("R.R.T1.", result.toString());
+    }
+
+    public void testCompiledSequenceMediator() throws Exception {
+
+        TestMediator t1 = new TestMediator();
+        t1.setHandler(
+            new TestMediateHandler() {
+                public void handle(MessageContext synCtx) {
+                    result.append("T1.");
+                }
+            });
+        TestMediator t2 = new TestMediator();
+        t2.setHandler(
+            new TestMediateHandler() {
+                public void handle(MessageContext synCtx) {
+                    result.append("T2.");
+                }
+            });
+        TestMediator t3 = new TestMediator();
+        t3.setTraceState(SynapseConstants.TRACING_ON);
+        t3.setHandler(
+            new TestMediateHandler() {
+                public void handle(MessageContext synCtx) {
+                    synCtx.setTracingState(SynapseConstants.TRACING_ON);
+                    result.append("T3.");
+                }
+            });
+        TestMediator t4 = new TestMediator();
+        t4.setHandler(
+            new TestMediateHandler() {
+                public void handle(MessageContext synCtx) {
+                    result.append("T4");
+                    assertEquals(SynapseConstants.TRACING_OFF, synCtx.getTracingState());
+                }
+            });
+
+        SequenceMediator seq = new SequenceMediator();
+        seq.setTraceState(SynapseConstants.TRACING_OFF);
+        seq.addChild(t1);
+        seq.addChild(t2);
+        seq.addChild(t3);
+        seq.compile();
+        assertTrue(seq.isCompiled());
+
+        MessageContext synCtx = TestUtils.getTestContext("<empty/>");
+        seq.mediate(synCtx);
+        assertEquals("T1.T2.T3.", result.toString());
+
+        // modifying the sequence falls back to the interpreted mediation
+        seq.addChild(t4);
+        assertFalse(seq.isCompiled());
+        seq.compile();
+
+        result.setLength(0);
+        seq.mediate(TestUtils.getTestContext("<empty/>"));
+        assertEquals("T1.T2.T3.T4", result.toString());
+
+        // modifying the list of children directly does the same
+        seq.getList().remove(t4);
+        assertFalse(seq.isCompiled());
+        result.setLength(0);
+        seq.mediate(TestUtils.getTestContext("<empty/>"));
+        assertEquals("T1.T2.T3.", result.toString());
+
+        seq.compile();
+        seq.getList().set(2, t4);
+        assertFalse(seq.isCompiled());
+        result.setLength(0);
+        seq.mediate(TestUtils.getTestContext("<empty/>"));
+        assertEquals("T1.T2.T4", result.toString());
+    }
+
     public void testErrorHandling() throws Exception {
 
         TestMediator t1 = new TestMediator();
@@ -0,0 +1,286 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.mediators.builtin;
+
+import junit.framework.TestCase;
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMElement;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.synapse.FaultHandler;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.SynapseConstants;
+import org.apache.synapse.SynapseException;
+import org.apache.synapse.config.SynapseConfigUtils;
+import org.apache.synapse.config.SynapseConfiguration;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.core.axis2.Axis2SynapseEnvironment;
+import org.apache.synapse.endpoints.AddressEndpoint;
+import org.apache.synapse.endpoints.Endpoint;
+import org.apache.synapse.endpoints.EndpointDefinition;
+import org.apache.synapse.mediators.TestUtils;
+import org.apache.synapse.util.xpath.SynapseXPath;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CalloutMediatorTest extends TestCase {
+
+    private SynapseConfiguration synCfg;
+    private MessageContext synCtx;
+    private StubEndpoint endpoint;
+    private CalloutMediator callout;
+
+    protected void setUp() throws Exception {
+        synCfg = new SynapseConfiguration();
+        ConfigurationContext cfgCtx = new ConfigurationContext(new AxisConfiguration());
+        synCtx = new Axis2MessageContext(new org.apache.axis2.context.MessageContext(),
+                synCfg, new Axis2SynapseEnvironment(cfgCtx, synCfg));
+        ((Axis2MessageContext) synCtx).getAxis2MessageContext().setConfigurationContext(cfgCtx);
+
+        SOAPEnvelope envelope = OMAbstractFactory.getSOAP11Factory().getDefaultEnvelope();
+        envelope.getBody().addChild(
+                TestUtils.createOMElement("<request><value>1</value></request>"));
+        synCtx.setEnvelope(envelope);
+        setTransportHeader(synCtx, "X-Request", "original");
+
+        endpoint = new StubEndpoint();
+        callout = new CalloutMediator();
+        callout.setBlocking(false);
+        callout.setUseEnvelopeAsSource(true);
+        callout.setEndpoint(endpoint);
+    }
+
+    protected void tearDown() throws Exception {
+        callout.destroy();
+    }
+
+    public void testNonBlockingCalloutSuspendsFlow() throws Exception {
+        callout.init(synCtx.getEnvironment());
+
+        assertFalse(callout.mediate(synCtx));
+        assertEquals(1, endpoint.sent.size());
+        MessageContext request = endpoint.sent.get(0);
+        assertNotSame(synCtx, request);
+        assertEquals("request", request.getEnvelope().getBody().getFirstElement().getLocalName());
+        assertEquals(Boolean.TRUE, request.getProperty(SynapseConstants.CONTINUATION_CALL));
+    }
+
+    public void testOutOnlyCalloutContinuesFlow() throws Exception {
+        callout.init(synCtx.getEnvironment());
+        synCtx.setProperty(SynapseConstants.OUT_ONLY, "true");
+
+        assertTrue(callout.mediate(synCtx));
+        assertEquals(1, endpoint.sent.size());
+    }
+
+    public void testResponsePlacedInTargetKey() throws Exception {
+        callout.setTargetKey("result");
+        callout.init(synCtx.getEnvironment());
+        SOAPEnvelope requestEnvelope = synCtx.getEnvelope();
+
+        assertFalse(callout.mediate(synCtx));
+        MessageContext response = respond(endpoint.sent.get(0));
+        assertTrue(callout.mediate(response, null));
+
+        assertSame(requestEnvelope, response.getEnvelope());
+        OMElement result = (OMElement) response.getProperty("result");
+        assertEquals("response", result.getLocalName());
+        assertEquals("original", getTransportHeader(response, "X-Request"));
+        assertNull(getTransportHeader(response, "X-Response"));
+    }
+
+    public void testResponsePlacedAtTargetXPath() throws Exception {
+        callout.setTargetXPath(new SynapseXPath("//value"));
+        callout.init(synCtx.getEnvironment());
+
+        assertFalse(callout.mediate(synCtx));
+        MessageContext response = respond(endpoint.sent.get(0));
+        assertTrue(callout.mediate(response, null));
+
+        OMElement request = response.getEnvelope().getBody().getFirstElement();
+        assertEquals("request", request.getLocalName());
+        assertEquals("response", request.getFirstElement().getLocalName());
+        assertNull(request.getFirstElement().getNextOMSibling());
+    }
+
+    public void testResponseTransportHeadersKept() throws Exception {
+        callout.init(synCtx.getEnvironment());
+        synCtx.setProperty(SynapseConstants.BLOCKING_SENDER_PRESERVE_REQ_HEADERS, "false");
+
+        assertFalse(callout.mediate(synCtx));
+        MessageContext response = respond(endpoint.sent.get(0));
+        assertTrue(callout.mediate(response, null));
+
+        assertEquals("response", response.getEnvelope().getBody().getFirstElement().getLocalName());
+        assertEquals("ok", getTransportHeader(response, "X-Response"));
+    }
+
+    public void testConcurrentCalloutsLimited() throws Exception {
+        callout.setMaxConcurrentCallouts(1);
+        callout.init(synCtx.getEnvironment());
+
+        assertFalse(callout.mediate(synCtx));
+        try {
+            callout.mediate(synCtx);
+            fail("The callout beyond the maximum should be rejected");
+        } catch (SynapseException expected) {
+            assertTrue(((String) synCtx.getProperty(SynapseConstants.ERROR_MESSAGE))
+                    .contains("maximum number of concurrent callouts"));
+        }
+        assertEquals(1, endpoint.sent.size());
+
+        // the response of the first callout releases its permit
+        assertTrue(callout.mediate(respond(endpoint.sent.get(0)), null));
+        assertFalse(callout.mediate(synCtx));
+        assertEquals(2, endpoint.sent.size());
+    }
+
+    public void testPermitReleasedOnFault() throws Exception {
+        callout.setMaxConcurrentCallouts(1);
+        callout.init(synCtx.getEnvironment());
+
+        assertFalse(callout.mediate(synCtx));
+        MessageContext request = endpoint.sent.get(0);
+        ((FaultHandler) request.getFaultStack().pop()).handleFault(request);
+
+        assertFalse(callout.mediate(synCtx));
+        assertEquals(2, endpoint.sent.size());
+    }
+
+    public void testPermitReleasedWhenSendFails() throws Exception {
+        callout.setMaxConcurrentCallouts(1);
+        callout.init(synCtx.getEnvironment());
+
+        endpoint.failure = new SynapseException("Endpoint unavailable");
+        try {
+            callout.mediate(synCtx);
+            fail("The failure of the endpoint should be thrown");
+        } catch (SynapseException expected) {
+            assertSame(endpoint.failure, expected);
+        }
+
+        endpoint.failure = null;
+        assertFalse(callout.mediate(synCtx));
+        assertEquals(1, endpoint.sent.size());
+    }
+
+    public void testPermitReleasedOnExpiry() throws Exception {
+        callout.setMaxConcurrentCallouts(1);
+        callout.init(synCtx.getEnvironment());
+
+        assertFalse(callout.mediate(synCtx));
+        MessageContext request = endpoint.sent.get(0);
+        ((Runnable) request.getProperty(CalloutMediator.CALLOUT_PERMIT)).run();
+        assertFalse(callout.mediate(synCtx));
+
+        // a late response of the expired callout does not release the permit again
+        assertTrue(callout.mediate(respond(request), null));
+        try {
+            callout.mediate(synCtx);
+            fail("The callout beyond the maximum should be rejected");
+        } catch (SynapseException expected) {
+            assertEquals(2, endpoint.sent.size());
+        }
+    }
+
+    public void testPermitExpiryUsesEndpointTimeout() throws Exception {
+        EndpointDefinition definition = new EndpointDefinition();
+        definition.setTimeoutDuration(120000);
+        endpoint.setDefinition(definition);
+        synCfg.addEndpoint("stub", endpoint);
+
+        callout.setEndpoint(null);
+        callout.setEndpointKey("stub");
+        callout.setTimeout(5000);
+        callout.setMaxConcurrentCallouts(1);
+        callout.init(synCtx.getEnvironment());
+
+        assertFalse(callout.mediate(synCtx));
+        assertEquals(1, endpoint.sent.size());
+
+        long handlerDelay = 2 * SynapseConfigUtils.getTimeoutHandlerInterval();
+        assertEquals(120000 + handlerDelay, callout.getPermitExpiry(endpoint));
+        assertEquals(SynapseConfigUtils.getGlobalTimeoutInterval() + handlerDelay,
+                callout.getPermitExpiry(new StubEndpoint()));
+
+        // a group endpoint may try each of its children
+        StubEndpoint group = new StubEndpoint();
+        List<Endpoint> children = new ArrayList<Endpoint>();
+        children.add(endpoint);
+        children.add(new StubEndpoint());
+        group.setChildren(children);
+        assertEquals(120000 + SynapseConfigUtils.getGlobalTimeoutInterval() + handlerDelay,
+                callout.getPermitExpiry(group));
+    }
+
+    /**
+     * Create the response of a callout, which carries the properties of the request
+     */
+    private MessageContext respond(MessageContext request) throws Exception {
+        SOAPEnvelope envelope = OMAbstractFactory.getSOAP11Factory().getDefaultEnvelope();
+        envelope.getBody().addChild(TestUtils.createOMElement("<response>ok</response>"));
+        request.setEnvelope(envelope);
+        request.setResponse(true);
+        ((Axis2MessageContext) request).getAxis2MessageContext().setProperty(
+                org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS, null);
+        setTransportHeader(request, "X-Response", "ok");
+        return request;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void setTransportHeader(MessageContext synCtx, String name, String value) {
+        org.apache.axis2.context.MessageContext axis2MsgCtx =
+                ((Axis2MessageContext) synCtx).getAxis2MessageContext();
+        Map<String, String> headers = (Map<String, String>) axis2MsgCtx.getProperty(
+                org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
+        if (headers == null) {
+            headers = new HashMap<String, String>();
+            axis2MsgCtx.setProperty(
+                    org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS, headers);
+        }
+        headers.put(name, value);
+    }
+
+    private static Object getTransportHeader(MessageContext synCtx, String name) {
+        Map headers = (Map) ((Axis2MessageContext) synCtx).getAxis2MessageContext().getProperty(
+                org.apache.axis2.context.MessageContext.TRANSPORT_HEADERS);
+        return headers != null ? headers.get(name) : null;
+    }
+
+    /**
+     * An endpoint which keeps the messages sent to it instead of sending them out
+     */
+    private static class StubEndpoint extends AddressEndpoint {
+
+        private final List<MessageContext> sent = new ArrayList<MessageContext>();
+        private RuntimeException failure;
+
+        public void send(MessageContext synCtx) {
+            if (failure != null) {
+                throw failure;
+            }
+            sent.add(synCtx);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.mediators.builtin;
+
+import junit.framework.TestCase;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.commons.json.JsonUtil;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.mediators.MediatorProperty;
+import org.apache.synapse.mediators.TestUtils;
+import org.apache.synapse.util.xpath.SynapseJsonPath;
+
+public class LogMediatorTest extends TestCase {
+
+    private static final String JSON_PAYLOAD_TREE = "org.apache.synapse.util.xpath.JsonPayloadTree";
+
+    public void testJsonPathPropertiesReadCachedPayloadTree() throws Exception {
+        MessageContext synCtx = TestUtils.createLightweightSynapseMessageContext("<empty/>");
+        org.apache.axis2.context.MessageContext amc =
+                ((Axis2MessageContext) synCtx).getAxis2MessageContext();
+        JsonUtil.newJsonPayload(amc, "{\"symbol\":\"IBM\",\"price\":10}", true, true);
+
+        LogMediator log = new LogMediator();
+        log.setLogLevel(LogMediator.CUSTOM);
+        log.addProperty(createProperty("symbol", "$.symbol"));
+        log.addProperty(createProperty("price", "$.price"));
+
+        assertTrue(log.mediate(synCtx));
+        Object tree = amc.getProperty(JSON_PAYLOAD_TREE);
+        assertNotNull(tree);
+
+        // the payload is parsed once, for the first property of the first log
+        assertTrue(log.mediate(synCtx));
+        assertSame(tree, amc.getProperty(JSON_PAYLOAD_TREE));
+        assertEquals("IBM", new SynapseJsonPath("$.symbol").stringValueOf(synCtx));
+        assertSame(tree, amc.getProperty(JSON_PAYLOAD_TREE));
+    }
+
+    private MediatorProperty createProperty(String name, String jsonPath) throws Exception {
+        MediatorProperty property = new MediatorProperty();
+        property.setName(name);
+        property.setExpression(new SynapseJsonPath(jsonPath));
+        return property;
+    }
+}
@@ -45,6 +45,21 @@ public class ValidateMediatorSerializationTest extends AbstractTestCase {
         assertTrue(serialization(validateConfiguration, validateMediatorFactory, validateMediatorSerializer));
     }
 
+    public void testValidateMediatorSerializationStreaming() throws Exception {
+
+        validateMediatorFactory = new ValidateMediatorFactory();
+        validateMediatorSerializer = new ValidateMediatorSerializer();
+
+        String validateConfiguration = "<syn:validate xmlns:syn=\"http://ws.apache.org/ns/synapse\" source=\"//regRequest\" streaming=\"true\">" +
+                "<syn:schema key=\"file:synapse_repository/conf/sample/validate.xsd\"/>" +
+                "<syn:on-fail>" +
+                "<syn:drop/>" +
+                "</syn:on-fail>" +
+                "</syn:validate>";
+
+        assertTrue(serialization(validateConfiguration, validateMediatorFactory, validateMediatorSerializer));
+    }
+
     public void testValidateMediatorSerializationWithExternalResources() throws Exception {
 
         validateMediatorFactory = new ValidateMediatorFactory();
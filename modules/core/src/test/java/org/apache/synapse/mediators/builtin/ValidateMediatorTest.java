@@ -20,17 +20,24 @@
 package org.apache.synapse.mediators.builtin;
 
 import junit.framework.TestCase;
+import org.apache.axiom.om.util.StAXUtils;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axiom.soap.impl.builder.StAXSOAPModelBuilder;
 import org.apache.commons.lang.mutable.MutableInt;
 import org.apache.synapse.MessageContext;
 import org.apache.synapse.TestMessageContextBuilder;
 import org.apache.synapse.config.SynapseConfigUtils;
+import org.apache.synapse.config.SynapseConfiguration;
 import org.apache.synapse.config.xml.ValidateMediatorFactory;
+import org.apache.synapse.core.axis2.Axis2SynapseEnvironment;
 import org.apache.synapse.mediators.Value;
 import org.apache.synapse.mediators.TestMediateHandler;
 import org.apache.synapse.mediators.TestMediator;
+import org.apache.synapse.mediators.base.SequenceMediator;
 import org.apache.synapse.util.xpath.SynapseXPath;
 import org.jaxen.JaxenException;
 
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -221,6 +228,92 @@ public class ValidateMediatorTest extends TestCase {
         test(validate, synCtx, true);
     }
 
+    public void testValidateMediatorReusedAcrossMessages() throws Exception {
+        // create a validate mediator
+        ValidateMediator validate = new ValidateMediator();
+
+        // set the schema url, source xpath and any name spaces
+        validate.setSchemaKeys(createKeyListFromStaticKey("xsd-key-1"));
+        validate.setSource(createXPath("//m0:CheckPriceRequest"));
+        validate.setStreaming(true);
+
+        // the cached schema and its pooled validator are re-used for each message
+        String[] envelopes = {VALID_ENVELOPE, IN_VALID_ENVELOPE, VALID_ENVELOPE, IN_VALID_ENVELOPE};
+        for (int i = 0; i < envelopes.length; i++) {
+            MessageContext synCtx = new TestMessageContextBuilder()
+                    .addFileEntry("xsd-key-1", "./../../repository/conf/sample/resources/validate/validate.xsd")
+                    .setBodyFromString(envelopes[i]).build();
+            test(validate, synCtx, i % 2 == 1);
+        }
+    }
+
+    public void testValidateMediatorStreamingUnbuiltElement() throws Exception {
+        // create a validate mediator, validating the first child of the body by default
+        ValidateMediator validate = new ValidateMediator();
+        validate.setSchemaKeys(createKeyListFromStaticKey("xsd-key-1"));
+        validate.setStreaming(true);
+
+        String[] envelopes = {VALID_ENVELOPE, IN_VALID_ENVELOPE};
+        for (int i = 0; i < envelopes.length; i++) {
+            MessageContext synCtx = new TestMessageContextBuilder()
+                    .addFileEntry("xsd-key-1", "./../../repository/conf/sample/resources/validate/validate.xsd")
+                    .build();
+            synCtx.setEnvelope(createUnbuiltEnvelope(envelopes[i]));
+            // the element is validated as it is read from the stream
+            assertFalse(synCtx.getEnvelope().getBody().getFirstElement().isComplete());
+            test(validate, synCtx, i == 1);
+        }
+
+        // the validator is returned to the pool, and dropped with it on destroy
+        assertEquals(1, validate.getPooledValidatorCount());
+        validate.destroy();
+        assertEquals(0, validate.getPooledValidatorCount());
+    }
+
+    public void testValidateMediatorStreamingInSequence() throws Exception {
+        ValidateMediator validate = new ValidateMediator();
+        validate.setSchemaKeys(createKeyListFromStaticKey("xsd-key-1"));
+        assertTrue(validate.isContentAware());
+        validate.setStreaming(true);
+        final MutableInt onFailInvoked = new MutableInt();
+        TestMediator onFail = new TestMediator();
+        onFail.setHandler(
+                new TestMediateHandler() {
+                    public void handle(MessageContext synCtx) {
+                        onFailInvoked.increment();
+                    }
+                });
+        validate.addChild(onFail);
+
+        SequenceMediator seq = new SequenceMediator();
+        seq.addChild(validate);
+        seq.init(new Axis2SynapseEnvironment(new SynapseConfiguration()));
+        // the sequence does not build the message ahead of a streaming validation
+        assertFalse(validate.isContentAware());
+        assertFalse(seq.isContentAware());
+
+        String[] envelopes = {VALID_ENVELOPE, IN_VALID_ENVELOPE};
+        for (String envelope : envelopes) {
+            MessageContext synCtx = new TestMessageContextBuilder()
+                    .addFileEntry("xsd-key-1", "./../../repository/conf/sample/resources/validate/validate.xsd")
+                    .build();
+            synCtx.setEnvelope(createUnbuiltEnvelope(envelope));
+            assertTrue(seq.mediate(synCtx));
+        }
+
+        assertEquals(1, onFailInvoked.intValue());
+        assertEquals(2, validate.getStreamedCount());
+        assertEquals(0, seq.getBuildCount());
+    }
+
+    private SOAPEnvelope createUnbuiltEnvelope(String body) throws Exception {
+        String envelope =
+                "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+                "<soapenv:Body>" + body + "</soapenv:Body></soapenv:Envelope>";
+        return new StAXSOAPModelBuilder(StAXUtils.createXMLStreamReader(
+                new StringReader(envelope))).getSOAPEnvelope();
+    }
+
     public void testValidateMediatorValidCaseNoNS() throws Exception {
         // create a validate mediator
         ValidateMediator validate = new ValidateMediator();
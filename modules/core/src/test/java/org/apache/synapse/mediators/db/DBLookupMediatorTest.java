@@ -29,6 +29,7 @@ import org.apache.synapse.core.axis2.Axis2SynapseEnvironment;
 import org.apache.synapse.mediators.AbstractMediatorTestCase;
 import org.apache.synapse.mediators.TestUtils;
 
+import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Properties;
 
@@ -50,6 +51,41 @@ public class DBLookupMediatorTest extends AbstractMediatorTestCase {
         assertEquals(synCtx.getProperty("categoryProp"), "B");
     }
 
+    public void testLookupResultCache() throws Exception {
+        DBLookupMediator cachedLookup = new DBLookupMediator();
+        cachedLookup.setDataSource(lookup.getDataSource());
+        cachedLookup.addStatement(lookup.getStatementList().get(0));
+        cachedLookup.setCacheTimeout(60000);
+        cachedLookup.init(new Axis2SynapseEnvironment(new SynapseConfiguration()));
+
+        MessageContext synCtx = TestUtils.getTestContext("<dummy><source>6</source></dummy>");
+        assertTrue(cachedLookup.mediate(synCtx));
+        assertEquals("svr3", synCtx.getProperty("targetProp"));
+
+        Connection con = lookup.getDataSource().getConnection();
+        java.sql.Statement s = con.createStatement();
+        try {
+            s.execute("update destinations set target = 'svr4' where source = 6");
+
+            // the cached row is used until it expires
+            synCtx = TestUtils.getTestContext("<dummy><source>6</source></dummy>");
+            assertTrue(cachedLookup.mediate(synCtx));
+            assertEquals("svr3", synCtx.getProperty("targetProp"));
+            assertEquals("B", synCtx.getProperty("categoryProp"));
+            assertEquals(1, cachedLookup.getResultCache().getHitCount());
+
+            // different parameter values are looked up separately
+            synCtx = TestUtils.getTestContext("<dummy><source>5</source></dummy>");
+            assertTrue(cachedLookup.mediate(synCtx));
+            assertEquals("svr1", synCtx.getProperty("targetProp"));
+            assertEquals(2, cachedLookup.getResultCache().size());
+        } finally {
+            s.execute("update destinations set target = 'svr3' where source = 6");
+            s.close();
+            con.close();
+        }
+    }
+
     public static Test suite() {
         return new TestSetup(new TestSuite(DBLookupMediatorTest.class)) {
 
@@ -28,11 +28,18 @@ import org.apache.synapse.config.xml.DBReportMediatorFactory;
 import org.apache.synapse.core.axis2.Axis2SynapseEnvironment;
 import org.apache.synapse.mediators.AbstractMediatorTestCase;
 import org.apache.synapse.mediators.TestUtils;
+import org.apache.synapse.util.xpath.SynapseXPath;
 
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DBReportMediatorTest extends AbstractMediatorTestCase {
 
@@ -55,6 +62,112 @@ public class DBReportMediatorTest extends AbstractMediatorTestCase {
         }
     }
 
+    public void testBatchedReport() throws Exception {
+        DBReportMediator batchReport = new DBReportMediator();
+        batchReport.setDataSource(report.getDataSource());
+        batchReport.addStatement(report.getStatementList().get(0));
+        batchReport.setBatchSize(2);
+        batchReport.setBatchInterval(0);
+        batchReport.init(new Axis2SynapseEnvironment(new SynapseConfiguration()));
+
+        try {
+            assertTrue(batchReport.mediate(TestUtils.getTestContext(
+                "<dummy><from>batch</from><count>1</count><to>you</to></dummy>")));
+            assertEquals(0, countRows("batch"));
+
+            // the second row fills the batch and both rows are written
+            assertTrue(batchReport.mediate(TestUtils.getTestContext(
+                "<dummy><from>batch</from><count>2</count><to>you</to></dummy>")));
+            assertEquals(2, countRows("batch"));
+        } finally {
+            Connection con = report.getDataSource().getConnection();
+            con.createStatement().execute("delete from audit where fromepr = 'batch'");
+            con.close();
+        }
+    }
+
+    public void testBatchedReportOfInterleavedStatements() throws Exception {
+        final DataSource dataSource = report.getDataSource();
+        final AtomicInteger prepared = new AtomicInteger();
+        // counts the statements prepared, i.e. the batches written
+        DataSource countingDataSource = (DataSource) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class[] {DataSource.class},
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args)
+                            throws Throwable {
+                        Object result;
+                        try {
+                            result = method.invoke(dataSource, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                        if ("getConnection".equals(method.getName())) {
+                            return countPrepareStatement((Connection) result, prepared);
+                        }
+                        return result;
+                    }
+                });
+
+        Statement silver = new Statement("insert into audit values(?, ?, ?, 'SILVER')");
+        silver.addParameter(null, new SynapseXPath("//from"), "VARCHAR");
+        silver.addParameter(null, new SynapseXPath("//count"), "INTEGER");
+        silver.addParameter(null, new SynapseXPath("//to"), "VARCHAR");
+
+        DBReportMediator batchReport = new DBReportMediator();
+        batchReport.setDataSource(countingDataSource);
+        batchReport.addStatement(report.getStatementList().get(0));
+        batchReport.addStatement(silver);
+        batchReport.setBatchSize(4);
+        batchReport.setBatchInterval(0);
+        batchReport.init(new Axis2SynapseEnvironment(new SynapseConfiguration()));
+
+        try {
+            // each message adds a row of both statements, so the rows alternate
+            assertTrue(batchReport.mediate(TestUtils.getTestContext(
+                "<dummy><from>mixed</from><count>1</count><to>you</to></dummy>")));
+            assertTrue(batchReport.mediate(TestUtils.getTestContext(
+                "<dummy><from>mixed</from><count>2</count><to>you</to></dummy>")));
+
+            assertEquals(4, countRows("mixed"));
+            assertEquals(2, prepared.get());
+        } finally {
+            Connection con = report.getDataSource().getConnection();
+            con.createStatement().execute("delete from audit where fromepr = 'mixed'");
+            con.close();
+        }
+    }
+
+    private static Connection countPrepareStatement(final Connection con,
+                                                    final AtomicInteger prepared) {
+        return (Connection) Proxy.newProxyInstance(
+                DBReportMediatorTest.class.getClassLoader(), new Class[] {Connection.class},
+                new InvocationHandler() {
+                    public Object invoke(Object proxy, Method method, Object[] args)
+                            throws Throwable {
+                        if ("prepareStatement".equals(method.getName())) {
+                            prepared.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(con, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }
+                });
+    }
+
+    private int countRows(String from) throws SQLException {
+        Connection con = report.getDataSource().getConnection();
+        try {
+            ResultSet rs = con.createStatement().executeQuery(
+                "select count(*) from audit where fromepr = '" + from + "'");
+            rs.next();
+            return rs.getInt(1);
+        } finally {
+            con.close();
+        }
+    }
+
     public static Test suite() {
         return new TestSetup(new TestSuite(DBReportMediatorTest.class)) {
 
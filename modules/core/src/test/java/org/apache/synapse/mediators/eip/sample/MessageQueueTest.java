@@ -0,0 +1,141 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.mediators.eip.sample;
+
+import junit.framework.TestCase;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.config.SynapseConfiguration;
+import org.apache.synapse.mediators.TestUtils;
+
+import java.io.File;
+
+public class MessageQueueTest extends TestCase {
+
+    public void testBoundedQueueDropNew() throws Exception {
+        BoundedMessageQueue queue = new BoundedMessageQueue();
+        queue.setCapacity(2);
+        MessageContext first = TestUtils.getTestContext("<first/>");
+        MessageContext second = TestUtils.getTestContext("<second/>");
+        queue.add(first);
+        queue.add(second);
+        queue.add(TestUtils.getTestContext("<third/>"));
+
+        assertEquals(2, queue.size());
+        assertEquals(1, queue.getDroppedCount());
+        assertSame(first, queue.get());
+        assertSame(second, queue.get());
+        assertNull(queue.get());
+        assertTrue(queue.isEmpty());
+    }
+
+    public void testBoundedQueueDropOldest() throws Exception {
+        BoundedMessageQueue queue = new BoundedMessageQueue();
+        queue.setCapacity(2);
+        queue.setOverflowPolicy(BoundedMessageQueue.DROP_OLDEST);
+        MessageContext second = TestUtils.getTestContext("<second/>");
+        MessageContext third = TestUtils.getTestContext("<third/>");
+        queue.add(TestUtils.getTestContext("<first/>"));
+        queue.add(second);
+        queue.add(third);
+
+        assertEquals(2, queue.size());
+        assertEquals(1, queue.getDroppedCount());
+        assertSame(second, queue.get());
+        assertSame(third, queue.get());
+        assertTrue(queue.isEmpty());
+    }
+
+    public void testFileQueueSurvivesReload() throws Exception {
+        File file = File.createTempFile("sampler", ".queue");
+        file.delete();
+        SynapseConfiguration synCfg = new SynapseConfiguration();
+        MessageContext synCtx = TestUtils.createSynapseMessageContext("<test>1</test>", synCfg);
+
+        FileMessageQueue queue = new FileMessageQueue();
+        queue.setFile(file.getPath());
+        queue.init(synCtx.getEnvironment());
+        try {
+            queue.add(synCtx);
+            queue.add(TestUtils.createSynapseMessageContext("<test>2</test>", synCfg));
+            assertEquals(2, queue.size());
+            assertTrue(queue.persist());
+        } finally {
+            queue.destroy();
+        }
+
+        queue = new FileMessageQueue();
+        queue.setFile(file.getPath());
+        queue.init(synCtx.getEnvironment());
+        try {
+            queue.load();
+            assertEquals(2, queue.size());
+            assertEquals("1", queue.get().getEnvelope().getBody().getFirstElement().getText());
+            assertEquals("2", queue.get().getEnvelope().getBody().getFirstElement().getText());
+            assertNull(queue.get());
+            assertTrue(queue.isEmpty());
+        } finally {
+            queue.destroy();
+            file.delete();
+        }
+    }
+
+    public void testFileQueueCompactedWithoutDraining() throws Exception {
+        File file = File.createTempFile("sampler", ".queue");
+        file.delete();
+        SynapseConfiguration synCfg = new SynapseConfiguration();
+        MessageContext synCtx = TestUtils.createSynapseMessageContext("<test>0</test>", synCfg);
+
+        FileMessageQueue queue = new FileMessageQueue();
+        queue.setFile(file.getPath());
+        queue.setCompactionThreshold(4096);
+        queue.init(synCtx.getEnvironment());
+        try {
+            queue.add(synCtx);
+            long recordLength = file.length();
+            long maxLength = 0;
+            // a message is always left on the queue, so the file is never truncated as empty
+            for (int i = 1; i <= 200; i++) {
+                queue.add(TestUtils.createSynapseMessageContext("<test>" + i + "</test>", synCfg));
+                maxLength = Math.max(maxLength, file.length());
+                assertEquals(String.valueOf(i - 1),
+                        queue.get().getEnvelope().getBody().getFirstElement().getText());
+                assertEquals(1, queue.size());
+            }
+            assertTrue("The file has grown to " + maxLength + " bytes",
+                    maxLength < 4096 + 4 * recordLength);
+            assertTrue(queue.persist());
+        } finally {
+            queue.destroy();
+        }
+
+        queue = new FileMessageQueue();
+        queue.setFile(file.getPath());
+        queue.init(synCtx.getEnvironment());
+        try {
+            queue.load();
+            assertEquals(1, queue.size());
+            assertEquals("200", queue.get().getEnvelope().getBody().getFirstElement().getText());
+            assertTrue(queue.isEmpty());
+        } finally {
+            queue.destroy();
+            file.delete();
+        }
+    }
+}
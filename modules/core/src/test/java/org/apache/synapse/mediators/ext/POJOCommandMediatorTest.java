@@ -127,4 +127,20 @@ public class POJOCommandMediatorTest extends AbstractMediatorTestCase {
         assertEquals("testcommand", ctx.getProperty("testCtxProp").toString());
         assertTrue(POJOCommandTestHelper.getInstance().isExecuted());
     }
+
+    public void testPojoMediatedRepeatedly() throws Exception {
+        Mediator pcm = MediatorFactoryFinder.getInstance().getMediator(createOMElement(
+                "<pojoCommand name='org.apache.synapse.mediators.ext.POJOCommandTestMediator' " +
+                        "xmlns='http://ws.apache.org/ns/synapse'><property name=\"testProp\" " +
+                        "context-name=\"testCtxProp\" action=\"ReadAndUpdateContext\"/></pojoCommand>"), new Properties());
+        for (int i = 0; i < 3; i++) {
+            POJOCommandTestHelper.reset();
+            MessageContext ctx = new TestMessageContext();
+            ctx.setProperty("testCtxProp", "value" + i);
+            pcm.mediate(ctx);
+            assertEquals("value" + i, POJOCommandTestHelper.getInstance().getChangedProperty());
+            assertEquals("value" + i, ctx.getProperty("testCtxProp"));
+            assertTrue(POJOCommandTestHelper.getInstance().isExecuted());
+        }
+    }
 }
@@ -0,0 +1,141 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.synapse.mediators.transform;
+
+import junit.framework.TestCase;
+import org.apache.axiom.om.OMElement;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.SynapseException;
+import org.apache.synapse.commons.json.JsonUtil;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.mediators.TestUtils;
+import org.apache.synapse.util.xpath.SynapseJsonPath;
+import org.apache.synapse.util.xpath.SynapseXPath;
+
+import javax.xml.namespace.QName;
+
+public class PayloadFactoryMediatorTest extends TestCase {
+
+    private static final String NS = "http://services.samples";
+
+    private static final String FORMAT =
+            "<m:quote xmlns:m=\"" + NS + "\"><m:symbol>$1</m:symbol><m:note>$2</m:note>" +
+            "<m:price currency=\"$\">$1$3</m:price></m:quote>";
+
+    public void testCompiledFormatReplacement() throws Exception {
+        PayloadFactoryMediator payloadFactory = createMediator(FORMAT);
+
+        // the same compiled format is used for each message
+        for (String symbol : new String[] {"IBM", "MSFT"}) {
+            MessageContext synCtx = TestUtils.createLightweightSynapseMessageContext(
+                    "<getQuote><symbol>" + symbol + "</symbol></getQuote>");
+            assertTrue(payloadFactory.mediate(synCtx));
+
+            OMElement quote = synCtx.getEnvelope().getBody().getFirstChildWithName(
+                    new QName(NS, "quote"));
+            assertNotNull(quote);
+            assertEquals(symbol, quote.getFirstChildWithName(new QName(NS, "symbol")).getText());
+            // replacement values are appended as they are, without regex group references
+            assertEquals("$1 & \\2", quote.getFirstChildWithName(new QName(NS, "note")).getText());
+            assertEquals(symbol + "10", quote.getFirstChildWithName(new QName(NS, "price")).getText());
+            assertEquals("$", quote.getFirstChildWithName(new QName(NS, "price"))
+                    .getAttributeValue(new QName("currency")));
+        }
+    }
+
+    public void testEnvelopeFormat() throws Exception {
+        PayloadFactoryMediator payloadFactory = createMediator(
+                "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+                "<soapenv:Body><m:quote xmlns:m=\"" + NS + "\"><m:symbol>$1</m:symbol>" +
+                "</m:quote></soapenv:Body></soapenv:Envelope>");
+
+        MessageContext synCtx = TestUtils.createLightweightSynapseMessageContext(
+                "<getQuote><symbol>IBM</symbol></getQuote>");
+        assertTrue(payloadFactory.mediate(synCtx));
+
+        OMElement quote = synCtx.getEnvelope().getBody().getFirstElement();
+        assertEquals(new QName(NS, "quote"), quote.getQName());
+        assertEquals("IBM", quote.getFirstElement().getText());
+    }
+
+    public void testMalformedPayloadRejected() throws Exception {
+        PayloadFactoryMediator payloadFactory = new PayloadFactoryMediator();
+        payloadFactory.setType("xml");
+        payloadFactory.setFormat("<m:quote xmlns:m=\"" + NS + "\" m:symbol=\"$1\"/>");
+        // an XML value is not escaped, and breaks the attribute it is placed in
+        Argument symbol = new Argument();
+        symbol.setValue("<symbol>IBM</symbol>");
+        payloadFactory.addPathArgument(symbol);
+
+        MessageContext synCtx = TestUtils.createLightweightSynapseMessageContext(
+                "<getQuote><symbol>IBM</symbol></getQuote>");
+        try {
+            payloadFactory.mediate(synCtx);
+            fail("A malformed payload should not be attached to the message");
+        } catch (SynapseException expected) {
+            // handled by the fault sequence
+        }
+        assertEquals("getQuote", synCtx.getEnvelope().getBody().getFirstElement().getLocalName());
+    }
+
+    public void testJsonPathArgumentsReadCachedPayloadTree() throws Exception {
+        MessageContext synCtx = TestUtils.createLightweightSynapseMessageContext("<empty/>");
+        org.apache.axis2.context.MessageContext amc =
+                ((Axis2MessageContext) synCtx).getAxis2MessageContext();
+        JsonUtil.newJsonPayload(amc, "{\"symbol\":\"IBM\",\"price\":10}", true, true);
+
+        // a JSON path evaluated earlier in the flow leaves the parsed payload tree behind
+        assertEquals("IBM", new SynapseJsonPath("$.symbol").stringValueOf(synCtx));
+        Object tree = amc.getProperty("org.apache.synapse.util.xpath.JsonPayloadTree");
+        assertNotNull(tree);
+
+        PayloadFactoryMediator payloadFactory = new PayloadFactoryMediator();
+        payloadFactory.setType("json");
+        payloadFactory.setFormat("{\"quote\":{\"symbol\":\"$1\",\"price\":$2}}");
+        Argument symbol = new Argument();
+        symbol.setExpression(new SynapseJsonPath("$.symbol"));
+        payloadFactory.addPathArgument(symbol);
+        Argument price = new Argument();
+        price.setExpression(new SynapseJsonPath("$.price"));
+        payloadFactory.addPathArgument(price);
+        assertTrue(payloadFactory.mediate(synCtx));
+
+        // the arguments were evaluated over the cached tree, without parsing the payload again
+        assertSame(tree, amc.getProperty("org.apache.synapse.util.xpath.JsonPayloadTree"));
+        assertEquals("{\"quote\":{\"symbol\":\"IBM\",\"price\":10}}",
+                JsonUtil.jsonPayloadToString(amc));
+    }
+
+    private PayloadFactoryMediator createMediator(String format) throws Exception {
+        PayloadFactoryMediator payloadFactory = new PayloadFactoryMediator();
+        payloadFactory.setType("xml");
+        payloadFactory.setFormat(format);
+
+        Argument symbol = new Argument();
+        symbol.setExpression(new SynapseXPath("//symbol"));
+        payloadFactory.addPathArgument(symbol);
+        Argument note = new Argument();
+        note.setValue("$1 & \\2");
+        payloadFactory.addPathArgument(note);
+        Argument price = new Argument();
+        price.setValue("10");
+        payloadFactory.addPathArgument(price);
+        return payloadFactory;
+    }
+}
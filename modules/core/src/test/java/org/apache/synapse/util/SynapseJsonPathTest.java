@@ -0,0 +1,71 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util;
+
+import junit.framework.TestCase;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.commons.json.JsonUtil;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.mediators.TestUtils;
+import org.apache.synapse.util.xpath.SynapseJsonPath;
+
+public class SynapseJsonPathTest extends TestCase {
+
+    private static final String JSON_PAYLOAD_TREE = "org.apache.synapse.util.xpath.JsonPayloadTree";
+
+    public void testPayloadTreeReused() throws Exception {
+        MessageContext synCtx = TestUtils.createLightweightSynapseMessageContext("<empty/>");
+        org.apache.axis2.context.MessageContext amc = setJsonPayload(synCtx,
+                "{\"symbol\":\"IBM\",\"price\":10}");
+
+        assertEquals("IBM", new SynapseJsonPath("$.symbol").stringValueOf(synCtx));
+        Object tree = amc.getProperty(JSON_PAYLOAD_TREE);
+        assertNotNull(tree);
+
+        // another path over the same payload is evaluated over the tree parsed before
+        assertEquals("10", new SynapseJsonPath("$.price").stringValueOf(synCtx));
+        assertEquals("IBM", new SynapseJsonPath("$.symbol").stringValueOf(synCtx));
+        assertSame(tree, amc.getProperty(JSON_PAYLOAD_TREE));
+    }
+
+    public void testPayloadTreeInvalidatedByNewPayload() throws Exception {
+        MessageContext synCtx = TestUtils.createLightweightSynapseMessageContext("<empty/>");
+        org.apache.axis2.context.MessageContext amc = setJsonPayload(synCtx,
+                "{\"symbol\":\"IBM\"}");
+        SynapseJsonPath symbol = new SynapseJsonPath("$.symbol");
+
+        assertEquals("IBM", symbol.stringValueOf(synCtx));
+        Object tree = amc.getProperty(JSON_PAYLOAD_TREE);
+        assertNotNull(tree);
+
+        // a new payload comes with a new stream, so the cached tree no longer applies
+        setJsonPayload(synCtx, "{\"symbol\":\"MSFT\"}");
+        assertEquals("MSFT", symbol.stringValueOf(synCtx));
+        assertNotSame(tree, amc.getProperty(JSON_PAYLOAD_TREE));
+    }
+
+    private org.apache.axis2.context.MessageContext setJsonPayload(MessageContext synCtx,
+                                                                  String json) {
+        org.apache.axis2.context.MessageContext amc =
+                ((Axis2MessageContext) synCtx).getAxis2MessageContext();
+        assertNotNull(JsonUtil.newJsonPayload(amc, json, true, true));
+        return amc;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.util.concurrent;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DefaultSynapseSchedulerTest extends TestCase {
+
+    private DefaultSynapseScheduler scheduler;
+
+    @Override
+    protected void setUp() throws Exception {
+        scheduler = new DefaultSynapseScheduler(2, 10);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        scheduler.shutdown();
+    }
+
+    public void testFailingTaskKeepsRunning() throws Exception {
+        final CountDownLatch runs = new CountDownLatch(4);
+        ScheduledTask task = scheduler.scheduleWithFixedDelay("failing", new Runnable() {
+            public void run() {
+                runs.countDown();
+                throw new IllegalStateException("failed on purpose");
+            }
+        }, 0, 10);
+
+        assertTrue(runs.await(5, TimeUnit.SECONDS));
+        assertTrue(task.cancel());
+        assertTrue(task.isCancelled());
+        // let a run which may be in progress complete
+        Thread.sleep(50);
+
+        ScheduledTaskStatistics statistics = scheduler.getTaskStatistics().get("failing");
+        assertTrue(statistics.getExecutionCount() >= 3);
+        assertEquals(statistics.getExecutionCount(), statistics.getFailureCount());
+    }
+
+    public void testSlowOwnerDoesNotDelayOthers() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger slowRuns = new AtomicInteger();
+        for (int i = 0; i < 4; i++) {
+            scheduler.schedule("slow", new Runnable() {
+                public void run() {
+                    slowRuns.incrementAndGet();
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException ignore) {
+                    }
+                }
+            }, 0);
+        }
+
+        final CountDownLatch fast = new CountDownLatch(1);
+        scheduler.schedule("fast", new Runnable() {
+            public void run() {
+                fast.countDown();
+            }
+        }, 20);
+
+        try {
+            assertTrue(fast.await(5, TimeUnit.SECONDS));
+            // the tasks of the slow owner run one at a time
+            assertEquals(1, slowRuns.get());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    public void testTimeouts() throws Exception {
+        final CountDownLatch expired = new CountDownLatch(1);
+        final AtomicInteger cancelledRuns = new AtomicInteger();
+
+        ScheduledTask cancelled = scheduler.scheduleTimeout("timeouts", new Runnable() {
+            public void run() {
+                cancelledRuns.incrementAndGet();
+            }
+        }, 50);
+        scheduler.scheduleTimeout("timeouts", new Runnable() {
+            public void run() {
+                expired.countDown();
+            }
+        }, 50);
+        assertTrue(cancelled.cancel());
+        assertFalse(cancelled.cancel());
+
+        assertTrue(expired.await(5, TimeUnit.SECONDS));
+        Thread.sleep(50);
+        assertEquals(0, cancelledRuns.get());
+        assertEquals(0, scheduler.getPendingTimeoutCount());
+
+        ScheduledTaskStatistics statistics = scheduler.getTaskStatistics().get("timeouts");
+        assertEquals(1, statistics.getExecutionCount());
+        assertTrue(statistics.getMaxLag() >= 0);
+    }
+}
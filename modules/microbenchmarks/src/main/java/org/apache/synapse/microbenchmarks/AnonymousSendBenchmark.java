@@ -0,0 +1,108 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.synapse.microbenchmarks;
+
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.context.ConfigurationContextFactory;
+import org.apache.axis2.context.ServiceContext;
+import org.apache.axis2.context.ServiceGroupContext;
+import org.apache.axis2.description.AxisOperation;
+import org.apache.axis2.description.AxisService;
+import org.apache.axis2.description.AxisServiceGroup;
+import org.apache.synapse.ServerConfigurationInformation;
+import org.apache.synapse.ServerContextInformation;
+import org.apache.synapse.SynapseConstants;
+import org.apache.synapse.config.SynapseConfiguration;
+import org.apache.synapse.core.axis2.AnonymousServiceFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.xml.namespace.QName;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Preparing the anonymous service contexts a message without WS-Security and WS-RM is sent
+ * with: taking them from the shared send template, against creating them on each send as
+ * before. The template is internal to the Axis2 client, so it is reached by reflection, and
+ * the cost of the reflective calls is included in its score.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnonymousSendBenchmark {
+
+    private SynapseConfiguration synCfg;
+    private ConfigurationContext cfgCtx;
+
+    private Method getTemplate;
+    private Method getServiceContext;
+    private Method getOperation;
+
+    @Setup
+    public void setUp() throws Exception {
+        synCfg = new SynapseConfiguration();
+        cfgCtx = ConfigurationContextFactory.createEmptyConfigurationContext();
+        cfgCtx.getAxisConfiguration().addParameter(SynapseConstants.SYNAPSE_SERVER_CTX_INFO,
+                new ServerContextInformation(cfgCtx, new ServerConfigurationInformation()));
+
+        Class<?> templateClass =
+                Class.forName("org.apache.synapse.core.axis2.AnonymousSendTemplate");
+        getTemplate = templateClass.getDeclaredMethod("getTemplate",
+                SynapseConfiguration.class, ConfigurationContext.class, boolean.class);
+        getServiceContext = templateClass.getDeclaredMethod("getServiceContext");
+        getOperation = templateClass.getDeclaredMethod("getOperation", boolean.class);
+        getTemplate.setAccessible(true);
+        getServiceContext.setAccessible(true);
+        getOperation.setAccessible(true);
+    }
+
+    @Benchmark
+    public void template(Blackhole blackhole) throws Exception {
+        Object template = getTemplate.invoke(null, synCfg, cfgCtx, false);
+        blackhole.consume(getServiceContext.invoke(template));
+        blackhole.consume(getOperation.invoke(template, false));
+    }
+
+    @Benchmark
+    public void perSend(Blackhole blackhole) throws Exception {
+        AxisService service = AnonymousServiceFactory.getAnonymousService(
+                synCfg, cfgCtx.getAxisConfiguration(), false, false, false);
+        service.getParent().addParameter(SynapseConstants.HIDDEN_SERVICE_PARAM, "true");
+        ServiceGroupContext sgc = new ServiceGroupContext(
+                cfgCtx, (AxisServiceGroup) service.getParent());
+        ServiceContext serviceCtx = sgc.getServiceContext(service);
+        AxisOperation operation =
+                service.getOperation(new QName(AnonymousServiceFactory.OUT_IN_OPERATION));
+        blackhole.consume(serviceCtx);
+        blackhole.consume(operation);
+    }
+}
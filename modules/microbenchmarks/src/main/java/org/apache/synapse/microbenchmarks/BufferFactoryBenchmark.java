@@ -0,0 +1,76 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.microbenchmarks;
+
+import org.apache.http.nio.util.HeapByteBufferAllocator;
+import org.apache.synapse.transport.passthru.util.BufferFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Taking a buffer from the {@link BufferFactory} shared by the connections of a transport and
+ * giving it back, against allocating a buffer each time. The factory is shared by the benchmark
+ * threads, so that running with more threads measures the contention on it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BufferFactoryBenchmark {
+
+    @Param({"8192", "32768"})
+    private int bufferSize;
+
+    private BufferFactory bufferFactory;
+
+    @Setup
+    public void setUp() {
+        bufferFactory = new BufferFactory(bufferSize, new HeapByteBufferAllocator(), 512);
+    }
+
+    @Benchmark
+    public ByteBuffer getAndRelease() {
+        ByteBuffer buffer = bufferFactory.getBuffer();
+        buffer.put((byte) 1);
+        bufferFactory.release(buffer);
+        return buffer;
+    }
+
+    @Benchmark
+    public ByteBuffer allocate() {
+        ByteBuffer buffer = ByteBuffer.allocate(bufferSize);
+        buffer.put((byte) 1);
+        return buffer;
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.microbenchmarks;
+
+import org.apache.synapse.util.xpath.SynapseJsonPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SynapseJsonPath} evaluated over a JSON string, selecting a single value and the values
+ * of all the array elements
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonPathBenchmark {
+
+    @Param({Payloads.SMALL, Payloads.MEDIUM, Payloads.LARGE})
+    private int payloadSize;
+
+    private String json;
+    private SynapseJsonPath firstSymbol;
+    private SynapseJsonPath allPrices;
+
+    @Setup
+    public void setUp() throws Exception {
+        json = Payloads.json(payloadSize);
+        firstSymbol = new SynapseJsonPath("$.orders.order[0].symbol");
+        allPrices = new SynapseJsonPath("$.orders.order[*].price");
+    }
+
+    @Benchmark
+    public String firstSymbol() {
+        return firstSymbol.stringValueOf(json);
+    }
+
+    @Benchmark
+    public String allPrices() {
+        return allPrices.stringValueOf(json);
+    }
+}
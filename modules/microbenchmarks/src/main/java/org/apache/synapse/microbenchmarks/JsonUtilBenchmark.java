@@ -0,0 +1,81 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.microbenchmarks;
+
+import org.apache.axiom.om.OMElement;
+import org.apache.synapse.commons.json.JsonUtil;
+import org.apache.synapse.config.SynapseConfigUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The conversions of {@link JsonUtil} between JSON and XML, which back the JSON builder and
+ * formatter
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonUtilBenchmark {
+
+    @Param({Payloads.SMALL, Payloads.MEDIUM, Payloads.LARGE})
+    private int payloadSize;
+
+    private byte[] json;
+    private OMElement element;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    @Setup
+    public void setUp() throws Exception {
+        json = Payloads.json(payloadSize).getBytes("UTF-8");
+        element = SynapseConfigUtils.stringToOM(Payloads.xml(payloadSize));
+        element.build();
+    }
+
+    @Benchmark
+    public OMElement toXml() throws Exception {
+        OMElement xml = JsonUtil.toXml(new ByteArrayInputStream(json), true);
+        // the element is built on demand, build it to take the conversion into account
+        xml.build();
+        return xml;
+    }
+
+    @Benchmark
+    public int writeAsJson() throws Exception {
+        out.reset();
+        JsonUtil.writeAsJson(element, out);
+        return out.size();
+    }
+}
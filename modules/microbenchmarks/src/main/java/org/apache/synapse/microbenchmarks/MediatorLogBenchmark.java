@@ -0,0 +1,98 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.synapse.microbenchmarks;
+
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.SynapseLog;
+import org.apache.synapse.mediators.AbstractMediator;
+import org.apache.synapse.mediators.MediatorLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Getting the log of a mediator for a message, with debug and trace disabled, against creating
+ * a new {@link MediatorLog} for each message. The point of the shared log is the allocation
+ * rate, so run it with the GC profiler and compare the <code>gc.alloc.rate.norm</code> scores:
+ * <pre>
+ *     java -jar microbenchmarks.jar MediatorLogBenchmark -prof gc
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MediatorLogBenchmark {
+
+    private LogMediator mediator;
+    private MessageContext synCtx;
+
+    @Setup
+    public void setUp() throws Exception {
+        mediator = new LogMediator();
+        synCtx = Messages.createSynapseMessageContext(Payloads.xml(Integer.parseInt(Payloads.SMALL)));
+    }
+
+    @Benchmark
+    public SynapseLog sharedLog() {
+        return mediator.sharedLog(synCtx);
+    }
+
+    @Benchmark
+    public SynapseLog newLog() {
+        return mediator.newLog(synCtx);
+    }
+
+    /**
+     * A mediator doing what the built-in mediators do with their log on each message
+     */
+    static class LogMediator extends AbstractMediator {
+
+        public boolean mediate(MessageContext synCtx) {
+            return sharedLog(synCtx).isTraceOrDebugEnabled();
+        }
+
+        SynapseLog sharedLog(MessageContext synCtx) {
+            SynapseLog synLog = getLog(synCtx);
+            if (synLog.isTraceOrDebugEnabled()) {
+                synLog.traceOrDebug("Start : Log mediator");
+            }
+            return synLog;
+        }
+
+        SynapseLog newLog(MessageContext synCtx) {
+            SynapseLog synLog = new MediatorLog(log, isTraceOn(synCtx), synCtx);
+            if (synLog.isTraceOrDebugEnabled()) {
+                synLog.traceOrDebug("Start : Log mediator");
+            }
+            return synLog;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.microbenchmarks;
+
+import org.apache.axiom.om.OMAbstractFactory;
+import org.apache.axiom.om.OMDocument;
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.axis2.AxisFault;
+import org.apache.axis2.context.ConfigurationContext;
+import org.apache.axis2.engine.AxisConfiguration;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.config.SynapseConfigUtils;
+import org.apache.synapse.config.SynapseConfiguration;
+import org.apache.synapse.core.SynapseEnvironment;
+import org.apache.synapse.core.axis2.Axis2MessageContext;
+import org.apache.synapse.core.axis2.Axis2SynapseEnvironment;
+
+/**
+ * Creates the message contexts of the benchmarks, outside of a running Synapse
+ */
+final class Messages {
+
+    private static final ConfigurationContext CONFIGURATION_CONTEXT =
+            new ConfigurationContext(new AxisConfiguration());
+
+    private Messages() {
+    }
+
+    /**
+     * @return an Axis2 message context bound to a configuration context
+     */
+    static org.apache.axis2.context.MessageContext createAxis2MessageContext() {
+        org.apache.axis2.context.MessageContext mc = new org.apache.axis2.context.MessageContext();
+        mc.setConfigurationContext(CONFIGURATION_CONTEXT);
+        return mc;
+    }
+
+    /**
+     * @param payload the XML element to be placed in the SOAP body
+     * @return a Synapse message context carrying the payload
+     * @throws AxisFault if the envelope cannot be set
+     */
+    static MessageContext createSynapseMessageContext(String payload) throws AxisFault {
+        SynapseConfiguration config = new SynapseConfiguration();
+        config.setAxisConfiguration(CONFIGURATION_CONTEXT.getAxisConfiguration());
+        SynapseEnvironment env = new Axis2SynapseEnvironment(CONFIGURATION_CONTEXT, config);
+        MessageContext synCtx = new Axis2MessageContext(createAxis2MessageContext(), config, env);
+
+        SOAPEnvelope envelope = OMAbstractFactory.getSOAP11Factory().getDefaultEnvelope();
+        OMDocument omDoc = OMAbstractFactory.getSOAP11Factory().createOMDocument();
+        omDoc.addChild(envelope);
+        envelope.getBody().addChild(SynapseConfigUtils.stringToOM(payload));
+        synCtx.setEnvelope(envelope);
+        return synCtx;
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.microbenchmarks;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Runs the benchmarks at each of a list of concurrency levels, writes the scores to a CSV file,
+ * and compares them with a baseline recorded the same way. The options are given as
+ * <code>--name=value</code> arguments:
+ * <pre>
+ *  --include   regular expression of the benchmarks to run, all of them by default
+ *  --threads   comma separated numbers of benchmark threads (1)
+ *  --output    CSV file the scores are written to (microbenchmarks.csv)
+ *  --baseline  CSV file of a previous run the scores are compared with
+ * </pre>
+ *
+ * The scores are average times, so that a negative change against the baseline is a gain.
+ * The JMH command line, <code>java -jar microbenchmarks.jar</code>, remains available for runs
+ * at a single concurrency level.
+ */
+public class MicrobenchmarkRunner {
+
+    private static final String HEADER = "benchmark,params,threads,score,error,unit";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<String, String>();
+        options.put("include", MicrobenchmarkRunner.class.getPackage().getName() + ".*");
+        options.put("threads", "1");
+        options.put("output", "microbenchmarks.csv");
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (!arg.startsWith("--") || index < 0 ||
+                    !(options.containsKey(arg.substring(2, index)) ||
+                            "baseline".equals(arg.substring(2, index)))) {
+                System.err.println("Usage: java -cp microbenchmarks.jar " +
+                        MicrobenchmarkRunner.class.getName() + " [--include=regex] " +
+                        "[--threads=1,4,...] [--output=file] [--baseline=file]");
+                System.exit(1);
+            }
+            options.put(arg.substring(2, index), arg.substring(index + 1));
+        }
+
+        Map<String, String[]> scores = new LinkedHashMap<String, String[]>();
+        for (String threads : options.get("threads").split(",")) {
+            Options jmhOptions = new OptionsBuilder()
+                    .include(options.get("include"))
+                    .threads(Integer.parseInt(threads.trim()))
+                    .build();
+            for (RunResult result : new Runner(jmhOptions).run()) {
+                String[] row = toRow(result);
+                scores.put(key(row), row);
+            }
+        }
+
+        write(options.get("output"), scores);
+        if (options.containsKey("baseline")) {
+            compare(read(options.get("baseline")), scores);
+        }
+    }
+
+    private static String[] toRow(RunResult result) {
+        BenchmarkParams params = result.getParams();
+        StringBuilder values = new StringBuilder();
+        for (String key : new TreeSet<String>(params.getParamsKeys())) {
+            if (values.length() > 0) {
+                values.append(';');
+            }
+            values.append(key).append('=').append(params.getParam(key));
+        }
+        Result primary = result.getPrimaryResult();
+        return new String[] {
+                params.getBenchmark(),
+                values.toString(),
+                String.valueOf(params.getThreads()),
+                String.format(Locale.US, "%.3f", primary.getScore()),
+                String.format(Locale.US, "%.3f", primary.getScoreError()),
+                primary.getScoreUnit()
+        };
+    }
+
+    private static String key(String[] row) {
+        return row[0] + "," + row[1] + "," + row[2];
+    }
+
+    private static void write(String file, Map<String, String[]> scores) throws IOException {
+        PrintWriter out = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(file), "UTF-8"));
+        try {
+            out.println(HEADER);
+            for (String[] row : scores.values()) {
+                StringBuilder line = new StringBuilder();
+                for (String value : row) {
+                    if (line.length() > 0) {
+                        line.append(',');
+                    }
+                    line.append(value);
+                }
+                out.println(line);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static Map<String, String[]> read(String file) throws IOException {
+        Map<String, String[]> scores = new LinkedHashMap<String, String[]>();
+        BufferedReader in = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), "UTF-8"));
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.length() == 0 || line.startsWith("#") || HEADER.equals(line)) {
+                    continue;
+                }
+                String[] row = line.split(",", -1);
+                if (row.length != 6) {
+                    throw new IOException("Invalid baseline line : " + line);
+                }
+                scores.put(key(row), row);
+            }
+        } finally {
+            in.close();
+        }
+        return scores;
+    }
+
+    private static void compare(Map<String, String[]> baseline, Map<String, String[]> scores) {
+        System.out.println();
+        System.out.println(String.format(Locale.US, "%-70s %8s %14s %14s %9s",
+                "Benchmark", "Threads", "Baseline", "Score", "Change"));
+        for (Map.Entry<String, String[]> entry : scores.entrySet()) {
+            String[] row = entry.getValue();
+            String[] base = baseline.get(entry.getKey());
+            String name = row[0].substring(row[0].lastIndexOf('.', row[0].lastIndexOf('.') - 1)
+                    + 1) + (row[1].length() > 0 ? " (" + row[1] + ")" : "");
+            if (base == null || !base[5].equals(row[5])) {
+                System.out.println(String.format(Locale.US, "%-70s %8s %14s %14s %9s",
+                        name, row[2], "-", row[3] + " " + row[5], "-"));
+                continue;
+            }
+            double before = Double.parseDouble(base[3]);
+            double after = Double.parseDouble(row[3]);
+            System.out.println(String.format(Locale.US, "%-70s %8s %14s %14s %+8.1f%%",
+                    name, row[2], base[3] + " " + base[5], row[3] + " " + row[5],
+                    before == 0 ? 0 : (after - before) * 100 / before));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.microbenchmarks;
+
+import org.apache.axiom.soap.SOAPEnvelope;
+import org.apache.synapse.Mediator;
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.config.SynapseConfigUtils;
+import org.apache.synapse.config.xml.PayloadFactoryMediatorFactory;
+import org.apache.synapse.util.MessageHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A payload factory mediator building a summary of the payload with two XPath arguments. The
+ * mediator replaces the payload, so the original envelope is restored before each invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PayloadFactoryBenchmark {
+
+    private static final String CONFIGURATION =
+            "<payloadFactory xmlns=\"http://ws.apache.org/ns/synapse\" media-type=\"xml\">" +
+            "<format><m:summary xmlns:m=\"" + Payloads.NAMESPACE + "\">" +
+            "<m:first>$1</m:first><m:count>$2</m:count></m:summary></format>" +
+            "<args>" +
+            "<arg xmlns:m=\"" + Payloads.NAMESPACE + "\" expression=\"//m:order[1]/m:symbol\"/>" +
+            "<arg xmlns:m=\"" + Payloads.NAMESPACE + "\" expression=\"count(//m:order)\"/>" +
+            "</args></payloadFactory>";
+
+    @Param({Payloads.SMALL, Payloads.MEDIUM, Payloads.LARGE})
+    private int payloadSize;
+
+    private Mediator mediator;
+    private MessageContext synCtx;
+    private SOAPEnvelope envelope;
+
+    @Setup
+    public void setUp() throws Exception {
+        mediator = new PayloadFactoryMediatorFactory().createMediator(
+                SynapseConfigUtils.stringToOM(CONFIGURATION), new Properties());
+        synCtx = Messages.createSynapseMessageContext(Payloads.xml(payloadSize));
+        envelope = synCtx.getEnvelope();
+        envelope.build();
+    }
+
+    @Setup(Level.Invocation)
+    public void restoreEnvelope() throws Exception {
+        synCtx.setEnvelope(MessageHelper.cloneSOAPEnvelope(envelope));
+    }
+
+    @Benchmark
+    public boolean mediate() {
+        return mediator.mediate(synCtx);
+    }
+}
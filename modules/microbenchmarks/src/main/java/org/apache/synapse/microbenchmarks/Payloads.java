@@ -0,0 +1,86 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.microbenchmarks;
+
+/**
+ * Generates the payloads of the benchmarks: an order list in the namespace of the samples, with
+ * as many orders as fit in the requested size, in XML and in the equivalent JSON.
+ */
+final class Payloads {
+
+    static final String NAMESPACE = "http://services.samples";
+
+    /** Payload sizes in bytes the benchmarks are parametrized with */
+    static final String SMALL = "1024";
+    static final String MEDIUM = "10240";
+    static final String LARGE = "102400";
+
+    private Payloads() {
+    }
+
+    /**
+     * @param size the approximate size of the payload in bytes
+     * @return the order list as an XML element
+     */
+    static String xml(int size) {
+        StringBuilder xml = new StringBuilder("<m:orders xmlns:m=\"" + NAMESPACE + "\">");
+        int i = 0;
+        do {
+            xml.append("<m:order><m:id>").append(i).append("</m:id><m:symbol>SYM")
+                    .append(i).append("</m:symbol><m:quantity>").append(i % 100 + 1)
+                    .append("</m:quantity><m:price>").append(price(i))
+                    .append("</m:price></m:order>");
+            i++;
+        } while (xml.length() < size);
+        return xml.append("</m:orders>").toString();
+    }
+
+    /**
+     * @param size the approximate size of the payload in bytes
+     * @return the order list as a SOAP 1.1 envelope
+     */
+    static String soap(int size) {
+        return "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">" +
+                "<soapenv:Body>" + xml(size) + "</soapenv:Body></soapenv:Envelope>";
+    }
+
+    /**
+     * @param size the approximate size of the payload in bytes
+     * @return the order list as a JSON object
+     */
+    static String json(int size) {
+        StringBuilder json = new StringBuilder("{\"orders\":{\"order\":[");
+        int i = 0;
+        do {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":").append(i).append(",\"symbol\":\"SYM").append(i)
+                    .append("\",\"quantity\":").append(i % 100 + 1).append(",\"price\":")
+                    .append(price(i)).append('}');
+            i++;
+        } while (json.length() < size);
+        return json.append("]}}").toString();
+    }
+
+    private static String price(int i) {
+        return (i * 37 % 1000) + "." + (i % 100 < 10 ? "0" : "") + (i % 100);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.microbenchmarks;
+
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.ContentEncoder;
+import org.apache.http.nio.IOControl;
+import org.apache.synapse.transport.passthru.Pipe;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A message moved through a {@link Pipe}, either relayed from the decoder of the source to the
+ * encoder of the target as done in pass-through, or read through the input stream of the pipe
+ * as done when the message is built. The producer and the consumer are driven alternately from
+ * the benchmark thread, so that the pipe never blocks.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PipeBenchmark {
+
+    @Param({Payloads.SMALL, Payloads.MEDIUM, Payloads.LARGE})
+    private int payloadSize;
+
+    @Param({"8192"})
+    private int bufferSize;
+
+    private final NoopIOControl ioControl = new NoopIOControl();
+    private ByteArrayDecoder decoder;
+    private final DiscardingEncoder encoder = new DiscardingEncoder();
+    private ByteBuffer buffer;
+    private byte[] chunk;
+
+    @Setup
+    public void setUp() throws Exception {
+        decoder = new ByteArrayDecoder(Payloads.soap(payloadSize).getBytes("UTF-8"));
+        buffer = ByteBuffer.allocate(bufferSize);
+        chunk = new byte[bufferSize];
+    }
+
+    @Benchmark
+    public int relay() throws IOException {
+        buffer.clear();
+        decoder.reset();
+        encoder.reset();
+        Pipe pipe = new Pipe(ioControl, buffer, "benchmark", null);
+        pipe.attachConsumer(ioControl);
+        while (!encoder.isCompleted()) {
+            if (!decoder.isCompleted()) {
+                pipe.produce(decoder);
+            }
+            pipe.consume(encoder);
+        }
+        return encoder.written;
+    }
+
+    @Benchmark
+    public int read() throws IOException {
+        buffer.clear();
+        decoder.reset();
+        Pipe pipe = new Pipe(ioControl, buffer, "benchmark", null);
+        InputStream in = pipe.getInputStream();
+        int total = 0;
+        while (true) {
+            if (!decoder.isCompleted()) {
+                pipe.produce(decoder);
+            }
+            // the chunk is as large as the buffer, so that each read drains the pipe
+            int n = in.read(chunk, 0, chunk.length);
+            if (n == -1) {
+                return total;
+            }
+            total += n;
+        }
+    }
+
+    /**
+     * A decoder reading the message from a byte array, as much as fits in the buffer at a time
+     */
+    private static final class ByteArrayDecoder implements ContentDecoder {
+
+        private final byte[] content;
+        private int position;
+
+        private ByteArrayDecoder(byte[] content) {
+            this.content = content;
+        }
+
+        private void reset() {
+            position = 0;
+        }
+
+        public int read(ByteBuffer dst) throws IOException {
+            int n = Math.min(dst.remaining(), content.length - position);
+            dst.put(content, position, n);
+            position += n;
+            return n;
+        }
+
+        public boolean isCompleted() {
+            return position == content.length;
+        }
+    }
+
+    /**
+     * An encoder writing the message nowhere
+     */
+    private static final class DiscardingEncoder implements ContentEncoder {
+
+        private int written;
+        private boolean completed;
+
+        private void reset() {
+            written = 0;
+            completed = false;
+        }
+
+        public int write(ByteBuffer src) throws IOException {
+            int n = src.remaining();
+            src.position(src.limit());
+            written += n;
+            return n;
+        }
+
+        public void complete() throws IOException {
+            completed = true;
+        }
+
+        public boolean isCompleted() {
+            return completed;
+        }
+    }
+
+    private static final class NoopIOControl implements IOControl {
+
+        public void requestInput() {
+        }
+
+        public void suspendInput() {
+        }
+
+        public void requestOutput() {
+        }
+
+        public void suspendOutput() {
+        }
+
+        public void shutdown() throws IOException {
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.synapse.microbenchmarks;
+
+import org.apache.synapse.SynapseConstants;
+import org.apache.synapse.rest.RESTConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Constructor;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The property map of a message context against the HashMap it replaced, with the properties
+ * typically set, read and copied while a message is mediated. Both maps are created through
+ * their constructor by reflection, as the property map is internal to the message context.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PropertyMapBenchmark {
+
+    /** Properties set on most messages, followed by properties set by a configuration */
+    private static final String[] KEYS = {
+            SynapseConstants.RESPONSE,
+            SynapseConstants.OUT_ONLY,
+            SynapseConstants.PROXY_SERVICE,
+            SynapseConstants.TRANSPORT_IN_NAME,
+            SynapseConstants.STATISTICS_STACK,
+            RESTConstants.REST_API_CONTEXT,
+            RESTConstants.REST_FULL_REQUEST_PATH,
+            "correlation_id",
+            "tenant",
+            "custom.header"
+    };
+
+    @Param({"HashMap", "PropertyMap"})
+    private String map;
+
+    private Constructor<?> constructor;
+    private final Object value = Boolean.TRUE;
+
+    @Setup
+    public void setUp() throws Exception {
+        Class<?> mapClass = "HashMap".equals(map) ? HashMap.class :
+                Class.forName("org.apache.synapse.core.axis2.PropertyMap");
+        constructor = mapClass.getDeclaredConstructor();
+        constructor.setAccessible(true);
+    }
+
+    @Benchmark
+    public Map<String, Object> setAndGet(Blackhole blackhole) throws Exception {
+        Map<String, Object> properties = newMap();
+        for (String key : KEYS) {
+            properties.put(key, value);
+        }
+        for (int i = 0; i < 4; i++) {
+            for (String key : KEYS) {
+                blackhole.consume(properties.get(key));
+            }
+        }
+        return properties;
+    }
+
+    @Benchmark
+    public Map<String, Object> setAndCopy() throws Exception {
+        Map<String, Object> properties = newMap();
+        for (String key : KEYS) {
+            properties.put(key, value);
+        }
+        Map<String, Object> copy = newMap();
+        copy.putAll(properties);
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> newMap() throws Exception {
+        return (Map<String, Object>) constructor.newInstance();
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+package org.apache.synapse.microbenchmarks;
+
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.mediators.base.SequenceMediator;
+import org.apache.synapse.mediators.builtin.PropertyMediator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A sequence of cheap mediators, each setting a static property, mediated by interpreting the
+ * list of child mediators and through the pipeline compiled at init
+ * (synapse.sequence.compilation.enabled)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SequenceBenchmark {
+
+    @Param({"5", "20", "50"})
+    private int length;
+
+    @Param({"false", "true"})
+    private boolean compiled;
+
+    private SequenceMediator sequence;
+    private MessageContext synCtx;
+
+    @Setup
+    public void setUp() throws Exception {
+        synCtx = Messages.createSynapseMessageContext(Payloads.xml(Integer.parseInt(Payloads.SMALL)));
+
+        sequence = new SequenceMediator();
+        for (int i = 0; i < length; i++) {
+            PropertyMediator property = new PropertyMediator();
+            property.setName("benchmark.property" + i);
+            property.setValue("value" + i);
+            sequence.addChild(property);
+        }
+        sequence.init(synCtx.getEnvironment());
+        if (compiled) {
+            sequence.compile();
+        }
+    }
+
+    @Benchmark
+    public boolean mediate() {
+        return sequence.mediate(synCtx);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.microbenchmarks;
+
+import org.apache.synapse.rest.dispatch.URITemplateHelper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching a request path against the URI templates of the resources of an API, as the
+ * URI template dispatcher does, with the path matching the last resource
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class URITemplateBenchmark {
+
+    @Param({"1", "10", "50"})
+    private int resources;
+
+    private URITemplateHelper[] templates;
+    private String path;
+
+    @Setup
+    public void setUp() {
+        templates = new URITemplateHelper[resources];
+        for (int i = 0; i < resources; i++) {
+            templates[i] = new URITemplateHelper(
+                    "/service" + i + "/orders/{orderId}/items/{itemId}");
+        }
+        path = "/service" + (resources - 1) + "/orders/1234/items/56";
+    }
+
+    @Benchmark
+    public Map<String, String> match() {
+        for (URITemplateHelper template : templates) {
+            Map<String, String> variables = new HashMap<String, String>();
+            if (template.getUriTemplate().matches(path, variables)) {
+                return variables;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.microbenchmarks;
+
+import org.apache.synapse.MessageContext;
+import org.apache.synapse.util.xpath.SynapseXPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link SynapseXPath#stringValueOf(MessageContext)} over a built payload, with an expression
+ * matching early in the payload and one which traverses all of it
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class XPathBenchmark {
+
+    @Param({Payloads.SMALL, Payloads.MEDIUM, Payloads.LARGE})
+    private int payloadSize;
+
+    private MessageContext synCtx;
+    private SynapseXPath firstOrder;
+    private SynapseXPath lastOrder;
+
+    @Setup
+    public void setUp() throws Exception {
+        synCtx = Messages.createSynapseMessageContext(Payloads.xml(payloadSize));
+        synCtx.getEnvelope().build();
+        firstOrder = new SynapseXPath("//m:order[1]/m:symbol");
+        firstOrder.addNamespace("m", Payloads.NAMESPACE);
+        lastOrder = new SynapseXPath("//m:order[last()]/m:symbol");
+        lastOrder.addNamespace("m", Payloads.NAMESPACE);
+    }
+
+    @Benchmark
+    public String firstOrder() {
+        return firstOrder.stringValueOf(synCtx);
+    }
+
+    @Benchmark
+    public String lastOrder() {
+        return lastOrder.stringValueOf(synCtx);
+    }
+}
@@ -29,4 +29,5 @@ public interface Constants {
     public static final int CACHE_MAX_DELAY_MINS = 60 * 24;
     public static final int CACHE_MIN_DELAY_MINS = 1;
     public static final int CACHE_DEFAULT_DELAY_MINS = 15;
+    public static final int REVOCATION_DEFAULT_TIMEOUT_MS = 10000;
 }
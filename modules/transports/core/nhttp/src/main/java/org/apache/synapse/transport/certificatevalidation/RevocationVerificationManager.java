@@ -37,9 +37,24 @@ public class RevocationVerificationManager {
 
     private int cacheSize = Constants.CACHE_DEFAULT_ALLOCATED_SIZE;
     private int cacheDelayMins = Constants.CACHE_DEFAULT_DELAY_MINS;
+    private int timeout = Constants.REVOCATION_DEFAULT_TIMEOUT_MS;
+    private boolean softFail = false;
     private static final Log log = LogFactory.getLog(RevocationVerificationManager.class);
 
     public RevocationVerificationManager(Integer cacheAllocatedSize, Integer cacheDelayMins) {
+        this(cacheAllocatedSize, cacheDelayMins, null, false);
+    }
+
+    /**
+     * @param cacheAllocatedSize max size of the OCSP and CRL caches
+     * @param cacheDelayMins     how frequently the cache managers refresh the caches
+     * @param timeoutMillis      connect and read timeout for calling OCSP responders and downloading CRLs
+     * @param softFail           whether a certificate is accepted when its revocation status can not be found
+     *                           out, for example because the OCSP responders and CRL points did not respond
+     *                           within the timeout. A revoked certificate is never accepted.
+     */
+    public RevocationVerificationManager(Integer cacheAllocatedSize, Integer cacheDelayMins,
+                                         Integer timeoutMillis, boolean softFail) {
 
         if (cacheAllocatedSize != null && cacheAllocatedSize > Constants.CACHE_MIN_ALLOCATED_SIZE
                 && cacheAllocatedSize < Constants.CACHE_MAX_ALLOCATED_SIZE) {
@@ -49,6 +64,10 @@ public class RevocationVerificationManager {
                 && cacheDelayMins < Constants.CACHE_MAX_DELAY_MINS) {
             this.cacheDelayMins = cacheDelayMins;
         }
+        if (timeoutMillis != null && timeoutMillis > 0) {
+            this.timeout = timeoutMillis;
+        }
+        this.softFail = softFail;
     }
 
     /**
@@ -69,22 +88,63 @@ public class RevocationVerificationManager {
         CRLCache crlCache = CRLCache.getCache();
         crlCache.init(cacheSize, cacheDelayMins);
 
-        RevocationVerifier[] verifiers = {new OCSPVerifier(ocspCache), new CRLVerifier(crlCache)};
+        OCSPVerifier ocspVerifier = new OCSPVerifier(ocspCache);
+        ocspVerifier.setTimeout(timeout);
+        CRLVerifier crlVerifier = new CRLVerifier(crlCache);
+        crlVerifier.setTimeout(timeout);
+        RevocationVerifier[] verifiers = {ocspVerifier, crlVerifier};
+        boolean revoked = false;
 
         for (RevocationVerifier verifier : verifiers) {
+            StatusRecorder recorder = new StatusRecorder(verifier);
             try {
-                CertificatePathValidator pathValidator = new CertificatePathValidator(convertedCertificates, verifier);
+                CertificatePathValidator pathValidator = new CertificatePathValidator(convertedCertificates, recorder);
                 pathValidator.validatePath();
                 log.info("Path verification Successful. Took " + (System.currentTimeMillis() - start) + " ms.");
                 return;
             } catch (Exception e) {
+                revoked |= recorder.isNotGood();
                 log.info(verifier.getClass().getSimpleName() + " failed.");
                 log.debug("Certificate verification with " + verifier.getClass().getSimpleName() + " failed. ", e);
             }
         }
+
+        if (softFail && !revoked) {
+            log.warn("Revocation status of the certificate chain could not be verified with OCSP or CRL. " +
+                    "Accepting the certificates since soft fail is enabled. Took " +
+                    (System.currentTimeMillis() - start) + " ms.");
+            return;
+        }
         throw new CertificateVerificationException("Path Verification Failed for both OCSP and CRL");
     }
 
+    /**
+     * Records whether a verifier found a certificate revoked or of an unknown status, so that a failure to
+     * verify can be told apart from a certificate which is not good.
+     */
+    private static class StatusRecorder implements RevocationVerifier {
+
+        private final RevocationVerifier verifier;
+        private boolean notGood = false;
+
+        StatusRecorder(RevocationVerifier verifier) {
+            this.verifier = verifier;
+        }
+
+        public RevocationStatus checkRevocationStatus(X509Certificate peerCert, X509Certificate issuerCert)
+                throws CertificateVerificationException {
+            RevocationStatus status = verifier.checkRevocationStatus(peerCert, issuerCert);
+            if (status != RevocationStatus.GOOD) {
+                notGood = true;
+            }
+            return status;
+        }
+
+        boolean isNotGood() {
+            return notGood;
+        }
+    }
+
     /**
      * @param certs array of javax.security.cert.X509Certificate[] s.
      * @return the converted array of java.security.cert.X509Certificate[] s.
@@ -144,6 +144,10 @@ public class CacheManager {
             List<ManageableCacheValue> entriesToRemove = new ArrayList<ManageableCacheValue>();
             LRUEntryCollector lruEntryCollector = new LRUEntryCollector(entriesToRemove, numberToRemove);
 
+            //Entries which become invalid before the next run are refreshed now, so that they are not
+            //found invalid while verifying a certificate.
+            long refreshTime = System.currentTimeMillis() + TimeUnit.MINUTES.toMillis(delay);
+
             //Start looking at cache entries from the beginning.
             cache.resetIterator();
             //Iteration through the cache entries.
@@ -155,8 +159,8 @@ public class CacheManager {
                     break;
                 }
 
-                //Updating invalid cache values
-                if (!nextCacheValue.isValid()) {
+                //Updating invalid cache values and the values about to become invalid
+                if (!nextCacheValue.isValidUntil(refreshTime)) {
                     log.info("Updating Invalid Cache Value by Manager");
                     nextCacheValue.updateCacheWithNewValue();
                 }
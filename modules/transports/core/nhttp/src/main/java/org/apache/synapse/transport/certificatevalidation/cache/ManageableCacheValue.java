@@ -26,6 +26,9 @@ public interface ManageableCacheValue {
     //To remove invalid entries from the cache.
     public boolean isValid();
 
+    //To refresh entries before they become invalid.
+    public boolean isValidUntil(long time);
+
     //To decide LRU value to replace.
     public long getTimeStamp();
 
@@ -27,11 +27,20 @@ import org.apache.synapse.transport.certificatevalidation.cache.CacheManager;
 import org.apache.synapse.transport.certificatevalidation.cache.ManageableCache;
 import org.apache.synapse.transport.certificatevalidation.cache.ManageableCacheValue;
 
+import org.apache.synapse.transport.certificatevalidation.RevocationStatus;
+
+import java.math.BigInteger;
 import java.security.cert.X509CRL;
+import java.security.cert.X509CRLEntry;
+import java.security.cert.X509Certificate;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Since a CRL maps to a CRL URL, the CRLCache should have x509CRL entries against CRL URLs.
@@ -41,7 +50,7 @@ import java.util.concurrent.ConcurrentHashMap;
 public class CRLCache implements ManageableCache {
 
     private static volatile CRLCache cache;
-    private static volatile Map<String, CRLCacheValue> hashMap = new ConcurrentHashMap<String, CRLCacheValue>();
+    private static volatile ConcurrentMap<String, CRLCacheValue> hashMap = new ConcurrentHashMap<String, CRLCacheValue>();
     private static volatile Iterator<Map.Entry<String, CRLCacheValue>> iterator = hashMap.entrySet().iterator();
     private static volatile CacheManager cacheManager;
     private static CRLVerifier crlVerifier = new CRLVerifier(null);
@@ -109,9 +118,10 @@ public class CRLCache implements ManageableCache {
         iterator = hashMap.entrySet().iterator();
     }
 
-    private synchronized void replaceNewCacheValue(CRLCacheValue cacheValue) {
+    //Not synchronized, so that the cache is not locked while the CRL is downloaded.
+    private void replaceNewCacheValue(CRLCacheValue cacheValue) {
         //If someone has updated with the new value before current Thread.
-        if (cacheValue.isValid())
+        if (hashMap.get(cacheValue.crlUrl) != cacheValue)
             return;
 
         try {
@@ -119,26 +129,45 @@ public class CRLCache implements ManageableCache {
             X509CRL x509CRL = crlVerifier.downloadCRLFromWeb(crlUrl);
             this.setCacheValue(crlUrl, x509CRL);
         } catch (Exception e) {
-            log.info("Cant replace old CacheValue with new CacheValue. So remove", e);
-            //If cant be replaced remove.
-            cacheValue.removeThisCacheValue();
+            //A value refreshed before it became invalid can still be used.
+            if (!cacheValue.isValid()) {
+                log.info("Cant replace old CacheValue with new CacheValue. So remove", e);
+                //If cant be replaced remove.
+                hashMap.remove(cacheValue.crlUrl, cacheValue);
+            } else {
+                log.info("Cant refresh CacheValue. The old CacheValue is used until it is invalid", e);
+            }
         }
     }
 
-    public synchronized X509CRL getCacheValue(String crlUrl) {
-        CRLCacheValue cacheValue = hashMap.get(crlUrl);
-        if (cacheValue != null) {
-            //If who ever gets this cache value before Cache manager task found its invalid, update it and get the
-            // new value.
-            if (!cacheValue.isValid()) {
-                cacheValue.updateCacheWithNewValue();
-                CRLCacheValue crlCacheValue = hashMap.get(crlUrl);
-                return (crlCacheValue != null ? crlCacheValue.getValue() : null);
-            }
+    public X509CRL getCacheValue(String crlUrl) {
+        CRLCacheValue cacheValue = getValidCacheValue(crlUrl);
+        return cacheValue != null ? cacheValue.getValue() : null;
+    }
 
-            return cacheValue.getValue();
-        } else
-            return null;
+    /**
+     * Gets the revocation status of a certificate using the cached CRL of the given URL. The serial numbers of
+     * the revoked certificates are indexed when a CRL is cached, so a certificate which is not revoked is
+     * found without going through the CRL entries.
+     *
+     * @param crlUrl URL of the CRL
+     * @param cert   certificate to be checked
+     * @return revocation status of the certificate, or null if a valid CRL is not cached for the URL
+     */
+    public RevocationStatus getRevocationStatus(String crlUrl, X509Certificate cert) {
+        CRLCacheValue cacheValue = getValidCacheValue(crlUrl);
+        return cacheValue != null ? cacheValue.getRevocationStatus(cert) : null;
+    }
+
+    private CRLCacheValue getValidCacheValue(String crlUrl) {
+        CRLCacheValue cacheValue = hashMap.get(crlUrl);
+        //If who ever gets this cache value before Cache manager task found its invalid, update it and get the
+        // new value.
+        if (cacheValue != null && !cacheValue.isValid()) {
+            cacheValue.updateCacheWithNewValue();
+            cacheValue = hashMap.get(crlUrl);
+        }
+        return cacheValue;
     }
 
     public synchronized void setCacheValue(String crlUrl, X509CRL crl) {
@@ -162,11 +191,22 @@ public class CRLCache implements ManageableCache {
 
         private String crlUrl;
         private X509CRL crl;
+        private Set<BigInteger> revokedSerialNumbers;
         private long timeStamp = System.currentTimeMillis();
 
         public CRLCacheValue(String crlUrl, X509CRL crl) {
             this.crlUrl = crlUrl;
             this.crl = crl;
+
+            Set<? extends X509CRLEntry> entries = crl.getRevokedCertificates();
+            if (entries == null) {
+                revokedSerialNumbers = Collections.emptySet();
+            } else {
+                revokedSerialNumbers = new HashSet<BigInteger>(entries.size() * 4 / 3 + 1);
+                for (X509CRLEntry entry : entries) {
+                    revokedSerialNumbers.add(entry.getSerialNumber());
+                }
+            }
         }
 
         public String getKey() {
@@ -182,9 +222,21 @@ public class CRLCache implements ManageableCache {
          * CRL has a validity period. We can reuse a downloaded CRL within that period.
          */
         public boolean isValid() {
-            Date today = new Date();
+            return isValidUntil(System.currentTimeMillis());
+        }
+
+        public boolean isValidUntil(long time) {
             Date nextUpdate = crl.getNextUpdate();
-            return nextUpdate != null && nextUpdate.after(today);
+            return nextUpdate != null && nextUpdate.getTime() > time;
+        }
+
+        public RevocationStatus getRevocationStatus(X509Certificate cert) {
+            timeStamp = System.currentTimeMillis();
+            //The CRL is checked for a serial number in the index, since the entry may be of another issuer.
+            if (revokedSerialNumbers.contains(cert.getSerialNumber()) && crl.isRevoked(cert)) {
+                return RevocationStatus.REVOKED;
+            }
+            return RevocationStatus.GOOD;
         }
 
         public long getTimeStamp() {
@@ -26,11 +26,13 @@ import org.bouncycastle.asn1.DERObject;
 import org.bouncycastle.asn1.DEROctetString;
 import org.bouncycastle.asn1.x509.*;
 import org.apache.synapse.transport.certificatevalidation.*;
+import org.apache.synapse.transport.certificatevalidation.Constants;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.net.URLConnection;
 import java.security.cert.*;
 import java.util.ArrayList;
 import java.util.List;
@@ -42,12 +44,20 @@ import java.util.List;
 public class CRLVerifier implements RevocationVerifier {
 
     private CRLCache cache;
+    private int timeout = Constants.REVOCATION_DEFAULT_TIMEOUT_MS;
     private static final Log log = LogFactory.getLog(CRLVerifier.class);
 
     public CRLVerifier(CRLCache cache) {
         this.cache = cache;
     }
 
+    /**
+     * @param timeout connect and read timeout in milliseconds used for downloading the CRLs
+     */
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
     /**
      * Checks revocation status (Good, Revoked) of the peer certificate. IssuerCertificate can be used
      * to check if the CRL URL has the Issuers Domain name. But this is not implemented at the moment.
@@ -67,10 +77,8 @@ public class CRLVerifier implements RevocationVerifier {
             log.info("Trying to get CRL for URL: " + crlUrl);
 
             if (cache != null) {
-                X509CRL x509CRL = cache.getCacheValue(crlUrl);
-                if (x509CRL != null) {
-                    //If cant be casted, we have used the wrong cache.
-                    RevocationStatus status = getRevocationStatus(x509CRL, peerCert);
+                RevocationStatus status = cache.getRevocationStatus(crlUrl, peerCert);
+                if (status != null) {
                     log.info("CRL taken from cache....");
                     return status;
                 }
@@ -108,7 +116,11 @@ public class CRLVerifier implements RevocationVerifier {
         InputStream crlStream = null;
         try {
             URL url = new URL(crlURL);
-            crlStream = url.openStream();
+            URLConnection con = url.openConnection();
+            //A slow CRL distribution point should not hold the thread doing the SSL handshake.
+            con.setConnectTimeout(timeout);
+            con.setReadTimeout(timeout);
+            crlStream = con.getInputStream();
             CertificateFactory cf = CertificateFactory.getInstance("X.509");
             return (X509CRL) cf.generateCRL(crlStream);
         } catch (MalformedURLException e) {
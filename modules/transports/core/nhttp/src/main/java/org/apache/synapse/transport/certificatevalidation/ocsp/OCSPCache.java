@@ -33,6 +33,7 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * This is a cache to store OSCP responses against Certificate Serial Number since an OCSP response depends on
@@ -42,7 +43,7 @@ import java.util.concurrent.ConcurrentHashMap;
 public class OCSPCache implements ManageableCache {
 
     private static volatile OCSPCache cache;
-    private static volatile Map<BigInteger,OCSPCacheValue> hashMap = new ConcurrentHashMap<BigInteger, OCSPCacheValue>();
+    private static volatile ConcurrentMap<BigInteger,OCSPCacheValue> hashMap = new ConcurrentHashMap<BigInteger, OCSPCacheValue>();
     private static volatile Iterator<Map.Entry<BigInteger,OCSPCacheValue>> iterator = hashMap.entrySet().iterator();
     private static volatile CacheManager cacheManager;
     private static OCSPVerifier ocspVerifier = new OCSPVerifier(null);
@@ -106,10 +107,11 @@ public class OCSPCache implements ManageableCache {
         iterator = hashMap.entrySet().iterator();
     }
 
-    //This has to be synchronized coz several threads will try to replace cache value (cacheManager and Reactor thread)
-    private synchronized void replaceNewCacheValue(OCSPCacheValue cacheValue){
+    //Several threads can try to replace a cache value at the same time (cacheManager and Reactor threads). This is
+    //not synchronized, so that the cache is not locked while the response is fetched.
+    private void replaceNewCacheValue(OCSPCacheValue cacheValue){
         //If someone has updated with the new value before current Thread.
-        if(cacheValue.isValid())
+        if (hashMap.get(cacheValue.serialNumber) != cacheValue)
             return;
 
         try {
@@ -130,13 +132,18 @@ public class OCSPCache implements ManageableCache {
             this.setCacheValue(cacheValue.serialNumber, resp, request, serviceUrl);
 
         } catch (Exception e){
-            log.info("Cant replace old CacheValue with new CacheValue. So remove", e);
-            //If cant be replaced remove.
-            cacheValue.removeThisCacheValue();
+            //A value refreshed before it became invalid can still be used.
+            if (!cacheValue.isValid()) {
+                log.info("Cant replace old CacheValue with new CacheValue. So remove", e);
+                //If cant be replaced remove.
+                hashMap.remove(cacheValue.serialNumber, cacheValue);
+            } else {
+                log.info("Cant refresh CacheValue. The old CacheValue is used until it is invalid", e);
+            }
         }
     }
 
-    public synchronized SingleResp getCacheValue(BigInteger serialNumber) {
+    public SingleResp getCacheValue(BigInteger serialNumber) {
         OCSPCacheValue cacheValue = hashMap.get(serialNumber);
         if(cacheValue != null) {
             //If who ever gets this cache value before Cache manager task found its invalid, update it and get the
@@ -198,10 +205,12 @@ public class OCSPCache implements ManageableCache {
          * An OCSP response is valid during its validity period.
          */
         public boolean isValid() {
-            //todo: elapse
-            Date now = new Date();
+            return isValidUntil(System.currentTimeMillis());
+        }
+
+        public boolean isValidUntil(long time) {
             Date nextUpdate = singleResp.getNextUpdate();
-            return nextUpdate != null && nextUpdate.after(now);
+            return nextUpdate != null && nextUpdate.getTime() > time;
         }
 
         public long getTimeStamp() {
@@ -25,6 +25,7 @@ import org.bouncycastle.asn1.ocsp.OCSPObjectIdentifiers;
 import org.bouncycastle.asn1.x509.*;
 import org.bouncycastle.ocsp.*;
 import org.apache.synapse.transport.certificatevalidation.*;
+import org.apache.synapse.transport.certificatevalidation.Constants;
 
 import java.io.*;
 import java.math.BigInteger;
@@ -42,12 +43,20 @@ import java.util.Vector;
 public class OCSPVerifier implements RevocationVerifier {
 
     private OCSPCache cache;
+    private int timeout = Constants.REVOCATION_DEFAULT_TIMEOUT_MS;
     private static final Log log = LogFactory.getLog(OCSPVerifier.class);
 
     public OCSPVerifier(OCSPCache cache) {
         this.cache = cache;
     }
 
+    /**
+     * @param timeout connect and read timeout in milliseconds used for calling the OCSP endpoints
+     */
+    public void setTimeout(int timeout) {
+        this.timeout = timeout;
+    }
+
     /**
      * Gets the revocation status (Good, Revoked or Unknown) of the given peer certificate.
      *
@@ -133,6 +142,9 @@ public class OCSPVerifier implements RevocationVerifier {
                 HttpURLConnection con;
                 URL url = new URL(serviceUrl);
                 con = (HttpURLConnection) url.openConnection();
+                //A slow responder should not hold the thread doing the SSL handshake.
+                con.setConnectTimeout(timeout);
+                con.setReadTimeout(timeout);
                 con.setRequestProperty("Content-Type", "application/ocsp-request");
                 con.setRequestProperty("Accept", "application/ocsp-response");
                 con.setDoOutput(true);
@@ -121,7 +121,15 @@ public class ClientConnFactoryBuilder {
                 cacheDelay = new Integer(cacheDelayString);
             }
             catch (NumberFormatException e) {}
-            revocationVerifier = new RevocationVerificationManager(cacheSize, cacheDelay);
+            OMElement timeoutEl = cvp.getParameterElement().getFirstChildWithName(new QName("Timeout"));
+            OMElement softFailEl = cvp.getParameterElement().getFirstChildWithName(new QName("SoftFail"));
+            Integer timeout = null;
+            try {
+                timeout = timeoutEl != null ? new Integer(timeoutEl.getText().trim()) : null;
+            }
+            catch (NumberFormatException e) {}
+            boolean softFail = softFailEl != null && "true".equalsIgnoreCase(softFailEl.getText().trim());
+            revocationVerifier = new RevocationVerificationManager(cacheSize, cacheDelay, timeout, softFail);
         }
 
         ssl = new SSLContextDetails(sslContext, new ClientSSLSetupHandler(hostnameVerifier, revocationVerifier));
@@ -24,18 +24,18 @@ import org.apache.axis2.context.MessageContext;
 import org.apache.axis2.transport.MessageFormatter;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.transport.passthru.util.CompressionUtils;
 
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URL;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * This is the decorator for message formatter and it is need because there isn't any mechanism
  * that can process the message before formatting is occurred.  For handle 'Accept-Encoding' some
  * kind of this is  required. This decorator encapsulates the message formatter and add the whatever
  * functionally when as required without effecting message formatter functionality.
- * This enable to serialize message in Gzip format .
+ * This enable to serialize message in Gzip format, or in the deflate format when created for it.
  */
 
 public class GzipMessageFormatterDecorator implements MessageFormatter {
@@ -45,8 +45,16 @@ public class GzipMessageFormatterDecorator implements MessageFormatter {
     /* The encapsulated message formatter instance */
     private MessageFormatter messageFormatter;
 
+    /* The content encoding to compress with, gzip or deflate */
+    private String encoding;
+
     public GzipMessageFormatterDecorator(MessageFormatter messageFormatter) {
+        this(messageFormatter, CompressionUtils.GZIP);
+    }
+
+    public GzipMessageFormatterDecorator(MessageFormatter messageFormatter, String encoding) {
         this.messageFormatter = messageFormatter;
+        this.encoding = encoding;
     }
 
     public byte[] getBytes(MessageContext messageContext, OMOutputFormat format) throws AxisFault {
@@ -57,12 +65,12 @@ public class GzipMessageFormatterDecorator implements MessageFormatter {
 
         try {
 
-            // Writes message as an GZIP stream
+            // Writes message as an GZIP (or deflate) stream, using a pooled deflater
             if (log.isDebugEnabled()) {
-                log.debug("Serialize message in to a GZIP stream");
+                log.debug("Serialize message in to a " + encoding + " stream");
             }
 
-            OutputStream out = new GZIPOutputStream(outputStream);
+            OutputStream out = CompressionUtils.compress(outputStream, encoding);
             messageFormatter.writeTo(messageContext, format, out, preserve);
 
             try {
@@ -26,6 +26,7 @@ import org.apache.axis2.util.MessageProcessorSelector;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.http.protocol.HTTP;
+import org.apache.synapse.transport.passthru.util.CompressionUtils;
 
 import java.util.Map;
 
@@ -37,8 +38,6 @@ public class MessageFormatterDecoratorFactory {
 
     private static final Log log = LogFactory.getLog(MessageFormatterDecoratorFactory.class);
 
-    private static final String GZIP_CODEC = "gzip";
-
     public static MessageFormatter createMessageFormatterDecorator(MessageContext msgContext) {
 
         if (msgContext == null) {
@@ -53,14 +52,16 @@ public class MessageFormatterDecoratorFactory {
             if (o != null && o instanceof Map) {
                 Map headers = (Map) o;
 
-                String encode = (String) headers.get(HTTP.CONTENT_ENCODING);
+                Object encode = headers.get(HTTP.CONTENT_ENCODING);
                 if (encode != null) {
 
-                    //If message  contains 'Accept-Encoding' header and  if it's value is 'qzip'
-                    if (GZIP_CODEC.equals(encode)) {
-                        formatter = new GzipMessageFormatterDecorator(formatter);
+                    //If message contains 'Content-Encoding' header and if it's value is 'gzip'
+                    //or 'deflate'
+                    if (CompressionUtils.isSupported(encode.toString())) {
+                        formatter = new GzipMessageFormatterDecorator(formatter,
+                                encode.toString());
                     }
-                    //if there are any type for 'Accept-Encoding' , those should go here
+                    //if there are any other types for 'Content-Encoding' , those should go here
 
                 }
             }
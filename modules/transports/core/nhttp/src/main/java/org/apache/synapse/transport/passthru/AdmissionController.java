@@ -0,0 +1,243 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.transport.passthru;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of requests the listener hands over to the worker pool at a time. The
+ * limit adapts to the observed latency of the requests and the depth of the worker pool queue:
+ * it grows while the latency stays close to the latency observed without load, and is
+ * cut down as soon as the requests start queueing up, so that the accepted requests are served
+ * in time instead of every request timing out under an overload. </p>
+ *
+ * <p> Requests which cannot be admitted are either held back with their input suspended until a
+ * request completes, or rejected when too many requests are already held back. </p>
+ */
+public class AdmissionController {
+
+    /** The latency increase tolerated before the limit is reduced */
+    private static final double LATENCY_TOLERANCE = 2.0;
+
+    /** The smallest factor the limit is reduced by at once */
+    private static final double MIN_GRADIENT = 0.5;
+
+    /** Weight of a new limit computed on a completion */
+    private static final double SMOOTHING = 0.2;
+
+    /** Weight of a latency sample in the short and long term averages */
+    private static final double SHORT_TERM_WEIGHT = 0.1;
+    private static final double LONG_TERM_WEIGHT = 0.002;
+
+    /**
+     * A request held back until it can be admitted
+     */
+    public interface Admission {
+
+        /**
+         * Hand over the request, once a permit is acquired for it
+         *
+         * @return false if the request has been abandoned meanwhile, in which case the permit
+         * is taken back
+         */
+        boolean admit();
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int queueThreshold;
+    private final int maxSuspended;
+
+    private volatile double limit;
+    private volatile double shortTermLatency;
+    private volatile double longTermLatency;
+
+    private final AtomicInteger inFlight = new AtomicInteger(0);
+    private final AtomicInteger suspended = new AtomicInteger(0);
+    private final Queue<Admission> suspendedRequests = new ConcurrentLinkedQueue<Admission>();
+
+    private final AtomicLong admittedCount = new AtomicLong(0);
+    private final AtomicLong suspendedCount = new AtomicLong(0);
+    private final AtomicLong rejectedCount = new AtomicLong(0);
+
+    /**
+     * @param initialLimit the number of concurrent requests admitted before any latency is known
+     * @param minLimit the number of concurrent requests always admitted
+     * @param maxLimit the number of concurrent requests never exceeded
+     * @param queueThreshold the worker pool queue depth beyond which the limit is reduced
+     * @param maxSuspended the number of requests held back at most, beyond which the requests
+     * are rejected
+     */
+    public AdmissionController(int initialLimit, int minLimit, int maxLimit,
+                               int queueThreshold, int maxSuspended) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.queueThreshold = queueThreshold;
+        this.maxSuspended = maxSuspended;
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    /**
+     * Acquire a permit for a request, if the limit is not reached
+     *
+     * @return true if the request is admitted
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                admittedCount.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Hold back a request which could not be admitted, until a permit is released
+     *
+     * @param admission the request held back
+     * @return false if too many requests are held back already, and the request must be rejected
+     */
+    public boolean suspend(Admission admission) {
+        if (suspended.incrementAndGet() > maxSuspended) {
+            suspended.decrementAndGet();
+            rejectedCount.incrementAndGet();
+            return false;
+        }
+        suspendedRequests.offer(admission);
+        suspendedCount.incrementAndGet();
+        // the requests in flight may have completed before this request is queued
+        admitSuspended();
+        return true;
+    }
+
+    /**
+     * Record a request rejected without being held back
+     */
+    public void reject() {
+        rejectedCount.incrementAndGet();
+    }
+
+    /**
+     * Release the permit of a completed request, and adapt the limit to its latency
+     *
+     * @param latency the time taken to serve the request in nanoseconds, or a negative value if
+     * the request did not complete normally and its latency must not be considered
+     * @param queueDepth the current depth of the worker pool queue
+     */
+    public void release(long latency, int queueDepth) {
+        if (latency >= 0) {
+            update(latency, queueDepth, inFlight.get());
+        }
+        inFlight.decrementAndGet();
+        admitSuspended();
+    }
+
+    private synchronized void update(long latency, int queueDepth, int concurrency) {
+        if (longTermLatency == 0) {
+            shortTermLatency = latency;
+            longTermLatency = latency;
+            return;
+        }
+        shortTermLatency += (latency - shortTermLatency) * SHORT_TERM_WEIGHT;
+        longTermLatency += (latency - longTermLatency) * LONG_TERM_WEIGHT;
+
+        // let the baseline follow quickly once the latency recovers from a long overload
+        if (longTermLatency > shortTermLatency * LATENCY_TOLERANCE) {
+            longTermLatency *= 0.95;
+        }
+
+        double gradient = Math.max(MIN_GRADIENT,
+                Math.min(1.0, LATENCY_TOLERANCE * longTermLatency / Math.max(1, shortTermLatency)));
+        if (queueThreshold >= 0 && queueDepth > queueThreshold) {
+            gradient = MIN_GRADIENT;
+        }
+
+        double current = limit;
+        if (gradient == 1.0 && concurrency < current / 2) {
+            // the limit is not what holds the requests back, do not grow it
+            return;
+        }
+        double next = current * gradient + Math.sqrt(current);
+        next = current * (1 - SMOOTHING) + next * SMOOTHING;
+        limit = Math.min(maxLimit, Math.max(minLimit, next));
+    }
+
+    private void admitSuspended() {
+        while (!suspendedRequests.isEmpty() && tryAcquire()) {
+            Admission admission = suspendedRequests.poll();
+            if (admission == null) {
+                inFlight.decrementAndGet();
+                admittedCount.decrementAndGet();
+                // another thread took it, try again as a permit may have been freed meanwhile
+                continue;
+            }
+            suspended.decrementAndGet();
+            if (!admission.admit()) {
+                inFlight.decrementAndGet();
+                admittedCount.decrementAndGet();
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getSuspended() {
+        return suspended.get();
+    }
+
+    public long getAdmittedCount() {
+        return admittedCount.get();
+    }
+
+    public long getSuspendedCount() {
+        return suspendedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public double getLatency() {
+        return shortTermLatency / 1000000;
+    }
+
+    public double getNoLoadLatency() {
+        return longTermLatency / 1000000;
+    }
+
+    public void resetCounts() {
+        admittedCount.set(0);
+        suspendedCount.set(0);
+        rejectedCount.set(0);
+    }
+}
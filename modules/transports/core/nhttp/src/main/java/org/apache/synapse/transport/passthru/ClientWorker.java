@@ -35,13 +35,11 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.http.HttpStatus;
 import org.apache.http.protocol.HTTP;
 import org.apache.synapse.transport.nhttp.NhttpConstants;
+import org.apache.synapse.transport.passthru.util.HeaderMap;
 
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.util.Comparator;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeMap;
 
 public class ClientWorker implements Runnable {
     private Log log = LogFactory.getLog(ClientWorker.class);
@@ -61,10 +59,10 @@ public class ClientWorker implements Runnable {
         this.response = response;
         this.expectEntityBody = response.isExpectResponseBody();
 
-        Map<String,String> headers = response.getHeaders();
+        HeaderMap headers = response.getHeaders();
         Map excessHeaders = response.getExcessHeaders();
 
-		String oriURL = headers.get(PassThroughConstants.LOCATION);
+		String oriURL = headers.getFirst(PassThroughConstants.LOCATION);
 
 		// Special casing 301, 302, 303 and 307 scenario in following section. Not sure whether it's the correct fix,
 		// but this fix makes it possible to do http --> https redirection.
@@ -134,18 +132,9 @@ public class ClientWorker implements Runnable {
         //setting the responseMsgCtx PassThroughConstants.INVOKED_REST property to the one set inside PassThroughTransportUtils
         responseMsgCtx.setProperty(PassThroughConstants.INVOKED_REST, outMsgCtx.isDoingREST());
 
-        // set any transport headers received
-        Set<Map.Entry<String, String>> headerEntries = response.getHeaders().entrySet();
-        Map<String, String> headerMap = new TreeMap<String, String>(new Comparator<String>() {
-            public int compare(String o1, String o2) {
-                return o1.compareToIgnoreCase(o2);
-            }
-        });
-
-        for (Map.Entry<String, String> headerEntry : headerEntries) {
-            headerMap.put(headerEntry.getKey(), headerEntry.getValue());
-        }
-        responseMsgCtx.setProperty(MessageContext.TRANSPORT_HEADERS, headerMap);
+        // set any transport headers received, sharing the case insensitive headers of the
+        // response instead of copying them
+        responseMsgCtx.setProperty(MessageContext.TRANSPORT_HEADERS, headers);
         responseMsgCtx.setProperty(NhttpConstants.EXCESS_TRANSPORT_HEADERS, excessHeaders);
 
         if (response.getStatus() == 202) {
@@ -243,18 +232,8 @@ public class ClientWorker implements Runnable {
     }
 
     private String inferContentType() {
-        //Check whether server sent Content-Type in different case
-        Map<String,String> headers = response.getHeaders();
-        for(String header : headers.keySet()){
-            if(HTTP.CONTENT_TYPE.equalsIgnoreCase(header)){
-                return headers.get(header);
-            }
-        }
-        String cType = response.getHeader("content-type");
-        if (cType != null) {
-            return cType;
-        }
-        cType = response.getHeader("Content-type");
+        // header names are case insensitive, so this finds Content-Type in any case
+        String cType = response.getHeader(HTTP.CONTENT_TYPE);
         if (cType != null) {
             return cType;
         }
@@ -273,7 +252,8 @@ public class ClientWorker implements Runnable {
 
         // When the response from backend does not have the body(Content-Length is 0 )
         // and Content-Type is not set; ESB should not do any modification to the response and pass-through as it is.
-        if (headers.get(HTTP.CONTENT_LEN) == null || "0".equals(headers.get(HTTP.CONTENT_LEN))) {
+        String contentLength = response.getHeader(HTTP.CONTENT_LEN);
+        if (contentLength == null || "0".equals(contentLength)) {
              return null;
          }
 
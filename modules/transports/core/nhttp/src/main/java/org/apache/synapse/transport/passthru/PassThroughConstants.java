@@ -123,6 +123,7 @@ public class PassThroughConstants {
 	public static final String REQ_DEPARTURE_TIME = "REQ_DEPARTURE_TIME";
 	public static final String RES_ARRIVAL_TIME = "RES_ARRIVAL_TIME";
 	public static final String RES_HEADER_ARRIVAL_TIME = "RES_HEADER_ARRIVAL_TIME";
+	public static final String REQ_ADMISSION_TIME = "REQ_ADMISSION_TIME";
 	public static final String RES_DEPARTURE_TIME = "RES_DEPARTURE_TIME";
 
 	public static final String MESSAGE_OUTPUT_FORMAT = "MESSAGE_OUTPUT_FORMAT";
@@ -64,6 +64,7 @@ import org.apache.synapse.transport.passthru.config.PassThroughConfiguration;
 import org.apache.synapse.transport.passthru.config.SourceConfiguration;
 import org.apache.synapse.transport.passthru.core.PassThroughSharedListenerConfiguration;
 import org.apache.synapse.transport.passthru.core.PassThroughListeningIOReactorManager;
+import org.apache.synapse.transport.passthru.jmx.AdmissionControlView;
 import org.apache.synapse.transport.passthru.jmx.MBeanRegistrar;
 import org.apache.synapse.transport.passthru.jmx.PassThroughTransportMetricsCollector;
 import org.apache.synapse.transport.passthru.jmx.TransportView;
@@ -166,6 +167,12 @@ public class PassThroughHttpListener implements TransportListener {
         sourceConfiguration = new SourceConfiguration(cfgCtx, transportInDescription, scheme, workerPool, metrics);
         sourceConfiguration.build();
 
+        if (sourceConfiguration.getAdmissionController() != null) {
+            MBeanRegistrar.getInstance().registerMBean(
+                    new AdmissionControlView(sourceConfiguration.getAdmissionController()),
+                    "Transport", "passthru-" + namePrefix.toLowerCase() + "-admission-control");
+        }
+
         HttpHost host = new HttpHost(
                 sourceConfiguration.getHostname(),
                 sourceConfiguration.getPort(),
@@ -393,6 +400,10 @@ public class PassThroughHttpListener implements TransportListener {
                 getAxisConfiguration().getObserversList().remove(axisObserver);*/
 //        serviceTracker.stop();
         sourceConfiguration.getMetrics().destroy();
+        if (sourceConfiguration.getAdmissionController() != null) {
+            MBeanRegistrar.getInstance().unRegisterMBean(
+                    "Transport", "passthru-" + namePrefix.toLowerCase() + "-admission-control");
+        }
     }
 
     /**
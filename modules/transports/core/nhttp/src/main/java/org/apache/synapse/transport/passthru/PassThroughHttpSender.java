@@ -59,6 +59,7 @@ import org.apache.synapse.transport.passthru.core.PassThroughSenderManager;
 import org.apache.synapse.transport.passthru.jmx.MBeanRegistrar;
 import org.apache.synapse.transport.passthru.jmx.PassThroughTransportMetricsCollector;
 import org.apache.synapse.transport.passthru.jmx.TransportView;
+import org.apache.synapse.transport.passthru.util.CompressionUtils;
 import org.apache.synapse.transport.passthru.util.PassThroughTransportUtils;
 import org.apache.synapse.transport.passthru.util.SourceResponseFactory;
 
@@ -522,8 +523,14 @@ public class PassThroughHttpSender extends AbstractHandler implements TransportS
                                                      msgContext, format, msgContext.getSoapAction()));
                 }
 
-                formatter.writeTo(msgContext, format, out, false);
+                OutputStream bodyOut = compressResponse(
+                        msgContext, sourceResponse, sourceConfiguration, out);
+                formatter.writeTo(msgContext, format, bodyOut, false);
                 /*}*/
+                if (bodyOut != out) {
+                    // writes the remaining content before the pipe is marked complete
+                    bodyOut.close();
+                }
                 pipe.setSerializationComplete(true);
                 out.close();
             }
@@ -547,6 +554,37 @@ public class PassThroughHttpSender extends AbstractHandler implements TransportS
         }
     }
 
+    /**
+     * Wrap the stream the response is serialized to with a gzip stream, if the client accepts
+     * gzip and the response grows beyond the configured compression threshold. The response is
+     * not compressed if it is already encoded or its length is already set.
+     *
+     * @param msgContext response message
+     * @param sourceResponse response to the client
+     * @param sourceConfiguration configuration of the listener
+     * @param out stream of the pipe
+     * @return the stream to serialize the response to
+     */
+    private OutputStream compressResponse(MessageContext msgContext,
+                                          final SourceResponse sourceResponse,
+                                          SourceConfiguration sourceConfiguration,
+                                          OutputStream out) {
+        int threshold = sourceConfiguration.getResponseCompressionThreshold();
+        if (threshold < 0 ||
+                !msgContext.isPropertyTrue(PassThroughConstants.REQUEST_ACCEPTS_GZIP) ||
+                sourceResponse.getHeader(HTTP.CONTENT_ENCODING) != null ||
+                sourceResponse.getHeader(HTTP.CONTENT_LEN) != null) {
+            return out;
+        }
+        return CompressionUtils.compressAboveThreshold(out, CompressionUtils.GZIP, threshold,
+                new Runnable() {
+                    public void run() {
+                        sourceResponse.addHeader(HTTP.CONTENT_ENCODING, CompressionUtils.GZIP);
+                        sourceResponse.addHeader("Vary", "Accept-Encoding");
+                    }
+                });
+    }
+
     public void pause() throws AxisFault {
         if (state != BaseConstants.STARTED) {
             return;
@@ -18,10 +18,7 @@ package org.apache.synapse.transport.passthru;
 
 import java.io.OutputStream;
 import java.net.InetAddress;
-import java.util.Comparator;
 import java.util.Map;
-import java.util.Set;
-import java.util.TreeMap;
 
 import javax.ws.rs.HttpMethod;
 import javax.xml.parsers.FactoryConfigurationError;
@@ -264,7 +261,7 @@ public class ServerWorker implements Runnable {
     }
 
     public void processNonEntityEnclosingRESTHandler(SOAPEnvelope soapEnvelope, MessageContext msgContext, boolean injectToAxis2Engine) {
-        String soapAction = request.getHeaders().get(SOAP_ACTION_HEADER);
+        String soapAction = request.getHeaders().getFirst(SOAP_ACTION_HEADER);
         if ((soapAction != null) && soapAction.startsWith("\"") && soapAction.endsWith("\"")) {
             soapAction = soapAction.substring(1, soapAction.length() - 1);
         }
@@ -300,7 +297,7 @@ public class ServerWorker implements Runnable {
 
     public  void processEntityEnclosingRequest(MessageContext msgContext, boolean injectToAxis2Engine) {
         try {
-            String contentTypeHeader = request.getHeaders().get(HTTP.CONTENT_TYPE);
+            String contentTypeHeader = request.getHeaders().getFirst(HTTP.CONTENT_TYPE);
             contentTypeHeader = contentTypeHeader != null ? contentTypeHeader : inferContentType();
 
             String charSetEncoding = null;
@@ -335,7 +332,7 @@ public class ServerWorker implements Runnable {
                 processNonEntityEnclosingRESTHandler(soapEnvelope, msgContext, injectToAxis2Engine);
     			return;
             } else {
-                String soapAction = request.getHeaders().get(SOAP_ACTION_HEADER);
+                String soapAction = request.getHeaders().getFirst(SOAP_ACTION_HEADER);
 
                 int soapVersion = HTTPTransportUtils.
                         initializeMessageContext(msgContext, soapAction,
@@ -440,18 +437,9 @@ public class ServerWorker implements Runnable {
         msgContext.setProperty(
                 Constants.Configuration.TRANSPORT_IN_URL, request.getUri());
 
-        // http transport header names are case insensitive
-        Map<String, String> headers = new TreeMap<String, String>(new Comparator<String>() {
-            public int compare(String o1, String o2) {
-                return o1.compareToIgnoreCase(o2);
-            }
-        });
-
-        Set<Map.Entry<String, String>> entries = request.getHeaders().entrySet();
-        for (Map.Entry<String, String> entry : entries) {
-            headers.put(entry.getKey(), entry.getValue());
-        }
-        msgContext.setProperty(MessageContext.TRANSPORT_HEADERS, headers);
+        // http transport header names are case insensitive, the headers of the request are
+        // shared with the message instead of being copied
+        msgContext.setProperty(MessageContext.TRANSPORT_HEADERS, request.getHeaders());
         msgContext.setProperty(NhttpConstants.EXCESS_TRANSPORT_HEADERS, excessHeaders);
 
         // Following section is required for throttling to work
@@ -550,11 +538,10 @@ public class ServerWorker implements Runnable {
     }
 
     private String inferContentType() {
-        Map<String, String> headers = request.getHeaders();
-        for (String header : headers.keySet()) {
-            if (HTTP.CONTENT_TYPE.equalsIgnoreCase(header)) {
-                return headers.get(header);
-            }
+        // header names are case insensitive in the map
+        String contentType = request.getHeaders().getFirst(HTTP.CONTENT_TYPE);
+        if (contentType != null) {
+            return contentType;
         }
         Parameter param = sourceConfiguration.getConfigurationContext().getAxisConfiguration().
                 getParameter(PassThroughConstants.REQUEST_CONTENT_TYPE);
@@ -595,7 +582,7 @@ public class ServerWorker implements Runnable {
             msgContext.setProperty(HTTPConstants.HTTP_METHOD, method);
             msgContext.setServerSide(true);
             msgContext.setDoingREST(true);
-            String contentTypeHeader = request.getHeaders().get(HTTP.CONTENT_TYPE);
+            String contentTypeHeader = request.getHeaders().getFirst(HTTP.CONTENT_TYPE);
             SOAPEnvelope soapEnvelope = this.handleRESTUrlPost(contentTypeHeader);
             processNonEntityEnclosingRESTHandler(soapEnvelope,msgContext,true);
             return true;
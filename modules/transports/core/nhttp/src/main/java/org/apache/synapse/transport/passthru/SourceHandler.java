@@ -94,7 +94,7 @@ public class SourceHandler implements NHttpServerEventHandler {
             }
             String method = request.getRequest() != null ? request.getRequest().getRequestLine().getMethod().toUpperCase():"";
             OutputStream os= getOutputStream(method,request);
-            sourceConfiguration.getWorkerPool().execute(new ServerWorker(request, sourceConfiguration,os));
+            dispatch(conn, new ServerWorker(request, sourceConfiguration,os));
         } catch (HttpException e) {
             log.error("HttpException occurred when request is processing probably when creating SourceRequest", e);
 
@@ -166,6 +166,7 @@ public class SourceHandler implements NHttpServerEventHandler {
                 if (!response.hasEntity()) {
                    // Update stats as outputReady will not be triggered for no entity responses
                    updateStatistics(conn);
+                   releaseAdmission(conn, true);
                 }
             }
         } catch (IOException e) {
@@ -203,6 +204,7 @@ public class SourceHandler implements NHttpServerEventHandler {
                 
                   conn.requestInput();
                   if(outBuf instanceof SimpleOutputBuffer && !((SimpleOutputBuffer)outBuf).hasData()){
+                      releaseAdmission(conn, true);
                 	  sourceConfiguration.getSourceConnections().releaseConnection(conn);
                   }
                   
@@ -228,6 +230,7 @@ public class SourceHandler implements NHttpServerEventHandler {
             
 			if (encoder.isCompleted()) {
                 updateStatistics(conn);
+                releaseAdmission(conn, true);
 			}
             
             metrics.incrementBytesSent(bytesSent);
@@ -344,6 +347,7 @@ public class SourceHandler implements NHttpServerEventHandler {
         }
 
         metrics.disconnected();
+        releaseAdmission(conn, false);
 
         SourceContext.updateState(conn, ProtocolState.CLOSED);
         sourceConfiguration.getSourceConnections().shutDownConnection(conn, isFault);
@@ -461,6 +465,106 @@ public class SourceHandler implements NHttpServerEventHandler {
     
     // ----------- utility methods -----------
 
+    /**
+     * Hand over a request to the worker pool. If admission control is enabled and the request
+     * cannot be admitted, the input of the connection is suspended until the request is admitted,
+     * or the request is rejected with a 503 response when too many requests are held back.
+     * @param conn the connection the request is received from
+     * @param worker the worker processing the request
+     */
+    private void dispatch(final NHttpServerConnection conn, final ServerWorker worker) {
+        final AdmissionController admissionController =
+                sourceConfiguration.getAdmissionController();
+        if (admissionController == null) {
+            sourceConfiguration.getWorkerPool().execute(worker);
+            return;
+        }
+
+        // the previous request on a keep-alive connection may not have released its permit
+        releaseAdmission(conn, false);
+
+        if (admissionController.tryAcquire()) {
+            execute(conn, worker);
+            return;
+        }
+
+        conn.suspendInput();
+        boolean suspended = admissionController.suspend(new AdmissionController.Admission() {
+            public boolean admit() {
+                ProtocolState state = SourceContext.getState(conn);
+                if (!conn.isOpen() || state == null ||
+                        state.compareTo(ProtocolState.CLOSING) >= 0) {
+                    return false;
+                }
+                execute(conn, worker);
+                conn.requestInput();
+                return true;
+            }
+        });
+
+        if (!suspended) {
+            if (log.isDebugEnabled()) {
+                log.debug(conn + ": Rejecting the request as the listener is overloaded");
+            }
+            rejectRequest(conn);
+        }
+    }
+
+    private void execute(NHttpServerConnection conn, ServerWorker worker) {
+        conn.getContext().setAttribute(PassThroughConstants.REQ_ADMISSION_TIME, System.nanoTime());
+        sourceConfiguration.getWorkerPool().execute(worker);
+    }
+
+    /**
+     * Release the admission permit held by the request of the given connection, if any
+     * @param conn the connection being processed
+     * @param completed whether the response to the request is completely written
+     */
+    private void releaseAdmission(NHttpServerConnection conn, boolean completed) {
+        AdmissionController admissionController = sourceConfiguration.getAdmissionController();
+        if (admissionController == null) {
+            return;
+        }
+        Long admissionTime = (Long) conn.getContext().removeAttribute(
+                PassThroughConstants.REQ_ADMISSION_TIME);
+        if (admissionTime != null) {
+            admissionController.release(completed ? System.nanoTime() - admissionTime : -1,
+                    sourceConfiguration.getWorkerPool().getQueueSize());
+        }
+    }
+
+    /**
+     * Reject a request which cannot be admitted with a 503 response, and close the connection
+     * as the request body is not read
+     * @param conn the connection being processed
+     */
+    private void rejectRequest(NHttpServerConnection conn) {
+        try {
+            HttpContext httpContext = conn.getContext();
+
+            HttpResponse response = new BasicHttpResponse(
+                    HttpVersion.HTTP_1_1, HttpStatus.SC_SERVICE_UNAVAILABLE, "Service Unavailable");
+            response.setParams(
+                    new DefaultedHttpParams(sourceConfiguration.getHttpParams(),
+                            response.getParams()));
+            response.addHeader(HTTP.CONN_DIRECTIVE, HTTP.CONN_CLOSE);
+
+            httpContext.setAttribute(ExecutionContext.HTTP_CONNECTION, conn);
+            httpContext.setAttribute(ExecutionContext.HTTP_REQUEST, null);
+            httpContext.setAttribute(ExecutionContext.HTTP_RESPONSE, response);
+
+            sourceConfiguration.getHttpProcessor().process(response, httpContext);
+
+            conn.submitResponse(response);
+            SourceContext.updateState(conn, ProtocolState.CLOSED);
+            conn.close();
+        } catch (Exception e) {
+            log.error("Error rejecting the request : " + e.getMessage(), e);
+            SourceContext.updateState(conn, ProtocolState.CLOSED);
+            sourceConfiguration.getSourceConnections().shutDownConnection(conn, true);
+        }
+    }
+
     private void handleException(String msg, Exception e, NHttpServerConnection conn) {
         log.error(msg, e);
         if (conn != null) {
@@ -16,17 +16,15 @@
 
 package org.apache.synapse.transport.passthru;
 
-import org.apache.commons.collections.map.MultiValueMap;
 import org.apache.http.*;
 import org.apache.http.message.BasicHttpResponse;
 import org.apache.http.nio.ContentDecoder;
 import org.apache.http.nio.NHttpServerConnection;
 import org.apache.synapse.transport.passthru.config.SourceConfiguration;
+import org.apache.synapse.transport.passthru.util.HeaderMap;
 
 import java.io.IOException;
-import java.util.Comparator;
 import java.util.Map;
-import java.util.TreeMap;
 
 /**
  * Represents a Http Request.
@@ -35,12 +33,8 @@ public class SourceRequest {
     // private Log log = LogFactory.getLog(SourceRequest.class);
 
     private Pipe pipe = null;
-    /** HTTP Headers */
-    private Map<String, String> headers =  new TreeMap<String, String>(new Comparator<String>() {
-        public int compare(String o1, String o2) {
-            return o1.compareToIgnoreCase(o2);
-        }
-    });
+    /** HTTP Headers, including the repeated ones */
+    private HeaderMap headers;
     /** HTTP URL */
     private String url;
     /** HTTP Method */
@@ -55,9 +49,6 @@ public class SourceRequest {
     private ProtocolVersion version = null;
     /** The connection from the client */
     private NHttpServerConnection connection = null;
-   
-    /** Excess headers of the request */
-    private Map excessHeaders = new MultiValueMap();
 
 
     public SourceRequest(SourceConfiguration sourceConfiguration,
@@ -78,16 +69,8 @@ public class SourceRequest {
             this.version = HttpVersion.HTTP_1_1;
         }
 
-        Header[] headers = request.getAllHeaders();
-        if (headers != null) {
-            for (Header header : headers) {
-                if(this.headers.containsKey(header.getName())) {
-	                 addExcessHeader(header);
-	            } else {
-	                 this.headers.put(header.getName(), header.getValue());
-	            }
-	        }
-	    }
+        // getAllHeaders returns a copy, which is kept without decoding the headers
+        this.headers = new HeaderMap(request.getAllHeaders());
     }
 
     /**
@@ -147,7 +130,7 @@ public class SourceRequest {
         }
     }
 
-    public Map<String, String> getHeaders() {
+    public HeaderMap getHeaders() {
         return headers;
     }
 
@@ -160,11 +143,11 @@ public class SourceRequest {
     }
     
     public Map getExcessHeaders() {
-         return this.excessHeaders;
+         return this.headers.getExcessHeaders();
     }
   
     public void addExcessHeader(Header h) {
-         this.excessHeaders.put(h.getName(), h.getValue());
+         this.headers.add(h.getName(), h.getValue());
     }
 
     public Pipe getPipe() {
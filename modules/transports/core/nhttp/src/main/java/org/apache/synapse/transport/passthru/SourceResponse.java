@@ -36,22 +36,18 @@ import org.apache.http.params.DefaultedHttpParams;
 import org.apache.http.protocol.ExecutionContext;
 import org.apache.http.protocol.HTTP;
 import org.apache.synapse.transport.passthru.config.SourceConfiguration;
+import org.apache.synapse.transport.passthru.util.HeaderMap;
 import org.apache.synapse.transport.passthru.util.PassThroughTransportUtils;
 import org.apache.synapse.transport.passthru.util.RelayUtils;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
 
 
 public class SourceResponse {
     private Pipe pipe = null;
-    /** Transport headers */
-    private Map<String, TreeSet<String>> headers = new HashMap<String, TreeSet<String>>();
+    /** Transport headers, including the repeated ones */
+    private HeaderMap headers = new HeaderMap();
     /** Status of the response */
     private int status = HttpStatus.SC_OK;
     /** Status line */
@@ -121,10 +117,7 @@ public class SourceResponse {
             entity = new BasicHttpEntity();
 
             int contentLength = -1;
-            String contentLengthHeader = null;
-            if (headers.get(HTTP.CONTENT_LEN) != null && headers.get(HTTP.CONTENT_LEN).size() > 0) {
-                contentLengthHeader = headers.get(HTTP.CONTENT_LEN).first();
-            }
+            String contentLengthHeader = headers.getFirst(HTTP.CONTENT_LEN);
 
             if (contentLengthHeader != null) {
                 contentLength = Integer.parseInt(contentLengthHeader);
@@ -143,15 +136,8 @@ public class SourceResponse {
         response.setEntity(entity);
 
         // set any transport headers
-        Set<Map.Entry<String, TreeSet<String>>> entries = headers.entrySet();
-
-        for (Map.Entry<String, TreeSet<String>> entry : entries) {
-            if (entry.getKey() != null) {     
-            	Iterator<String> i = entry.getValue().iterator();
-                while(i.hasNext()) {
-                	response.addHeader(entry.getKey(), i.next());
-                }   
-            }
+        for (int i = 0; i < headers.getHeaderCount(); i++) {
+            response.addHeader(headers.getName(i), String.valueOf(headers.getValue(i)));
         }
 		if (!keepAlive) {
 			response.setHeader(HTTP.CONN_DIRECTIVE, HTTP.CONN_CLOSE);
@@ -212,9 +198,8 @@ public class SourceResponse {
 			OMOutputFormat format = PassThroughTransportUtils.getOMOutputFormat(responseMsgContext);
 			ByteArrayOutputStream out = new ByteArrayOutputStream();
 			formatter.writeTo(responseMsgContext, format, out, false);
-			TreeSet<String> header = new TreeSet<String>();
-			header.add(String.valueOf(out.toByteArray().length));
-			headers.put(HTTP.CONTENT_LEN, header);
+			headers.remove(HTTP.CONTENT_LEN);
+			headers.add(HTTP.CONTENT_LEN, String.valueOf(out.toByteArray().length));
 		}
 	}
 
@@ -259,23 +244,25 @@ public class SourceResponse {
     }
 
     public void addHeader(String name, String value) {
-    	if(headers.get(name) == null) {
-    		TreeSet<String> values = new TreeSet<String>(); 
-    		values.add(value);
-    		headers.put(name, values);
-    	} else {
-    		TreeSet<String> values = headers.get(name);
-    		values.add(value);
+    	if (name != null && !headers.contains(name, value)) {
+    		headers.add(name, value);
     	}
     }
 
+    /**
+     * Get the first value of a header set on this response
+     * @param name name of the header
+     * @return the header value or null if the header is not set
+     */
+    public String getHeader(String name) {
+        return headers.getFirst(name);
+    }
+
     public void setStatus(int status) {
         this.status = status;
     }
     public void removeHeader(String name) {
-        if (headers.get(name) != null) {
-            headers.remove(name);
-        }
+        headers.remove(name);
     }
 
     private boolean canResponseHaveBody(final HttpRequest request, final HttpResponse response) {
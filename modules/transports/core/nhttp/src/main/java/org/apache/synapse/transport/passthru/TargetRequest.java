@@ -42,6 +42,7 @@ import org.apache.http.protocol.HTTP;
 import org.apache.synapse.transport.nhttp.NhttpConstants;
 import org.apache.synapse.transport.nhttp.util.MessageFormatterDecoratorFactory;
 import org.apache.synapse.transport.passthru.config.TargetConfiguration;
+import org.apache.synapse.transport.passthru.util.HeaderMap;
 import org.apache.synapse.transport.passthru.util.PassThroughTransportUtils;
 import org.apache.synapse.transport.passthru.util.RelayUtils;
 
@@ -50,12 +51,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URL;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.Set;
 import java.util.TreeMap;
-import java.util.TreeSet;
 
 /**
  * This is a class for representing a request to be sent to a target.
@@ -65,8 +62,8 @@ public class TargetRequest {
     private TargetConfiguration targetConfiguration;
     private HttpRoute route;
     private Pipe pipe = null;
-    /** Headers map */
-    private Map<String, TreeSet<String>> headers = new HashMap<String, TreeSet<String>>();
+    /** Headers of the request, including the repeated ones */
+    private HeaderMap headers = new HeaderMap();
     /** URL */
     private URL url;
     /** HTTP Method */
@@ -122,11 +119,8 @@ public class TargetRequest {
                     (url.getQuery() != null ? "?" + url.getQuery() : "");
 
         long contentLength = -1;
-        String contentLengthHeader = null;
-	    if(headers.get(HTTP.CONTENT_LEN) != null && headers.get(HTTP.CONTENT_LEN).size() > 0) {
-	        contentLengthHeader = headers.get(HTTP.CONTENT_LEN).first();
-	    }
-         
+        String contentLengthHeader = headers.getFirst(HTTP.CONTENT_LEN);
+
         if (contentLengthHeader != null) {
             contentLength = Integer.parseInt(contentLengthHeader);
             headers.remove(HTTP.CONTENT_LEN);
@@ -174,7 +168,7 @@ public class TargetRequest {
         
         
 		Object o = requestMsgCtx.getProperty(MessageContext.TRANSPORT_HEADERS);
-		if (o != null && o instanceof TreeMap) {
+		if (o instanceof HeaderMap || o instanceof TreeMap) {
 			Map _headers = (Map) o;
 			String trpContentType = (String) _headers.get(HTTP.CONTENT_TYPE);
 			if (trpContentType != null && !trpContentType.equals("")) {
@@ -225,15 +219,9 @@ public class TargetRequest {
                     version != null ? version : HttpVersion.HTTP_1_1);
         }
 
-        Set<Map.Entry<String, TreeSet<String>>> entries = headers.entrySet();
-        for (Map.Entry<String, TreeSet<String>> entry : entries) {
-             if (entry.getKey() != null) {
-                Iterator<String> i = entry.getValue().iterator();
-                 while(i.hasNext()) {
-                        request.addHeader(entry.getKey(), i.next());
-                 }
-             }
-         }
+        for (int i = 0; i < headers.getHeaderCount(); i++) {
+            request.addHeader(headers.getName(i), String.valueOf(headers.getValue(i)));
+        }
         
         //setup wsa action..
         if(request != null){
@@ -384,24 +372,15 @@ public class TargetRequest {
 	}
 
 	public void addHeader(String name, String value) {
-		if (headers.get(name) == null) {
-			TreeSet<String> values = new TreeSet<String>();
-			values.add(value);
-			if (HTTP.CONTENT_TYPE.equalsIgnoreCase(name)) {
-				headers.put(HTTP.CONTENT_TYPE, values);
-			} else {
-				headers.put(name, values);
-			}
-		} else {
-			if (HTTP.CONTENT_TYPE.equalsIgnoreCase(name)) {
-				headers.remove(HTTP.CONTENT_TYPE);
-				TreeSet<String> values = new TreeSet<String>();
-				values.add(value);
-				headers.put(HTTP.CONTENT_TYPE, values);
-			} else {
-				TreeSet<String> values = headers.get(name);
-				values.add(value);
-			}
+		if (name == null) {
+			return;
+		}
+		if (HTTP.CONTENT_TYPE.equalsIgnoreCase(name)) {
+			// there can be only one content type
+			headers.remove(HTTP.CONTENT_TYPE);
+			headers.add(HTTP.CONTENT_TYPE, value);
+		} else if (!headers.contains(name, value)) {
+			headers.add(name, value);
 		}
 	}
 
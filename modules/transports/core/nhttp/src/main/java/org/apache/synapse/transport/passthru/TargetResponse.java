@@ -16,16 +16,15 @@
 
 package org.apache.synapse.transport.passthru;
 
-import org.apache.commons.collections.map.MultiValueMap;
 import org.apache.http.*;
 import org.apache.http.entity.BasicHttpEntity;
 import org.apache.http.impl.DefaultConnectionReuseStrategy;
 import org.apache.http.nio.ContentDecoder;
 import org.apache.http.nio.NHttpClientConnection;
 import org.apache.synapse.transport.passthru.config.TargetConfiguration;
+import org.apache.synapse.transport.passthru.util.HeaderMap;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -35,10 +34,8 @@ public class TargetResponse {
     // private Log log = LogFactory.getLog(TargetResponse.class);
     /** To pipe the incoming data through */
     private Pipe pipe = null;
-    /** Headers of the response */
-    private Map<String, String> headers = new HashMap<String, String>();
-    /** Excess headers of the response */ 
-    private Map excessHeaders = new MultiValueMap();
+    /** Headers of the response, including the repeated ones */
+    private HeaderMap headers;
     /** The status of the response */
     private int status = HttpStatus.SC_OK;
     /** Http status line */
@@ -73,16 +70,8 @@ public class TargetResponse {
         this.status = response.getStatusLine().getStatusCode();
         this.statusLine = response.getStatusLine().getReasonPhrase();
 
-        Header[] headers = response.getAllHeaders();
-        if (headers != null) {
-            for (Header header : headers) {
-            	if(this.headers.containsKey(header.getName())) {
-            		addExcessHeader(header);
-            	} else {
-            		this.headers.put(header.getName(), header.getValue());
-            	}
-             }        
-        }   
+        // getAllHeaders returns a copy, which is kept without decoding the headers
+        this.headers = new HeaderMap(response.getAllHeaders());
 
         this.expectResponseBody = expectResponseBody;
         this.forceShutdownConnectionOnComplete = forceShutdownConnectionOnComplete;
@@ -157,19 +146,19 @@ public class TargetResponse {
     }
 
     public String getHeader(String name) {
-        return headers.get(name);
+        return headers.getFirst(name);
     }
 
-    public Map<String, String> getHeaders() {
+    public HeaderMap getHeaders() {
         return headers;
     }
 
     public Map getExcessHeaders() {
-    	return this.excessHeaders;
+    	return this.headers.getExcessHeaders();
     }
     
     public void addExcessHeader(Header h) {
-    	this.excessHeaders.put(h.getName(), h.getValue());
+    	this.headers.add(h.getName(), h.getValue());
     }
 
     public Pipe getPipe() {
@@ -28,7 +28,10 @@ import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.params.HttpParams;
 import org.apache.http.params.HttpProtocolParams;
 import org.apache.http.protocol.HTTP;
+import org.apache.synapse.transport.passthru.jmx.MBeanRegistrar;
 import org.apache.synapse.transport.passthru.jmx.PassThroughTransportMetricsCollector;
+import org.apache.synapse.transport.passthru.jmx.WorkerPoolView;
+import org.apache.synapse.transport.passthru.util.AdaptiveWorkerPool;
 import org.apache.synapse.transport.passthru.util.BufferFactory;
 
 /**
@@ -73,7 +76,20 @@ public abstract class BaseConfiguration {
     public void build() throws AxisFault {
         iOBufferSize = conf.getIOBufferSize();
 
-        if (workerPool == null) {
+        if (workerPool == null && conf.isWorkerPoolAdaptive()) {
+            AdaptiveWorkerPool adaptiveWorkerPool = new AdaptiveWorkerPool(
+                            conf.getWorkerPoolCoreSize(),
+                            conf.getWorkerPoolMaxSize(),
+                            conf.getWorkerThreadKeepaliveSec(),
+                            conf.getWorkerPoolQueueLen(),
+                            "Pass-through Message Processing Thread Group",
+                            "PassThroughMessageProcessor",
+                            conf.getWorkerPoolTuningIntervalSec(),
+                            conf.getWorkerPoolTargetQueueWait());
+            MBeanRegistrar.getInstance().registerMBean(
+                    new WorkerPoolView(adaptiveWorkerPool), "Transport", "passthru-worker-pool");
+            workerPool = adaptiveWorkerPool;
+        } else if (workerPool == null) {
             workerPool = WorkerPoolFactory.getWorkerPool(
                             conf.getWorkerPoolCoreSize(),
                             conf.getWorkerPoolMaxSize(),
@@ -93,6 +109,10 @@ public abstract class BaseConfiguration {
         return iOBufferSize;
     }
 
+    public int getResponseCompressionThreshold() {
+        return conf.getResponseCompressionThreshold();
+    }
+
     public WorkerPool getWorkerPool() {
         return workerPool;
     }
@@ -44,6 +44,23 @@ public interface PassThroughConfigPNames {
      */
     public String WORKER_POOL_QUEUE_LENGTH = "worker_pool_queue_length";
 
+    /**
+     * Defines whether the worker pool is resized at runtime between its core and maximum sizes,
+     * depending on how long the tasks wait in the queue and how busy the workers are
+     */
+    public String WORKER_POOL_ADAPTIVE = "worker_pool_adaptive";
+
+    /**
+     * Defines the interval in seconds at which the adaptive worker pool is resized
+     */
+    public String WORKER_POOL_TUNING_INTERVAL_SEC = "worker_pool_tuning_interval_sec";
+
+    /**
+     * Defines the average time in milliseconds the tasks may wait in the queue, beyond which the
+     * adaptive worker pool is grown
+     */
+    public String WORKER_POOL_TARGET_QUEUE_WAIT_MS = "worker_pool_target_queue_wait_ms";
+
     /**
      * Defines the number of IO dispatcher threads used per reactor
      */
@@ -55,6 +72,67 @@ public interface PassThroughConfigPNames {
     public String IO_BUFFER_SIZE = "io_buffer_size";
 
 
+    /**
+     * Defines the chunk size of the buffer which keeps a message body for re-reading it after
+     * the message is built
+     */
+    public String BODY_BUFFER_CHUNK_SIZE = "body_buffer_chunk_size";
+
+    /**
+     * Defines the number of chunks of a message body kept in memory, beyond which the body is
+     * written out to a temporary file
+     */
+    public String BODY_BUFFER_MAX_CHUNKS = "body_buffer_max_chunks";
+
+    /**
+     * Defines the compression level (0-9) of the gzip and deflate encoded message bodies
+     */
+    public String COMPRESSION_LEVEL = "http.compression.level";
+
+    /**
+     * Defines the maximum number of idle Deflaters and Inflaters pooled for each encoding
+     */
+    public String COMPRESSION_POOL_SIZE = "http.compression.pool.size";
+
+    /**
+     * Defines the body size in bytes beyond which a response is gzip compressed when the client
+     * accepts gzip. A negative value disables compressing the responses.
+     */
+    public String RESPONSE_COMPRESSION_THRESHOLD = "http.response.compression.threshold";
+
+    /**
+     * Defines whether the number of requests handed over to the worker pool at a time is limited
+     * adaptively, depending on the latency of the requests and the depth of the worker pool queue
+     */
+    public String ADMISSION_CONTROL_ENABLED = "http.admission.control.enabled";
+
+    /**
+     * Defines the number of concurrent requests admitted before any latency is observed
+     */
+    public String ADMISSION_INITIAL_LIMIT = "http.admission.limit.initial";
+
+    /**
+     * Defines the number of concurrent requests always admitted
+     */
+    public String ADMISSION_MIN_LIMIT = "http.admission.limit.min";
+
+    /**
+     * Defines the number of concurrent requests never exceeded
+     */
+    public String ADMISSION_MAX_LIMIT = "http.admission.limit.max";
+
+    /**
+     * Defines the worker pool queue depth beyond which the number of admitted requests is reduced.
+     * A negative value ignores the queue depth.
+     */
+    public String ADMISSION_QUEUE_THRESHOLD = "http.admission.queue.threshold";
+
+    /**
+     * Defines the number of requests held back with their input suspended until they can be
+     * admitted, beyond which the requests are rejected with a 503 response
+     */
+    public String ADMISSION_MAX_SUSPENDED = "http.admission.suspended.max";
+
     /**
      * Defines the maximum open connection limit.
      */
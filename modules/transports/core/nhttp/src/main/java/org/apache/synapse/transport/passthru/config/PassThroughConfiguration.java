@@ -28,6 +28,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Properties;
+import java.util.zip.Deflater;
 
 /**
  * This class encapsulates pass-through http transport tuning configurations specified via a
@@ -42,9 +43,19 @@ public class PassThroughConfiguration {
     private static final int DEFAULT_WORKER_POOL_SIZE_MAX        = 200;
     private static final int DEFAULT_WORKER_THREAD_KEEPALIVE_SEC = 60;
     private static final int DEFAULT_WORKER_POOL_QUEUE_LENGTH    = -1;
+    private static final int DEFAULT_WORKER_POOL_TUNING_INTERVAL_SEC = 10;
+    private static final int DEFAULT_WORKER_POOL_TARGET_QUEUE_WAIT_MS = 20;
     private static final int DEFAULT_IO_BUFFER_SIZE              = 8 * 1024;
+    private static final int DEFAULT_BODY_BUFFER_CHUNK_SIZE      = 4 * 1024;
+    private static final int DEFAULT_BODY_BUFFER_MAX_CHUNKS      = 32;
+    private static final int DEFAULT_COMPRESSION_LEVEL           = Deflater.DEFAULT_COMPRESSION;
+    private static final int DEFAULT_COMPRESSION_POOL_SIZE       = 32;
+    private static final int DEFAULT_RESPONSE_COMPRESSION_THRESHOLD = -1;
     private static final int DEFAULT_IO_THREADS_PER_REACTOR      =
                                                          Runtime.getRuntime().availableProcessors();
+    private static final int DEFAULT_ADMISSION_MIN_LIMIT         = 10;
+    private static final int DEFAULT_ADMISSION_MAX_LIMIT         = 2000;
+    private static final int DEFAULT_ADMISSION_MAX_SUSPENDED     = 1000;
     private static final int DEFAULT_MAX_ACTIVE_CON = -1;
     private static final int DEFAULT_LISTENER_SHUTDOWN_WAIT_TIME = 0;
 
@@ -90,6 +101,20 @@ public class PassThroughConfiguration {
                 DEFAULT_WORKER_POOL_QUEUE_LENGTH);
     }
 
+    public boolean isWorkerPoolAdaptive() {
+        return getBooleanProperty(PassThroughConfigPNames.WORKER_POOL_ADAPTIVE, false);
+    }
+
+    public int getWorkerPoolTuningIntervalSec() {
+        return getIntProperty(PassThroughConfigPNames.WORKER_POOL_TUNING_INTERVAL_SEC,
+                DEFAULT_WORKER_POOL_TUNING_INTERVAL_SEC);
+    }
+
+    public int getWorkerPoolTargetQueueWait() {
+        return getIntProperty(PassThroughConfigPNames.WORKER_POOL_TARGET_QUEUE_WAIT_MS,
+                DEFAULT_WORKER_POOL_TARGET_QUEUE_WAIT_MS);
+    }
+
     public int getIOThreadsPerReactor() {
         return getIntProperty(PassThroughConfigPNames.IO_THREADS_PER_REACTOR,
                 DEFAULT_IO_THREADS_PER_REACTOR);
@@ -100,6 +125,60 @@ public class PassThroughConfiguration {
                 DEFAULT_IO_BUFFER_SIZE);
     }
 
+    public int getBodyBufferChunkSize() {
+        return getIntProperty(PassThroughConfigPNames.BODY_BUFFER_CHUNK_SIZE,
+                DEFAULT_BODY_BUFFER_CHUNK_SIZE);
+    }
+
+    public int getBodyBufferMaxChunks() {
+        return getIntProperty(PassThroughConfigPNames.BODY_BUFFER_MAX_CHUNKS,
+                DEFAULT_BODY_BUFFER_MAX_CHUNKS);
+    }
+
+    public int getCompressionLevel() {
+        return getIntProperty(PassThroughConfigPNames.COMPRESSION_LEVEL,
+                DEFAULT_COMPRESSION_LEVEL);
+    }
+
+    public int getCompressionPoolSize() {
+        return getIntProperty(PassThroughConfigPNames.COMPRESSION_POOL_SIZE,
+                DEFAULT_COMPRESSION_POOL_SIZE);
+    }
+
+    public int getResponseCompressionThreshold() {
+        return getIntProperty(PassThroughConfigPNames.RESPONSE_COMPRESSION_THRESHOLD,
+                DEFAULT_RESPONSE_COMPRESSION_THRESHOLD);
+    }
+
+    public boolean isAdmissionControlEnabled() {
+        return getBooleanProperty(PassThroughConfigPNames.ADMISSION_CONTROL_ENABLED, false);
+    }
+
+    public int getAdmissionInitialLimit() {
+        return getIntProperty(PassThroughConfigPNames.ADMISSION_INITIAL_LIMIT,
+                getWorkerPoolMaxSize());
+    }
+
+    public int getAdmissionMinLimit() {
+        return getIntProperty(PassThroughConfigPNames.ADMISSION_MIN_LIMIT,
+                DEFAULT_ADMISSION_MIN_LIMIT);
+    }
+
+    public int getAdmissionMaxLimit() {
+        return getIntProperty(PassThroughConfigPNames.ADMISSION_MAX_LIMIT,
+                DEFAULT_ADMISSION_MAX_LIMIT);
+    }
+
+    public int getAdmissionQueueThreshold() {
+        return getIntProperty(PassThroughConfigPNames.ADMISSION_QUEUE_THRESHOLD,
+                getWorkerPoolCoreSize());
+    }
+
+    public int getAdmissionMaxSuspended() {
+        return getIntProperty(PassThroughConfigPNames.ADMISSION_MAX_SUSPENDED,
+                DEFAULT_ADMISSION_MAX_SUSPENDED);
+    }
+
     public boolean isKeepAliveDisabled() {
         return getBooleanProperty(PassThroughConfigPNames.DISABLE_KEEPALIVE, false);
     }
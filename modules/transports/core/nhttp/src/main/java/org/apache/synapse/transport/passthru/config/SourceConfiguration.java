@@ -41,6 +41,7 @@ import org.apache.http.protocol.ResponseDate;
 import org.apache.http.protocol.ResponseServer;
 import org.apache.synapse.transport.http.conn.Scheme;
 import org.apache.synapse.transport.nhttp.NhttpConstants;
+import org.apache.synapse.transport.passthru.AdmissionController;
 import org.apache.synapse.transport.passthru.HttpGetRequestProcessor;
 import org.apache.synapse.transport.passthru.PassThroughConstants;
 import org.apache.synapse.transport.passthru.connections.SourceConnections;
@@ -77,6 +78,9 @@ public class SourceConfiguration extends BaseConfiguration {
     /** WSDL processor for Get requests*/
     private HttpGetRequestProcessor httpGetRequestProcessor = null;
 
+    /** Limits the requests handed over to the worker pool, if admission control is enabled */
+    private AdmissionController admissionController = null;
+
 
     public SourceConfiguration(ConfigurationContext configurationContext,
                                TransportInDescription description,
@@ -137,6 +141,15 @@ public class SourceConfiguration extends BaseConfiguration {
                 handleException("Cannot create HttpGetRequestProcessor");
             }
         } 
+
+        if (conf.isAdmissionControlEnabled()) {
+            admissionController = new AdmissionController(
+                    conf.getAdmissionInitialLimit(),
+                    conf.getAdmissionMinLimit(),
+                    conf.getAdmissionMaxLimit(),
+                    conf.getAdmissionQueueThreshold(),
+                    conf.getAdmissionMaxSuspended());
+        }
     }
 
     public HttpParams getHttpParams() {
@@ -187,6 +200,10 @@ public class SourceConfiguration extends BaseConfiguration {
 		return httpGetRequestProcessor;
 	}
 
+    public AdmissionController getAdmissionController() {
+        return admissionController;
+    }
+
 	/**
      * Return the EPR prefix for services made available over this transport
      * @param cfgCtx configuration context to retrieve the service context path
@@ -0,0 +1,81 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+
+package org.apache.synapse.transport.passthru.jmx;
+
+import org.apache.synapse.transport.passthru.AdmissionController;
+
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Exposes the current limit of the admission control of a listener, and the number of requests
+ * admitted, held back and rejected. The latencies are given in milliseconds.
+ */
+public class AdmissionControlView implements AdmissionControlViewMBean {
+
+    private final AdmissionController admissionController;
+
+    private Date resetTime = Calendar.getInstance().getTime();
+
+    public AdmissionControlView(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
+    public int getLimit() {
+        return admissionController.getLimit();
+    }
+
+    public int getInFlightRequests() {
+        return admissionController.getInFlight();
+    }
+
+    public int getSuspendedRequests() {
+        return admissionController.getSuspended();
+    }
+
+    public long getAdmittedRequestCount() {
+        return admissionController.getAdmittedCount();
+    }
+
+    public long getSuspendedRequestCount() {
+        return admissionController.getSuspendedCount();
+    }
+
+    public long getRejectedRequestCount() {
+        return admissionController.getRejectedCount();
+    }
+
+    public double getLatency() {
+        return admissionController.getLatency();
+    }
+
+    public double getNoLoadLatency() {
+        return admissionController.getNoLoadLatency();
+    }
+
+    public Date getLastResetTime() {
+        return resetTime;
+    }
+
+    public void reset() {
+        admissionController.resetCounts();
+        resetTime = Calendar.getInstance().getTime();
+    }
+}
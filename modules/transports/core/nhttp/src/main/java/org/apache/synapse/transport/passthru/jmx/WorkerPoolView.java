@@ -0,0 +1,88 @@
+/*
+*  Licensed to the Apache Software Foundation (ASF) under one
+*  or more contributor license agreements.  See the NOTICE file
+*  distributed with this work for additional information
+*  regarding copyright ownership.  The ASF licenses this file
+*  to you under the Apache License, Version 2.0 (the
+*  "License"); you may not use this file except in compliance
+*  with the License.  You may obtain a copy of the License at
+*
+*   http://www.apache.org/licenses/LICENSE-2.0
+*
+*  Unless required by applicable law or agreed to in writing,
+*  software distributed under the License is distributed on an
+*   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+*  KIND, either express or implied.  See the License for the
+*  specific language governing permissions and limitations
+*  under the License.
+*/
+
+package org.apache.synapse.transport.passthru.jmx;
+
+import org.apache.synapse.transport.passthru.util.AdaptiveWorkerPool;
+
+/**
+ * Exposes the size and the measurements of the self tuning worker pool, and allows the pool to
+ * be resized at runtime. The pool keeps being tuned after a manual resize, unless automatic
+ * tuning is disabled.
+ */
+public class WorkerPoolView implements WorkerPoolViewMBean {
+
+    private final AdaptiveWorkerPool workerPool;
+
+    public WorkerPoolView(AdaptiveWorkerPool workerPool) {
+        this.workerPool = workerPool;
+    }
+
+    public int getPoolSize() {
+        return workerPool.getPoolSize();
+    }
+
+    public int getMinPoolSize() {
+        return workerPool.getMinPoolSize();
+    }
+
+    public void setMinPoolSize(int size) {
+        workerPool.setMinPoolSize(size);
+    }
+
+    public int getMaxPoolSize() {
+        return workerPool.getMaxPoolSize();
+    }
+
+    public void setMaxPoolSize(int size) {
+        workerPool.setMaxPoolSize(size);
+    }
+
+    public int getActiveCount() {
+        return workerPool.getActiveCount();
+    }
+
+    public int getQueueSize() {
+        return workerPool.getQueueSize();
+    }
+
+    public double getAvgQueueWaitTime() {
+        return workerPool.getAvgQueueWaitTime();
+    }
+
+    public double getUtilization() {
+        return workerPool.getUtilization();
+    }
+
+    public double getBlockedWorkerPercentage() {
+        return workerPool.getBlockedWorkerPercentage();
+    }
+
+    public boolean isAutoTuningEnabled() {
+        return workerPool.isAutoTuning();
+    }
+
+    public void setAutoTuningEnabled(boolean enabled) {
+        workerPool.setAutoTuning(enabled);
+    }
+
+    public void resize(int size) {
+        workerPool.setPoolSize(size);
+    }
+}
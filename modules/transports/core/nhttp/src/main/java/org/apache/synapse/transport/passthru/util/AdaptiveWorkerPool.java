@@ -0,0 +1,283 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.transport.passthru.util;
+
+import org.apache.axis2.transport.base.threads.NativeThreadFactory;
+import org.apache.axis2.transport.base.threads.WorkerPool;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.synapse.commons.jmx.ThreadingView;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A worker pool which sizes itself between the configured core and maximum sizes. The time the
+ * tasks wait in the queue, the utilization of the workers and the percentage of blocked workers
+ * sampled by a {@link ThreadingView} are measured over a tuning interval, at the end of which
+ * the pool is grown when the tasks wait too long, or shrunk when the workers are mostly idle.
+ * The pool is not grown while most of the workers are blocked, as more workers would only
+ * contend for the same resources. </p>
+ *
+ * <p> Automatic tuning can be switched off, and the pool resized manually at runtime. </p>
+ */
+public class AdaptiveWorkerPool implements WorkerPool {
+
+    private static final Log log = LogFactory.getLog(AdaptiveWorkerPool.class);
+
+    /** The blocked worker percentage beyond which the pool is not grown */
+    private static final double BLOCKED_WORKER_LIMIT = 50;
+
+    /** The utilization below which the pool is shrunk */
+    private static final double LOW_UTILIZATION = 0.5;
+
+    private final ThreadPoolExecutor executor;
+    private final ThreadingView threadingView;
+    private final ScheduledExecutorService tuner;
+    private final long targetQueueWait;
+
+    private volatile int minPoolSize;
+    private volatile int maxPoolSize;
+    private volatile boolean autoTuning = true;
+
+    private final AtomicLong queueWaitTime = new AtomicLong(0);
+    private final AtomicLong busyTime = new AtomicLong(0);
+    private final AtomicLong startedTasks = new AtomicLong(0);
+
+    private long lastTuningTime = System.nanoTime();
+    private volatile double avgQueueWait;
+    private volatile double utilization;
+    private volatile double blockedWorkerPercentage;
+
+    /**
+     * @param core the initial and minimum number of workers
+     * @param max the maximum number of workers
+     * @param keepAliveSec the keep-alive time of the workers in excess of the pool size
+     * @param queueLength the length of the task queue, or -1 for an unbounded queue
+     * @param threadGroupName the name of the thread group of the workers
+     * @param threadGroupId the name prefix of the workers
+     * @param tuningIntervalSec the interval at which the pool size is tuned
+     * @param targetQueueWaitMillis the average time the tasks may wait in the queue before the
+     * pool is grown
+     */
+    public AdaptiveWorkerPool(int core, int max, int keepAliveSec, int queueLength,
+                              String threadGroupName, final String threadGroupId,
+                              int tuningIntervalSec, int targetQueueWaitMillis) {
+
+        this.minPoolSize = core;
+        this.maxPoolSize = Math.max(core, max);
+        this.targetQueueWait = TimeUnit.MILLISECONDS.toNanos(targetQueueWaitMillis);
+
+        BlockingQueue<Runnable> queue = queueLength == -1 ? new LinkedBlockingQueue<Runnable>()
+                : new LinkedBlockingQueue<Runnable>(queueLength);
+        executor = new ThreadPoolExecutor(minPoolSize, maxPoolSize, keepAliveSec,
+                TimeUnit.SECONDS, queue,
+                new NativeThreadFactory(new ThreadGroup(threadGroupName), threadGroupId));
+
+        threadingView = new ThreadingView(threadGroupId);
+
+        tuner = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, threadGroupId + "-tuner");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        tuner.scheduleAtFixedRate(new Runnable() {
+            public void run() {
+                try {
+                    tune();
+                } catch (Throwable t) {
+                    log.error("Error tuning the worker pool size", t);
+                }
+            }
+        }, tuningIntervalSec, tuningIntervalSec, TimeUnit.SECONDS);
+    }
+
+    public void execute(Runnable task) {
+        executor.execute(new TimedTask(task));
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    public void shutdown(int timeout) throws InterruptedException {
+        tuner.shutdownNow();
+        threadingView.destroy();
+        executor.shutdown();
+        executor.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Measure the workers over the last tuning interval, and resize the pool if tuning
+     * automatically
+     */
+    private void tune() {
+        long now = System.nanoTime();
+        long interval = now - lastTuningTime;
+        lastTuningTime = now;
+
+        int poolSize = executor.getCorePoolSize();
+        long started = startedTasks.getAndSet(0);
+        avgQueueWait = started == 0 ? 0 : (double) queueWaitTime.getAndSet(0) / started;
+        utilization = interval <= 0 ? 0 :
+                Math.min(1.0, (double) busyTime.getAndSet(0) / ((double) interval * poolSize));
+        blockedWorkerPercentage = threadingView.getLastMinuteBlockedWorkerPercentage();
+
+        if (!autoTuning) {
+            return;
+        }
+        int size = nextPoolSize(poolSize, avgQueueWait, utilization, blockedWorkerPercentage);
+        if (size != poolSize) {
+            if (log.isDebugEnabled()) {
+                log.debug("Resizing the worker pool from " + poolSize + " to " + size +
+                        " workers - queue wait: " + (avgQueueWait / 1000000) +
+                        "ms, utilization: " + utilization + ", blocked workers: " +
+                        blockedWorkerPercentage + "%");
+            }
+            setPoolSize(size);
+        }
+    }
+
+    /**
+     * Compute the size of the pool for the measurements of the last tuning interval
+     *
+     * @param poolSize the current size of the pool
+     * @param queueWait the average time the tasks waited in the queue in nanoseconds
+     * @param utilization the ratio of the time the workers were busy
+     * @param blockedPercentage the percentage of the workers blocked
+     * @return the new size of the pool
+     */
+    int nextPoolSize(int poolSize, double queueWait, double utilization,
+                     double blockedPercentage) {
+        int size = poolSize;
+        if (queueWait > targetQueueWait) {
+            if (blockedPercentage < BLOCKED_WORKER_LIMIT) {
+                size = poolSize + Math.max(1, poolSize / 4);
+            }
+        } else if (utilization < LOW_UTILIZATION) {
+            size = poolSize - Math.max(1, poolSize / 8);
+        }
+        return Math.max(minPoolSize, Math.min(maxPoolSize, size));
+    }
+
+    /**
+     * Resize the pool within its bounds
+     *
+     * @param size the number of workers
+     */
+    public synchronized void setPoolSize(int size) {
+        executor.setCorePoolSize(Math.max(minPoolSize, Math.min(maxPoolSize, size)));
+    }
+
+    public int getPoolSize() {
+        return executor.getCorePoolSize();
+    }
+
+    public int getMinPoolSize() {
+        return minPoolSize;
+    }
+
+    public synchronized void setMinPoolSize(int minPoolSize) {
+        if (minPoolSize < 1 || minPoolSize > maxPoolSize) {
+            throw new IllegalArgumentException("Invalid minimum worker pool size : " +
+                    minPoolSize);
+        }
+        this.minPoolSize = minPoolSize;
+        if (executor.getCorePoolSize() < minPoolSize) {
+            executor.setCorePoolSize(minPoolSize);
+        }
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public synchronized void setMaxPoolSize(int maxPoolSize) {
+        if (maxPoolSize < minPoolSize) {
+            throw new IllegalArgumentException("Invalid maximum worker pool size : " +
+                    maxPoolSize);
+        }
+        this.maxPoolSize = maxPoolSize;
+        if (executor.getCorePoolSize() > maxPoolSize) {
+            executor.setCorePoolSize(maxPoolSize);
+        }
+        executor.setMaximumPoolSize(maxPoolSize);
+    }
+
+    public boolean isAutoTuning() {
+        return autoTuning;
+    }
+
+    public void setAutoTuning(boolean autoTuning) {
+        this.autoTuning = autoTuning;
+    }
+
+    /**
+     * @return the average time the tasks waited in the queue during the last tuning interval,
+     * in milliseconds
+     */
+    public double getAvgQueueWaitTime() {
+        return avgQueueWait / 1000000;
+    }
+
+    public double getUtilization() {
+        return utilization;
+    }
+
+    public double getBlockedWorkerPercentage() {
+        return blockedWorkerPercentage;
+    }
+
+    /**
+     * A task which records the time it waited in the queue and the time it kept a worker busy
+     */
+    private final class TimedTask implements Runnable {
+
+        private final Runnable task;
+        private final long queuedTime = System.nanoTime();
+
+        private TimedTask(Runnable task) {
+            this.task = task;
+        }
+
+        public void run() {
+            long startTime = System.nanoTime();
+            queueWaitTime.addAndGet(startTime - queuedTime);
+            startedTasks.incrementAndGet();
+            try {
+                task.run();
+            } finally {
+                busyTime.addAndGet(System.nanoTime() - startTime);
+            }
+        }
+    }
+}
@@ -0,0 +1,498 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.transport.passthru.util;
+
+import org.apache.axis2.context.MessageContext;
+import org.apache.http.protocol.HTTP;
+import org.apache.synapse.transport.passthru.config.PassThroughConfiguration;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Compresses and decompresses the gzip and deflate encoded message bodies. The streams created
+ * here use Deflaters and Inflaters taken from a pool, which are returned to the pool when the
+ * stream is closed or, for the input streams, fully read. Allocating a Deflater per message is
+ * expensive, as each one holds a native zlib stream with its own buffers.
+ */
+public final class CompressionUtils {
+
+    public static final String GZIP = "gzip";
+    public static final String X_GZIP = "x-gzip";
+    public static final String DEFLATE = "deflate";
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private static final byte[] GZIP_HEADER = {
+            (byte) GZIP_MAGIC, (byte) (GZIP_MAGIC >> 8), Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    private static final int level;
+
+    /** Pools indexed by the encoding, 0 for gzip (no zlib wrapper) and 1 for deflate */
+    private static final CodecPool<Deflater>[] deflaters;
+    private static final CodecPool<Inflater>[] inflaters;
+
+    static {
+        PassThroughConfiguration conf = PassThroughConfiguration.getInstance();
+        level = conf.getCompressionLevel();
+        int poolSize = conf.getCompressionPoolSize();
+        deflaters = new CodecPool[] {
+                new CodecPool<Deflater>(poolSize), new CodecPool<Deflater>(poolSize)};
+        inflaters = new CodecPool[] {
+                new CodecPool<Inflater>(poolSize), new CodecPool<Inflater>(poolSize)};
+    }
+
+    private CompressionUtils() {
+    }
+
+    /**
+     * Check whether the given content encoding can be compressed and decompressed
+     *
+     * @param encoding value of a Content-Encoding header
+     * @return true for gzip and deflate
+     */
+    public static boolean isSupported(String encoding) {
+        return isGzip(encoding) || isDeflate(encoding);
+    }
+
+    /**
+     * Wrap the given stream with a decompressing stream, if the Content-Encoding transport
+     * header of the message is gzip or deflate. The content is decompressed only as it is read.
+     *
+     * @param msgCtx message of which the body is read
+     * @param in stream of the message body
+     * @return the decompressing stream, or the given stream if the body is not compressed
+     * @throws IOException if the gzip header cannot be read
+     */
+    public static InputStream decompress(MessageContext msgCtx, InputStream in)
+            throws IOException {
+        Object o = msgCtx.getProperty(MessageContext.TRANSPORT_HEADERS);
+        if (o instanceof Map) {
+            Map headers = (Map) o;
+            Object encoding = headers.get(HTTP.CONTENT_ENCODING);
+            if (encoding == null) {
+                encoding = headers.get(HTTP.CONTENT_ENCODING.toLowerCase());
+            }
+            if (encoding != null) {
+                return decompress(in, encoding.toString());
+            }
+        }
+        return in;
+    }
+
+    /**
+     * Wrap the given stream with a decompressing stream for the given content encoding
+     *
+     * @param in compressed stream
+     * @param encoding value of the Content-Encoding header
+     * @return the decompressing stream, or the given stream if the encoding is not supported
+     * @throws IOException if the gzip header cannot be read
+     */
+    public static InputStream decompress(InputStream in, String encoding) throws IOException {
+        if (isGzip(encoding)) {
+            return new PooledInflaterInputStream(in, true);
+        } else if (isDeflate(encoding)) {
+            return new PooledInflaterInputStream(in, false);
+        }
+        return in;
+    }
+
+    /**
+     * Wrap the given stream with a compressing stream for the given content encoding. The
+     * returned stream must be closed to complete the compressed content.
+     *
+     * @param out stream to write the compressed content to
+     * @param encoding value of the Content-Encoding header
+     * @return the compressing stream, or the given stream if the encoding is not supported
+     * @throws IOException if the gzip header cannot be written
+     */
+    public static OutputStream compress(OutputStream out, String encoding) throws IOException {
+        if (isGzip(encoding)) {
+            return new PooledDeflaterOutputStream(out, true);
+        } else if (isDeflate(encoding)) {
+            return new PooledDeflaterOutputStream(out, false);
+        }
+        return out;
+    }
+
+    /**
+     * Wrap the given stream with a stream which compresses the content only if it grows beyond
+     * the given threshold. Up to the threshold the content is held in memory, and it is written
+     * uncompressed if the stream is closed before reaching the threshold. The given callback is
+     * run before anything is written compressed, so that the Content-Encoding header can be set.
+     *
+     * @param out stream to write the content to
+     * @param encoding content encoding to compress with
+     * @param threshold number of bytes beyond which the content is compressed
+     * @param onCompress callback run once the content is known to be compressed
+     * @return the stream, which must be closed to complete the content
+     */
+    public static OutputStream compressAboveThreshold(OutputStream out, String encoding,
+                                                      int threshold, Runnable onCompress) {
+        return new ThresholdOutputStream(out, encoding, threshold, onCompress);
+    }
+
+    private static boolean isGzip(String encoding) {
+        return encoding != null && (GZIP.equalsIgnoreCase(encoding.trim()) ||
+                X_GZIP.equalsIgnoreCase(encoding.trim()));
+    }
+
+    private static boolean isDeflate(String encoding) {
+        return encoding != null && DEFLATE.equalsIgnoreCase(encoding.trim());
+    }
+
+    private static Deflater borrowDeflater(boolean gzip) {
+        Deflater deflater = deflaters[gzip ? 0 : 1].poll();
+        return deflater != null ? deflater : new Deflater(level, gzip);
+    }
+
+    private static void releaseDeflater(Deflater deflater, boolean gzip) {
+        deflater.reset();
+        if (!deflaters[gzip ? 0 : 1].offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    private static Inflater borrowInflater(boolean gzip) {
+        Inflater inflater = inflaters[gzip ? 0 : 1].poll();
+        return inflater != null ? inflater : new Inflater(gzip);
+    }
+
+    private static void releaseInflater(Inflater inflater, boolean gzip) {
+        inflater.reset();
+        if (!inflaters[gzip ? 0 : 1].offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    /**
+     * A bounded pool of idle Deflaters or Inflaters
+     */
+    private static class CodecPool<T> {
+
+        private final Queue<T> idle = new ConcurrentLinkedQueue<T>();
+        private final AtomicInteger size = new AtomicInteger(0);
+        private final int capacity;
+
+        CodecPool(int capacity) {
+            this.capacity = capacity;
+        }
+
+        T poll() {
+            T t = idle.poll();
+            if (t != null) {
+                size.decrementAndGet();
+            }
+            return t;
+        }
+
+        boolean offer(T t) {
+            if (size.incrementAndGet() > capacity) {
+                size.decrementAndGet();
+                return false;
+            }
+            idle.offer(t);
+            return true;
+        }
+    }
+
+    /**
+     * Writes gzip (deflate without the zlib wrapper, between a gzip header and trailer) or
+     * deflate (zlib) content using a pooled Deflater
+     */
+    private static class PooledDeflaterOutputStream extends DeflaterOutputStream {
+
+        private final boolean gzip;
+        private final CRC32 crc;
+        private boolean released = false;
+
+        PooledDeflaterOutputStream(OutputStream out, boolean gzip) throws IOException {
+            super(out, borrowDeflater(gzip), BUFFER_SIZE);
+            this.gzip = gzip;
+            if (gzip) {
+                crc = new CRC32();
+                out.write(GZIP_HEADER);
+            } else {
+                crc = null;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            if (crc != null) {
+                crc.update(b, off, len);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (!released && !def.finished()) {
+                super.finish();
+                if (gzip) {
+                    writeInt((int) crc.getValue());
+                    writeInt((int) def.getBytesRead());
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!released) {
+                try {
+                    finish();
+                    out.close();
+                } finally {
+                    released = true;
+                    releaseDeflater(def, gzip);
+                }
+            }
+        }
+
+        private void writeInt(int i) throws IOException {
+            out.write(i & 0xff);
+            out.write((i >> 8) & 0xff);
+            out.write((i >> 16) & 0xff);
+            out.write((i >> 24) & 0xff);
+        }
+    }
+
+    /**
+     * Reads gzip or deflate (zlib) content using a pooled Inflater. The gzip trailer is
+     * verified at the end of the content. Concatenated gzip members are not supported.
+     */
+    private static class PooledInflaterInputStream extends InflaterInputStream {
+
+        private final boolean gzip;
+        private final CRC32 crc;
+        private boolean eos = false;
+        private boolean released = false;
+
+        PooledInflaterInputStream(InputStream in, boolean gzip) throws IOException {
+            super(in, borrowInflater(gzip), BUFFER_SIZE);
+            this.gzip = gzip;
+            if (gzip) {
+                crc = new CRC32();
+                try {
+                    readHeader();
+                } catch (IOException e) {
+                    release();
+                    throw e;
+                }
+            } else {
+                crc = null;
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (eos) {
+                return -1;
+            }
+            int n;
+            try {
+                n = super.read(b, off, len);
+                if (n == -1) {
+                    if (gzip) {
+                        readTrailer();
+                    }
+                    eos = true;
+                    release();
+                } else if (crc != null) {
+                    crc.update(b, off, n);
+                }
+            } catch (IOException e) {
+                release();
+                throw e;
+            }
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return eos ? 0 : super.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            release();
+            in.close();
+        }
+
+        private void release() {
+            if (!released) {
+                released = true;
+                releaseInflater(inf, gzip);
+            }
+        }
+
+        private void readHeader() throws IOException {
+            if (readUShort(in) != GZIP_MAGIC) {
+                throw new ZipException("Not in GZIP format");
+            }
+            if (readUByte(in) != Deflater.DEFLATED) {
+                throw new ZipException("Unsupported compression method");
+            }
+            int flags = readUByte(in);
+            // modification time, extra flags and operating system
+            skipBytes(in, 6);
+            if ((flags & FEXTRA) == FEXTRA) {
+                skipBytes(in, readUShort(in));
+            }
+            if ((flags & FNAME) == FNAME) {
+                while (readUByte(in) != 0) {
+                    // skip the file name
+                }
+            }
+            if ((flags & FCOMMENT) == FCOMMENT) {
+                while (readUByte(in) != 0) {
+                    // skip the comment
+                }
+            }
+            if ((flags & FHCRC) == FHCRC) {
+                skipBytes(in, 2);
+            }
+        }
+
+        private void readTrailer() throws IOException {
+            // the trailer may already be in the buffer read by the inflater
+            byte[] trailer = new byte[8];
+            int remaining = Math.min(inf.getRemaining(), trailer.length);
+            System.arraycopy(buf, len - inf.getRemaining(), trailer, 0, remaining);
+            for (int i = remaining; i < trailer.length; i++) {
+                trailer[i] = (byte) readUByte(in);
+            }
+            if (readInt(trailer, 0) != crc.getValue() ||
+                    readInt(trailer, 4) != (inf.getBytesWritten() & 0xffffffffL)) {
+                throw new ZipException("Corrupt GZIP trailer");
+            }
+        }
+
+        private static long readInt(byte[] b, int off) {
+            return (b[off] & 0xffL) | ((b[off + 1] & 0xffL) << 8) |
+                    ((b[off + 2] & 0xffL) << 16) | ((b[off + 3] & 0xffL) << 24);
+        }
+
+        private static int readUShort(InputStream in) throws IOException {
+            int b = readUByte(in);
+            return (readUByte(in) << 8) | b;
+        }
+
+        private static int readUByte(InputStream in) throws IOException {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException("Unexpected end of GZIP input stream");
+            }
+            return b;
+        }
+
+        private static void skipBytes(InputStream in, int n) throws IOException {
+            for (int i = 0; i < n; i++) {
+                readUByte(in);
+            }
+        }
+    }
+
+    /**
+     * Holds the content in memory up to a threshold, and compresses it once it goes beyond
+     */
+    private static class ThresholdOutputStream extends OutputStream {
+
+        private final OutputStream out;
+        private final String encoding;
+        private final int threshold;
+        private final Runnable onCompress;
+
+        private ByteArrayOutputStream pending;
+        private OutputStream target;
+        private boolean closed = false;
+
+        ThresholdOutputStream(OutputStream out, String encoding, int threshold,
+                              Runnable onCompress) {
+            this.out = out;
+            this.encoding = encoding;
+            this.threshold = threshold;
+            this.onCompress = onCompress;
+            this.pending = new ByteArrayOutputStream(Math.min(Math.max(threshold, 32),
+                    BUFFER_SIZE));
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (target == null) {
+                if (pending.size() + len <= threshold) {
+                    pending.write(b, off, len);
+                    return;
+                }
+                onCompress.run();
+                target = compress(out, encoding);
+                pending.writeTo(target);
+                pending = null;
+            }
+            target.write(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (target != null) {
+                target.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (target != null) {
+                target.close();
+            } else {
+                pending.writeTo(out);
+                out.close();
+            }
+        }
+    }
+}
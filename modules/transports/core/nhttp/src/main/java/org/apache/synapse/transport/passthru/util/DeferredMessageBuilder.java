@@ -92,7 +92,7 @@ public class DeferredMessageBuilder {
     	
 		String contentType = (String) msgCtx.getProperty(Constants.Configuration.CONTENT_TYPE);
 		String _contentType = getContentType(contentType, msgCtx);
-		in = HTTPTransportUtils.handleGZip(msgCtx, in);
+		in = CompressionUtils.decompress(msgCtx, in);
 
 		AxisConfiguration configuration = msgCtx.getConfigurationContext().getAxisConfiguration();
 		Parameter useFallbackParameter =
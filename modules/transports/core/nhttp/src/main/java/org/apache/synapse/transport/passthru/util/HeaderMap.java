@@ -0,0 +1,499 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.transport.passthru.util;
+
+import org.apache.http.Header;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The HTTP headers of a message, with case insensitive header names. The headers are kept in
+ * flat arrays in the order they were received or added, and a name may occur more than once.
+ * The headers parsed by HttpCore are kept as they are, and their names and values are decoded
+ * only when they are looked at.</p>
+ *
+ * <p>As a Map, this exposes the first value of each header name. That is what the transport
+ * puts in the TRANSPORT_HEADERS property and what the mediators modify. The repeated values are
+ * exposed through {@link #getExcessHeaders()}, which is a live view of the same arrays, so the
+ * same instance goes from the source request to the mediators and to the target request
+ * without being copied.</p>
+ *
+ * <p>A copy made through {@link #HeaderMap(HeaderMap)} shares the arrays with the original
+ * until one of them is modified. Like the maps it replaces, this is not thread safe.</p>
+ */
+public class HeaderMap extends AbstractMap<String, Object> {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    /** Headers as received, null for the headers added or set afterwards */
+    private Header[] raw;
+    /** Header names, decoded from the raw headers on first use */
+    private String[] names;
+    /** Header values, decoded from the raw headers on first use */
+    private Object[] values;
+    /** Number of headers, including the repeated names */
+    private int count;
+
+    /** Whether a name may occur more than once, in which case the map view skips the repeats */
+    private boolean repeated;
+
+    /** Whether the arrays are shared with another map and must be copied before modifying */
+    private boolean shared;
+
+    private int modCount;
+
+    public HeaderMap() {
+    }
+
+    /**
+     * Create a map holding the given headers, without decoding them
+     *
+     * @param headers headers of a request or a response, the array is owned by this map
+     */
+    public HeaderMap(Header[] headers) {
+        if (headers != null && headers.length > 0) {
+            raw = headers;
+            names = new String[headers.length];
+            values = new Object[headers.length];
+            count = headers.length;
+            repeated = headers.length > 1;
+        }
+    }
+
+    /**
+     * Create a copy of the given map. The arrays are shared by the two maps until one of them
+     * is modified.
+     *
+     * @param source map to copy
+     */
+    public HeaderMap(HeaderMap source) {
+        raw = source.raw;
+        names = source.names;
+        values = source.values;
+        count = source.count;
+        repeated = source.repeated;
+        if (count > 0) {
+            shared = true;
+            source.shared = true;
+        }
+    }
+
+    /**
+     * Get the number of headers, counting each occurrence of a repeated name
+     *
+     * @return number of headers
+     */
+    public int getHeaderCount() {
+        return count;
+    }
+
+    /**
+     * Get the name of the header at the given position
+     *
+     * @param index position of the header, less than {@link #getHeaderCount()}
+     * @return name of the header
+     */
+    public String getName(int index) {
+        String name = names[index];
+        if (name == null && raw != null && raw[index] != null) {
+            name = raw[index].getName();
+            names[index] = name;
+        }
+        return name;
+    }
+
+    /**
+     * Get the value of the header at the given position
+     *
+     * @param index position of the header, less than {@link #getHeaderCount()}
+     * @return value of the header, which is a String unless a mediator has set something else
+     */
+    public Object getValue(int index) {
+        Object value = values[index];
+        if (value == null && raw != null && raw[index] != null) {
+            value = raw[index].getValue();
+            values[index] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Add a header, keeping the headers with the same name
+     *
+     * @param name header name
+     * @param value header value
+     */
+    public void add(String name, Object value) {
+        if (name == null) {
+            throw new NullPointerException("Header name cannot be null");
+        }
+        if (!repeated && indexOf(name, 0) >= 0) {
+            repeated = true;
+        }
+        append(name, value);
+    }
+
+    /**
+     * Check whether a header with the given name and value exists
+     *
+     * @param name header name
+     * @param value header value
+     * @return true if the header exists
+     */
+    public boolean contains(String name, Object value) {
+        for (int i = indexOf(name, 0); i >= 0; i = indexOf(name, i + 1)) {
+            Object v = getValue(i);
+            if (v == null ? value == null : v.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get a view of the repeated headers, which maps each header name that occurs more than
+     * once to the values after the first one. The view is read only, and it reflects the
+     * changes made to this map.
+     *
+     * @return the repeated headers
+     */
+    public Map<String, Collection<String>> getExcessHeaders() {
+        return new AbstractMap<String, Collection<String>>() {
+
+            @Override
+            public Collection<String> get(Object key) {
+                if (!(key instanceof String) || !repeated) {
+                    return null;
+                }
+                List<String> excess = null;
+                int first = indexOf((String) key, 0);
+                for (int i = first >= 0 ? indexOf((String) key, first + 1) : -1; i >= 0;
+                     i = indexOf((String) key, i + 1)) {
+                    if (excess == null) {
+                        excess = new ArrayList<String>(2);
+                    }
+                    excess.add(String.valueOf(getValue(i)));
+                }
+                return excess;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return get(key) != null;
+            }
+
+            @Override
+            public Set<Entry<String, Collection<String>>> entrySet() {
+                Map<String, Collection<String>> excess =
+                        new LinkedHashMap<String, Collection<String>>();
+                if (repeated) {
+                    for (int i = 0; i < count; i++) {
+                        if (!isFirst(i)) {
+                            String name = getName(i);
+                            String firstName = getName(indexOf(name, 0));
+                            Collection<String> list = excess.get(firstName);
+                            if (list == null) {
+                                list = new ArrayList<String>(2);
+                                excess.put(firstName, list);
+                            }
+                            list.add(String.valueOf(getValue(i)));
+                        }
+                    }
+                }
+                return Collections.unmodifiableMap(excess).entrySet();
+            }
+        };
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int i = indexOf((String) key, 0);
+        return i >= 0 ? getValue(i) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && indexOf((String) key, 0) >= 0;
+    }
+
+    /**
+     * Get the first value of the given header
+     *
+     * @param name header name
+     * @return the value as a String, or null if there is no such header
+     */
+    public String getFirst(String name) {
+        Object value = get(name);
+        return value != null ? value.toString() : null;
+    }
+
+    /**
+     * Set the first header with the given name, or add it if there is no such header. The
+     * repeated headers with the same name are kept. Replacing the value of an existing header
+     * is not a structural change, so it may be done while iterating over the entries.
+     */
+    @Override
+    public Object put(String name, Object value) {
+        if (name == null) {
+            throw new NullPointerException("Header name cannot be null");
+        }
+        int i = indexOf(name, 0);
+        if (i < 0) {
+            append(name, value);
+            return null;
+        }
+        // the name at i has been decoded by indexOf, so the raw header is no longer needed
+        Object old = getValue(i);
+        copyIfShared();
+        values[i] = value;
+        if (raw != null) {
+            raw[i] = null;
+        }
+        return old;
+    }
+
+    /**
+     * Remove all the headers with the given name. The repeated values are removed as well, so
+     * they no longer appear in {@link #getExcessHeaders()} and are not sent with the message.
+     */
+    @Override
+    public Object remove(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        String name = (String) key;
+        int i = indexOf(name, 0);
+        if (i < 0) {
+            return null;
+        }
+        Object old = getValue(i);
+        copyIfShared();
+        for (; i >= 0; i = indexOf(name, i)) {
+            removeAt(i);
+        }
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        raw = null;
+        names = null;
+        values = null;
+        count = 0;
+        repeated = false;
+        shared = false;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        if (!repeated) {
+            return count;
+        }
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            if (isFirst(i)) {
+                size++;
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            public Iterator<Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            public int size() {
+                return HeaderMap.this.size();
+            }
+
+            public void clear() {
+                HeaderMap.this.clear();
+            }
+        };
+    }
+
+    private void append(String name, Object value) {
+        copyIfShared();
+        if (names == null) {
+            names = new String[INITIAL_CAPACITY];
+            values = new Object[INITIAL_CAPACITY];
+        } else if (count == names.length) {
+            int capacity = names.length * 2;
+            String[] newNames = new String[capacity];
+            Object[] newValues = new Object[capacity];
+            System.arraycopy(names, 0, newNames, 0, count);
+            System.arraycopy(values, 0, newValues, 0, count);
+            names = newNames;
+            values = newValues;
+            if (raw != null) {
+                Header[] newRaw = new Header[capacity];
+                System.arraycopy(raw, 0, newRaw, 0, count);
+                raw = newRaw;
+            }
+        }
+        names[count] = name;
+        values[count] = value;
+        count++;
+        modCount++;
+    }
+
+    private void removeAt(int index) {
+        int moved = count - index - 1;
+        if (moved > 0) {
+            System.arraycopy(names, index + 1, names, index, moved);
+            System.arraycopy(values, index + 1, values, index, moved);
+            if (raw != null) {
+                System.arraycopy(raw, index + 1, raw, index, moved);
+            }
+        }
+        count--;
+        names[count] = null;
+        values[count] = null;
+        if (raw != null) {
+            raw[count] = null;
+        }
+        modCount++;
+    }
+
+    private void copyIfShared() {
+        if (shared) {
+            if (names != null) {
+                names = names.clone();
+                values = values.clone();
+            }
+            if (raw != null) {
+                raw = raw.clone();
+            }
+            shared = false;
+        }
+    }
+
+    /**
+     * Find the first header with the given name, at or after the given position
+     */
+    private int indexOf(String name, int from) {
+        for (int i = from; i < count; i++) {
+            String n = getName(i);
+            if (n == name || (n != null && n.equalsIgnoreCase(name))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Whether the header at the given position is the first one with its name
+     */
+    private boolean isFirst(int index) {
+        if (!repeated) {
+            return true;
+        }
+        String name = getName(index);
+        for (int i = 0; i < index; i++) {
+            if (name.equalsIgnoreCase(getName(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private final class EntryIterator implements Iterator<Entry<String, Object>> {
+
+        private int next = 0;
+        private String lastName;
+        private int expectedModCount = modCount;
+
+        public boolean hasNext() {
+            while (next < count && !isFirst(next)) {
+                next++;
+            }
+            return next < count;
+        }
+
+        public Entry<String, Object> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            lastName = getName(next);
+            Entry<String, Object> entry = new HeaderEntry(lastName, getValue(next));
+            next++;
+            return entry;
+        }
+
+        public void remove() {
+            if (lastName == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            // the removed headers are at or after the previous position
+            int removedBefore = 0;
+            for (int i = 0; i < next; i++) {
+                if (lastName.equalsIgnoreCase(getName(i))) {
+                    removedBefore++;
+                }
+            }
+            HeaderMap.this.remove(lastName);
+            next -= removedBefore;
+            expectedModCount = modCount;
+            lastName = null;
+        }
+    }
+
+    private final class HeaderEntry extends SimpleEntry<String, Object> {
+
+        private HeaderEntry(String name, Object value) {
+            super(name, value);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+}
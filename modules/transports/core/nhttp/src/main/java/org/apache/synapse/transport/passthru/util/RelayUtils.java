@@ -39,7 +39,6 @@ import org.apache.synapse.transport.passthru.config.PassThroughConfiguration;
 
 import javax.xml.stream.XMLStreamException;
 
-import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
@@ -108,8 +107,7 @@ public class RelayUtils {
 
     public static void builldMessage(MessageContext messageContext, boolean earlyBuild,
                                      InputStream in) throws IOException, AxisFault {
-        //
-        BufferedInputStream bufferedInputStream = (BufferedInputStream) messageContext
+        InputStream bufferedInputStream = (InputStream) messageContext
                 .getProperty(PassThroughConstants.BUFFERED_INPUT_STREAM);
         if (bufferedInputStream != null) {
             try {
@@ -120,10 +118,13 @@ public class RelayUtils {
             }
 
         } else {
-            bufferedInputStream = new BufferedInputStream(in);
-            // TODO: need to handle properly for the moment lets use around 100k
-            // buffer.
-            bufferedInputStream.mark(128 * 1024);
+            // the body is buffered as it is read, so that it can be re-read after the build,
+            // in memory up to a limit and in a temporary file beyond that
+            PassThroughConfiguration conf = PassThroughConfiguration.getInstance();
+            // the buffer is released once the message, its clones and its envelope are gone,
+            // as any of them may still read the body after the response has been sent
+            bufferedInputStream = new ReplayableInputStream(in,
+                    conf.getBodyBufferMaxChunks(), conf.getBodyBufferChunkSize());
             messageContext.setProperty(PassThroughConstants.BUFFERED_INPUT_STREAM,
                     bufferedInputStream);
         }
@@ -0,0 +1,189 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.transport.passthru.util;
+
+import org.apache.synapse.commons.util.TemporaryData;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An input stream over a message body which can be re-read from the beginning any number of
+ * times. The body is copied into a {@link TemporaryData} as it is read from the source stream,
+ * so the first read streams as usual. The body is kept in memory up to the given number of
+ * chunks, and written out to a temporary file beyond that, which caps the memory held by each
+ * message regardless of the body size.
+ * <p/>
+ * {@link #reset()} always rewinds to the beginning of the body, reading the rest of the source
+ * stream into the buffer first. {@link #mark(int)} has no effect, there is no read limit.
+ * {@link #release()} deletes the temporary file if there is one; once released the stream
+ * passes the rest of the source stream through without buffering it.
+ * <p/>
+ * The stream is shared by the message it was created for, its clones, and the builder of the
+ * envelope which may still read from it after the mediation of the message has returned, e.g.
+ * while the message is being sent out. The buffer of a stream which is not released explicitly
+ * is therefore released once none of them refers to the stream anymore: the streams which have
+ * become unreachable are released when a new stream is created.
+ */
+public class ReplayableInputStream extends InputStream {
+
+    /** Buffers of the streams which have not been released, by the reference to each stream */
+    private static final Map<BufferReference, Boolean> buffers =
+            new ConcurrentHashMap<BufferReference, Boolean>();
+    private static final ReferenceQueue<ReplayableInputStream> unreachable =
+            new ReferenceQueue<ReplayableInputStream>();
+
+    private final InputStream source;
+    private final TemporaryData data;
+    private final BufferReference reference;
+    /** The buffer being filled from the source, null once the source is fully read */
+    private OutputStream copy;
+    /** The stream replaying the buffer, null until the first reset */
+    private InputStream replay;
+
+    public ReplayableInputStream(InputStream source, int numberOfChunks, int chunkSize) {
+        releaseUnreachable();
+        this.source = source;
+        this.data = new TemporaryData(numberOfChunks, chunkSize, "passthru-body_", ".dat");
+        this.copy = data.getOutputStream();
+        this.reference = new BufferReference(this, data);
+        buffers.put(reference, Boolean.TRUE);
+    }
+
+    public int read() throws IOException {
+        byte[] b = new byte[1];
+        int c = read(b, 0, 1);
+        return c == -1 ? -1 : b[0] & 0xFF;
+    }
+
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (replay != null) {
+            return replay.read(b, off, len);
+        }
+        int c = source.read(b, off, len);
+        if (c > 0 && copy != null) {
+            copy.write(b, off, c);
+        } else if (c == -1) {
+            completeCopy();
+        }
+        return c;
+    }
+
+    public int available() throws IOException {
+        return replay != null ? replay.available() : source.available();
+    }
+
+    public boolean markSupported() {
+        return true;
+    }
+
+    public void mark(int readlimit) {
+        // reset always rewinds to the beginning of the body
+    }
+
+    public void reset() throws IOException {
+        if (copy != null) {
+            byte[] buffer = new byte[4096];
+            int c;
+            while ((c = source.read(buffer)) != -1) {
+                copy.write(buffer, 0, c);
+            }
+            completeCopy();
+        }
+        if (replay != null) {
+            replay.close();
+        }
+        replay = data.getInputStream();
+    }
+
+    private void completeCopy() throws IOException {
+        if (copy != null) {
+            copy.close();
+            copy = null;
+        }
+    }
+
+    /**
+     * @return the number of bytes of the body buffered so far
+     */
+    public long getBufferedLength() {
+        return data.getLength();
+    }
+
+    public void close() throws IOException {
+        if (replay != null) {
+            replay.close();
+        }
+    }
+
+    /**
+     * Closes the stream and releases the buffer, deleting the temporary file if the body has
+     * been written out to one
+     */
+    public void release() {
+        try {
+            close();
+            completeCopy();
+        } catch (IOException ignore) {
+            // nothing to do, the buffer is released regardless
+        }
+        if (buffers.remove(reference) != null) {
+            reference.clear();
+            data.release();
+        }
+    }
+
+    /**
+     * Release the buffers of the streams which are no longer referred to
+     *
+     * @return the number of buffers released
+     */
+    static int releaseUnreachable() {
+        int released = 0;
+        Reference<? extends ReplayableInputStream> ref;
+        while ((ref = unreachable.poll()) != null) {
+            BufferReference bufferReference = (BufferReference) ref;
+            if (buffers.remove(bufferReference) != null) {
+                bufferReference.data.release();
+                released++;
+            }
+        }
+        return released;
+    }
+
+    /**
+     * A reference to a stream, which keeps its buffer to be released once the stream is gone
+     */
+    private static final class BufferReference extends PhantomReference<ReplayableInputStream> {
+
+        private final TemporaryData data;
+
+        private BufferReference(ReplayableInputStream stream, TemporaryData data) {
+            super(stream, unreachable);
+            this.data = data;
+        }
+    }
+}
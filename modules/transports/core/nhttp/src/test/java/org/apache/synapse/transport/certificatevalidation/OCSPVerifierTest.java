@@ -29,12 +29,21 @@ import org.bouncycastle.asn1.x509.X509Extensions;
 import org.bouncycastle.ocsp.*;
 import org.bouncycastle.x509.X509V3CertificateGenerator;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.lang.reflect.Method;
 import java.math.BigInteger;
+import java.net.InetSocketAddress;
 import java.security.*;
 import java.security.cert.X509Certificate;
 import java.util.Date;
 import java.util.Vector;
+import java.util.concurrent.Executors;
 
 public class OCSPVerifierTest extends TestCase {
 
@@ -83,6 +92,116 @@ public class OCSPVerifierTest extends TestCase {
         assertTrue(status == RevocationStatus.REVOKED);
     }
 
+    /**
+     * The OCSP response is fetched from a local stand-in OCSP responder, which answers with a response saying
+     * that the fake peer certificate is revoked.
+     *
+     * @throws Exception
+     */
+    public void testLocalOCSPResponder() throws Exception {
+
+        Security.addProvider(new org.bouncycastle.jce.provider.BouncyCastleProvider());
+
+        Utils utils = new Utils();
+        KeyPair caKeyPair = utils.generateRSAKeyPair();
+        X509Certificate caCert = utils.generateFakeRootCert(caKeyPair);
+        BigInteger revokedSerialNumber = BigInteger.valueOf(222);
+
+        OCSPReq request = getOCSPRequest(caCert, revokedSerialNumber);
+        CertificateID revokedID = new CertificateID(CertificateID.HASH_SHA1, caCert, revokedSerialNumber);
+        OCSPResp response = generateOCSPResponse(request, caKeyPair.getPrivate(), caKeyPair.getPublic(), revokedID);
+
+        HttpServer responder = startOCSPResponder(response.getEncoded(), 0);
+        try {
+            TestOCSPVerifier ocspVerifier = new TestOCSPVerifier();
+            OCSPResp fetched = ocspVerifier.fetch(getResponderUrl(responder), request);
+            SingleResp singleResp = ((BasicOCSPResp) fetched.getResponseObject()).getResponses()[0];
+            assertTrue(singleResp.getCertStatus() instanceof RevokedStatus);
+        } finally {
+            responder.stop(0);
+        }
+    }
+
+    /**
+     * A slow OCSP responder should not hold the calling thread for longer than the configured timeout.
+     *
+     * @throws Exception
+     */
+    public void testOCSPResponderTimeout() throws Exception {
+
+        Security.addProvider(new org.bouncycastle.jce.provider.BouncyCastleProvider());
+
+        Utils utils = new Utils();
+        KeyPair caKeyPair = utils.generateRSAKeyPair();
+        X509Certificate caCert = utils.generateFakeRootCert(caKeyPair);
+        OCSPReq request = getOCSPRequest(caCert, BigInteger.valueOf(333));
+
+        HttpServer responder = startOCSPResponder(new byte[0], 5000);
+        try {
+            TestOCSPVerifier ocspVerifier = new TestOCSPVerifier();
+            ocspVerifier.setTimeout(200);
+            long start = System.currentTimeMillis();
+            try {
+                ocspVerifier.fetch(getResponderUrl(responder), request);
+                fail("The OCSP call should time out");
+            } catch (CertificateVerificationException expected) {
+            }
+            assertTrue(System.currentTimeMillis() - start < 5000);
+        } finally {
+            responder.stop(0);
+        }
+    }
+
+    /**
+     * Starts a local stand-in OCSP responder, which answers every request with the given response.
+     *
+     * @param encodedResponse the encoded OCSP response to send.
+     * @param delay time in milliseconds to wait before responding.
+     * @return the started responder.
+     * @throws Exception
+     */
+    private HttpServer startOCSPResponder(final byte[] encodedResponse, final long delay) throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/ocsp", new HttpHandler() {
+            public void handle(HttpExchange exchange) throws IOException {
+                InputStream in = exchange.getRequestBody();
+                while (in.read() != -1) {
+                    // consume the request
+                }
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ignore) {
+                }
+                exchange.getResponseHeaders().add("Content-Type", "application/ocsp-response");
+                exchange.sendResponseHeaders(200, encodedResponse.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(encodedResponse);
+                out.close();
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        return server;
+    }
+
+    private String getResponderUrl(HttpServer responder) {
+        return "http://localhost:" + responder.getAddress().getPort() + "/ocsp";
+    }
+
+    /**
+     * Exposes the OCSP call of the verifier to the tests.
+     */
+    private static class TestOCSPVerifier extends OCSPVerifier {
+
+        TestOCSPVerifier() {
+            super(null);
+        }
+
+        OCSPResp fetch(String serviceUrl, OCSPReq request) throws CertificateVerificationException {
+            return getOCSPResponce(serviceUrl, request);
+        }
+    }
+
     /**
      * An OCSP request is made to be given to the fake CA. Reflection is used to call generateOCSPRequest(..) private
      * method in OCSPVerifier.
@@ -0,0 +1,111 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.transport.passthru;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AdmissionControllerTest extends TestCase {
+
+    private static final long MILLIS = 1000000;
+
+    public void testLimit() {
+        AdmissionController controller = new AdmissionController(2, 1, 10, -1, 0);
+        assertTrue(controller.tryAcquire());
+        assertTrue(controller.tryAcquire());
+        assertFalse(controller.tryAcquire());
+        assertEquals(2, controller.getInFlight());
+
+        controller.release(-1, 0);
+        assertTrue(controller.tryAcquire());
+        assertEquals(3, controller.getAdmittedCount());
+    }
+
+    public void testSuspendAndReject() {
+        AdmissionController controller = new AdmissionController(1, 1, 1, -1, 2);
+        final List<String> admitted = new ArrayList<String>();
+        assertTrue(controller.tryAcquire());
+
+        assertTrue(controller.suspend(admission(admitted, "first", true)));
+        assertTrue(controller.suspend(admission(admitted, "abandoned", false)));
+        assertFalse(controller.suspend(admission(admitted, "rejected", true)));
+        assertEquals(2, controller.getSuspended());
+        assertEquals(1, controller.getRejectedCount());
+        assertTrue(admitted.isEmpty());
+
+        controller.release(10 * MILLIS, 0);
+        assertEquals(1, admitted.size());
+        assertEquals("first", admitted.get(0));
+        assertEquals(1, controller.getInFlight());
+
+        // the abandoned request gives its permit back
+        controller.release(10 * MILLIS, 0);
+        assertEquals(2, admitted.size());
+        assertEquals(0, controller.getInFlight());
+        assertEquals(0, controller.getSuspended());
+    }
+
+    public void testLimitAdapts() {
+        AdmissionController controller = new AdmissionController(20, 5, 100, 50, 0);
+        fill(controller);
+        for (int i = 0; i < 200; i++) {
+            controller.release(10 * MILLIS, 0);
+            fill(controller);
+        }
+        int grown = controller.getLimit();
+        assertTrue("The limit should grow without latency increase: " + grown, grown > 20);
+
+        // the latency grows as the requests queue up
+        for (int i = 0; i < 50; i++) {
+            controller.release(100 * MILLIS, 0);
+            fill(controller);
+        }
+        int reduced = controller.getLimit();
+        assertTrue("The limit should shrink as the latency grows: " + reduced, reduced < grown);
+
+        // a deep worker pool queue cuts the limit down regardless of the latency
+        controller = new AdmissionController(80, 5, 100, 50, 0);
+        controller.release(10 * MILLIS, 0);
+        controller.release(10 * MILLIS, 60);
+        assertTrue(controller.getLimit() < 80);
+        for (int i = 0; i < 100; i++) {
+            controller.release(10 * MILLIS, 60);
+        }
+        assertEquals(5, controller.getLimit());
+    }
+
+    private static void fill(AdmissionController controller) {
+        while (controller.tryAcquire()) {
+        }
+    }
+
+    private static AdmissionController.Admission admission(final List<String> admitted,
+                                                           final String name,
+                                                           final boolean open) {
+        return new AdmissionController.Admission() {
+            public boolean admit() {
+                admitted.add(name);
+                return open;
+            }
+        };
+    }
+}
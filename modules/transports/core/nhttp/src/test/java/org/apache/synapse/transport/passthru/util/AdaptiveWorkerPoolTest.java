@@ -0,0 +1,88 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.transport.passthru.util;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AdaptiveWorkerPoolTest extends TestCase {
+
+    private static final double MILLIS = 1000000;
+
+    private AdaptiveWorkerPool pool;
+
+    protected void setUp() throws Exception {
+        pool = new AdaptiveWorkerPool(4, 16, 60, -1, "test-group", "AdaptiveWorkerPoolTest",
+                3600, 20);
+    }
+
+    protected void tearDown() throws Exception {
+        pool.shutdown(1000);
+    }
+
+    public void testNextPoolSize() {
+        // tasks waiting too long grow the pool, unless the workers are blocked
+        assertEquals(5, pool.nextPoolSize(4, 50 * MILLIS, 1.0, 0));
+        assertEquals(10, pool.nextPoolSize(8, 50 * MILLIS, 1.0, 10));
+        assertEquals(8, pool.nextPoolSize(8, 50 * MILLIS, 1.0, 80));
+        assertEquals(16, pool.nextPoolSize(15, 50 * MILLIS, 1.0, 0));
+
+        // idle workers shrink the pool
+        assertEquals(14, pool.nextPoolSize(16, 0, 0.2, 0));
+        assertEquals(4, pool.nextPoolSize(4, 0, 0.2, 0));
+
+        // a busy pool without waiting tasks is left as it is
+        assertEquals(8, pool.nextPoolSize(8, 5 * MILLIS, 0.9, 0));
+    }
+
+    public void testResize() {
+        assertEquals(4, pool.getPoolSize());
+        pool.setPoolSize(10);
+        assertEquals(10, pool.getPoolSize());
+        pool.setPoolSize(100);
+        assertEquals(16, pool.getPoolSize());
+
+        pool.setMaxPoolSize(8);
+        assertEquals(8, pool.getPoolSize());
+        pool.setMinPoolSize(6);
+        pool.setPoolSize(1);
+        assertEquals(6, pool.getPoolSize());
+
+        try {
+            pool.setMinPoolSize(9);
+            fail("The minimum size cannot exceed the maximum size");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testExecute() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(20);
+        for (int i = 0; i < 20; i++) {
+            pool.execute(new Runnable() {
+                public void run() {
+                    latch.countDown();
+                }
+            });
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.transport.passthru.util;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+public class CompressionUtilsTest extends TestCase {
+
+    private static final byte[] PAYLOAD = payload();
+
+    public void testGzipRoundTrip() throws Exception {
+        // repeated so that the pooled deflaters and inflaters are reused
+        for (int i = 0; i < 3; i++) {
+            byte[] compressed = compress(CompressionUtils.GZIP, PAYLOAD);
+            assertTrue(Arrays.equals(PAYLOAD,
+                    read(new GZIPInputStream(new ByteArrayInputStream(compressed)))));
+            assertTrue(Arrays.equals(PAYLOAD, read(CompressionUtils.decompress(
+                    new ByteArrayInputStream(compressed), CompressionUtils.GZIP))));
+        }
+    }
+
+    public void testDecompressJdkGzip() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputStream out = new GZIPOutputStream(bytes);
+        out.write(PAYLOAD);
+        out.close();
+
+        // trailing content after the gzip member must not be consumed as part of it
+        bytes.write("trailing".getBytes("UTF-8"));
+        InputStream in = CompressionUtils.decompress(
+                new ByteArrayInputStream(bytes.toByteArray()), CompressionUtils.X_GZIP);
+        assertTrue(Arrays.equals(PAYLOAD, read(in)));
+        assertEquals(-1, in.read());
+    }
+
+    public void testDeflateRoundTrip() throws Exception {
+        byte[] compressed = compress(CompressionUtils.DEFLATE, PAYLOAD);
+        assertTrue(Arrays.equals(PAYLOAD,
+                read(new InflaterInputStream(new ByteArrayInputStream(compressed)))));
+        assertTrue(Arrays.equals(PAYLOAD, read(CompressionUtils.decompress(
+                new ByteArrayInputStream(compressed), CompressionUtils.DEFLATE))));
+    }
+
+    public void testCorruptGzip() throws Exception {
+        byte[] compressed = compress(CompressionUtils.GZIP, PAYLOAD);
+        compressed[compressed.length - 5]++;
+        try {
+            read(CompressionUtils.decompress(
+                    new ByteArrayInputStream(compressed), CompressionUtils.GZIP));
+            fail("The corrupt trailer should be detected");
+        } catch (ZipException expected) {
+        }
+
+        try {
+            CompressionUtils.decompress(new ByteArrayInputStream(PAYLOAD), CompressionUtils.GZIP);
+            fail("Content without the gzip header should be rejected");
+        } catch (ZipException expected) {
+        }
+    }
+
+    public void testUnsupportedEncoding() throws Exception {
+        assertFalse(CompressionUtils.isSupported("br"));
+        assertTrue(CompressionUtils.isSupported("GZIP"));
+
+        InputStream in = new ByteArrayInputStream(PAYLOAD);
+        assertSame(in, CompressionUtils.decompress(in, "identity"));
+        OutputStream out = new ByteArrayOutputStream();
+        assertSame(out, CompressionUtils.compress(out, null));
+    }
+
+    public void testThreshold() throws Exception {
+        final boolean[] compressed = new boolean[1];
+        Runnable onCompress = new Runnable() {
+            public void run() {
+                compressed[0] = true;
+            }
+        };
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputStream out = CompressionUtils.compressAboveThreshold(
+                bytes, CompressionUtils.GZIP, PAYLOAD.length, onCompress);
+        out.write(PAYLOAD, 0, 10);
+        out.write(PAYLOAD, 10, PAYLOAD.length - 10);
+        out.close();
+        assertFalse(compressed[0]);
+        assertTrue(Arrays.equals(PAYLOAD, bytes.toByteArray()));
+
+        bytes = new ByteArrayOutputStream();
+        out = CompressionUtils.compressAboveThreshold(
+                bytes, CompressionUtils.GZIP, PAYLOAD.length - 1, onCompress);
+        out.write(PAYLOAD);
+        out.close();
+        assertTrue(compressed[0]);
+        assertTrue(Arrays.equals(PAYLOAD,
+                read(new GZIPInputStream(new ByteArrayInputStream(bytes.toByteArray())))));
+    }
+
+    private static byte[] compress(String encoding, byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputStream out = CompressionUtils.compress(bytes, encoding);
+        out.write(content);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] read(InputStream in) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            bytes.write(buffer, 0, n);
+        }
+        in.close();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] payload() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 500; i++) {
+            json.append("{\"id\":").append(i).append(",\"name\":\"item").append(i)
+                    .append("\",\"price\":").append(i * 7 % 100).append(".5},");
+        }
+        json.setCharAt(json.length() - 1, ']');
+        try {
+            return json.toString().getBytes("UTF-8");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.transport.passthru.util;
+
+import junit.framework.TestCase;
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+
+public class HeaderMapTest extends TestCase {
+
+    private HeaderMap createHeaders() {
+        return new HeaderMap(new Header[] {
+                new BasicHeader("Content-Type", "text/xml"),
+                new BasicHeader("SOAPAction", "urn:mediate"),
+                new BasicHeader("Accept", "text/xml"),
+                new BasicHeader("accept", "application/json")
+        });
+    }
+
+    public void testCaseInsensitiveLookup() {
+        HeaderMap headers = createHeaders();
+        assertEquals("text/xml", headers.get("content-type"));
+        assertEquals("urn:mediate", headers.getFirst("SOAPACTION"));
+        assertEquals("text/xml", headers.get("ACCEPT"));
+        assertTrue(headers.containsKey("Accept"));
+        assertNull(headers.get("Host"));
+
+        assertEquals(3, headers.size());
+        assertEquals(4, headers.getHeaderCount());
+    }
+
+    public void testExcessHeaders() {
+        HeaderMap headers = createHeaders();
+        Map<String, Collection<String>> excess = headers.getExcessHeaders();
+        assertEquals(1, excess.size());
+        assertEquals("application/json", excess.get("Accept").iterator().next());
+        assertNull(excess.get("Content-Type"));
+
+        headers.add("Content-Type", "application/xml");
+        assertEquals("application/xml", excess.get("content-type").iterator().next());
+        assertEquals("text/xml", headers.get("Content-Type"));
+    }
+
+    public void testRemoveDropsRepeatedValues() {
+        HeaderMap headers = createHeaders();
+        Map<String, Collection<String>> excess = headers.getExcessHeaders();
+        assertEquals("text/xml", headers.remove("accept"));
+        assertFalse(headers.containsKey("Accept"));
+        assertNull(excess.get("Accept"));
+        assertTrue(excess.isEmpty());
+        assertEquals(2, headers.getHeaderCount());
+    }
+
+    public void testSetValueWhileIterating() {
+        HeaderMap headers = createHeaders();
+        int entries = 0;
+        for (Iterator<Map.Entry<String, Object>> it = headers.entrySet().iterator();
+             it.hasNext();) {
+            Map.Entry<String, Object> entry = it.next();
+            entries++;
+            if ("Content-Type".equals(entry.getKey())) {
+                entry.setValue("application/soap+xml");
+            } else if ("SOAPAction".equals(entry.getKey())) {
+                headers.put("soapaction", "urn:other");
+            }
+        }
+        assertEquals(3, entries);
+        assertEquals("application/soap+xml", headers.get("content-type"));
+        assertEquals("urn:other", headers.get("SOAPAction"));
+        assertEquals("application/json",
+                headers.getExcessHeaders().get("Accept").iterator().next());
+    }
+
+    public void testPutAndIterate() {
+        HeaderMap headers = createHeaders();
+        assertEquals("text/xml", headers.put("CONTENT-TYPE", "application/soap+xml"));
+        assertEquals("application/soap+xml", headers.get("Content-Type"));
+        assertNull(headers.put("Host", "localhost"));
+        headers.put("Timeout", 10);
+        assertEquals(10, headers.get("timeout"));
+
+        int entries = 0;
+        for (Iterator<Map.Entry<String, Object>> it = headers.entrySet().iterator();
+             it.hasNext();) {
+            Map.Entry<String, Object> entry = it.next();
+            entries++;
+            if ("Accept".equals(entry.getKey())) {
+                it.remove();
+            }
+        }
+        assertEquals(5, entries);
+        assertFalse(headers.containsKey("accept"));
+        assertEquals(4, headers.size());
+    }
+
+    public void testSharedCopies() {
+        HeaderMap source = createHeaders();
+        HeaderMap copy = new HeaderMap(source);
+        assertEquals(source, copy);
+
+        copy.put("SOAPAction", "urn:other");
+        copy.remove("Content-Type");
+        assertEquals("urn:mediate", source.get("SOAPAction"));
+        assertEquals("text/xml", source.get("Content-Type"));
+
+        source.add("Host", "localhost");
+        assertNull(copy.get("Host"));
+        assertEquals(4, source.size());
+        assertEquals(2, copy.size());
+    }
+}
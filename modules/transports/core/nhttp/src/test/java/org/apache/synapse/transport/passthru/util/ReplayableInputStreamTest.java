@@ -0,0 +1,105 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *   * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.apache.synapse.transport.passthru.util;
+
+import junit.framework.TestCase;
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+public class ReplayableInputStreamTest extends TestCase {
+
+    public void testReplayInMemory() throws Exception {
+        assertReplayable(1000, 16, 128);
+    }
+
+    public void testReplayFromTemporaryFile() throws Exception {
+        // 4 chunks of 128 bytes in memory, the rest goes to the temporary file
+        assertReplayable(100 * 1024, 4, 128);
+    }
+
+    public void testResetBeforeFullyRead() throws Exception {
+        byte[] body = createBody(5000);
+        ReplayableInputStream in = new ReplayableInputStream(
+                new ByteArrayInputStream(body), 4, 128);
+        byte[] head = new byte[100];
+        assertEquals(100, in.read(head));
+
+        in.reset();
+        assertTrue(Arrays.equals(body, IOUtils.toByteArray(in)));
+        assertEquals(body.length, in.getBufferedLength());
+        in.release();
+    }
+
+    public void testReadAfterRelease() throws Exception {
+        byte[] body = createBody(5000);
+        ReplayableInputStream in = new ReplayableInputStream(
+                new ByteArrayInputStream(body), 4, 128);
+        byte[] head = new byte[100];
+        assertEquals(100, in.read(head));
+        long buffered = in.getBufferedLength();
+
+        // the rest of the body streams through without being buffered
+        in.release();
+        byte[] rest = IOUtils.toByteArray(in);
+        assertEquals(body.length - 100, rest.length);
+        assertTrue(Arrays.equals(Arrays.copyOfRange(body, 100, body.length), rest));
+        assertEquals(buffered, in.getBufferedLength());
+    }
+
+    public void testUnreachableStreamReleased() throws Exception {
+        ReplayableInputStream in = new ReplayableInputStream(
+                new ByteArrayInputStream(createBody(5000)), 4, 128);
+        IOUtils.toByteArray(in);
+        in = null;
+
+        // the buffer of the stream is released once the stream is garbage collected
+        int released = 0;
+        for (int i = 0; i < 50 && released == 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+            released = ReplayableInputStream.releaseUnreachable();
+        }
+        assertTrue(released > 0);
+    }
+
+    private void assertReplayable(int size, int chunks, int chunkSize) throws Exception {
+        byte[] body = createBody(size);
+        ReplayableInputStream in = new ReplayableInputStream(
+                new ByteArrayInputStream(body), chunks, chunkSize);
+        try {
+            assertTrue(Arrays.equals(body, IOUtils.toByteArray(in)));
+            for (int i = 0; i < 3; i++) {
+                in.reset();
+                assertTrue(Arrays.equals(body, IOUtils.toByteArray(in)));
+            }
+        } finally {
+            in.release();
+        }
+    }
+
+    private byte[] createBody(int size) {
+        byte[] body = new byte[size];
+        new Random(size).nextBytes(body);
+        return body;
+    }
+}